@@ -0,0 +1,374 @@
+package com.esotericsoftware.filesystem;
+
+import java.io.*;
+import java.util.*;
+import java.util.regex.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * Concatenates (and optionally {@link Minifier minifies}) the JS & CSS files of a (freshly staged) web directory into a few bundles, and
+ * rewrites the HTML files' script & stylesheet tags to load the bundles, so a page makes one request per bundle instead of one per file.
+ * <p/>
+ * Each bundle (a root relative path ending in ".js" or ".css") has an ordered list of root relative wildcard patterns for its members;
+ * each pattern's matches are added (sorted) in the order of the patterns, a file matched again is not added twice.
+ * <p/>
+ * Conservative by design:
+ * <ul>
+ * <li>The member files are left in place (references to them that are not rewritten still work).</li>
+ * <li>An HTML file's tags are only rewritten if it loads ALL the members of a bundle, in the bundle's order, with no other script (or
+ * style) tag between them.  The first tag then loads the bundle, the others are removed.</li>
+ * <li>A member that can't be minified (e.g. an unterminated literal) is bundled as is.</li>
+ * <li>The 'url(...)'s in CSS members are rebased to the bundle's directory.</li>
+ * </ul>
+ */
+public class AssetBundler
+{
+    private static final Pattern TAG = Pattern.compile( "<script\\b[^>]*>[\\s\\S]*?</script\\s*>|<link\\b[^>]*>|<style\\b[^>]*>[\\s\\S]*?</style\\s*>",
+                                                        Pattern.CASE_INSENSITIVE );
+    private static final Pattern SRC_OR_HREF = Pattern.compile( "\\b(?:src|href)\\s*=\\s*([\"'])([^\"']*)\\1", Pattern.CASE_INSENSITIVE );
+    private static final Pattern STYLESHEET = Pattern.compile( "\\brel\\s*=\\s*[\"']?stylesheet\\b", Pattern.CASE_INSENSITIVE );
+    private static final Pattern CSS_URL = Pattern.compile( "url\\(\\s*([\"']?)([^\"')]+)\\1\\s*\\)", Pattern.CASE_INSENSITIVE );
+    private static final Pattern CSS_CHARSET = Pattern.compile( "^\\s*@charset\\s+[\"'][^\"']*[\"']\\s*;\\s*", Pattern.CASE_INSENSITIVE );
+
+    private final File mRoot;
+    private final boolean mMinify;
+    private final Map<String, List<String>> mBundles = new LinkedHashMap<String, List<String>>(); // bundle -> member patterns
+    private final List<String> mWarnings = new ArrayList<String>();
+
+    public AssetBundler( String pRoot, boolean pMinify )
+    {
+        mRoot = FileUtil.getCanonicalFile( new File( Util.assertNotEmpty( "Root", pRoot ) ) );
+        mMinify = pMinify;
+    }
+
+    /**
+     * @param pBundle   root relative path of the bundle, must end with ".js" or ".css".
+     * @param pPatterns root relative wildcard patterns for the members, in load order.
+     */
+    public AssetBundler add( String pBundle, List<String> pPatterns )
+    {
+        pBundle = Util.assertNotEmpty( "Bundle", pBundle ).replace( '\\', '/' );
+        if ( pBundle.startsWith( "/" ) )
+        {
+            pBundle = pBundle.substring( 1 );
+        }
+        if ( !isJS( pBundle ) && !isCSS( pBundle ) )
+        {
+            throw new IllegalArgumentException( "Bundle '" + pBundle + "' is neither a '.js' nor a '.css' file" );
+        }
+        mBundles.put( pBundle, new ArrayList<String>( Util.assertNotNull( "Patterns", pPatterns ) ) );
+        return this;
+    }
+
+    /**
+     * @return the problems (e.g. an HTML file that loads only some of a bundle's members) noticed by the last {@link #bundle()}.
+     */
+    public List<String> getWarnings()
+    {
+        return Collections.unmodifiableList( mWarnings );
+    }
+
+    /**
+     * Write the bundles and rewrite the HTML files that load them.
+     *
+     * @return the number of bundles written (a bundle with no members is not).
+     */
+    public int bundle()
+    {
+        mWarnings.clear();
+        Map<String, List<String>> zMembersByBundle = new LinkedHashMap<String, List<String>>();
+        for ( Map.Entry<String, List<String>> zEntry : mBundles.entrySet() )
+        {
+            String zBundle = zEntry.getKey();
+            List<String> zMembers = members( zBundle, zEntry.getValue() );
+            if ( zMembers.isEmpty() )
+            {
+                mWarnings.add( "Bundle '" + zBundle + "' has no members" );
+                continue;
+            }
+            String zContent = isJS( zBundle ) ? concatenateJS( zMembers ) : concatenateCSS( zBundle, zMembers );
+            AssetFingerprinter.write( new File( mRoot, zBundle ), AssetFingerprinter.latin1( zContent ) );
+            zMembersByBundle.put( zBundle, zMembers );
+        }
+        if ( !zMembersByBundle.isEmpty() )
+        {
+            for ( FilePath zHtml : new Paths( mRoot.getPath(), "**.html", "**.htm", "!WEB-INF/**", "!META-INF/**" ).getPaths() )
+            {
+                String zRelativePath = zHtml.getFileSubPath().replace( '\\', '/' );
+                byte[] zContent = AssetFingerprinter.read( zHtml.file() );
+                byte[] zRewritten = rewriteHtml( zRelativePath, zContent, zMembersByBundle );
+                if ( zRewritten != zContent )
+                {
+                    AssetFingerprinter.write( zHtml.file(), zRewritten );
+                }
+            }
+        }
+        return zMembersByBundle.size();
+    }
+
+    private List<String> members( String pBundle, List<String> pPatterns )
+    {
+        Set<String> zMembers = new LinkedHashSet<String>();
+        for ( String zPattern : pPatterns )
+        {
+            for ( FilePath zPath : new Paths( mRoot.getPath(), zPattern ).getPaths() )
+            {
+                String zMember = zPath.getFileSubPath().replace( '\\', '/' );
+                if ( !zMember.equals( pBundle ) )
+                {
+                    zMembers.add( zMember );
+                }
+            }
+        }
+        return new ArrayList<String>( zMembers );
+    }
+
+    private String concatenateJS( List<String> pMembers )
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( String zMember : pMembers )
+        {
+            String zJS = AssetFingerprinter.latin1( AssetFingerprinter.read( new File( mRoot, zMember ) ) );
+            if ( mMinify )
+            {
+                try
+                {
+                    zJS = Minifier.js( zJS );
+                }
+                catch ( IllegalArgumentException e )
+                {
+                    mWarnings.add( "Not minified '" + zMember + "': " + e.getMessage() );
+                }
+            }
+            sb.append( zJS ).append( "\n;\n" ); // Terminates a trailing '//' comment or a statement relying on a missing semicolon
+        }
+        return sb.toString();
+    }
+
+    private String concatenateCSS( String pBundle, List<String> pMembers )
+    {
+        String zBundleDir = directoryOf( pBundle );
+        StringBuilder sb = new StringBuilder();
+        for ( String zMember : pMembers )
+        {
+            String zCSS = AssetFingerprinter.latin1( AssetFingerprinter.read( new File( mRoot, zMember ) ) );
+            zCSS = rebaseUrls( directoryOf( zMember ), zCSS, zBundleDir );
+            if ( sb.length() != 0 )
+            {
+                zCSS = CSS_CHARSET.matcher( zCSS ).replaceFirst( "" ); // Only allowed at the very start
+            }
+            sb.append( mMinify ? Minifier.css( zCSS ) : zCSS ).append( '\n' );
+        }
+        return sb.toString();
+    }
+
+    private static String rebaseUrls( String pMemberDir, String pCSS, String pBundleDir )
+    {
+        if ( pMemberDir.equals( pBundleDir ) )
+        {
+            return pCSS;
+        }
+        Matcher zMatcher = CSS_URL.matcher( pCSS );
+        StringBuffer sb = new StringBuffer( pCSS.length() + 256 );
+        while ( zMatcher.find() )
+        {
+            String zUrl = zMatcher.group( 2 ).trim();
+            int zSuffixAt = suffixAt( zUrl );
+            String zResolved = (zUrl.startsWith( "/" ) || zUrl.startsWith( "#" )) ? null : AssetFingerprinter.resolve( pMemberDir, zUrl.substring( 0, zSuffixAt ) );
+            String zReplacement = (zResolved == null) ? zMatcher.group() : //
+                                  "url(" + zMatcher.group( 1 ) + relative( pBundleDir, zResolved ) + zUrl.substring( zSuffixAt ) + zMatcher.group( 1 ) + ")";
+            zMatcher.appendReplacement( sb, Matcher.quoteReplacement( zReplacement ) );
+        }
+        zMatcher.appendTail( sb );
+        return sb.toString();
+    }
+
+    /**
+     * @return pContent if nothing was rewritten.
+     */
+    byte[] rewriteHtml( String pRelativePath, byte[] pContent, Map<String, List<String>> pMembersByBundle )
+    {
+        String zDir = directoryOf( pRelativePath );
+        String zHtml = AssetFingerprinter.latin1( pContent );
+        List<Tag> zScripts = new ArrayList<Tag>();
+        List<Tag> zStyles = new ArrayList<Tag>();
+        for ( Matcher zMatcher = TAG.matcher( zHtml ); zMatcher.find(); )
+        {
+            String zTag = zMatcher.group();
+            boolean zScript = zTag.regionMatches( true, 1, "script", 0, 6 );
+            if ( zScript || zTag.regionMatches( true, 1, "style", 0, 5 ) || STYLESHEET.matcher( zTag ).find() )
+            {
+                Tag zFound = new Tag( zMatcher.start(), zMatcher.end() );
+                Matcher zSource = SRC_OR_HREF.matcher( zScript ? zTag.substring( 0, zTag.indexOf( '>' ) ) : zTag );
+                if ( zSource.find() )
+                {
+                    zFound.mSourceStart = zMatcher.start() + zSource.start( 2 );
+                    zFound.mSourceEnd = zMatcher.start() + zSource.end( 2 );
+                    String zSourceRef = zSource.group( 2 );
+                    zFound.mResolved = AssetFingerprinter.resolve( zDir, zSourceRef.substring( 0, suffixAt( zSourceRef ) ) );
+                }
+                (zScript ? zScripts : zStyles).add( zFound );
+            }
+        }
+        List<int[]> zEdits = new ArrayList<int[]>(); // start, end, bundle index (-1 == delete)
+        List<String> zBundles = new ArrayList<String>( pMembersByBundle.keySet() );
+        for ( int zBundleIndex = 0; zBundleIndex < zBundles.size(); zBundleIndex++ )
+        {
+            String zBundle = zBundles.get( zBundleIndex );
+            List<String> zMembers = pMembersByBundle.get( zBundle );
+            List<Tag> zTags = isJS( zBundle ) ? zScripts : zStyles;
+            int zFirst = findRun( zTags, zMembers );
+            if ( zFirst == -1 )
+            {
+                if ( loadsAny( zTags, zMembers ) )
+                {
+                    mWarnings.add( "'" + pRelativePath + "' not rewritten to load '" + zBundle + "': it does not load all of its members, in order, together" );
+                }
+                continue;
+            }
+            Tag zTag = zTags.get( zFirst );
+            zEdits.add( new int[]{zTag.mSourceStart, zTag.mSourceEnd, zBundleIndex} );
+            for ( int i = 1; i < zMembers.size(); i++ )
+            {
+                zTag = zTags.get( zFirst + i );
+                zEdits.add( new int[]{zTag.mStart, endOfWhitespace( zHtml, zTag.mEnd ), -1} );
+            }
+        }
+        if ( zEdits.isEmpty() )
+        {
+            return pContent;
+        }
+        Collections.sort( zEdits, new Comparator<int[]>()
+        {
+            @Override
+            public int compare( int[] pEdit1, int[] pEdit2 )
+            {
+                return pEdit2[0] - pEdit1[0]; // Last first, so the earlier offsets stay valid
+            }
+        } );
+        StringBuilder sb = new StringBuilder( zHtml );
+        for ( int[] zEdit : zEdits )
+        {
+            sb.replace( zEdit[0], zEdit[1], (zEdit[2] == -1) ? "" : relative( zDir, zBundles.get( zEdit[2] ) ) );
+        }
+        return AssetFingerprinter.latin1( sb.toString() );
+    }
+
+    /**
+     * @return the index of the first of the consecutive tags that load exactly the members (in order), or -1.
+     */
+    private static int findRun( List<Tag> pTags, List<String> pMembers )
+    {
+        nextStart:
+        for ( int zStart = 0; zStart + pMembers.size() <= pTags.size(); zStart++ )
+        {
+            for ( int i = 0; i < pMembers.size(); i++ )
+            {
+                if ( !pMembers.get( i ).equals( pTags.get( zStart + i ).mResolved ) )
+                {
+                    continue nextStart;
+                }
+            }
+            return zStart;
+        }
+        return -1;
+    }
+
+    private static boolean loadsAny( List<Tag> pTags, List<String> pMembers )
+    {
+        for ( Tag zTag : pTags )
+        {
+            if ( pMembers.contains( zTag.mResolved ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int endOfWhitespace( String pText, int pFrom )
+    {
+        while ( (pFrom < pText.length()) && Character.isWhitespace( pText.charAt( pFrom ) ) )
+        {
+            pFrom++;
+        }
+        return pFrom;
+    }
+
+    /**
+     * @return the index of the query string / fragment, or the length if there is neither.
+     */
+    private static int suffixAt( String pReference )
+    {
+        for ( int i = 0; i < pReference.length(); i++ )
+        {
+            char c = pReference.charAt( i );
+            if ( (c == '?') || (c == '#') )
+            {
+                return i;
+            }
+        }
+        return pReference.length();
+    }
+
+    /**
+     * @return the ('/' terminated, or empty) directory of the root relative path.
+     */
+    private static String directoryOf( String pRelativePath )
+    {
+        return pRelativePath.substring( 0, pRelativePath.lastIndexOf( '/' ) + 1 );
+    }
+
+    /**
+     * @return the reference (from a file in pFromDir) to the root relative path pTo.
+     */
+    static String relative( String pFromDir, String pTo )
+    {
+        String[] zFrom = pFromDir.split( "/" );
+        String[] zTo = pTo.split( "/" );
+        int zFromLength = pFromDir.length() == 0 ? 0 : zFrom.length;
+        int zCommon = 0;
+        while ( (zCommon < zFromLength) && (zCommon < zTo.length - 1) && zFrom[zCommon].equals( zTo[zCommon] ) )
+        {
+            zCommon++;
+        }
+        StringBuilder sb = new StringBuilder();
+        for ( int i = zCommon; i < zFromLength; i++ )
+        {
+            sb.append( "../" );
+        }
+        for ( int i = zCommon; i < zTo.length; i++ )
+        {
+            sb.append( zTo[i] );
+            if ( i < zTo.length - 1 )
+            {
+                sb.append( '/' );
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isJS( String pPath )
+    {
+        return pPath.toLowerCase().endsWith( ".js" );
+    }
+
+    private static boolean isCSS( String pPath )
+    {
+        return pPath.toLowerCase().endsWith( ".css" );
+    }
+
+    private static class Tag
+    {
+        private final int mStart, mEnd;
+        private int mSourceStart, mSourceEnd;
+        private String mResolved;
+
+        Tag( int pStart, int pEnd )
+        {
+            mStart = pStart;
+            mEnd = pEnd;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.esotericsoftware.filesystem;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * Gives the static assets in a (freshly staged) web directory content hashed names (e.g. "img/logo.png" -> "img/logo.1f2e3d4c.png"),
+ * and rewrites the references to them in the CSS, JS & HTML files, so the assets can be served with "cache forever" headers: an
+ * unchanged asset keeps its URL across releases, and a changed one gets a new URL.
+ * <p/>
+ * The work is done in phases, each phase's files processed concurrently & only rewritten with the names from the earlier phases (so the
+ * result does not depend on the order within a phase):
+ * <ol>
+ * <li>Binary assets (images & fonts) are hashed.</li>
+ * <li>CSS files have their references rewritten, then are hashed.</li>
+ * <li>JS files have their references rewritten, then are hashed.</li>
+ * <li>HTML files (the entry points, so never renamed) have their references rewritten.</li>
+ * </ol>
+ * The hashed file is a copy, the original is left in place, so references that are not (or can not be) rewritten (e.g. from a later
+ * phase file, from GWT's compiled code, or from server side templates) still work. The hashed copies (e.g. from an earlier run over the
+ * same directory) are recognized by their name matching their content, and are neither hashed again nor rewritten.
+ * <p/>
+ * Not touched: anything under "WEB-INF/" or "META-INF/", GWT's "*.nocache.js" (must keep its name) & "*.cache.*" (already content named)
+ * files, and ".gz" sidecars (create those after fingerprinting).
+ */
+public class AssetFingerprinter
+{
+    public static final String[] BINARY_EXTENSIONS = {"png", "gif", "jpg", "jpeg", "ico", "webp", "svg", "woff", "woff2", "ttf", "eot", "otf"};
+
+    private static final String[] EXCLUDES = {"!WEB-INF/**", "!META-INF/**", "!**.nocache.js", "!**.cache.*", "!**.gz"};
+
+    private static final int HASH_LENGTH = 8;
+
+    private static final Pattern REFERENCE;
+
+    static
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( String zExtension : BINARY_EXTENSIONS )
+        {
+            sb.append( zExtension ).append( '|' );
+        }
+        sb.append( "css|js" );
+        REFERENCE = Pattern.compile( "[^\\s\"'()<>=?#,;\\\\]+\\.(?:" + sb + ")(?=[?#\"'()\\s<>,;\\\\]|$)", Pattern.CASE_INSENSITIVE );
+    }
+
+    private final File mRoot;
+    private final Map<String, String> mHashedNames = new ConcurrentHashMap<String, String>(); // root relative path -> hashed file name
+
+    public AssetFingerprinter( String pRoot )
+    {
+        mRoot = FileUtil.getCanonicalFile( new File( Util.assertNotEmpty( "Root", pRoot ) ) );
+    }
+
+    /**
+     * @return the number of assets given a content hashed name.
+     */
+    public int fingerprint()
+    {
+        process( patterns( BINARY_EXTENSIONS ), false, true );
+        process( patterns( "css" ), true, true );
+        process( patterns( "js" ), true, true );
+        process( patterns( "html", "htm" ), true, false );
+        return mHashedNames.size();
+    }
+
+    /**
+     * @return the root relative path ('/' separated) to hashed file name mappings.
+     */
+    public Map<String, String> getHashedNames()
+    {
+        return Collections.unmodifiableMap( mHashedNames );
+    }
+
+    private Map<String, String> snapshot()
+    {
+        return new HashMap<String, String>( mHashedNames );
+    }
+
+    private String[] patterns( String... pExtensions )
+    {
+        List<String> zPatterns = new ArrayList<String>();
+        for ( String zExtension : pExtensions )
+        {
+            zPatterns.add( "**." + zExtension );
+        }
+        zPatterns.addAll( Arrays.asList( EXCLUDES ) );
+        return zPatterns.toArray( new String[zPatterns.size()] );
+    }
+
+    private void process( String[] pPatterns, final boolean pRewrite, final boolean pHash )
+    {
+        final Map<String, String> zEarlierPhases = snapshot();
+        Parallel.forEach( new Paths( mRoot.getPath(), pPatterns ).getPaths(), new Parallel.Action<FilePath>()
+        {
+            @Override
+            public void process( FilePath pPath )
+            {
+                String zRelativePath = pPath.getFileSubPath().replace( '\\', '/' );
+                byte[] zContent = read( pPath.file() );
+                if ( isHashed( pPath.file().getName(), zContent ) )
+                {
+                    return;
+                }
+                if ( pRewrite )
+                {
+                    byte[] zRewritten = rewrite( zRelativePath, zContent, zEarlierPhases );
+                    if ( zRewritten != zContent )
+                    {
+                        write( pPath.file(), zContent = zRewritten );
+                    }
+                }
+                if ( pHash )
+                {
+                    String zHashedName = hashedName( pPath.file().getName(), zContent );
+                    write( new File( pPath.file().getParentFile(), zHashedName ), zContent );
+                    mHashedNames.put( zRelativePath, zHashedName );
+                }
+            }
+        } );
+    }
+
+    /**
+     * @return pContent if there were no references to rewrite.
+     */
+    byte[] rewrite( String pRelativePath, byte[] pContent, Map<String, String> pHashedNames )
+    {
+        if ( pHashedNames.isEmpty() )
+        {
+            return pContent;
+        }
+        String zDir = pRelativePath.substring( 0, pRelativePath.lastIndexOf( '/' ) + 1 );
+        String zText = latin1( pContent );
+        Matcher zMatcher = REFERENCE.matcher( zText );
+        StringBuffer sb = null;
+        while ( zMatcher.find() )
+        {
+            String zReference = zMatcher.group();
+            String zHashedName = pHashedNames.get( resolve( zDir, zReference ) );
+            if ( zHashedName != null )
+            {
+                if ( sb == null )
+                {
+                    sb = new StringBuffer( zText.length() + 256 );
+                }
+                String zReplacement = zReference.substring( 0, zReference.lastIndexOf( '/' ) + 1 ) + zHashedName;
+                zMatcher.appendReplacement( sb, Matcher.quoteReplacement( zReplacement ) );
+            }
+        }
+        if ( sb == null )
+        {
+            return pContent;
+        }
+        zMatcher.appendTail( sb );
+        return latin1( sb.toString() );
+    }
+
+    /**
+     * @return the root relative path the reference (from a file in pDir) refers to, or null if it is not a local (relative or root
+     *         absolute) reference, or it is outside the root.
+     */
+    static String resolve( String pDir, String pReference )
+    {
+        if ( pReference.startsWith( "//" ) || (pReference.indexOf( ':' ) != -1) )
+        {
+            return null; // Other host or scheme (e.g. 'http:', 'data:')
+        }
+        String zPath = pReference.startsWith( "/" ) ? pReference.substring( 1 ) : (pDir + pReference);
+        LinkedList<String> zSegments = new LinkedList<String>();
+        for ( String zSegment : zPath.split( "/" ) )
+        {
+            if ( zSegment.equals( ".." ) )
+            {
+                if ( zSegments.isEmpty() )
+                {
+                    return null;
+                }
+                zSegments.removeLast();
+            }
+            else if ( (zSegment.length() != 0) && !zSegment.equals( "." ) )
+            {
+                zSegments.add( zSegment );
+            }
+        }
+        StringBuilder sb = new StringBuilder( zPath.length() );
+        for ( String zSegment : zSegments )
+        {
+            if ( sb.length() != 0 )
+            {
+                sb.append( '/' );
+            }
+            sb.append( zSegment );
+        }
+        return sb.toString();
+    }
+
+    static String hashedName( String pFileName, byte[] pContent )
+    {
+        String zHash = Util.hex( Util.sha1().digest( pContent ) ).substring( 0, HASH_LENGTH );
+        int zDotAt = pFileName.lastIndexOf( '.' );
+        return pFileName.substring( 0, zDotAt ) + "." + zHash + pFileName.substring( zDotAt );
+    }
+
+    /**
+     * @return true if the name is the {@link #hashedName} of the content (so the file is a hashed copy).
+     */
+    static boolean isHashed( String pFileName, byte[] pContent )
+    {
+        int zDotAt = pFileName.lastIndexOf( '.' );
+        int zHashAt = (zDotAt > 0) ? pFileName.lastIndexOf( '.', zDotAt - 1 ) : -1;
+        return (zHashAt > 0) && ((zDotAt - zHashAt - 1) == HASH_LENGTH) && //
+               pFileName.equals( hashedName( pFileName.substring( 0, zHashAt ) + pFileName.substring( zDotAt ), pContent ) );
+    }
+
+    /**
+     * 1 to 1 byte <-> char, so the (e.g. multi byte) characters of the text that is not rewritten are untouched (also used by the
+     * {@link AssetBundler}).
+     */
+    static String latin1( byte[] pBytes )
+    {
+        try
+        {
+            return new String( pBytes, "ISO-8859-1" );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    static byte[] latin1( String pText )
+    {
+        try
+        {
+            return pText.getBytes( "ISO-8859-1" );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    static byte[] read( File pFile )
+    {
+        ByteArrayOutputStream zOut = new ByteArrayOutputStream( (int) pFile.length() );
+        FileUtil.copyStreamAndCloseEm( FileUtil.createFileInputStream( pFile ), zOut );
+        return zOut.toByteArray();
+    }
+
+    static void write( File pFile, byte[] pContent )
+    {
+        FileUtil.mkdir( pFile.getParentFile() );
+        FileUtil.writeStream( new ByteArrayInputStream( pContent ), FileUtil.createFileOutputStream( pFile ) );
+    }
+}
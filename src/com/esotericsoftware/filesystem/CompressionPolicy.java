@@ -0,0 +1,113 @@
+package com.esotericsoftware.filesystem;
+
+import java.util.*;
+import java.util.zip.*;
+
+import com.esotericsoftware.utils.*;
+import com.esotericsoftware.wildcard.*;
+
+/**
+ * Determines, per Zip entry, the Deflate level to use.  A level of <code>STORE</code> (0) means the entry is not deflated at all
+ * (ZipEntry.STORED), which is what should happen for content that is already compressed (images, nested archives, ...).
+ * <p/>
+ * Patterns (see {@link Pattern}) are checked in the order added, then the "already compressed" extensions, then the default level.
+ */
+public class CompressionPolicy
+{
+    public static final int STORE = 0;
+
+    public static final String[] ALREADY_COMPRESSED_EXTENSIONS = //
+            { //
+              "png", "gif", "jpg", "jpeg", "ico", "webp", //
+              "zip", "jar", "war", "ear", "apk", "ipa", //
+              "gz", "tgz", "bz2", "xz", "lzma", "7z", "pack", //
+              "mp3", "mp4", "m4a", "ogg", "mov", //
+              "woff", "woff2" //
+            };
+
+    public static final CompressionPolicy DEFAULT = new CompressionPolicy( Deflater.DEFAULT_COMPRESSION );
+
+    /**
+     * The pre-'policy' behavior: everything deflated at the default level.
+     */
+    public static final CompressionPolicy DEFLATE_ALL = new CompressionPolicy( Deflater.DEFAULT_COMPRESSION, Util.EMPTY_STRING_ARRAY );
+
+    private final int mDefaultLevel;
+    private final Set<String> mStoreExtensions = new HashSet<String>();
+    private final List<Pattern> mPatterns = new ArrayList<Pattern>();
+    private final List<Integer> mPatternLevels = new ArrayList<Integer>();
+
+    /**
+     * @param pDefaultLevel Deflate level (0-9, or -1 for the Deflater's default) for entries not otherwise matched.
+     */
+    public CompressionPolicy( int pDefaultLevel )
+    {
+        this( pDefaultLevel, ALREADY_COMPRESSED_EXTENSIONS );
+    }
+
+    /**
+     * @param pDefaultLevel    Deflate level (0-9, or -1 for the Deflater's default) for entries not otherwise matched.
+     * @param pStoreExtensions File extensions (case insensitive, without the '.') of entries to STORE.
+     */
+    public CompressionPolicy( int pDefaultLevel, String... pStoreExtensions )
+    {
+        mDefaultLevel = assertLevel( pDefaultLevel );
+        for ( String zExtension : Util.deNull( pStoreExtensions, Util.EMPTY_STRING_ARRAY ) )
+        {
+            if ( null != (zExtension = Util.noEmpty( zExtension )) )
+            {
+                mStoreExtensions.add( zExtension.toLowerCase() );
+            }
+        }
+    }
+
+    /**
+     * Entries matching pPattern (checked before the extensions) will use pLevel.
+     *
+     * @return this, for chaining.
+     */
+    public CompressionPolicy add( String pPattern, int pLevel )
+    {
+        mPatterns.add( new Pattern( Util.assertNotEmpty( "Pattern", pPattern ) ) );
+        mPatternLevels.add( assertLevel( pLevel ) );
+        return this;
+    }
+
+    public int getDefaultLevel()
+    {
+        return mDefaultLevel;
+    }
+
+    /**
+     * @param pRelativePath the Zip entry name ('/' separated).
+     *
+     * @return the Deflate level to use, <code>STORE</code> (0) meaning don't deflate.
+     */
+    public int levelFor( String pRelativePath )
+    {
+        for ( int i = 0; i < mPatterns.size(); i++ )
+        {
+            if ( mPatterns.get( i ).matchesFilePath( pRelativePath ) )
+            {
+                return mPatternLevels.get( i );
+            }
+        }
+        return isAlreadyCompressed( pRelativePath ) ? STORE : mDefaultLevel;
+    }
+
+    public boolean isAlreadyCompressed( String pRelativePath )
+    {
+        String zName = pRelativePath.substring( pRelativePath.lastIndexOf( '/' ) + 1 );
+        int zDotAt = zName.lastIndexOf( '.' );
+        return (zDotAt != -1) && mStoreExtensions.contains( zName.substring( zDotAt + 1 ).toLowerCase() );
+    }
+
+    private static int assertLevel( int pLevel )
+    {
+        if ( (pLevel < Deflater.DEFAULT_COMPRESSION) || (Deflater.BEST_COMPRESSION < pLevel) )
+        {
+            throw new IllegalArgumentException( "Deflate level was " + pLevel + ", must be -1 (default) or 0-9." );
+        }
+        return pLevel;
+    }
+}
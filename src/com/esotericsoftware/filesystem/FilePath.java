@@ -39,6 +39,14 @@ public final class FilePath
         return innerAlreadyCanonical( Utils.canonical( pFilePath ) );
     }
 
+    /**
+     * The same file, but with a sub path (e.g. the Zip entry name) of pPrefix + this one's (e.g. 'WEB-INF/lib/' + 'some.jar').
+     */
+    public FilePath withSubPathPrefix( String pPrefix )
+    {
+        return new FilePath( mSomeParentDir, pPrefix + mFileSubPath, mCanonicalPath );
+    }
+
     public File getSomeParentDir()
     {
         return mSomeParentDir;
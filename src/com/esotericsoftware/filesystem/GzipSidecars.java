@@ -0,0 +1,150 @@
+package com.esotericsoftware.filesystem;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * Creates pre-compressed ".gz" sidecar files (e.g. "app.js.gz" next to "app.js") for the compressible static assets in a directory
+ * (tree), so a web server can serve them without compressing on each request.
+ * <p/>
+ * A file is skipped if it is smaller than the minimum size, or if its sidecar is already newer than it.  A sidecar is only kept if it
+ * is at most <code>MAX_PERCENT</code> of the file's size; a stale sidecar that is not replaced is deleted (so it can't be served), as is
+ * the sidecar of a file that is gone (e.g. renamed by the {@link AssetFingerprinter}).
+ * <p/>
+ * In a freshly staged directory the last modified times can't be trusted (a copied sidecar can be as new as its file that was then
+ * rewritten within the file system's timestamp resolution), so {@link #recreateIn} deletes all the sidecars first.
+ */
+public class GzipSidecars
+{
+    public static final String[] COMPRESSIBLE_PATTERNS = {"**.js", "**.css", "**.html", "**.htm", "**.json", "**.svg"};
+    public static final int DEFAULT_MIN_SIZE = 1024;
+    public static final int MAX_PERCENT = 90;
+    public static final String SUFFIX = ".gz";
+
+    private static final String[] SIDECAR_PATTERNS = new String[COMPRESSIBLE_PATTERNS.length];
+
+    static
+    {
+        for ( int i = 0; i < COMPRESSIBLE_PATTERNS.length; i++ )
+        {
+            SIDECAR_PATTERNS[i] = COMPRESSIBLE_PATTERNS[i] + SUFFIX;
+        }
+    }
+
+    private final int mMinSize;
+
+    public GzipSidecars( int pMinSize )
+    {
+        mMinSize = pMinSize;
+    }
+
+    /**
+     * Process the compressible files under pDir (concurrently).
+     *
+     * @return the number of sidecars created (or updated).
+     */
+    public int createIn( String pDir )
+    {
+        return createIn( pDir, false );
+    }
+
+    /**
+     * Process the compressible files under the freshly staged pDir, after deleting all the sidecars (e.g. copied with their files).
+     *
+     * @return the number of sidecars created.
+     */
+    public int recreateIn( String pDir )
+    {
+        return createIn( pDir, true );
+    }
+
+    private int createIn( String pDir, boolean pDeleteAll )
+    {
+        for ( File zSidecar : new Paths( pDir, SIDECAR_PATTERNS ).getFiles() )
+        {
+            String zPath = zSidecar.getPath();
+            if ( pDeleteAll || !new File( zPath.substring( 0, zPath.length() - SUFFIX.length() ) ).isFile() )
+            {
+                FileUtil.delete( zSidecar );
+            }
+        }
+        final AtomicInteger zCreated = new AtomicInteger();
+        Parallel.forEach( new Paths( pDir, COMPRESSIBLE_PATTERNS ).getFiles(), new Parallel.Action<File>()
+        {
+            @Override
+            public void process( File pFile )
+            {
+                if ( createFor( pFile ) )
+                {
+                    zCreated.incrementAndGet();
+                }
+            }
+        } );
+        return zCreated.get();
+    }
+
+    /**
+     * @return true if the sidecar was created (or updated).
+     */
+    public boolean createFor( File pFile )
+    {
+        File zSidecar = new File( pFile.getPath() + SUFFIX );
+        long zLastModified = pFile.lastModified();
+        if ( zSidecar.isFile() && (zSidecar.lastModified() >= zLastModified) )
+        {
+            return false;
+        }
+        long zSize = pFile.length();
+        if ( zSize >= mMinSize )
+        {
+            byte[] zCompressed = gzip( pFile, zSize );
+            if ( (zCompressed.length * 100L) <= (zSize * MAX_PERCENT) )
+            {
+                OutputStream zOut = FileUtil.createFileOutputStream( zSidecar );
+                try
+                {
+                    zOut.write( zCompressed );
+                    Closeable zCloseable = zOut;
+                    zOut = null;
+                    FileUtil.close( zCloseable );
+                }
+                catch ( IOException e )
+                {
+                    throw new WrappedIOException( "Error writing: " + zSidecar, e );
+                }
+                finally
+                {
+                    FileUtil.dispose( zOut );
+                }
+                return true;
+            }
+        }
+        FileUtil.delete( zSidecar ); // Stale (if there)
+        return false;
+    }
+
+    private static byte[] gzip( File pFile, long pSize )
+    {
+        ByteArrayOutputStream zBytes = new ByteArrayOutputStream( (int) Math.min( Integer.MAX_VALUE, pSize / 2 ) );
+        InputStream zIn = FileUtil.createFileInputStream( pFile );
+        try
+        {
+            PooledGZIPOutputStream zOut = new PooledGZIPOutputStream( zBytes, Deflater.BEST_COMPRESSION );
+            FileUtil.append( zIn, zOut );
+            zOut.close();
+        }
+        catch ( IOException e )
+        {
+            throw new WrappedIOException( "Error compressing: " + pFile, e );
+        }
+        finally
+        {
+            FileUtil.dispose( zIn );
+        }
+        return zBytes.toByteArray();
+    }
+}
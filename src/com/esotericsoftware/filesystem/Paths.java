@@ -156,17 +156,47 @@ public class Paths
 
     public int zip( String destFile, ZipFactory pFactory )
     {
-        List<FilePath> zPaths = getPaths();
+        return zip( destFile, getPaths(), pFactory );
+    }
+
+    /**
+     * Compresses the files into a new zip file, each file's entry name being its sub path, so files from anywhere (e.g. with a
+     * {@link FilePath#withSubPathPrefix(String) prefixed} sub path) can be zipped without first copying them into one directory.
+     * When more than one file has the same entry name, the last one wins (as it would if they were copied into one directory).
+     *
+     * @return Files Zipped, 0 means Zip File not even created!
+     */
+    public static int zip( String destFile, List<FilePath> pPaths, ZipFactory pFactory )
+    {
+        Map<String, FilePath> zByEntryName = new LinkedHashMap<String, FilePath>();
+        for ( FilePath path : pPaths )
+        {
+            zByEntryName.put( path.getFileSubPath().replace( '\\', '/' ), path );
+        }
+        List<FilePath> zPaths = new ArrayList<FilePath>( zByEntryName.values() );
         if ( !zPaths.isEmpty() )
         {
             ZipOutputStream out = pFactory.createZOS( destFile, zPaths );
+            CompressionPolicy zPolicy = pFactory.getCompressionPolicy();
             try
             {
                 for ( FilePath path : zPaths )
                 {
+                    String zRelativePath = path.getFileSubPath().replace( '\\', '/' );
+                    ZipEntry zEntry = pFactory.createZE( zRelativePath );
                     try
                     {
-                        out.putNextEntry( pFactory.createZE( path.getFileSubPath().replace( '\\', '/' ) ) );
+                        int zLevel = zPolicy.levelFor( zRelativePath );
+                        if ( zLevel == CompressionPolicy.STORE )
+                        {
+                            store( zEntry, path.file() );
+                        }
+                        else
+                        {
+                            zEntry.setMethod( ZipEntry.DEFLATED );
+                            out.setLevel( zLevel );
+                        }
+                        out.putNextEntry( zEntry );
                     }
                     catch ( IOException e )
                     {
@@ -196,6 +226,34 @@ public class Paths
         return zPaths.size();
     }
 
+    /**
+     * STORED entries must have their size and CRC set before the entry is put, hence the extra read of the file.
+     */
+    private static void store( ZipEntry pEntry, File pFile )
+            throws IOException
+    {
+        CRC32 zCRC = new CRC32();
+        long zSize = 0;
+        FileInputStream in = FileUtil.createFileInputStream( pFile );
+        byte[] zBuffer = IOBuffers.takeBytes();
+        try
+        {
+            for ( int len; (len = in.read( zBuffer )) != -1; zSize += len )
+            {
+                zCRC.update( zBuffer, 0, len );
+            }
+        }
+        finally
+        {
+            IOBuffers.give( zBuffer );
+            FileUtil.dispose( in );
+        }
+        pEntry.setMethod( ZipEntry.STORED );
+        pEntry.setSize( zSize );
+        pEntry.setCompressedSize( zSize );
+        pEntry.setCrc( zCRC.getValue() );
+    }
+
     /**
      * Returns the absolute paths delimited by the specified character.
      */
@@ -422,7 +480,7 @@ public class Paths
             String[] zFileNames = pDirectory.list();
             for ( String zFileName : zFileNames )
             {
-                String zPath = pAdditionalDirPath + "/" + zFileName;
+                String zPath = pAdditionalDirPath + zFileName; // pAdditionalDirPath is already '/' terminated
                 File zFile = new File( pDirectory, zFileName );
                 if ( zFile.isDirectory() )
                 {
@@ -448,7 +506,7 @@ public class Paths
         {
             for ( Pattern zInclude : mIncludes )
             {
-                if ( zInclude.acceptableDirPath( pPath ) )
+                if ( zInclude.acceptableDirPath( pPath ) || zInclude.acceptableParentDirPath( pPath ) )
                 {
                     return true;
                 }
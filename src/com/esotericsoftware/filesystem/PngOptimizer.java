@@ -0,0 +1,561 @@
+package com.esotericsoftware.filesystem;
+
+import java.io.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * Lossless recompression of the PNG files in a (freshly staged) directory (tree): the image data is re-filtered (each of the standard
+ * filters, the "minimum sum of absolute differences" adaptive filtering & the original filtering are tried) and re-deflated at maximum
+ * effort, and the metadata chunks are dropped.  The pixels (and the color interpretation) are unchanged, and a file is only replaced if
+ * the result is smaller.
+ * <p/>
+ * Chunks kept: the critical ones (the IDATs are merged into one), 'tRNS', the color space ones ('gAMA', 'cHRM', 'sRGB', 'iCCP'), and
+ * unknown ones that are "safe to copy" (e.g. Android's 'npTc').  Files not touched: invalid or Adam7 interlaced (only re-deflated) ones,
+ * Apple's "CgBI" (Xcode crushed) & animated ('acTL') ones.
+ * <p/>
+ * The results are cached by content hash (when a cache directory is given), so an unchanged image is only optimized once.
+ */
+public class PngOptimizer
+{
+    public static final String[] PATTERNS = {"**.png", "!WEB-INF/**", "!META-INF/**"};
+
+    private static final String VERSION = "1"; // Change when the optimization changes (invalidates the cache)
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final Set<String> METADATA_CHUNKS = new HashSet<String>( Arrays.asList( "tEXt", "zTXt", "iTXt", "tIME", "pHYs", "bKGD", "hIST", "sPLT", //
+                                                                                          "sBIT", "eXIf", "dSIG", "oFFs", "pCAL", "sCAL", "sTER", "vpAg", "iDOT" ) );
+
+    private static final long MAX_RAW_SIZE = 256L * 1024 * 1024;
+
+    private static final int[] STRATEGIES = {Deflater.DEFAULT_STRATEGY, Deflater.FILTERED, Deflater.HUFFMAN_ONLY};
+
+    private static final int MSAD = 5; // Pseudo filter type: per row, the filter with the minimum sum of absolute differences
+
+    private final File mCacheDir;
+    private final AtomicLong mBytesSaved = new AtomicLong();
+
+    /**
+     * @param pCacheDir null for no caching.
+     */
+    public PngOptimizer( String pCacheDir )
+    {
+        mCacheDir = (pCacheDir == null) ? null : FileUtil.mkdir( new File( pCacheDir ) );
+    }
+
+    /**
+     * @return the total number of bytes saved (so far).
+     */
+    public long getBytesSaved()
+    {
+        return mBytesSaved.get();
+    }
+
+    /**
+     * Process the PNG files under pDir (concurrently).
+     *
+     * @return the number of files made smaller.
+     */
+    public int optimizeIn( String pDir )
+    {
+        final AtomicInteger zOptimized = new AtomicInteger();
+        Parallel.forEach( new Paths( pDir, PATTERNS ).getFiles(), new Parallel.Action<File>()
+        {
+            @Override
+            public void process( File pFile )
+            {
+                if ( optimize( pFile ) )
+                {
+                    zOptimized.incrementAndGet();
+                }
+            }
+        } );
+        return zOptimized.get();
+    }
+
+    /**
+     * @return true if the file was replaced with a smaller version.
+     */
+    public boolean optimize( File pFile )
+    {
+        byte[] zPng = read( pFile );
+        String zHash = hash( zPng );
+        File zCached = (mCacheDir == null) ? null : new File( mCacheDir, zHash + ".png" );
+        File zSame = (mCacheDir == null) ? null : new File( mCacheDir, zHash + ".same" );
+        byte[] zOptimized;
+        if ( (zSame != null) && zSame.isFile() )
+        {
+            return false;
+        }
+        if ( (zCached != null) && zCached.isFile() )
+        {
+            zOptimized = read( zCached );
+        }
+        else
+        {
+            zOptimized = optimize( zPng );
+            if ( mCacheDir != null )
+            {
+                writeAtomically( (zOptimized != null) ? zCached : zSame, (zOptimized != null) ? zOptimized : new byte[0] );
+                if ( zOptimized != null ) // So the result (e.g. an already optimized file checked in) is not optimized again
+                {
+                    writeAtomically( new File( mCacheDir, hash( zOptimized ) + ".same" ), new byte[0] );
+                }
+            }
+        }
+        if ( zOptimized == null )
+        {
+            return false;
+        }
+        write( pFile, zOptimized );
+        mBytesSaved.addAndGet( zPng.length - zOptimized.length );
+        return true;
+    }
+
+    /**
+     * @return the optimized PNG, or null if it is not smaller (or the PNG is not one this class can, or should, touch).
+     */
+    public static byte[] optimize( byte[] pPng )
+    {
+        try
+        {
+            return new Image( pPng ).optimize();
+        }
+        catch ( IOException e )
+        {
+            return null; // Not a PNG we understand, leave it as is
+        }
+    }
+
+    private static class Image
+    {
+        private final byte[] mPng;
+        private final List<Object> mChunks = new ArrayList<Object>(); // byte[] (whole chunk) or IDAT_PLACEHOLDER
+        private final ByteArrayOutputStream mIDAT = new ByteArrayOutputStream();
+        private int mWidth, mHeight, mBitDepth, mColorType, mInterlace;
+
+        private static final Object IDAT_PLACEHOLDER = new Object();
+
+        Image( byte[] pPng )
+                throws IOException
+        {
+            mPng = pPng;
+            if ( (pPng.length < SIGNATURE.length) || !Arrays.equals( SIGNATURE, Arrays.copyOf( pPng, SIGNATURE.length ) ) )
+            {
+                throw new IOException( "Not a PNG" );
+            }
+            CRC32 zCRC = new CRC32();
+            for ( int zAt = SIGNATURE.length; ; )
+            {
+                if ( zAt + 12 > pPng.length )
+                {
+                    throw new IOException( "Truncated" );
+                }
+                int zLength = readInt( pPng, zAt );
+                if ( (zLength < 0) || (zAt + 12L + zLength > pPng.length) )
+                {
+                    throw new IOException( "Truncated" );
+                }
+                String zType = new String( pPng, zAt + 4, 4, "ISO-8859-1" );
+                zCRC.reset();
+                zCRC.update( pPng, zAt + 4, 4 + zLength );
+                if ( (int) zCRC.getValue() != readInt( pPng, zAt + 8 + zLength ) )
+                {
+                    throw new IOException( "Bad CRC: " + zType );
+                }
+                int zDataAt = zAt + 8;
+                int zEnd = zDataAt + zLength + 4;
+                if ( "IHDR".equals( zType ) )
+                {
+                    readHeader( zDataAt, zLength );
+                    mChunks.add( Arrays.copyOfRange( pPng, zAt, zEnd ) );
+                }
+                else if ( "IDAT".equals( zType ) )
+                {
+                    if ( !mChunks.contains( IDAT_PLACEHOLDER ) )
+                    {
+                        mChunks.add( IDAT_PLACEHOLDER );
+                    }
+                    mIDAT.write( pPng, zDataAt, zLength );
+                }
+                else if ( "IEND".equals( zType ) )
+                {
+                    mChunks.add( Arrays.copyOfRange( pPng, zAt, zEnd ) );
+                    break;
+                }
+                else if ( "PLTE".equals( zType ) )
+                {
+                    mChunks.add( Arrays.copyOfRange( pPng, zAt, zEnd ) );
+                }
+                else if ( Character.isUpperCase( zType.charAt( 0 ) ) || "acTL".equals( zType ) )
+                {
+                    throw new IOException( "Unsupported chunk: " + zType ); // e.g. "CgBI"
+                }
+                else if ( keep( zType ) )
+                {
+                    mChunks.add( Arrays.copyOfRange( pPng, zAt, zEnd ) );
+                }
+                zAt = zEnd;
+            }
+            if ( (mWidth == 0) || !mChunks.contains( IDAT_PLACEHOLDER ) )
+            {
+                throw new IOException( "No IHDR or IDAT" );
+            }
+        }
+
+        private static boolean keep( String pType )
+        {
+            if ( METADATA_CHUNKS.contains( pType ) )
+            {
+                return false;
+            }
+            // Known color ones, and unknown "safe to copy" ones (lower case 4th letter)
+            return "tRNS".equals( pType ) || "gAMA".equals( pType ) || "cHRM".equals( pType ) || "sRGB".equals( pType ) || "iCCP".equals( pType ) || //
+                   Character.isLowerCase( pType.charAt( 3 ) );
+        }
+
+        private void readHeader( int pAt, int pLength )
+                throws IOException
+        {
+            if ( pLength != 13 )
+            {
+                throw new IOException( "Bad IHDR" );
+            }
+            mWidth = readInt( mPng, pAt );
+            mHeight = readInt( mPng, pAt + 4 );
+            mBitDepth = mPng[pAt + 8];
+            mColorType = mPng[pAt + 9];
+            mInterlace = mPng[pAt + 12];
+            if ( (mWidth <= 0) || (mHeight <= 0) || (mPng[pAt + 10] != 0) || (mPng[pAt + 11] != 0) || (channels() == 0) )
+            {
+                throw new IOException( "Unsupported IHDR" );
+            }
+        }
+
+        private int channels()
+        {
+            switch ( mColorType )
+            {
+                case 0:
+                case 3:
+                    return 1;
+                case 4:
+                    return 2;
+                case 2:
+                    return 3;
+                case 6:
+                    return 4;
+                default:
+                    return 0;
+            }
+        }
+
+        byte[] optimize()
+                throws IOException
+        {
+            byte[] zFiltered = inflate( mIDAT.toByteArray() );
+            byte[] zBest;
+            if ( mInterlace != 0 )
+            {
+                zBest = deflateBest( zFiltered ); // Adam7: just re-deflate
+            }
+            else
+            {
+                int zBitsPerPixel = mBitDepth * channels();
+                int zBytesPerPixel = Math.max( 1, zBitsPerPixel / 8 );
+                int zRowBytes = (int) (((long) mWidth * zBitsPerPixel + 7) / 8);
+                if ( zFiltered.length != (long) mHeight * (zRowBytes + 1) )
+                {
+                    throw new IOException( "Bad image data size" );
+                }
+                byte[] zRaw = unfilter( zFiltered, zRowBytes, zBytesPerPixel );
+                zBest = deflate( zFiltered, Deflater.DEFAULT_STRATEGY );
+                byte[] zBestFiltered = zFiltered;
+                for ( int zFilter = 0; zFilter <= MSAD; zFilter++ )
+                {
+                    byte[] zCandidate = filter( zRaw, zRowBytes, zBytesPerPixel, zFilter );
+                    byte[] zDeflated = deflate( zCandidate, Deflater.DEFAULT_STRATEGY );
+                    if ( zDeflated.length < zBest.length )
+                    {
+                        zBest = zDeflated;
+                        zBestFiltered = zCandidate;
+                    }
+                }
+                for ( int i = 1; i < STRATEGIES.length; i++ )
+                {
+                    byte[] zDeflated = deflate( zBestFiltered, STRATEGIES[i] );
+                    if ( zDeflated.length < zBest.length )
+                    {
+                        zBest = zDeflated;
+                    }
+                }
+            }
+            ByteArrayOutputStream zOut = new ByteArrayOutputStream( mPng.length );
+            zOut.write( SIGNATURE );
+            for ( Object zChunk : mChunks )
+            {
+                if ( zChunk == IDAT_PLACEHOLDER )
+                {
+                    writeChunk( zOut, "IDAT", zBest );
+                }
+                else
+                {
+                    zOut.write( (byte[]) zChunk );
+                }
+            }
+            return (zOut.size() < mPng.length) ? zOut.toByteArray() : null;
+        }
+
+        private byte[] inflate( byte[] pDeflated )
+                throws IOException
+        {
+            Inflater zInflater = IOBuffers.takeInflater( false );
+            try
+            {
+                zInflater.setInput( pDeflated );
+                ByteArrayOutputStream zOut = new ByteArrayOutputStream( pDeflated.length * 4 );
+                byte[] zBuffer = new byte[IOBuffers.SIZE];
+                while ( !zInflater.finished() )
+                {
+                    int zLength = zInflater.inflate( zBuffer );
+                    if ( (zLength == 0) && (zInflater.needsInput() || zInflater.needsDictionary()) )
+                    {
+                        throw new IOException( "Truncated image data" );
+                    }
+                    zOut.write( zBuffer, 0, zLength );
+                    if ( zOut.size() > MAX_RAW_SIZE )
+                    {
+                        throw new IOException( "Too big" );
+                    }
+                }
+                return zOut.toByteArray();
+            }
+            catch ( DataFormatException e )
+            {
+                throw new IOException( "Bad image data: " + e.getMessage() );
+            }
+            finally
+            {
+                IOBuffers.give( zInflater, false );
+            }
+        }
+
+        private static byte[] deflateBest( byte[] pData )
+        {
+            byte[] zBest = null;
+            for ( int zStrategy : STRATEGIES )
+            {
+                byte[] zDeflated = deflate( pData, zStrategy );
+                if ( (zBest == null) || (zDeflated.length < zBest.length) )
+                {
+                    zBest = zDeflated;
+                }
+            }
+            return zBest;
+        }
+
+        private static byte[] deflate( byte[] pData, int pStrategy )
+        {
+            Deflater zDeflater = IOBuffers.takeDeflater( Deflater.BEST_COMPRESSION, false );
+            byte[] zBuffer = IOBuffers.takeBytes();
+            try
+            {
+                zDeflater.setStrategy( pStrategy );
+                zDeflater.setInput( pData );
+                zDeflater.finish();
+                ByteArrayOutputStream zOut = new ByteArrayOutputStream( pData.length / 2 + 64 );
+                while ( !zDeflater.finished() )
+                {
+                    zOut.write( zBuffer, 0, zDeflater.deflate( zBuffer ) );
+                }
+                return zOut.toByteArray();
+            }
+            finally
+            {
+                IOBuffers.give( zBuffer );
+                IOBuffers.give( zDeflater, false );
+            }
+        }
+
+        private static byte[] unfilter( byte[] pFiltered, int pRowBytes, int pBytesPerPixel )
+                throws IOException
+        {
+            int zRows = pFiltered.length / (pRowBytes + 1);
+            byte[] zRaw = new byte[zRows * pRowBytes];
+            for ( int zRow = 0; zRow < zRows; zRow++ )
+            {
+                int zIn = zRow * (pRowBytes + 1);
+                int zFilter = pFiltered[zIn++];
+                int zOut = zRow * pRowBytes;
+                for ( int i = 0; i < pRowBytes; i++ )
+                {
+                    int a = (i >= pBytesPerPixel) ? (zRaw[zOut + i - pBytesPerPixel] & 0xFF) : 0;
+                    int b = (zRow != 0) ? (zRaw[zOut + i - pRowBytes] & 0xFF) : 0;
+                    int c = ((zRow != 0) && (i >= pBytesPerPixel)) ? (zRaw[zOut + i - pRowBytes - pBytesPerPixel] & 0xFF) : 0;
+                    int x = pFiltered[zIn + i] & 0xFF;
+                    switch ( zFilter )
+                    {
+                        case 0:
+                            break;
+                        case 1:
+                            x += a;
+                            break;
+                        case 2:
+                            x += b;
+                            break;
+                        case 3:
+                            x += (a + b) >>> 1;
+                            break;
+                        case 4:
+                            x += paeth( a, b, c );
+                            break;
+                        default:
+                            throw new IOException( "Bad filter type: " + zFilter );
+                    }
+                    zRaw[zOut + i] = (byte) x;
+                }
+            }
+            return zRaw;
+        }
+
+        /**
+         * @param pFilter 0-4 for that filter on every row, or <code>MSAD</code>.
+         */
+        private static byte[] filter( byte[] pRaw, int pRowBytes, int pBytesPerPixel, int pFilter )
+        {
+            int zRows = pRaw.length / pRowBytes;
+            byte[] zFiltered = new byte[zRows * (pRowBytes + 1)];
+            byte[] zTrial = (pFilter == MSAD) ? new byte[pRowBytes] : null;
+            for ( int zRow = 0; zRow < zRows; zRow++ )
+            {
+                int zOut = zRow * (pRowBytes + 1);
+                int zFilter = pFilter;
+                if ( pFilter == MSAD )
+                {
+                    long zBestSum = Long.MAX_VALUE;
+                    for ( int zCandidate = 0; zCandidate < MSAD; zCandidate++ )
+                    {
+                        filterRow( pRaw, zRow, pRowBytes, pBytesPerPixel, zCandidate, zTrial, 0 );
+                        long zSum = 0;
+                        for ( byte zByte : zTrial )
+                        {
+                            zSum += Math.abs( zByte );
+                        }
+                        if ( zSum < zBestSum )
+                        {
+                            zBestSum = zSum;
+                            zFilter = zCandidate;
+                        }
+                    }
+                }
+                zFiltered[zOut] = (byte) zFilter;
+                filterRow( pRaw, zRow, pRowBytes, pBytesPerPixel, zFilter, zFiltered, zOut + 1 );
+            }
+            return zFiltered;
+        }
+
+        private static void filterRow( byte[] pRaw, int pRow, int pRowBytes, int pBytesPerPixel, int pFilter, byte[] pOut, int pOutAt )
+        {
+            int zIn = pRow * pRowBytes;
+            for ( int i = 0; i < pRowBytes; i++ )
+            {
+                int a = (i >= pBytesPerPixel) ? (pRaw[zIn + i - pBytesPerPixel] & 0xFF) : 0;
+                int b = (pRow != 0) ? (pRaw[zIn + i - pRowBytes] & 0xFF) : 0;
+                int c = ((pRow != 0) && (i >= pBytesPerPixel)) ? (pRaw[zIn + i - pRowBytes - pBytesPerPixel] & 0xFF) : 0;
+                int x = pRaw[zIn + i] & 0xFF;
+                switch ( pFilter )
+                {
+                    case 1:
+                        x -= a;
+                        break;
+                    case 2:
+                        x -= b;
+                        break;
+                    case 3:
+                        x -= (a + b) >>> 1;
+                        break;
+                    case 4:
+                        x -= paeth( a, b, c );
+                        break;
+                }
+                pOut[pOutAt + i] = (byte) x;
+            }
+        }
+
+        private static int paeth( int a, int b, int c )
+        {
+            int p = a + b - c;
+            int pa = Math.abs( p - a );
+            int pb = Math.abs( p - b );
+            int pc = Math.abs( p - c );
+            return ((pa <= pb) && (pa <= pc)) ? a : (pb <= pc) ? b : c;
+        }
+    }
+
+    private static void writeChunk( ByteArrayOutputStream pOut, String pType, byte[] pData )
+            throws IOException
+    {
+        byte[] zType = pType.getBytes( "ISO-8859-1" );
+        writeInt( pOut, pData.length );
+        pOut.write( zType );
+        pOut.write( pData );
+        CRC32 zCRC = new CRC32();
+        zCRC.update( zType );
+        zCRC.update( pData );
+        writeInt( pOut, (int) zCRC.getValue() );
+    }
+
+    private static int readInt( byte[] pBytes, int pAt )
+    {
+        return ((pBytes[pAt] & 0xFF) << 24) | ((pBytes[pAt + 1] & 0xFF) << 16) | ((pBytes[pAt + 2] & 0xFF) << 8) | (pBytes[pAt + 3] & 0xFF);
+    }
+
+    private static void writeInt( OutputStream pOut, int pValue )
+            throws IOException
+    {
+        pOut.write( pValue >>> 24 );
+        pOut.write( pValue >>> 16 );
+        pOut.write( pValue >>> 8 );
+        pOut.write( pValue );
+    }
+
+    private static String hash( byte[] pContent )
+    {
+        MessageDigest zDigest = Util.sha1();
+        zDigest.update( (byte) VERSION.charAt( 0 ) );
+        return Util.hex( zDigest.digest( pContent ) );
+    }
+
+    /**
+     * An existing entry (e.g. just written by a concurrent build) is kept, as it has the same content.
+     */
+    private static void writeAtomically( File pFile, final byte[] pContent )
+    {
+        FileUtil.writeAtomically( pFile, false, new FileUtil.ContentWriter()
+        {
+            @Override
+            public void write( DataOutputStream pOut )
+                    throws IOException
+            {
+                pOut.write( pContent );
+            }
+        } );
+    }
+
+    private static byte[] read( File pFile )
+    {
+        ByteArrayOutputStream zOut = new ByteArrayOutputStream( (int) pFile.length() );
+        FileUtil.copyStreamAndCloseEm( FileUtil.createFileInputStream( pFile ), zOut );
+        return zOut.toByteArray();
+    }
+
+    private static void write( File pFile, byte[] pContent )
+    {
+        FileUtil.writeStream( new ByteArrayInputStream( pContent ), FileUtil.createFileOutputStream( pFile ) );
+    }
+}
@@ -0,0 +1,314 @@
+package com.esotericsoftware.filesystem;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * Copies the entries of a Zip (JAR) file to a new Zip file without inflating & re-deflating them: the local headers and (compressed)
+ * data are copied as is, and a new central directory is written.  Entries may be dropped, and one new (deflated) entry may be put
+ * first (e.g. a replacement manifest).
+ * <p/>
+ * Zip64 archives are not supported (copy returns false, and nothing is written), so the caller can fall back to streaming.
+ */
+public class RawZipCopier
+{
+    public interface EntryFilter
+    {
+        boolean keep( String pEntryName );
+    }
+
+    private static final int LOCAL_HEADER_SIG = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+    private static final int END_OF_CENTRAL_SIG = 0x06054b50;
+    private static final int DATA_DESCRIPTOR_SIG = 0x08074b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_OF_CENTRAL_SIZE = 22;
+    private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+    private static final int FLAG_UTF8 = 0x0800;
+
+    private final File mSource;
+    private final EntryFilter mFilter;
+    private String mFirstEntryName;
+    private byte[] mFirstEntryContent;
+    private int mEntries;
+
+    public RawZipCopier( File pSource, EntryFilter pFilter )
+    {
+        mSource = Util.assertNotNull( "Source", pSource );
+        mFilter = Util.assertNotNull( "Filter", pFilter );
+    }
+
+    /**
+     * The (uncompressed) content of an entry to write (deflated) before any of the copied entries.
+     */
+    public RawZipCopier firstEntry( String pEntryName, byte[] pContent )
+    {
+        mFirstEntryName = Util.assertNotEmpty( "EntryName", pEntryName );
+        mFirstEntryContent = Util.assertNotNull( "Content", pContent );
+        return this;
+    }
+
+    /**
+     * @return false if the source is a Zip64 archive (or has an unsupported layout), in which case pDest is not written.
+     */
+    public boolean copyTo( File pDest )
+    {
+        RandomAccessFile zIn;
+        try
+        {
+            zIn = new RandomAccessFile( mSource, "r" );
+        }
+        catch ( FileNotFoundException e )
+        {
+            throw new WrappedIOException( e );
+        }
+        try
+        {
+            byte[] zEnd = readEndOfCentralDirectory( zIn );
+            if ( zEnd == null )
+            {
+                return false;
+            }
+            int zCount = u16( zEnd, 10 );
+            long zCentralSize = u32( zEnd, 12 );
+            long zCentralOffset = u32( zEnd, 16 );
+            if ( (zCount == 0xFFFF) || (zCentralSize == 0xFFFFFFFFL) || (zCentralOffset == 0xFFFFFFFFL) || (u16( zEnd, 4 ) != 0) )
+            {
+                return false; // Zip64 or multi-disk
+            }
+            byte[] zCentral = new byte[(int) zCentralSize];
+            zIn.seek( zCentralOffset );
+            zIn.readFully( zCentral );
+            OutputStream zOut = FileUtil.createBufferedFileOutputStream( pDest );
+            try
+            {
+                copy( zIn, zCentral, zCount, zEnd, new CountingOutputStream( zOut ) );
+                Closeable zCloseable = zOut;
+                zOut = null;
+                FileUtil.close( zCloseable );
+            }
+            finally
+            {
+                FileUtil.dispose( zOut );
+            }
+            return true;
+        }
+        catch ( IOException e )
+        {
+            throw new WrappedIOException( "Error copying zip file: " + mSource, e );
+        }
+        finally
+        {
+            FileUtil.dispose( zIn );
+        }
+    }
+
+    private void copy( RandomAccessFile pIn, byte[] pCentral, int pCount, byte[] pEnd, CountingOutputStream pOut )
+            throws IOException
+    {
+        ByteArrayOutputStream zNewCentral = new ByteArrayOutputStream( pCentral.length + 256 );
+        mEntries = 0;
+        if ( mFirstEntryName != null )
+        {
+            writeFirstEntry( pOut, zNewCentral );
+            mEntries++;
+        }
+        byte[] zBuffer = IOBuffers.takeBytes();
+        try
+        {
+            copyEntries( pIn, pCentral, pCount, pOut, zNewCentral, zBuffer );
+        }
+        finally
+        {
+            IOBuffers.give( zBuffer );
+        }
+        long zCentralOffset = pOut.getCount();
+        zNewCentral.writeTo( pOut );
+        byte[] zEnd = pEnd.clone();
+        put16( zEnd, 8, mEntries );
+        put16( zEnd, 10, mEntries );
+        put32( zEnd, 12, zNewCentral.size() );
+        put32( zEnd, 16, zCentralOffset );
+        pOut.write( zEnd );
+    }
+
+    private void copyEntries( RandomAccessFile pIn, byte[] pCentral, int pCount, CountingOutputStream pOut, ByteArrayOutputStream pNewCentral,
+                              byte[] pBuffer )
+            throws IOException
+    {
+        int zAt = 0;
+        for ( int i = 0; i < pCount; i++ )
+        {
+            if ( u32( pCentral, zAt ) != CENTRAL_HEADER_SIG )
+            {
+                throw new IOException( "Bad central directory entry #" + i );
+            }
+            int zFlags = u16( pCentral, zAt + 8 );
+            long zCompressedSize = u32( pCentral, zAt + 20 );
+            int zNameLength = u16( pCentral, zAt + 28 );
+            int zCentralLength = CENTRAL_HEADER_SIZE + zNameLength + u16( pCentral, zAt + 30 ) + u16( pCentral, zAt + 32 );
+            long zLocalOffset = u32( pCentral, zAt + 42 );
+            String zName = new String( pCentral, zAt + CENTRAL_HEADER_SIZE, zNameLength, ((zFlags & FLAG_UTF8) != 0) ? "UTF-8" : "Cp437" );
+            if ( ((mFirstEntryName == null) || !mFirstEntryName.equalsIgnoreCase( zName )) && mFilter.keep( zName ) )
+            {
+                long zNewOffset = pOut.getCount();
+                byte[] zLocal = new byte[LOCAL_HEADER_SIZE];
+                pIn.seek( zLocalOffset );
+                pIn.readFully( zLocal );
+                if ( u32( zLocal, 0 ) != LOCAL_HEADER_SIG )
+                {
+                    throw new IOException( "Bad local header for: " + zName );
+                }
+                long zLength = LOCAL_HEADER_SIZE + u16( zLocal, 26 ) + u16( zLocal, 28 ) + zCompressedSize;
+                if ( (zFlags & FLAG_DATA_DESCRIPTOR) != 0 )
+                {
+                    pIn.seek( zLocalOffset + zLength );
+                    zLength += (pIn.readInt() == Integer.reverseBytes( DATA_DESCRIPTOR_SIG )) ? 16 : 12;
+                }
+                pIn.seek( zLocalOffset );
+                for ( long zRemaining = zLength; zRemaining > 0; )
+                {
+                    int zRead = pIn.read( pBuffer, 0, (int) Math.min( pBuffer.length, zRemaining ) );
+                    if ( zRead == -1 )
+                    {
+                        throw new EOFException( "Truncated entry: " + zName );
+                    }
+                    pOut.write( pBuffer, 0, zRead );
+                    zRemaining -= zRead;
+                }
+                byte[] zCentralEntry = Arrays.copyOfRange( pCentral, zAt, zAt + zCentralLength );
+                put32( zCentralEntry, 42, zNewOffset );
+                pNewCentral.write( zCentralEntry );
+                mEntries++;
+            }
+            zAt += zCentralLength;
+        }
+    }
+
+    private void writeFirstEntry( CountingOutputStream pOut, ByteArrayOutputStream pCentral )
+            throws IOException
+    {
+        byte[] zName = mFirstEntryName.getBytes( "UTF-8" );
+        CRC32 zCRC = new CRC32();
+        zCRC.update( mFirstEntryContent );
+        ByteArrayOutputStream zCompressed = new ByteArrayOutputStream( mFirstEntryContent.length );
+        Deflater zDeflater = IOBuffers.takeDeflater( Deflater.DEFAULT_COMPRESSION, true );
+        try
+        {
+            DeflaterOutputStream zDeflating = new DeflaterOutputStream( zCompressed, zDeflater );
+            zDeflating.write( mFirstEntryContent );
+            zDeflating.finish();
+        }
+        finally
+        {
+            IOBuffers.give( zDeflater, true );
+        }
+        int zDosTime = dosTime( System.currentTimeMillis() );
+
+        byte[] zLocal = new byte[LOCAL_HEADER_SIZE];
+        put32( zLocal, 0, LOCAL_HEADER_SIG );
+        put16( zLocal, 4, 20 ); // Version needed
+        put16( zLocal, 6, FLAG_UTF8 );
+        put16( zLocal, 8, ZipEntry.DEFLATED );
+        put32( zLocal, 10, zDosTime );
+        put32( zLocal, 14, zCRC.getValue() );
+        put32( zLocal, 18, zCompressed.size() );
+        put32( zLocal, 22, mFirstEntryContent.length );
+        put16( zLocal, 26, zName.length );
+
+        byte[] zCentral = new byte[CENTRAL_HEADER_SIZE];
+        put32( zCentral, 0, CENTRAL_HEADER_SIG );
+        put16( zCentral, 4, 20 ); // Version made by
+        System.arraycopy( zLocal, 4, zCentral, 6, 26 ); // Version needed .. Name length
+        put32( zCentral, 42, pOut.getCount() );
+        pCentral.write( zCentral );
+        pCentral.write( zName );
+
+        pOut.write( zLocal );
+        pOut.write( zName );
+        zCompressed.writeTo( pOut );
+    }
+
+    private static byte[] readEndOfCentralDirectory( RandomAccessFile pIn )
+            throws IOException
+    {
+        long zLength = pIn.length();
+        int zTail = (int) Math.min( zLength, END_OF_CENTRAL_SIZE + 0xFFFF ); // Max comment length
+        byte[] zBytes = new byte[zTail];
+        pIn.seek( zLength - zTail );
+        pIn.readFully( zBytes );
+        for ( int i = zTail - END_OF_CENTRAL_SIZE; i >= 0; i-- )
+        {
+            if ( (u32( zBytes, i ) == END_OF_CENTRAL_SIG) && ((i + END_OF_CENTRAL_SIZE + u16( zBytes, i + 20 )) == zTail) )
+            {
+                return Arrays.copyOfRange( zBytes, i, zTail );
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings({"deprecation"})
+    private static int dosTime( long pTimeMillis )
+    {
+        Date zDate = new Date( pTimeMillis );
+        return ((zDate.getYear() - 80) << 25) | ((zDate.getMonth() + 1) << 21) | (zDate.getDate() << 16) | //
+               (zDate.getHours() << 11) | (zDate.getMinutes() << 5) | (zDate.getSeconds() >> 1);
+    }
+
+    private static int u16( byte[] pBytes, int pAt )
+    {
+        return (pBytes[pAt] & 0xFF) | ((pBytes[pAt + 1] & 0xFF) << 8);
+    }
+
+    private static long u32( byte[] pBytes, int pAt )
+    {
+        return (u16( pBytes, pAt ) | ((long) u16( pBytes, pAt + 2 ) << 16));
+    }
+
+    private static void put16( byte[] pBytes, int pAt, int pValue )
+    {
+        pBytes[pAt] = (byte) pValue;
+        pBytes[pAt + 1] = (byte) (pValue >> 8);
+    }
+
+    private static void put32( byte[] pBytes, int pAt, long pValue )
+    {
+        put16( pBytes, pAt, (int) pValue );
+        put16( pBytes, pAt + 2, (int) (pValue >> 16) );
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream
+    {
+        private long mCount;
+
+        public CountingOutputStream( OutputStream pOut )
+        {
+            super( pOut );
+        }
+
+        public long getCount()
+        {
+            return mCount;
+        }
+
+        @Override
+        public void write( int pByte )
+                throws IOException
+        {
+            out.write( pByte );
+            mCount++;
+        }
+
+        @Override
+        public void write( byte[] pBytes, int pOffset, int pLength )
+                throws IOException
+        {
+            out.write( pBytes, pOffset, pLength );
+            mCount += pLength;
+        }
+    }
+}
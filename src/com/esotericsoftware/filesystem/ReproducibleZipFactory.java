@@ -0,0 +1,62 @@
+package com.esotericsoftware.filesystem;
+
+import java.util.*;
+import java.util.zip.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * Wraps another ZipFactory so that identical inputs produce byte-identical archives: the entries are sorted by name (before the
+ * wrapped factory gets to reorder them, e.g. to put the manifest first) and every entry gets the same timestamp.
+ * <p/>
+ * Note: java.util.zip does not record file permissions, so there is nothing further to normalize.
+ */
+public class ReproducibleZipFactory implements ZipFactory
+{
+    /**
+     * 2010-01-01 00:00 local time, so the (local time based) DOS date/time fields are the same whatever the time zone.
+     */
+    public static final long ENTRY_TIME = new GregorianCalendar( 2010, Calendar.JANUARY, 1 ).getTimeInMillis();
+
+    private final ZipFactory mFactory;
+
+    public ReproducibleZipFactory( ZipFactory pFactory )
+    {
+        mFactory = Util.assertNotNull( "Factory", pFactory );
+    }
+
+    @Override
+    public ZipOutputStream createZOS( String pFilePath, List<FilePath> pPaths )
+    {
+        Collections.sort( pPaths, BY_ENTRY_NAME );
+        return mFactory.createZOS( pFilePath, pPaths );
+    }
+
+    @Override
+    public ZipEntry createZE( String pRelativePath )
+    {
+        ZipEntry zEntry = mFactory.createZE( pRelativePath );
+        zEntry.setTime( ENTRY_TIME );
+        return zEntry;
+    }
+
+    @Override
+    public CompressionPolicy getCompressionPolicy()
+    {
+        return mFactory.getCompressionPolicy();
+    }
+
+    private static final Comparator<FilePath> BY_ENTRY_NAME = new Comparator<FilePath>()
+    {
+        @Override
+        public int compare( FilePath p1, FilePath p2 )
+        {
+            return entryName( p1 ).compareTo( entryName( p2 ) );
+        }
+
+        private String entryName( FilePath pPath )
+        {
+            return pPath.getFileSubPath().replace( '\\', '/' );
+        }
+    };
+}
@@ -9,7 +9,7 @@ public final class RootedPaths
 {
     private long mGreatestLastModified;
     private File mCanonicalRootDirectory;
-    private Set<String> mCanonicalRelativePaths = new HashSet<String>();
+    private Set<String> mCanonicalRelativePaths = new TreeSet<String>(); // Sorted: stable (File.list() order independent) results
 
     public RootedPaths( File pCanonicalRootDirectory )
     {
@@ -8,7 +8,7 @@ import com.esotericsoftware.scar.*;
 public final class RootedPathsCollection
 {
     private long mGreatestLastModified;
-    private final Map<File, RootedPaths> mPaths = new HashMap<File, RootedPaths>();
+    private final Map<File, RootedPaths> mPaths = new LinkedHashMap<File, RootedPaths>(); // Roots in the order added (e.g. classpath order)
 
     public void add( FilePath pFilePath )
     {
@@ -12,6 +12,11 @@ public interface ZipFactory
 
     ZipEntry createZE( String pRelativePath );
 
+    /**
+     * @return the policy used to pick, per entry, the Deflate level (or STORE).
+     */
+    CompressionPolicy getCompressionPolicy();
+
     public ZipFactory FOR_ZIPS = new ZipFactory()
     {
         @Override
@@ -25,5 +30,11 @@ public interface ZipFactory
         {
             return new ZipEntry( pRelativePath );
         }
+
+        @Override
+        public CompressionPolicy getCompressionPolicy()
+        {
+            return CompressionPolicy.DEFAULT;
+        }
     };
 }
@@ -0,0 +1,224 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+import javax.tools.*;
+
+import com.sun.source.tree.*;
+import com.sun.source.util.*;
+
+import com.esotericsoftware.filesystem.*;
+import com.esotericsoftware.utils.*;
+
+/**
+ * Writes the ABI stubs of Java source files: the same source with each method (& constructor) body replaced by "{ throw null; }" (a
+ * constructor keeps its explicit "this(...)" / "super(...)" call), so compiling them (quick, there is no code to attribute, flow analyse
+ * or generate) produces the same classes, members & constants for the dependent projects to compile against.
+ * <p/>
+ * Only the javac front end (the parser) is used.  Field initializers (so constant values), initializer blocks and enum constant bodies are
+ * kept as is.
+ * <p/>
+ * What annotation processors would generate (classes, or members e.g. Lombok's) is not in the stubs, so the sources of a compile that
+ * may rely on them (see {@link #findAnnotationProcessors}) can't be stubbed.
+ */
+final class ABIStubs
+{
+    static final String PROCESSOR_SERVICE = "META-INF/services/javax.annotation.processing.Processor";
+
+    private ABIStubs()
+    {
+    }
+
+    /**
+     * Looks for annotation processors as javac does without a "-processorpath": the processor service on the classpath.
+     *
+     * @return the (first) classpath entry (a JAR, or the service file of a directory) with annotation processors, or null if none.
+     */
+    static File findAnnotationProcessors( Paths pClasspath )
+    {
+        for ( FilePath zFilePath : pClasspath.getPaths() )
+        {
+            File zFile = zFilePath.file();
+            if ( PROCESSOR_SERVICE.equals( zFilePath.getFileSubPath().replace( File.separatorChar, '/' ) ) )
+            {
+                return zFile;
+            }
+            String zName = zFile.getName().toLowerCase();
+            if ( (zName.endsWith( ".jar" ) || zName.endsWith( ".zip" )) && zFile.isFile() )
+            {
+                try
+                {
+                    ZipFile zZip = new ZipFile( zFile );
+                    try
+                    {
+                        if ( zZip.getEntry( PROCESSOR_SERVICE ) != null )
+                        {
+                            return zFile;
+                        }
+                    }
+                    finally
+                    {
+                        zZip.close();
+                    }
+                }
+                catch ( IOException e )
+                {
+                    throw new WrappedIOException( "Error reading: " + zFile, e );
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the stub of each source file to the stub directory, as its sub path.
+     *
+     * @return the number of stubs written.
+     */
+    static int write( String pSourceJavaVersion, Paths pSource, File pStubDir )
+    {
+        JavaCompiler zCompiler = ToolProvider.getSystemJavaCompiler();
+        if ( zCompiler == null )
+        {
+            throw new RuntimeException( "No compiler available. Ensure you are running from a JDK, and not a JRE." );
+        }
+        DiagnosticCollector<JavaFileObject> zDiagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager zFileManager = zCompiler.getStandardFileManager( zDiagnostics, null, null );
+        try
+        {
+            Map<JavaFileObject, FilePath> zFilePaths = new HashMap<JavaFileObject, FilePath>();
+            for ( FilePath zFilePath : pSource.getPaths() )
+            {
+                for ( JavaFileObject zFileObject : zFileManager.getJavaFileObjects( zFilePath.file() ) )
+                {
+                    zFilePaths.put( zFileObject, zFilePath );
+                }
+            }
+            JavacTask zTask = (JavacTask) zCompiler.getTask( null, zFileManager, zDiagnostics, //
+                                                             Arrays.asList( "-proc:none", "-source", pSourceJavaVersion ), null, zFilePaths.keySet() );
+            Iterable<? extends CompilationUnitTree> zUnits = zTask.parse();
+            for ( Diagnostic<? extends JavaFileObject> zDiagnostic : zDiagnostics.getDiagnostics() )
+            {
+                if ( zDiagnostic.getKind() == Diagnostic.Kind.ERROR )
+                {
+                    throw new RuntimeException( "Unable to parse: " + zDiagnostic );
+                }
+            }
+            SourcePositions zPositions = Trees.instance( zTask ).getSourcePositions();
+            int zWritten = 0;
+            for ( CompilationUnitTree zUnit : zUnits )
+            {
+                String zStub = new Stubber( zUnit, zPositions ).stub();
+                File zStubFile = new File( pStubDir, zFilePaths.get( zUnit.getSourceFile() ).getFileSubPath() );
+                FileUtil.mkdir( zStubFile.getParentFile() );
+                Writer zWriter = new OutputStreamWriter( FileUtil.createFileOutputStream( zStubFile ), "UTF-8" );
+                try
+                {
+                    zWriter.write( zStub );
+                }
+                finally
+                {
+                    zWriter.close();
+                }
+                zWritten++;
+            }
+            return zWritten;
+        }
+        catch ( IOException e )
+        {
+            throw new WrappedIOException( e );
+        }
+        finally
+        {
+            FileUtil.dispose( zFileManager );
+        }
+    }
+
+    private static class Stubber extends TreeScanner<Void, Void>
+    {
+        private final CompilationUnitTree mUnit;
+        private final SourcePositions mPositions;
+        private final String mSource;
+        private final StringBuilder mStub;
+        private int mCopied = 0;
+
+        Stubber( CompilationUnitTree pUnit, SourcePositions pPositions )
+                throws IOException
+        {
+            mUnit = pUnit;
+            mPositions = pPositions;
+            mSource = pUnit.getSourceFile().getCharContent( true ).toString();
+            mStub = new StringBuilder( mSource.length() );
+        }
+
+        String stub()
+        {
+            scan( mUnit, null );
+            return mStub.append( mSource, mCopied, mSource.length() ).toString();
+        }
+
+        @Override
+        public Void visitMethod( MethodTree pMethod, Void pVoid )
+        {
+            BlockTree zBody = pMethod.getBody();
+            if ( zBody != null )
+            {
+                mStub.append( mSource, mCopied, start( zBody ) ).append( "{ " );
+                String zCall = explicitConstructorCall( zBody );
+                if ( zCall != null )
+                {
+                    mStub.append( zCall ).append( "; " );
+                }
+                mStub.append( "throw null; }" );
+                mCopied = end( zBody );
+            }
+            return null; // The body (& any classes in it) is gone
+        }
+
+        @Override
+        public Void visitVariable( VariableTree pVariable, Void pVoid )
+        {
+            return null; // Initializers (& enum constant bodies) are kept
+        }
+
+        @Override
+        public Void visitBlock( BlockTree pBlock, Void pVoid )
+        {
+            return null; // Initializer blocks are kept
+        }
+
+        private String explicitConstructorCall( BlockTree pBody )
+        {
+            if ( pBody.getStatements().isEmpty() || !(pBody.getStatements().get( 0 ) instanceof ExpressionStatementTree) )
+            {
+                return null;
+            }
+            ExpressionTree zExpression = ((ExpressionStatementTree) pBody.getStatements().get( 0 )).getExpression();
+            if ( !(zExpression instanceof MethodInvocationTree) )
+            {
+                return null;
+            }
+            ExpressionTree zSelect = ((MethodInvocationTree) zExpression).getMethodSelect();
+            String zName = (zSelect instanceof IdentifierTree) ? ((IdentifierTree) zSelect).getName().toString() : //
+                           (zSelect instanceof MemberSelectTree) ? ((MemberSelectTree) zSelect).getIdentifier().toString() : null;
+            if ( !"this".equals( zName ) && !"super".equals( zName ) )
+            {
+                return null;
+            }
+            int zStart = start( zExpression );
+            int zEnd = end( zExpression );
+            return ((0 <= zStart) && (zStart < zEnd)) ? mSource.substring( zStart, zEnd ) : null; // Not an implicit one
+        }
+
+        private int start( Tree pTree )
+        {
+            return (int) mPositions.getStartPosition( mUnit, pTree );
+        }
+
+        private int end( Tree pTree )
+        {
+            return (int) mPositions.getEndPosition( mUnit, pTree );
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.security.*;
+import java.util.*;
+import java.util.zip.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * A fingerprint (SHA-1) of the API of the classes of a JAR (or ABI JAR): the class names, their super class & interfaces, their non
+ * private fields & methods (with their generic signatures, constant values, thrown exceptions & annotations), and the class annotations.
+ * The code, the private members, the synthetic members, the local, anonymous & private nested classes, the debug information and the
+ * resources are not part of it, so e.g. changing a method body does not change it.
+ * <p/>
+ * It is kept in a file that is only (re)written when the fingerprint changes, so its last modified is when the API last changed, and the
+ * dependent projects are only recompiled when that is newer than their own output (see {@link Project#APIclasspath}).
+ */
+final class APIFingerprint
+{
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_SUPER_OR_SYNCHRONIZED = 0x0020;
+    private static final int ACC_NATIVE = 0x0100;
+    private static final int ACC_STRICT = 0x0800;
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final Set<String> API_ATTRIBUTES = new HashSet<String>( Arrays.asList( //
+            "Signature", "ConstantValue", "Exceptions", "AnnotationDefault", //
+            "RuntimeVisibleAnnotations", "RuntimeInvisibleAnnotations", //
+            "RuntimeVisibleParameterAnnotations", "RuntimeInvisibleParameterAnnotations" ) );
+
+    private APIFingerprint()
+    {
+    }
+
+    /**
+     * Writes the fingerprint of the JAR to the fingerprint file, if it is not already there.  A JAR that does not exist has no fingerprint
+     * file.
+     *
+     * @return true if the fingerprint (i.e. the API) changed.
+     */
+    static boolean update( File pJar, File pFingerprintFile )
+    {
+        String zExisting = pFingerprintFile.isFile() ? FileUtil.fileContents( pFingerprintFile ) : null;
+        if ( !pJar.isFile() )
+        {
+            FileUtil.delete( pFingerprintFile );
+            return (zExisting != null);
+        }
+        String zFingerprint = of( pJar );
+        if ( zFingerprint.equals( zExisting ) )
+        {
+            return false;
+        }
+        FileUtil.mkdir( pFingerprintFile.getParentFile() );
+        FileUtil.updateFileContents( pFingerprintFile, zFingerprint );
+        return true;
+    }
+
+    static String of( File pJar )
+    {
+        MessageDigest zDigest = Util.sha1();
+        try
+        {
+            ZipFile zZip = new ZipFile( pJar );
+            try
+            {
+                SortedMap<String, String> zAPIs = new TreeMap<String, String>(); // So the entry order does not matter
+                for ( Enumeration<? extends ZipEntry> zEntries = zZip.entries(); zEntries.hasMoreElements(); )
+                {
+                    ZipEntry zEntry = zEntries.nextElement();
+                    if ( !zEntry.isDirectory() && zEntry.getName().endsWith( ".class" ) )
+                    {
+                        InputStream zIn = zZip.getInputStream( zEntry );
+                        try
+                        {
+                            String zAPI = new ClassAPI( new DataInputStream( new BufferedInputStream( zIn ) ) ).getAPI();
+                            if ( zAPI != null )
+                            {
+                                zAPIs.put( zEntry.getName(), zAPI );
+                            }
+                        }
+                        finally
+                        {
+                            zIn.close();
+                        }
+                    }
+                }
+                for ( String zAPI : zAPIs.values() )
+                {
+                    zDigest.update( zAPI.getBytes( "UTF-8" ) );
+                }
+            }
+            finally
+            {
+                zZip.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new WrappedIOException( e );
+        }
+        return Util.hex( zDigest.digest() );
+    }
+
+    /**
+     * The API of a class file, as (canonical, the members are sorted) text.
+     */
+    private static class ClassAPI
+    {
+        private final DataInputStream mIn;
+        private Object[] mConstants;
+        private boolean mAPI = true;
+        private String mThisClass;
+        private final StringBuilder mClass = new StringBuilder();
+        private final SortedSet<String> mMembers = new TreeSet<String>();
+
+        ClassAPI( DataInputStream pIn )
+                throws IOException
+        {
+            mIn = pIn;
+            if ( pIn.readInt() != 0xCAFEBABE )
+            {
+                throw new IOException( "Not a class file" );
+            }
+            pIn.readUnsignedShort(); // Minor version
+            pIn.readUnsignedShort(); // Major version (not API, it only changes with the compiler or its options)
+            readConstants();
+            int zAccess = pIn.readUnsignedShort() & ~ACC_SUPER_OR_SYNCHRONIZED;
+            mThisClass = className( pIn.readUnsignedShort() );
+            mClass.append( "class " ).append( mThisClass ).append( ' ' ).append( zAccess );
+            int zSuper = pIn.readUnsignedShort();
+            mClass.append( " extends " ).append( (zSuper == 0) ? "" : className( zSuper ) );
+            SortedSet<String> zInterfaces = new TreeSet<String>();
+            for ( int zCount = pIn.readUnsignedShort(); zCount > 0; zCount-- )
+            {
+                zInterfaces.add( className( pIn.readUnsignedShort() ) );
+            }
+            mClass.append( " implements " ).append( zInterfaces );
+            readMembers( "field " );
+            readMembers( "method " );
+            mClass.append( readAttributes() );
+        }
+
+        /**
+         * @return null if the class is not part of the API (local, anonymous or private nested).
+         */
+        String getAPI()
+        {
+            if ( !mAPI )
+            {
+                return null;
+            }
+            StringBuilder sb = new StringBuilder( mClass ).append( '\n' );
+            for ( String zMember : mMembers )
+            {
+                sb.append( "  " ).append( zMember ).append( '\n' );
+            }
+            return sb.toString();
+        }
+
+        private void readConstants()
+                throws IOException
+        {
+            mConstants = new Object[mIn.readUnsignedShort()];
+            for ( int i = 1; i < mConstants.length; i++ )
+            {
+                int zTag = mIn.readUnsignedByte();
+                switch ( zTag )
+                {
+                    case 1: // Utf8
+                        mConstants[i] = mIn.readUTF();
+                        break;
+                    case 3: // Integer
+                        mConstants[i] = mIn.readInt();
+                        break;
+                    case 4: // Float
+                        mConstants[i] = mIn.readFloat();
+                        break;
+                    case 5: // Long
+                        mConstants[i++] = mIn.readLong();
+                        break;
+                    case 6: // Double
+                        mConstants[i++] = mIn.readDouble();
+                        break;
+                    case 7: // Class
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        mConstants[i] = new int[]{mIn.readUnsignedShort()};
+                        break;
+                    case 15: // MethodHandle
+                        mIn.readUnsignedByte();
+                        mIn.readUnsignedShort();
+                        break;
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        mIn.readInt();
+                        break;
+                    default:
+                        throw new IOException( "Unknown constant pool tag: " + zTag );
+                }
+            }
+        }
+
+        private String utf8( int pIndex )
+        {
+            return (String) mConstants[pIndex];
+        }
+
+        private String className( int pIndex )
+        {
+            return utf8( ((int[]) mConstants[pIndex])[0] );
+        }
+
+        private String constant( int pIndex )
+        {
+            Object zConstant = mConstants[pIndex];
+            return (zConstant instanceof int[]) ? utf8( ((int[]) zConstant)[0] ) : String.valueOf( zConstant );
+        }
+
+        private void readMembers( String pKind )
+                throws IOException
+        {
+            for ( int zCount = mIn.readUnsignedShort(); zCount > 0; zCount-- )
+            {
+                int zAccess = mIn.readUnsignedShort();
+                String zMember = pKind + (zAccess & ~(ACC_SUPER_OR_SYNCHRONIZED | ACC_NATIVE | ACC_STRICT)) + ' ' + //
+                                 utf8( mIn.readUnsignedShort() ) + ' ' + utf8( mIn.readUnsignedShort() ) + readAttributes();
+                if ( (zAccess & (ACC_PRIVATE | ACC_SYNTHETIC)) == 0 )
+                {
+                    mMembers.add( zMember );
+                }
+            }
+        }
+
+        private String readAttributes()
+                throws IOException
+        {
+            StringBuilder sb = new StringBuilder();
+            for ( int zCount = mIn.readUnsignedShort(); zCount > 0; zCount-- )
+            {
+                String zName = utf8( mIn.readUnsignedShort() );
+                int zLength = mIn.readInt();
+                if ( "InnerClasses".equals( zName ) )
+                {
+                    readInnerClasses( sb );
+                }
+                else if ( !API_ATTRIBUTES.contains( zName ) )
+                {
+                    mIn.readFully( new byte[zLength] ); // e.g. Code, LineNumberTable, SourceFile
+                }
+                else
+                {
+                    sb.append( ' ' ).append( zName ).append( '=' );
+                    if ( "Signature".equals( zName ) )
+                    {
+                        sb.append( utf8( mIn.readUnsignedShort() ) );
+                    }
+                    else if ( "ConstantValue".equals( zName ) )
+                    {
+                        sb.append( constant( mIn.readUnsignedShort() ) );
+                    }
+                    else if ( "Exceptions".equals( zName ) )
+                    {
+                        SortedSet<String> zExceptions = new TreeSet<String>();
+                        for ( int zExceptionCount = mIn.readUnsignedShort(); zExceptionCount > 0; zExceptionCount-- )
+                        {
+                            zExceptions.add( className( mIn.readUnsignedShort() ) );
+                        }
+                        sb.append( zExceptions );
+                    }
+                    else if ( "AnnotationDefault".equals( zName ) )
+                    {
+                        readElementValue( sb );
+                    }
+                    else if ( zName.endsWith( "ParameterAnnotations" ) )
+                    {
+                        for ( int zParameters = mIn.readUnsignedByte(); zParameters > 0; zParameters-- )
+                        {
+                            readAnnotations( sb.append( '(' ) );
+                            sb.append( ')' );
+                        }
+                    }
+                    else
+                    {
+                        readAnnotations( sb );
+                    }
+                }
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Only this class's own entry (its source level access & whether it is local / anonymous) is API, its nested classes are each
+         * their own class file.
+         */
+        private void readInnerClasses( StringBuilder pSB )
+                throws IOException
+        {
+            for ( int zCount = mIn.readUnsignedShort(); zCount > 0; zCount-- )
+            {
+                int zInner = mIn.readUnsignedShort();
+                int zOuter = mIn.readUnsignedShort();
+                mIn.readUnsignedShort(); // Simple name
+                int zAccess = mIn.readUnsignedShort();
+                if ( (zInner != 0) && className( zInner ).equals( mThisClass ) )
+                {
+                    if ( (zOuter == 0) || ((zAccess & ACC_PRIVATE) != 0) )
+                    {
+                        mAPI = false;
+                    }
+                    else
+                    {
+                        pSB.append( " nested=" ).append( className( zOuter ) ).append( ' ' ).append( zAccess & ~ACC_SUPER_OR_SYNCHRONIZED );
+                    }
+                }
+            }
+        }
+
+        private void readAnnotations( StringBuilder pSB )
+                throws IOException
+        {
+            for ( int zCount = mIn.readUnsignedShort(); zCount > 0; zCount-- )
+            {
+                readAnnotation( pSB );
+            }
+        }
+
+        private void readAnnotation( StringBuilder pSB )
+                throws IOException
+        {
+            pSB.append( '@' ).append( utf8( mIn.readUnsignedShort() ) ).append( '(' );
+            for ( int zCount = mIn.readUnsignedShort(); zCount > 0; zCount-- )
+            {
+                pSB.append( utf8( mIn.readUnsignedShort() ) ).append( '=' );
+                readElementValue( pSB );
+                pSB.append( ',' );
+            }
+            pSB.append( ')' );
+        }
+
+        private void readElementValue( StringBuilder pSB )
+                throws IOException
+        {
+            char zTag = (char) mIn.readUnsignedByte();
+            switch ( zTag )
+            {
+                case 'e':
+                    pSB.append( utf8( mIn.readUnsignedShort() ) ).append( '.' ).append( utf8( mIn.readUnsignedShort() ) );
+                    break;
+                case 'c':
+                    pSB.append( utf8( mIn.readUnsignedShort() ) ).append( ".class" );
+                    break;
+                case '@':
+                    readAnnotation( pSB );
+                    break;
+                case '[':
+                    pSB.append( '{' );
+                    for ( int zCount = mIn.readUnsignedShort(); zCount > 0; zCount-- )
+                    {
+                        readElementValue( pSB );
+                        pSB.append( ',' );
+                    }
+                    pSB.append( '}' );
+                    break;
+                default: // B C D F I J S Z s
+                    pSB.append( zTag ).append( constant( mIn.readUnsignedShort() ) );
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.*;
+
+import org.litesoft.logger.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * A (workspace wide, by default "~/.scar/durations.history") history of how long each project's build steps (e.g. "Build", "GWT Compile",
+ * "WAR") took, so the builds can be ordered by their estimated critical path (slow GWT modules first).
+ * <p/>
+ * A step's estimate is the average of its recorded durations, weighted to the recent ones.  Only steps that were performed (not the "NOT
+ * Needed" ones) are recorded.  A history that can't be read (e.g. corrupt, or an older format) is ignored.
+ */
+final class BuildHistory
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger( BuildHistory.class );
+
+    private static final int MAGIC = 0x53434248; // "SCBH"
+    private static final int VERSION = 1;
+
+    private static BuildHistory sShared;
+
+    private final File mHistoryFile;
+    private final Map<String, Map<String, Long>> mStepMSsByProject = new HashMap<String, Map<String, Long>>();
+    private boolean mChanged;
+
+    BuildHistory( File pHistoryFile )
+    {
+        mHistoryFile = pHistoryFile;
+        if ( pHistoryFile.isFile() )
+        {
+            try
+            {
+                load();
+            }
+            catch ( IOException e )
+            {
+                LOGGER.debug.log( "Ignoring build history ", pHistoryFile, ": ", e );
+                mStepMSsByProject.clear();
+                mChanged = true; // Replace it
+            }
+        }
+    }
+
+    static synchronized BuildHistory getShared()
+    {
+        if ( sShared == null )
+        {
+            sShared = new BuildHistory( new File( System.getProperty( "user.home" ), ".scar/durations.history" ) );
+        }
+        return sShared;
+    }
+
+    /**
+     * @param pProject the (canonical) project directory.
+     */
+    synchronized void record( String pProject, String pStep, long pMS )
+    {
+        Map<String, Long> zStepMSs = mStepMSsByProject.get( pProject );
+        if ( zStepMSs == null )
+        {
+            mStepMSsByProject.put( pProject, zStepMSs = new HashMap<String, Long>() );
+        }
+        Long zEstimate = zStepMSs.get( pStep );
+        zStepMSs.put( pStep, (zEstimate == null) ? pMS : (zEstimate + pMS) / 2 );
+        mChanged = true;
+    }
+
+    /**
+     * @return the estimated duration of all the (recorded) steps of the project, 0 if it has no history.
+     */
+    synchronized long getEstimateMS( String pProject )
+    {
+        long zTotal = 0;
+        Map<String, Long> zStepMSs = mStepMSsByProject.get( pProject );
+        if ( zStepMSs != null )
+        {
+            for ( Long zEstimate : zStepMSs.values() )
+            {
+                zTotal += zEstimate;
+            }
+        }
+        return zTotal;
+    }
+
+    /**
+     * Save the history, if a step was recorded since it was loaded (or last saved).  A failure is only logged, as the estimates only order
+     * the builds.
+     */
+    synchronized void save()
+    {
+        if ( !mChanged )
+        {
+            return;
+        }
+        try
+        {
+            FileUtil.writeAtomically( mHistoryFile, true, new FileUtil.ContentWriter()
+            {
+                @Override
+                public void write( DataOutputStream pOut )
+                        throws IOException
+                {
+                    BuildHistory.this.write( pOut );
+                }
+            } );
+            mChanged = false;
+        }
+        catch ( RuntimeException e )
+        {
+            LOGGER.debug.log( "Unable to save build history ", mHistoryFile, ": ", e );
+        }
+    }
+
+    private void load()
+            throws IOException
+    {
+        DataInputStream zIn = new DataInputStream( new BufferedInputStream( FileUtil.createFileInputStream( mHistoryFile ) ) );
+        try
+        {
+            if ( (zIn.readInt() != MAGIC) || (zIn.readInt() != VERSION) )
+            {
+                throw new IOException( "Not a (current) build history" );
+            }
+            for ( int zProjects = zIn.readInt(); zProjects > 0; zProjects-- )
+            {
+                String zProject = zIn.readUTF();
+                Map<String, Long> zStepMSs = new HashMap<String, Long>();
+                for ( int zSteps = zIn.readInt(); zSteps > 0; zSteps-- )
+                {
+                    String zStep = zIn.readUTF();
+                    zStepMSs.put( zStep, zIn.readLong() );
+                }
+                mStepMSsByProject.put( zProject, zStepMSs );
+            }
+        }
+        finally
+        {
+            zIn.close();
+        }
+    }
+
+    private void write( DataOutputStream pOut )
+            throws IOException
+    {
+        pOut.writeInt( MAGIC );
+        pOut.writeInt( VERSION );
+        pOut.writeInt( mStepMSsByProject.size() );
+        for ( Map.Entry<String, Map<String, Long>> zProjectEntry : mStepMSsByProject.entrySet() )
+        {
+            pOut.writeUTF( zProjectEntry.getKey() );
+            pOut.writeInt( zProjectEntry.getValue().size() );
+            for ( Map.Entry<String, Long> zStepEntry : zProjectEntry.getValue().entrySet() )
+            {
+                pOut.writeUTF( zStepEntry.getKey() );
+                pOut.writeLong( zStepEntry.getValue() );
+            }
+        }
+    }
+}
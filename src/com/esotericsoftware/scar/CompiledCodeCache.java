@@ -0,0 +1,243 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.net.*;
+import java.security.*;
+import java.util.*;
+
+import org.litesoft.logger.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * A persistent (by default "~/.scar/classcache") cache of the classes compiled from dynamic code (see
+ * {@link Utils#compileDynamicCodeToClass}), so running the same code again skips javac.
+ * <p/>
+ * The key is a hash of the code, the classpath URLs, the JDK (java.version & java.vm.version), the Scar version, and the classpath the
+ * code is compiled against (the "java.class.path" entries, each with its length & last modified), so classes compiled against a since
+ * changed Scar (or support) jar are not reused.  An entry is all the classes the code compiled to (name & bytes), written atomically (see
+ * {@link FileUtil#writeAtomically}).  An entry that can't be read is ignored.
+ * <p/>
+ * As each change of the code (or classpath) leaves a new entry behind, the cache is bounded: when an entry is added, the least recently
+ * used (by last modified, which a hit updates) entries beyond the first <code>MAX_ENTRIES</code> are deleted.
+ */
+final class CompiledCodeCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger( CompiledCodeCache.class );
+
+    private static final int FORMAT = 1;
+
+    private static final String SUFFIX = ".classes";
+
+    static final int MAX_ENTRIES = 256;
+
+    private final File mDir;
+    private final int mMaxEntries;
+
+    CompiledCodeCache( File pDir )
+    {
+        this( pDir, MAX_ENTRIES );
+    }
+
+    CompiledCodeCache( File pDir, int pMaxEntries )
+    {
+        mDir = pDir;
+        mMaxEntries = pMaxEntries;
+    }
+
+    static File getDefaultDir()
+    {
+        return new File( System.getProperty( "user.home" ), ".scar/classcache" );
+    }
+
+    String key( String pCode, URL... pClasspathURLs )
+    {
+        MessageDigest zDigest = Util.sha1();
+        update( zDigest, Integer.toString( FORMAT ) );
+        update( zDigest, System.getProperty( "java.version" ) );
+        update( zDigest, System.getProperty( "java.vm.version" ) );
+        update( zDigest, Scar.VERSION );
+        for ( String zPath : System.getProperty( "java.class.path", "" ).split( File.pathSeparator ) )
+        {
+            File zFile = new File( zPath );
+            update( zDigest, zFile.getAbsolutePath() );
+            update( zDigest, zFile.isDirectory() ? stamp( zFile ) : (zFile.length() + "@" + zFile.lastModified()) );
+        }
+        for ( URL zURL : pClasspathURLs )
+        {
+            update( zDigest, zURL.toExternalForm() );
+        }
+        update( zDigest, pCode );
+        return Util.hex( zDigest.digest() );
+    }
+
+    /**
+     * @return the number of files in, & the latest last modified of, the (classes) directory.
+     */
+    private static String stamp( File pDir )
+    {
+        long[] zFilesLastModified = {0, 0};
+        stamp( pDir, zFilesLastModified );
+        return zFilesLastModified[0] + "@" + zFilesLastModified[1];
+    }
+
+    private static void stamp( File pDir, long[] pFilesLastModified )
+    {
+        File[] zFiles = pDir.listFiles();
+        if ( zFiles != null )
+        {
+            for ( File zFile : zFiles )
+            {
+                if ( zFile.isDirectory() )
+                {
+                    stamp( zFile, pFilesLastModified );
+                }
+                else
+                {
+                    pFilesLastModified[0]++;
+                    pFilesLastModified[1] = Math.max( pFilesLastModified[1], zFile.lastModified() );
+                }
+            }
+        }
+    }
+
+    private static void update( MessageDigest pDigest, String pString )
+    {
+        try
+        {
+            pDigest.update( String.valueOf( pString ).getBytes( "UTF-8" ) );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+        pDigest.update( (byte) 0 ); // Separator, so ("ab", "c") != ("a", "bc")
+    }
+
+    /**
+     * @return the classes (by name), or null if not cached.
+     */
+    Map<String, byte[]> get( String pKey )
+    {
+        File zFile = getFile( pKey );
+        if ( !zFile.isFile() )
+        {
+            return null;
+        }
+        try
+        {
+            DataInputStream zIn = new DataInputStream( new BufferedInputStream( FileUtil.createFileInputStream( zFile ) ) );
+            try
+            {
+                Map<String, byte[]> zClasses = new HashMap<String, byte[]>();
+                for ( int zCount = zIn.readInt(); zCount > 0; zCount-- )
+                {
+                    String zName = zIn.readUTF();
+                    int zLength = zIn.readInt();
+                    if ( (zLength < 0) || (zLength > zFile.length()) )
+                    {
+                        throw new IOException( "Corrupt length: " + zLength );
+                    }
+                    byte[] zBytes = new byte[zLength];
+                    zIn.readFully( zBytes );
+                    zClasses.put( zName, zBytes );
+                }
+                if ( !zFile.setLastModified( System.currentTimeMillis() ) ) // Recently used, see prune()
+                {
+                    LOGGER.debug.log( "Unable to touch compiled code cache entry ", zFile );
+                }
+                return zClasses;
+            }
+            finally
+            {
+                zIn.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            LOGGER.debug.log( "Ignoring compiled code cache entry ", zFile, ": ", e );
+            return null;
+        }
+        catch ( RuntimeException e )
+        {
+            LOGGER.debug.log( "Ignoring compiled code cache entry ", zFile, ": ", e );
+            return null;
+        }
+    }
+
+    /**
+     * Cache the classes.  Failures are only logged, the cache is an optimization.
+     */
+    void put( String pKey, final Map<String, byte[]> pClasses )
+    {
+        File zFile = getFile( pKey );
+        try
+        {
+            FileUtil.writeAtomically( zFile, false, new FileUtil.ContentWriter()
+            {
+                @Override
+                public void write( DataOutputStream pOut )
+                        throws IOException
+                {
+                    pOut.writeInt( pClasses.size() );
+                    for ( Map.Entry<String, byte[]> zEntry : pClasses.entrySet() )
+                    {
+                        pOut.writeUTF( zEntry.getKey() );
+                        pOut.writeInt( zEntry.getValue().length );
+                        pOut.write( zEntry.getValue() );
+                    }
+                }
+            } );
+        }
+        catch ( RuntimeException e )
+        {
+            LOGGER.debug.log( "Unable to cache compiled code ", zFile, ": ", e );
+            return;
+        }
+        prune();
+    }
+
+    /**
+     * Delete the least recently used entries beyond the first <code>mMaxEntries</code>.
+     */
+    private void prune()
+    {
+        File[] zFiles = mDir.listFiles( new FilenameFilter()
+        {
+            @Override
+            public boolean accept( File pDir, String pName )
+            {
+                return pName.endsWith( SUFFIX );
+            }
+        } );
+        if ( (zFiles == null) || (zFiles.length <= mMaxEntries) )
+        {
+            return;
+        }
+        final Map<File, Long> zLastModified = new HashMap<File, Long>(); // Snapshot: other processes may touch them while sorting
+        for ( File zFile : zFiles )
+        {
+            zLastModified.put( zFile, zFile.lastModified() );
+        }
+        Arrays.sort( zFiles, new Comparator<File>()
+        {
+            @Override
+            public int compare( File pFile1, File pFile2 )
+            {
+                return zLastModified.get( pFile2 ).compareTo( zLastModified.get( pFile1 ) ); // Most recently used first
+            }
+        } );
+        for ( int i = mMaxEntries; i < zFiles.length; i++ )
+        {
+            if ( !zFiles[i].delete() && zFiles[i].exists() )
+            {
+                LOGGER.debug.log( "Unable to prune compiled code cache entry ", zFiles[i] );
+            }
+        }
+    }
+
+    private File getFile( String pKey )
+    {
+        return new File( mDir, pKey + SUFFIX );
+    }
+}
@@ -0,0 +1,195 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.*;
+import javax.xml.parsers.*;
+
+import org.w3c.dom.*;
+import org.xml.sax.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * The files (under the given source & resource roots) a GWT compile of a module depends on: the module files (".gwt.xml") of it & the
+ * modules it inherits, and everything under their client source paths (&lt;source&gt;, default "client"), super source paths, public
+ * paths (&lt;public&gt;, default "public") and the packages of their generators (&lt;generate-with&gt;).
+ * <p/>
+ * Inherited modules that are not under the roots (e.g. GWT's own, or those of a library) come from JARs, which the caller must check.
+ * The &lt;source&gt; includes & excludes are ignored (the whole path counts), so this errs on the side of compiling.
+ */
+final class GWTClientFiles
+{
+    private final List<File> mRoots;
+    private final Set<String> mModules = new LinkedHashSet<String>();
+    private final Set<String> mRelativeDirs = new LinkedHashSet<String>();
+    private final List<File> mModuleFiles = new ArrayList<File>();
+
+    /**
+     * @param pRoots the (canonical) source & resource root directories, in classpath order.
+     */
+    GWTClientFiles( List<File> pRoots )
+    {
+        mRoots = new ArrayList<File>( pRoots );
+    }
+
+    /**
+     * Add the module (e.g. "org.litesoft.sandbox.csapp.CSapp"), and the modules it inherits that are under the roots.
+     *
+     * @throws IllegalStateException if a module file can't be parsed.
+     */
+    GWTClientFiles addModule( String pModule )
+    {
+        if ( !mModules.add( pModule ) )
+        {
+            return this;
+        }
+        String zModulePath = pModule.replace( '.', '/' );
+        File zModuleFile = find( zModulePath + ".gwt.xml" );
+        if ( zModuleFile == null )
+        {
+            return this; // From a JAR
+        }
+        mModuleFiles.add( zModuleFile );
+        String zPackagePath = zModulePath.substring( 0, zModulePath.lastIndexOf( '/' ) + 1 ); // "" or with a trailing '/'
+        Element zRoot = parse( zModuleFile ).getDocumentElement();
+        if ( !addPaths( zRoot, "source", zPackagePath ) )
+        {
+            mRelativeDirs.add( zPackagePath + "client" );
+        }
+        addPaths( zRoot, "super-source", zPackagePath );
+        if ( !addPaths( zRoot, "public", zPackagePath ) )
+        {
+            mRelativeDirs.add( zPackagePath + "public" );
+        }
+        NodeList zGenerators = zRoot.getElementsByTagName( "generate-with" );
+        for ( int i = 0; i < zGenerators.getLength(); i++ )
+        {
+            String zClass = ((Element) zGenerators.item( i )).getAttribute( "class" );
+            int zLastDot = zClass.lastIndexOf( '.' );
+            if ( zLastDot != -1 )
+            {
+                mRelativeDirs.add( zClass.substring( 0, zLastDot ).replace( '.', '/' ) );
+            }
+        }
+        NodeList zInherits = zRoot.getElementsByTagName( "inherits" );
+        for ( int i = 0; i < zInherits.getLength(); i++ )
+        {
+            String zInherited = ((Element) zInherits.item( i )).getAttribute( "name" ).trim();
+            if ( zInherited.length() != 0 )
+            {
+                addModule( zInherited );
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return the modules added, found (under the roots) or not.
+     */
+    Set<String> getModules()
+    {
+        return Collections.unmodifiableSet( mModules );
+    }
+
+    /**
+     * @return the directories (relative to the roots, '/' separated) whose files the compile depends on.
+     */
+    Set<String> getRelativeDirs()
+    {
+        return Collections.unmodifiableSet( mRelativeDirs );
+    }
+
+    /**
+     * @return the greatest last modified of the module files, and the files & directories (so deletes count) under the relative dirs, or
+     *         0 if none.
+     */
+    long getGreatestLastModified()
+    {
+        long zGreatest = 0;
+        for ( File zModuleFile : mModuleFiles )
+        {
+            zGreatest = Math.max( zGreatest, zModuleFile.lastModified() );
+        }
+        for ( File zRoot : mRoots )
+        {
+            for ( String zRelativeDir : mRelativeDirs )
+            {
+                zGreatest = Math.max( zGreatest, greatestLastModified( new File( zRoot, zRelativeDir ) ) );
+            }
+        }
+        return zGreatest;
+    }
+
+    private static long greatestLastModified( File pFile )
+    {
+        long zGreatest = pFile.lastModified(); // 0 if it does not exist
+        File[] zFiles = pFile.listFiles();
+        if ( zFiles != null )
+        {
+            for ( File zFile : zFiles )
+            {
+                zGreatest = Math.max( zGreatest, greatestLastModified( zFile ) );
+            }
+        }
+        return zGreatest;
+    }
+
+    private boolean addPaths( Element pModule, String pTagName, String pPackagePath )
+    {
+        NodeList zElements = pModule.getElementsByTagName( pTagName );
+        for ( int i = 0; i < zElements.getLength(); i++ )
+        {
+            String zPath = ((Element) zElements.item( i )).getAttribute( "path" ).trim();
+            while ( zPath.endsWith( "/" ) )
+            {
+                zPath = zPath.substring( 0, zPath.length() - 1 );
+            }
+            mRelativeDirs.add( pPackagePath + zPath );
+        }
+        return zElements.getLength() != 0;
+    }
+
+    private File find( String pRelativePath )
+    {
+        for ( File zRoot : mRoots )
+        {
+            File zFile = new File( zRoot, pRelativePath );
+            if ( zFile.isFile() )
+            {
+                return zFile;
+            }
+        }
+        return null;
+    }
+
+    private static Document parse( File pModuleFile )
+    {
+        try
+        {
+            DocumentBuilderFactory zFactory = DocumentBuilderFactory.newInstance();
+            zFactory.setValidating( false );
+            DocumentBuilder zBuilder = zFactory.newDocumentBuilder();
+            zBuilder.setEntityResolver( new EntityResolver()
+            {
+                @Override
+                public InputSource resolveEntity( String pPublicId, String pSystemId )
+                {
+                    return new InputSource( new StringReader( "" ) ); // Don't fetch GWT's DTD
+                }
+            } );
+            return zBuilder.parse( pModuleFile );
+        }
+        catch ( ParserConfigurationException e )
+        {
+            throw new IllegalStateException( "Unable to parse GWT module file: " + pModuleFile, e );
+        }
+        catch ( SAXException e )
+        {
+            throw new IllegalStateException( "Unable to parse GWT module file: " + pModuleFile + ": " + e.getMessage() );
+        }
+        catch ( IOException e )
+        {
+            throw new WrappedIOException( e );
+        }
+    }
+}
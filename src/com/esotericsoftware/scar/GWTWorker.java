@@ -0,0 +1,234 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.net.*;
+import java.security.*;
+import java.util.*;
+
+/**
+ * The main class of a (warm, reused) GWT compiler JVM, see {@link GWTWorkerPool}.  Only uses the JDK, as its classpath is just the GWT
+ * JARs & the Scar code.
+ * <p/>
+ * Arguments: the port (on 127.0.0.1) to connect back to, and the token to identify itself with.
+ * <p/>
+ * Protocol (Data streams): the worker sends the token & whether it can trap <code>System.exit</code> (GWT's Compiler always exits).  Then
+ * for each request: the number of & the project specific classpath entries, the number of & the Compiler arguments; the reply is the
+ * exit code, and the used & max heap (after a GC).  The worker exits when the connection is closed.
+ * <p/>
+ * Each compile loads the compiler with a fresh class loader of the GWT JARs followed by the project specific entries (the classpath of a
+ * forked compiler, so the generators & linkers GWT loads through its own class loader are found), which is also the context class loader.
+ * So the JVM (its startup, and the JDK's classes & their JIT warm-up) is reused, but nothing of a project leaks into the next compile.
+ * <p/>
+ * Failures are written to System.err, which the {@link GWTWorkerPool} captures (and reports if the compile fails).
+ */
+public class GWTWorker
+{
+    static final String COMPILER = "com.google.gwt.dev.Compiler";
+
+    private static volatile boolean sExiting;
+
+    public static void main( String[] args )
+            throws Exception
+    {
+        boolean zTrapping = trapExits();
+        Socket zSocket = new Socket( InetAddress.getByName( "127.0.0.1" ), Integer.parseInt( args[0] ) );
+        zSocket.setTcpNoDelay( true );
+        DataInputStream zIn = new DataInputStream( new BufferedInputStream( zSocket.getInputStream() ) );
+        DataOutputStream zOut = new DataOutputStream( new BufferedOutputStream( zSocket.getOutputStream() ) );
+        zOut.writeUTF( args[1] );
+        zOut.writeBoolean( zTrapping );
+        zOut.flush();
+        if ( !zTrapping )
+        {
+            return;
+        }
+        List<URL> zGWTjars = GWTjars();
+        while ( true )
+        {
+            String[] zClasspath, zArgs;
+            try
+            {
+                zClasspath = readStrings( zIn );
+            }
+            catch ( EOFException e )
+            {
+                break; // Build is done with us
+            }
+            zArgs = readStrings( zIn );
+            int zExitCode = compile( zGWTjars, zClasspath, zArgs );
+            System.out.flush();
+            System.err.flush();
+            Runtime zRuntime = Runtime.getRuntime();
+            System.gc();
+            zOut.writeInt( zExitCode );
+            zOut.writeLong( zRuntime.totalMemory() - zRuntime.freeMemory() );
+            zOut.writeLong( zRuntime.maxMemory() );
+            zOut.flush();
+        }
+        sExiting = true;
+        System.exit( 0 ); // GWT may have left non daemon threads around
+    }
+
+    /**
+     * @return this JVM's classpath, less the Scar code (i.e. the GWT JARs).
+     */
+    private static List<URL> GWTjars()
+            throws IOException
+    {
+        File zScar;
+        try
+        {
+            zScar = new File( GWTWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI() ).getCanonicalFile();
+        }
+        catch ( URISyntaxException e )
+        {
+            throw new IOException( "Unable to locate the Scar code: " + e.getMessage() );
+        }
+        List<URL> zURLs = new ArrayList<URL>();
+        for ( String zEntry : System.getProperty( "java.class.path" ).split( File.pathSeparator ) )
+        {
+            File zFile = new File( zEntry ).getCanonicalFile();
+            if ( (zEntry.length() != 0) && !zFile.equals( zScar ) )
+            {
+                zURLs.add( zFile.toURI().toURL() );
+            }
+        }
+        return zURLs;
+    }
+
+    private static int compile( List<URL> pGWTjars, String[] pClasspath, String[] pArgs )
+    {
+        List<URL> zURLs = new ArrayList<URL>( pGWTjars );
+        try
+        {
+            for ( String zEntry : pClasspath )
+            {
+                zURLs.add( new File( zEntry ).toURI().toURL() );
+            }
+        }
+        catch ( MalformedURLException e )
+        {
+            return failed( "Bad classpath entry", e );
+        }
+        ClassLoader zBase = GWTWorker.class.getClassLoader();
+        URLClassLoader zLoader = new URLClassLoader( zURLs.toArray( new URL[zURLs.size()] ), ClassLoader.getSystemClassLoader().getParent() );
+        Thread zThread = Thread.currentThread();
+        zThread.setContextClassLoader( zLoader );
+        try
+        {
+            Class.forName( COMPILER, true, zLoader ).getMethod( "main", String[].class ).invoke( null, (Object) pArgs );
+            return 0; // Did not exit!
+        }
+        catch ( InvocationTargetException e )
+        {
+            for ( Throwable zCause = e.getCause(); zCause != null; zCause = zCause.getCause() )
+            {
+                if ( zCause instanceof ExitTrappedException )
+                {
+                    return ((ExitTrappedException) zCause).mStatus;
+                }
+            }
+            return failed( "Compiler failed", e.getCause() );
+        }
+        catch ( Exception e )
+        {
+            return failed( "Unable to run the Compiler", e );
+        }
+        finally
+        {
+            zThread.setContextClassLoader( zBase );
+            if ( zLoader instanceof Closeable ) // Java 7+
+            {
+                try
+                {
+                    ((Closeable) zLoader).close();
+                }
+                catch ( IOException ignore )
+                {
+                    // Only releasing the JARs
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the failure to System.err (captured by the pool), its summary last, so it is in the (last lines of) output reported.
+     *
+     * @return the exit code (1).
+     */
+    private static int failed( String pWhat, Throwable pThrowable )
+    {
+        pThrowable.printStackTrace( System.err );
+        System.err.println( "GWT worker: " + pWhat + ": " + pThrowable );
+        return 1;
+    }
+
+    /**
+     * Note: The SecurityManager is deprecated for removal (Java 17+), but it is the only way to trap the GWT Compiler's
+     * <code>System.exit</code>; where it can't be used, the pool forks the compiler instead.
+     *
+     * @return false if a SecurityManager can't be installed (Java 18+ needs "-Djava.security.manager=allow", 24+ can't at all).
+     */
+    @SuppressWarnings({"removal", "deprecation"})
+    private static boolean trapExits()
+    {
+        try
+        {
+            System.setSecurityManager( new SecurityManager()
+            {
+                @Override
+                public void checkExit( int pStatus )
+                {
+                    if ( !sExiting )
+                    {
+                        throw new ExitTrappedException( pStatus );
+                    }
+                }
+
+                @Override
+                public void checkPermission( Permission pPermission )
+                {
+                }
+
+                @Override
+                public void checkPermission( Permission pPermission, Object pContext )
+                {
+                }
+            } );
+            return true;
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            return false;
+        }
+        catch ( SecurityException e )
+        {
+            return false;
+        }
+    }
+
+    private static String[] readStrings( DataInputStream pIn )
+            throws IOException
+    {
+        String[] zStrings = new String[pIn.readInt()];
+        for ( int i = 0; i < zStrings.length; i++ )
+        {
+            zStrings[i] = pIn.readUTF();
+        }
+        return zStrings;
+    }
+
+    private static class ExitTrappedException extends SecurityException
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int mStatus;
+
+        ExitTrappedException( int pStatus )
+        {
+            super( "System.exit( " + pStatus + " ) trapped" );
+            mStatus = pStatus;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.net.*;
+import java.security.*;
+import java.util.*;
+
+import org.litesoft.logger.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * Keeps warm GWT compiler JVMs ({@link GWTWorker}s) alive for the duration of the build, so each GWT compile after the first (with the
+ * same java, -Xmx & GWT JARs) skips the JVM startup, and the loading & JIT warm-up of the JDK's classes.
+ * <p/>
+ * A worker is recycled (ended, and a fresh one started when next needed) after <code>maxCompiles</code> compiles, or when its heap use
+ * (after a GC) is over <code>MAX_HEAP_USE_PERCENT</code> of its max.  Workers end with the build (their connection is closed).
+ * <p/>
+ * If a worker can't be used (e.g. its java can't trap <code>System.exit</code>, or it dies), {@link #compile} throws an
+ * {@link IOException} and the caller should fork the compiler as usual; a java that can't be used is remembered.
+ */
+final class GWTWorkerPool
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger( GWTWorkerPool.class );
+
+    static final int MAX_HEAP_USE_PERCENT = 75;
+
+    private static final int CONNECT_TIMEOUT_MS = 60 * 1000;
+    private static final int EXIT_TIMEOUT_MS = 10 * 1000;
+
+    private static final String ALLOW_SECURITY_MANAGER = "-Djava.security.manager=allow"; // Java 18+
+
+    private static final Map<String, LinkedList<Worker>> sIdle = new HashMap<String, LinkedList<Worker>>();
+    private static final Map<String, Boolean> sJavaNeedsAllow = new HashMap<String, Boolean>(); // Missing == unknown
+    private static final Set<String> sUnusableJavas = new HashSet<String>();
+    private static int sWorkerCount;
+    private static boolean sShutdownHookAdded;
+
+    private GWTWorkerPool()
+    {
+    }
+
+    /**
+     * Compile with a (warm) worker.
+     *
+     * @param pGWTclasspath     the GWT JARs (shared by the compiles of a worker).
+     * @param pProjectClasspath the project specific entries (given to each compile).
+     *
+     * @return the Compiler's exit code.
+     *
+     * @throws IOException if no worker could be used.
+     */
+    static int compile( String pJava, String pXmx, List<String> pGWTclasspath, List<String> pProjectClasspath, List<String> pArgs, int pMaxCompiles )
+            throws IOException
+    {
+        String zKey = pJava + "|" + pXmx + "|" + pGWTclasspath;
+        Worker zWorker = take( zKey, pJava, pXmx, pGWTclasspath );
+        boolean zReusable = false;
+        try
+        {
+            int zExitCode = zWorker.compile( pProjectClasspath, pArgs );
+            zWorker.mRunner.pumpAvailable(); // The worker flushed its output before replying
+            zReusable = (zWorker.mCompiles < pMaxCompiles) && (zWorker.mUsedHeap * 100 <= zWorker.mMaxHeap * MAX_HEAP_USE_PERCENT);
+            if ( zExitCode != 0 )
+            {
+                StringBuilder sb = new StringBuilder( "Error (" ).append( zExitCode ).append( ") GWT compiling with worker " ).append( zWorker.mNumber );
+                sb.append( ": " ).append( pArgs );
+                List<String> zLastLines = zWorker.mRunner.getCapturedLines();
+                if ( !zLastLines.isEmpty() )
+                {
+                    sb.append( "\n  Last output:" );
+                    for ( String zLine : zLastLines.subList( Math.max( 0, zLastLines.size() - 10 ), zLastLines.size() ) )
+                    {
+                        sb.append( "\n    " ).append( zLine );
+                    }
+                }
+                throw new RuntimeException( sb.toString() );
+            }
+            return zExitCode;
+        }
+        finally
+        {
+            if ( zReusable )
+            {
+                give( zKey, zWorker );
+            }
+            else
+            {
+                LOGGER.debug.log( "Recycling GWT worker ", zWorker.mNumber, " (", zWorker.mCompiles, " compiles, ", zWorker.mUsedHeap / (1024 * 1024), "MB used)" );
+                zWorker.close();
+            }
+        }
+    }
+
+    private static Worker take( String pKey, String pJava, String pXmx, List<String> pGWTclasspath )
+            throws IOException
+    {
+        Boolean zNeedsAllow;
+        synchronized ( GWTWorkerPool.class )
+        {
+            if ( sUnusableJavas.contains( pJava ) )
+            {
+                throw new IOException( "GWT workers not supported by: " + pJava );
+            }
+            LinkedList<Worker> zIdle = sIdle.get( pKey );
+            while ( (zIdle != null) && !zIdle.isEmpty() )
+            {
+                Worker zWorker = zIdle.removeFirst();
+                if ( zWorker.mRunner.isRunning() )
+                {
+                    return zWorker;
+                }
+                zWorker.close();
+            }
+            addShutdownHook();
+            zNeedsAllow = sJavaNeedsAllow.get( pJava );
+        }
+        Worker zWorker = start( pJava, pXmx, pGWTclasspath, Boolean.TRUE.equals( zNeedsAllow ) );
+        if ( (zWorker == null) && (zNeedsAllow == null) )
+        {
+            try
+            {
+                zWorker = start( pJava, pXmx, pGWTclasspath, true );
+            }
+            catch ( IOException e )
+            {
+                LOGGER.debug.log( "GWT worker with '", ALLOW_SECURITY_MANAGER, "': ", e.getMessage() ); // e.g. Java 24+
+            }
+        }
+        synchronized ( GWTWorkerPool.class )
+        {
+            if ( zWorker == null )
+            {
+                sUnusableJavas.add( pJava );
+                throw new IOException( "GWT workers not supported by: " + pJava );
+            }
+            sJavaNeedsAllow.put( pJava, zWorker.mAllowed );
+        }
+        return zWorker;
+    }
+
+    private static synchronized void give( String pKey, Worker pWorker )
+    {
+        LinkedList<Worker> zIdle = sIdle.get( pKey );
+        if ( zIdle == null )
+        {
+            sIdle.put( pKey, zIdle = new LinkedList<Worker>() );
+        }
+        zIdle.addFirst( pWorker ); // Warmest first
+    }
+
+    private static void addShutdownHook()
+    {
+        if ( !sShutdownHookAdded )
+        {
+            sShutdownHookAdded = true;
+            Runtime.getRuntime().addShutdownHook( new Thread( "GWT-Workers-Shutdown" )
+            {
+                @Override
+                public void run()
+                {
+                    synchronized ( GWTWorkerPool.class )
+                    {
+                        for ( LinkedList<Worker> zWorkers : sIdle.values() )
+                        {
+                            for ( Worker zWorker : zWorkers )
+                            {
+                                zWorker.close();
+                            }
+                        }
+                        sIdle.clear();
+                    }
+                }
+            } );
+        }
+    }
+
+    /**
+     * @return null if the worker could not trap <code>System.exit</code> (it has ended).
+     *
+     * @throws IOException if the worker could not be started (or did not connect back).
+     */
+    private static Worker start( String pJava, String pXmx, List<String> pGWTclasspath, boolean pAllowSecurityManager )
+            throws IOException
+    {
+        int zNumber;
+        synchronized ( GWTWorkerPool.class )
+        {
+            zNumber = ++sWorkerCount;
+        }
+        String zToken = Long.toHexString( new SecureRandom().nextLong() );
+        ServerSocket zServer = new ServerSocket( 0, 1, InetAddress.getByName( "127.0.0.1" ) );
+        ProcessRunner zRunner = null;
+        try
+        {
+            List<String> zCommand = new ArrayList<String>();
+            zCommand.add( pJava );
+            zCommand.add( "-Xmx" + pXmx );
+            if ( pAllowSecurityManager )
+            {
+                zCommand.add( ALLOW_SECURITY_MANAGER );
+            }
+            zCommand.add( "-cp" );
+            zCommand.add( classpath( pGWTclasspath ) );
+            zCommand.add( GWTWorker.class.getName() );
+            zCommand.add( Integer.toString( zServer.getLocalPort() ) );
+            zCommand.add( zToken );
+            zRunner = new ProcessRunner( zCommand ).prefix( "GWT worker " + zNumber ).start();
+
+            Socket zSocket = accept( zServer, zRunner );
+            DataInputStream zIn = new DataInputStream( new BufferedInputStream( zSocket.getInputStream() ) );
+            if ( !zToken.equals( zIn.readUTF() ) )
+            {
+                zSocket.close();
+                throw new IOException( "GWT worker " + zNumber + " did not identify itself" );
+            }
+            if ( !zIn.readBoolean() )
+            {
+                zSocket.close();
+                waitFor( zRunner );
+                zRunner = null;
+                return null;
+            }
+            Worker zWorker = new Worker( zNumber, zRunner, zSocket, zIn, pAllowSecurityManager );
+            zRunner = null;
+            LOGGER.debug.log( "Started GWT worker ", zNumber );
+            return zWorker;
+        }
+        finally
+        {
+            zServer.close();
+            if ( (zRunner != null) && !zRunner.isRunning() )
+            {
+                waitFor( zRunner ); // Failed, drain its output (a still running one fails to connect & exits)
+            }
+        }
+    }
+
+    private static Socket accept( ServerSocket pServer, ProcessRunner pRunner )
+            throws IOException
+    {
+        pServer.setSoTimeout( 500 );
+        long zGiveUpAt = System.currentTimeMillis() + CONNECT_TIMEOUT_MS;
+        while ( true )
+        {
+            try
+            {
+                Socket zSocket = pServer.accept();
+                zSocket.setTcpNoDelay( true );
+                return zSocket;
+            }
+            catch ( SocketTimeoutException e )
+            {
+                if ( !pRunner.isRunning() )
+                {
+                    throw new IOException( "GWT worker ended before connecting" );
+                }
+                if ( System.currentTimeMillis() > zGiveUpAt )
+                {
+                    throw new IOException( "GWT worker did not connect" );
+                }
+            }
+        }
+    }
+
+    private static String classpath( List<String> pGWTclasspath )
+            throws IOException
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( String zEntry : pGWTclasspath )
+        {
+            sb.append( zEntry ).append( File.pathSeparatorChar );
+        }
+        try
+        {
+            return sb.append( new File( GWTWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI() ).getPath() ).toString();
+        }
+        catch ( URISyntaxException e )
+        {
+            throw new IOException( "Unable to locate the Scar code: " + e.getMessage() );
+        }
+        catch ( RuntimeException e ) // e.g. no CodeSource
+        {
+            throw new IOException( "Unable to locate the Scar code: " + e );
+        }
+    }
+
+    private static void waitFor( ProcessRunner pRunner )
+    {
+        try
+        {
+            pRunner.waitFor();
+        }
+        catch ( Exception e )
+        {
+            LOGGER.debug.log( "Waiting for GWT worker: ", e );
+        }
+    }
+
+    private static class Worker
+    {
+        private final int mNumber;
+        private final ProcessRunner mRunner;
+        private final Socket mSocket;
+        private final DataInputStream mIn;
+        private final DataOutputStream mOut;
+        private final boolean mAllowed;
+        private int mCompiles;
+        private long mUsedHeap, mMaxHeap;
+
+        Worker( int pNumber, ProcessRunner pRunner, Socket pSocket, DataInputStream pIn, boolean pAllowed )
+                throws IOException
+        {
+            mNumber = pNumber;
+            mRunner = pRunner;
+            mSocket = pSocket;
+            mIn = pIn;
+            mOut = new DataOutputStream( new BufferedOutputStream( pSocket.getOutputStream() ) );
+            mAllowed = pAllowed;
+        }
+
+        int compile( List<String> pClasspath, List<String> pArgs )
+                throws IOException
+        {
+            writeStrings( pClasspath );
+            writeStrings( pArgs );
+            mOut.flush();
+            int zExitCode = mIn.readInt();
+            mUsedHeap = mIn.readLong();
+            mMaxHeap = mIn.readLong();
+            mCompiles++;
+            return zExitCode;
+        }
+
+        private void writeStrings( List<String> pStrings )
+                throws IOException
+        {
+            mOut.writeInt( pStrings.size() );
+            for ( String zString : pStrings )
+            {
+                mOut.writeUTF( zString );
+            }
+        }
+
+        /**
+         * Closes the connection (the worker sees EOF & exits), and waits (at most <code>EXIT_TIMEOUT_MS</code>, then it is destroyed) for
+         * the worker to exit and its output to be drained, so its pipes are released.
+         */
+        void close()
+        {
+            try
+            {
+                mSocket.close();
+            }
+            catch ( IOException ignore )
+            {
+                // Closing anyway
+            }
+            try
+            {
+                mRunner.waitFor( EXIT_TIMEOUT_MS );
+            }
+            catch ( Exception e )
+            {
+                LOGGER.debug.log( "Waiting for GWT worker ", mNumber, ": ", e );
+            }
+        }
+    }
+}
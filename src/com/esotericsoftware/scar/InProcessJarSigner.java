@@ -0,0 +1,193 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.security.*;
+import java.util.*;
+import java.util.zip.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * Signs JARs in process using the JDK's <code>jdk.security.jarsigner.JarSigner</code> API (Java 9+), accessed reflectively so Scar still
+ * runs on older JREs (where <code>isAvailable()</code> is false and the caller should fall back to the "jarsigner" tool).
+ * <p/>
+ * The loaded private keys are cached (by keystore & alias), so signing many JARs only reads each keystore once.  A cached key is only
+ * used with the password it was loaded with (only a digest of which is kept); any other password reloads it (so a wrong one fails as it
+ * would have the first time).
+ */
+class InProcessJarSigner
+{
+    private static final Constructor<?> sBuilderConstructor;
+    private static final Method sSignerName;
+    private static final Method sBuild;
+    private static final Method sSign;
+
+    static
+    {
+        Constructor<?> zBuilderConstructor = null;
+        Method zSignerName = null, zBuild = null, zSign = null;
+        try
+        {
+            Class<?> zBuilderClass = Class.forName( "jdk.security.jarsigner.JarSigner$Builder" );
+            zBuilderConstructor = zBuilderClass.getConstructor( KeyStore.PrivateKeyEntry.class );
+            zSignerName = zBuilderClass.getMethod( "signerName", String.class );
+            zBuild = zBuilderClass.getMethod( "build" );
+            zSign = Class.forName( "jdk.security.jarsigner.JarSigner" ).getMethod( "sign", ZipFile.class, OutputStream.class );
+        }
+        catch ( Exception e )
+        {
+            zBuilderConstructor = null; // Pre Java 9
+        }
+        sBuilderConstructor = zBuilderConstructor;
+        sSignerName = zSignerName;
+        sBuild = zBuild;
+        sSign = zSign;
+    }
+
+    private static final Map<String, CachedKey> sKeys = new HashMap<String, CachedKey>();
+
+    public static boolean isAvailable()
+    {
+        return (sBuilderConstructor != null);
+    }
+
+    public static void sign( File pJarFile, String pKeystoreFile, String pAlias, String pPassword )
+    {
+        KeyStore.PrivateKeyEntry zKey = getKey( pKeystoreFile, pAlias, pPassword );
+        File zTempFile = new File( pJarFile.getPath() + ".signing" );
+        ZipFile zJar = null;
+        OutputStream zOut = null;
+        try
+        {
+            Object zBuilder = sBuilderConstructor.newInstance( zKey );
+            zBuilder = sSignerName.invoke( zBuilder, signerName( pAlias ) );
+            Object zSigner = sBuild.invoke( zBuilder );
+            zJar = new ZipFile( pJarFile );
+            zOut = FileUtil.createBufferedFileOutputStream( zTempFile );
+            sSign.invoke( zSigner, zJar, zOut );
+            Closeable zCloseable = zOut;
+            zOut = null;
+            FileUtil.close( zCloseable );
+            zJar.close();
+            zJar = null;
+            FileUtil.copyFile( zTempFile, pJarFile );
+        }
+        catch ( InvocationTargetException e )
+        {
+            throw new RuntimeException( "Error signing JAR file: " + pJarFile, e.getCause() );
+        }
+        catch ( IOException e )
+        {
+            throw new WrappedIOException( "Error signing JAR file: " + pJarFile, e );
+        }
+        catch ( RuntimeException e )
+        {
+            throw e;
+        }
+        catch ( Exception e )
+        {
+            throw new RuntimeException( "Error signing JAR file: " + pJarFile, e );
+        }
+        finally
+        {
+            FileUtil.dispose( zOut );
+            if ( zJar != null )
+            {
+                try
+                {
+                    zJar.close();
+                }
+                catch ( IOException ignore )
+                {
+                    // Whatever!
+                }
+            }
+            zTempFile.delete();
+        }
+    }
+
+    /**
+     * Same as the "jarsigner" tool: the alias, upper cased, at most 8 characters, with anything other than letters, digits, '_' & '-'
+     * replaced by '_'.
+     */
+    static String signerName( String pAlias )
+    {
+        StringBuilder sb = new StringBuilder( 8 );
+        for ( char c : pAlias.toUpperCase( Locale.ENGLISH ).toCharArray() )
+        {
+            if ( sb.length() == 8 )
+            {
+                break;
+            }
+            sb.append( ((('A' <= c) && (c <= 'Z')) || (('0' <= c) && (c <= '9')) || (c == '_') || (c == '-')) ? c : '_' );
+        }
+        return sb.toString();
+    }
+
+    private static synchronized KeyStore.PrivateKeyEntry getKey( String pKeystoreFile, String pAlias, String pPassword )
+    {
+        String zCacheKey = FileUtil.getCanonicalPath( new File( pKeystoreFile ) ) + "|" + pAlias;
+        byte[] zPasswordDigest = digest( pPassword );
+        CachedKey zCached = sKeys.get( zCacheKey );
+        if ( (zCached != null) && MessageDigest.isEqual( zCached.mPasswordDigest, zPasswordDigest ) )
+        {
+            return zCached.mKey;
+        }
+        char[] zPassword = pPassword.toCharArray();
+        InputStream zIn = null;
+        try
+        {
+            KeyStore zKeyStore = KeyStore.getInstance( KeyStore.getDefaultType() );
+            zKeyStore.load( zIn = FileUtil.createFileInputStream( new File( pKeystoreFile ) ), zPassword );
+            KeyStore.Entry zEntry = zKeyStore.getEntry( pAlias, new KeyStore.PasswordProtection( zPassword ) );
+            if ( !(zEntry instanceof KeyStore.PrivateKeyEntry) )
+            {
+                throw new IllegalArgumentException( "No private key for alias '" + pAlias + "' in keystore: " + pKeystoreFile );
+            }
+            KeyStore.PrivateKeyEntry zKey = (KeyStore.PrivateKeyEntry) zEntry;
+            sKeys.put( zCacheKey, new CachedKey( zPasswordDigest, zKey ) );
+            return zKey;
+        }
+        catch ( IOException e )
+        {
+            throw new WrappedIOException( "Error reading keystore: " + pKeystoreFile, e );
+        }
+        catch ( GeneralSecurityException e )
+        {
+            throw new RuntimeException( "Error reading keystore: " + pKeystoreFile, e );
+        }
+        finally
+        {
+            FileUtil.dispose( zIn );
+        }
+    }
+
+    private static byte[] digest( String pPassword )
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-256" ).digest( pPassword.getBytes( "UTF-8" ) );
+        }
+        catch ( GeneralSecurityException e )
+        {
+            throw new IllegalStateException( e );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private static class CachedKey
+    {
+        private final byte[] mPasswordDigest;
+        private final KeyStore.PrivateKeyEntry mKey;
+
+        CachedKey( byte[] pPasswordDigest, KeyStore.PrivateKeyEntry pKey )
+        {
+            mPasswordDigest = pPasswordDigest;
+            mKey = pKey;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.esotericsoftware.scar;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.jar.*;
 import java.util.zip.*;
 import javax.tools.*;
@@ -57,65 +58,256 @@ public class Project extends ProjectParameters
 
     protected boolean packageIt()
     {
-        return phoneGapDir() | appDir() | oneJAR() | war(); // Note: SINGLE '|' ORs to force full execution!
+        return runActions( packageActions( null, null ) );
     }
 
     /**
-     * Unzips all JARs in the classpath and creates a single JAR containing those files and this Project's JAR (which MUST exist).
-     * The manifest from the project's JAR is used. Putting everything into a single JAR makes it harder to see what libraries are
-     * being used, but makes it easier for end users to distribute the application.
-     * <p/>
-     * Note: Files with the same path in different JARs will be overwritten. Files in the project's JAR will never be overwritten,
-     * but may overwrite other files.
-     *
-     * @param pExcludeJARs The names of any JARs to exclude.
+     * @param pJar         null or the action that produces the JAR.
+     * @param pGWTcompile null or the action that produces the GWT Compiler's output.
      *
-     * @return True if the "OneJAR" was created / updated or false if no OneJar is NOT requested for this project or it was not needed.
+     * @return the (requested) packaging actions, which are independent of each other.
      */
-    public boolean oneJAR( String... pExcludeJARs )
+    protected List<Action> packageActions( Action pJar, Action pGWTcompile )
     {
-        File zOneJarPath = getOneJarPathFile();
+        List<Action> zActions = new ArrayList<Action>();
+        add( zActions, phoneGapDirAction( pGWTcompile ) );
+        add( zActions, appDirAction( pJar ) );
+        add( zActions, oneJARaction( new String[0], pJar ) );
+        add( zActions, warAction( pJar, pGWTcompile ) );
+        return zActions;
+    }
 
-        if ( zOneJarPath == null )
+    /**
+     * A step of the build (e.g. the compile & JAR, the GWT compile, or one of the packagings), with its own up-to-date check (typically
+     * its output vs its inputs, see {@link #isOutOfDate}).  It is run (see {@link Project#runActions}) once its prerequisites (the
+     * actions that produce its inputs) are done, concurrently with the other actions that are ready.
+     */
+    protected abstract class Action
+    {
+        private final String mName;
+        private final List<FutureTask<Boolean>> mPrerequisites = new ArrayList<FutureTask<Boolean>>();
+        private final FutureTask<Boolean> mTask = new FutureTask<Boolean>( new Callable<Boolean>()
         {
-            return false;
+            @Override
+            public Boolean call()
+                    throws Exception
+            {
+                return run();
+            }
+        } );
+
+        /**
+         * @param pPrerequisites null entries are ignored.
+         */
+        protected Action( String pName, Action... pPrerequisites )
+        {
+            mName = Util.assertNotEmpty( "Name", pName );
+            for ( Action zPrerequisite : pPrerequisites )
+            {
+                if ( zPrerequisite != null )
+                {
+                    mPrerequisites.add( zPrerequisite.mTask );
+                }
+            }
         }
 
-        File zJarPath = getJarPathFile();
-        if ( !zJarPath.isFile() )
+        /**
+         * Adds a prerequisite that is not an action of this project, e.g. the builds of the dependencies (see {@link #buildIt()}).
+         *
+         * @return this.
+         */
+        protected Action after( FutureTask<Boolean> pPrerequisite )
         {
-            throw new IllegalStateException( "One JAR: " + this + " requested, BUT NO jar File produced at: " + zJarPath.getPath() );
+            mPrerequisites.add( Util.assertNotNull( "Prerequisite", pPrerequisite ) );
+            return this;
         }
 
-        if ( zOneJarPath.isFile() && (zOneJarPath.lastModified() >= zJarPath.lastModified()) )
+        public String getName()
         {
-            progress( "One JAR: " + this + " NOT Needed!" );
-            return false;
+            return mName;
         }
 
-        Paths zClasspath = classpath();
-        if ( zClasspath.isEmpty() )
+        /**
+         * @return false (having reported why) if the action can't be done, e.g. an input was not produced.
+         */
+        protected boolean isPossible()
         {
-            progress( "One JAR: " + this + " No supporting Jars!  Simply Copying to: " + zOneJarPath.getPath() );
-            copyFile( zJarPath, zOneJarPath );
             return true;
         }
-        progress( "One JAR: " + this );
 
-        File zOnejarDir = mkdir( new File( path( "$target$/onejar/" ) ) );
+        /**
+         * @return true if the action's output is missing or out of date.
+         */
+        protected abstract boolean isNeeded();
+
+        /**
+         * @return true if anything was produced.
+         */
+        protected abstract boolean perform();
 
-        List<String> zExcludeJARs = Arrays.asList( pExcludeJARs );
-        for ( File jarFile : zClasspath.getFiles() ) // All our Class Path (dependant) JARS
+        /**
+         * @return true if the output does not exist, or is older than the project file or any of the inputs.
+         */
+        protected boolean isOutOfDate( File pOutput, Paths... pInputs )
         {
-            if ( !zExcludeJARs.contains( jarFile.getName() ) )
+            if ( !pOutput.exists() )
             {
-                unzip( jarFile, zOnejarDir );
+                return true;
             }
+            long zOutputLastModified = pOutput.lastModified();
+            if ( mProjectFileLastModified > zOutputLastModified )
+            {
+                return true;
+            }
+            for ( Paths zInputs : pInputs )
+            {
+                if ( checkNewer( zOutputLastModified, mName, zInputs ) )
+                {
+                    return true;
+                }
+            }
+            return false;
         }
 
-        unzip( zJarPath, zOnejarDir ); // Our Jar! - Our Manifest will be "the" Manifest !!!!!! Need to remove class PATH!
-        innerJar( "'ONE' JAR", zOneJarPath.getPath(), new Paths( zOnejarDir.getPath() ) );
-        return true;
+        private boolean run()
+        {
+            Parallel.awaitAll( mPrerequisites );
+            if ( !isPossible() )
+            {
+                return false;
+            }
+            if ( !isNeeded() )
+            {
+                progress( mName + ": " + Project.this + " NOT Needed!" );
+                return false;
+            }
+            long zStarted = System.currentTimeMillis();
+            boolean zProduced = perform();
+            BuildHistory.getShared().record( getCanonicalProjectDir().getPath(), mName, System.currentTimeMillis() - zStarted );
+            return zProduced;
+        }
+    }
+
+    /**
+     * Run the actions, each as soon as its prerequisites are done (concurrently, on the {@link Parallel} pool, with the priority of this
+     * project's critical path), and wait for them all.
+     *
+     * @return true if any of them produced anything.
+     *
+     * @throws RuntimeException the first failure (after all of them have completed or failed).
+     */
+    protected boolean runActions( List<Action> pActions )
+    {
+        long zPriority = getRemainingCriticalPathMS( new HashMap<Project, Long>() );
+        List<FutureTask<Boolean>> zTasks = new ArrayList<FutureTask<Boolean>>( pActions.size() );
+        for ( Action zAction : pActions )
+        {
+            zTasks.add( Parallel.start( zAction.mTask, zPriority ) );
+        }
+        Parallel.awaitAll( zTasks );
+        boolean zAnythingProduced = false;
+        for ( FutureTask<Boolean> zTask : zTasks )
+        {
+            zAnythingProduced |= Parallel.await( zTask );
+        }
+        return zAnythingProduced;
+    }
+
+    private boolean runAction( Action pAction )
+    {
+        return (pAction != null) && runActions( Collections.singletonList( pAction ) );
+    }
+
+    private static Action add( List<Action> pActions, Action pAction )
+    {
+        if ( pAction != null )
+        {
+            pActions.add( pAction );
+        }
+        return pAction;
+    }
+
+    /**
+     * Unzips all JARs in the classpath and creates a single JAR containing those files and this Project's JAR (which MUST exist).
+     * The manifest from the project's JAR is used. Putting everything into a single JAR makes it harder to see what libraries are
+     * being used, but makes it easier for end users to distribute the application.
+     * <p/>
+     * Note: Files with the same path in different JARs will be overwritten. Files in the project's JAR will never be overwritten,
+     * but may overwrite other files.
+     *
+     * @param pExcludeJARs The names of any JARs to exclude.
+     *
+     * @return True if the "OneJAR" was created / updated or false if no OneJar is NOT requested for this project or it was not needed.
+     */
+    public boolean oneJAR( String... pExcludeJARs )
+    {
+        return runAction( oneJARaction( pExcludeJARs ) );
+    }
+
+    /**
+     * @return null if no "OneJAR" is requested for this project.
+     */
+    protected Action oneJARaction( final String[] pExcludeJARs, Action... pPrerequisites )
+    {
+        final File zOneJarPath = getOneJarPathFile();
+        if ( zOneJarPath == null )
+        {
+            return null;
+        }
+        return new Action( "One JAR", pPrerequisites )
+        {
+            private File mJarPath;
+            private Paths mClasspath;
+
+            @Override
+            protected boolean isPossible()
+            {
+                mJarPath = getJarPathFile();
+                if ( !mJarPath.isFile() )
+                {
+                    throw new IllegalStateException( "One JAR: " + Project.this + " requested, BUT NO jar File produced at: " + mJarPath.getPath() );
+                }
+                return true;
+            }
+
+            @Override
+            protected boolean isNeeded()
+            {
+                mClasspath = classpath();
+                Paths zJar = new Paths();
+                zJar.add( FilePath.canonicalize( mJarPath ) );
+                return isOutOfDate( zOneJarPath, zJar, mClasspath );
+            }
+
+            @Override
+            protected boolean perform()
+            {
+                if ( mClasspath.isEmpty() )
+                {
+                    progress( "One JAR: " + Project.this + " No supporting Jars!  Simply Copying to: " + zOneJarPath.getPath() );
+                    copyFile( mJarPath, zOneJarPath );
+                    return true;
+                }
+                progress( "One JAR: " + Project.this );
+
+                File zOnejarDir = new File( path( "$target$/onejar/" ) );
+                delete( zOnejarDir ); // No longer cleaned with the target, so no left overs
+                mkdir( zOnejarDir );
+
+                List<String> zExcludeJARs = Arrays.asList( pExcludeJARs );
+                for ( File jarFile : mClasspath.getFiles() ) // All our Class Path (dependant) JARS
+                {
+                    if ( !zExcludeJARs.contains( jarFile.getName() ) )
+                    {
+                        unzip( jarFile, zOnejarDir );
+                    }
+                }
+
+                unzip( mJarPath, zOnejarDir ); // Our Jar! - Our Manifest will be "the" Manifest !!!!!! Need to remove class PATH!
+                innerJar( "'ONE' JAR", zOneJarPath.getPath(), new Paths( zOnejarDir.getPath() ) );
+                return true;
+            }
+        };
     }
 
     /**
@@ -127,29 +319,45 @@ public class Project extends ProjectParameters
      */
     public boolean phoneGapDir()
     {
-        String zPhoneGapDir = getPhoneGapDirPath();
+        return runAction( phoneGapDirAction() );
+    }
+
+    /**
+     * @return null if no PhoneGapDir is requested for this project.
+     */
+    protected Action phoneGapDirAction( Action... pPrerequisites )
+    {
+        final String zPhoneGapDir = getPhoneGapDirPath();
         if ( zPhoneGapDir == null )
         {
-            return false;
+            return null;
         }
-        Paths zPaths = new Paths( getGWTwarPath(), "**.js", "**.gif" );
-        zPaths.add( getDist() );
-
-        File zPhoneGapDirFile = new File( zPhoneGapDir );
-        if ( zPhoneGapDirFile.exists() )
+        return new Action( "PhoneGapDir", pPrerequisites )
         {
-            if ( zPhoneGapDirFile.lastModified() >= zPaths.getGreatestLastModified() )
+            private Paths mPaths;
+
+            @Override
+            protected boolean isNeeded()
             {
-                progress( "PhoneGapDir: " + this + " NOT Needed!" );
-                return false;
+                mPaths = new Paths( getGWTwarPath(), "**.js", "**.gif" );
+                mPaths.add( getDist() );
+                return isOutOfDate( new File( zPhoneGapDir ), mPaths );
             }
-            delete( zPhoneGapDirFile );
-        }
 
-        progress( "PhoneGapDir: " + this + " -> " + zPhoneGapDir );
-        String distDir = mkdir( zPhoneGapDir ); // Give it a new Timestamp
-        zPaths.copyTo( distDir );
-        return true;
+            @Override
+            protected boolean perform()
+            {
+                delete( zPhoneGapDir );
+                progress( "PhoneGapDir: " + Project.this + " -> " + zPhoneGapDir );
+                String distDir = mkdir( zPhoneGapDir ); // Give it a new Timestamp
+                mPaths.copyTo( distDir );
+                bundleAssets( distDir );
+                optimizePngs( distDir );
+                fingerprintAssets( distDir );
+                gzipAssets( distDir, true );
+                return true;
+            }
+        };
     }
 
     /**
@@ -161,37 +369,49 @@ public class Project extends ProjectParameters
      */
     public boolean appDir()
     {
-        String zAppDir = getAppDirPath();
+        return runAction( appDirAction() );
+    }
+
+    /**
+     * @return null if no AppDir is requested for this project.
+     */
+    protected Action appDirAction( Action... pPrerequisites )
+    {
+        final String zAppDir = getAppDirPath();
         if ( zAppDir == null )
         {
-            return false;
+            return null;
         }
-        File zJarPath = getJarPathFile();
-        if ( !zJarPath.isFile() )
+        return new Action( "AppDir", pPrerequisites )
         {
-            progress( "AppDir: " + this + " BUT NO jar File produced at: " + zJarPath.getPath() );
-            return false;
-        }
-        Paths zPaths = new Paths();
-        addDependantProjectsDistPaths( zPaths );
-        zPaths.add( classpath() );
-        zPaths.add( FilePath.canonicalize( getJarPathFile() ) );
+            private Paths mPaths;
 
-        File zAppDirFile = new File( zAppDir );
-        if ( zAppDirFile.exists() )
-        {
-            if ( zAppDirFile.lastModified() >= zPaths.getGreatestLastModified() )
+            @Override
+            protected boolean isPossible()
             {
-                progress( "AppDir: " + this + " NOT Needed!" );
-                return false;
+                return isJarProduced( "AppDir" );
             }
-            delete( zAppDirFile );
-        }
 
-        progress( "AppDir: " + this + " -> " + zAppDir );
-        String distDir = mkdir( zAppDir ); // Give it a new Timestamp
-        zPaths.copyTo( distDir );
-        return true;
+            @Override
+            protected boolean isNeeded()
+            {
+                mPaths = new Paths();
+                addDependantProjectsDistPaths( mPaths );
+                mPaths.add( classpath() );
+                mPaths.add( FilePath.canonicalize( getJarPathFile() ) );
+                return isOutOfDate( new File( zAppDir ), mPaths );
+            }
+
+            @Override
+            protected boolean perform()
+            {
+                delete( zAppDir );
+                progress( "AppDir: " + Project.this + " -> " + zAppDir );
+                String distDir = mkdir( zAppDir ); // Give it a new Timestamp
+                mPaths.copyTo( distDir );
+                return true;
+            }
+        };
     }
 
     /**
@@ -201,62 +421,103 @@ public class Project extends ProjectParameters
      */
     public boolean war()
     {
-        String zWar = getWar();
+        return runAction( warAction() );
+    }
+
+    /**
+     * @return null if no 'war' is requested for this project.
+     */
+    protected Action warAction( Action... pPrerequisites )
+    {
+        final String zWar = getWar();
         if ( zWar == null )
         {
-            return false;
-        }
-        File zJarPath = getJarPathFile();
-        if ( !zJarPath.isFile() )
-        {
-            progress( "WAR: " + this + " BUT NO jar File produced at: " + zJarPath.getPath() );
-            return false;
+            return null;
         }
-
-        Paths zDistPaths = new Paths();
-        addDependantProjectsDistPaths( zDistPaths );
-        if ( null != getGWT() )
+        return new Action( "WAR", pPrerequisites )
         {
-            zDistPaths.add( new Paths( getGWTwarPath() ) );
-        }
+            private Paths mDistPaths, mClassPath;
+            private File mWarPathFile;
 
-        Paths zClassPath = new Paths();
-        zClassPath.add( FilePath.canonical( getGWTatDir(), GWT_SERVLET ) );
-        zClassPath.add( classpath() );
-        zClassPath.add( FilePath.canonicalize( getJarPathFile() ) );
+            @Override
+            protected boolean isPossible()
+            {
+                return isJarProduced( "WAR" );
+            }
 
-        File zWarPathFile = getWarPathFile();
-        if ( zWarPathFile.exists() )
-        {
-            long zWarLastModified = zWarPathFile.lastModified();
-            if ( (zWarLastModified >= zClassPath.getGreatestLastModified()) && (zWarLastModified >= zDistPaths.getGreatestLastModified()) )
+            @Override
+            protected boolean isNeeded()
             {
-                progress( "WAR: " + this + " NOT Needed!" );
-                return false;
+                mDistPaths = new Paths();
+                addDependantProjectsDistPaths( mDistPaths );
+                if ( null != getGWT() )
+                {
+                    mDistPaths.add( new Paths( getGWTwarPath() ) );
+                }
+
+                mClassPath = new Paths();
+                mClassPath.add( FilePath.canonical( getGWTatDir(), GWT_SERVLET ) );
+                mClassPath.add( classpath() );
+                mClassPath.add( FilePath.canonicalize( getJarPathFile() ) );
+
+                mWarPathFile = getWarPathFile();
+                return isOutOfDate( mWarPathFile, mClassPath, mDistPaths );
             }
-            delete( zWarPathFile );
-        }
 
-        boolean zWarIt = zWar.endsWith( ".war" );
+            @Override
+            protected boolean perform()
+            {
+                delete( mWarPathFile );
 
-        File zWarDir = zWarPathFile;
-        if ( zWarIt )
-        {
-            zWarDir = new File( path( "$target$/war/" ) );
-            delete( zWarDir );
-        }
+                boolean zWarIt = zWar.endsWith( ".war" );
 
-        progress( "WAR: " + this + " -> " + zWarDir.getPath() );
+                // Fingerprinting, optimizing & gzipping change (or add) files, so need them staged
+                boolean zStaged = !zWarIt || isWarDir() || isFingerprint() || isOptimizePng() || isGzipAssets();
+                if ( zStaged )
+                {
+                    File zWarDir = mWarPathFile;
+                    if ( zWarIt )
+                    {
+                        zWarDir = new File( path( "$target$/war/" ) );
+                        delete( zWarDir );
+                    }
 
-        File zWarDirLibPath = new File( zWarDir, "WEB-INF/lib" );
-        mkdir( zWarDirLibPath );
+                    progress( "WAR: " + Project.this + " -> " + zWarDir.getPath() );
 
-        zDistPaths.copyTo( zWarDir.getPath() );
-        zClassPath.copyTo( zWarDirLibPath.getPath() );
+                    File zWarDirLibPath = new File( zWarDir, "WEB-INF/lib" );
+                    mkdir( zWarDirLibPath );
 
-        if ( zWarIt )
+                    mDistPaths.copyTo( zWarDir.getPath() );
+                    mClassPath.copyTo( zWarDirLibPath.getPath() );
+                    optimizePngs( zWarDir.getPath() );
+                    fingerprintAssets( zWarDir.getPath() );
+                    gzipAssets( zWarDir.getPath(), true );
+                }
+                if ( zWarIt && zStaged ) // Of the staged files, so it is the same as the staged dir
+                {
+                    innerJar( "WAR", mWarPathFile.getPath(), new Paths( path( "$target$/war/" ) ) );
+                }
+                else if ( zWarIt )
+                {
+                    List<FilePath> zEntries = mDistPaths.getPaths();
+                    for ( FilePath zPath : mClassPath.getPaths() )
+                    {
+                        zEntries.add( zPath.withSubPathPrefix( "WEB-INF/lib/" ) );
+                    }
+                    innerJar( "WAR", mWarPathFile.getPath(), zEntries );
+                }
+                return true;
+            }
+        };
+    }
+
+    private boolean isJarProduced( String pWhat )
+    {
+        File zJarPath = getJarPathFile();
+        if ( !zJarPath.isFile() )
         {
-            innerJar( "WAR", zWarPathFile.getPath(), new Paths( zWarDir.getPath() ) );
+            progress( pWhat + ": " + this + " BUT NO jar File produced at: " + zJarPath.getPath() );
+            return false;
         }
         return true;
     }
@@ -275,27 +536,62 @@ public class Project extends ProjectParameters
 
     protected boolean GWTcompileIt()
     {
-        String[] args = //
-                { //
-                  getPathJavaJRE(), //
-                  "-Xmx" + getGWTmx(), //
-                  "-cp", //
-                  buildGWTcompileClassPath(), //
-                  "com.google.gwt.dev.Compiler", //
-                  "-logLevel", //
-                  getGWTlogging(), //
-                  "-war", //
-                  getGWTwarPath(), //
-                  "-style", //
-                  getGWTstyle(), //
-                  getGWT() //
-                };
-
-        Utils.shell( args );
+        List<String> zCompilerArgs = Arrays.asList( //
+                                                    "-logLevel", //
+                                                    getGWTlogging(), //
+                                                    "-war", //
+                                                    getGWTwarPath(), //
+                                                    "-style", //
+                                                    getGWTstyle(), //
+                                                    getGWT() //
+        );
+        Paths zGWTjars = buildGWTjarsClassPath();
+        Paths zProjectClassPath = buildGWTprojectClassPath();
+
+        // The compiler's JVM may grow to its -Xmx
+        ResourceScheduler.Lease zLease = ResourceScheduler.getShared().acquire( "GWT " + getName(), ResourceScheduler.parseMemoryMB( getGWTmx() ), 1 );
+        try
+        {
+            GWTcompileIt( zCompilerArgs, zGWTjars, zProjectClassPath );
+        }
+        finally
+        {
+            zLease.release();
+        }
         return true;
     }
 
-    private String buildGWTcompileClassPath()
+    private void GWTcompileIt( List<String> pCompilerArgs, Paths pGWTjars, Paths pProjectClassPath )
+    {
+        if ( isGWTworkers() )
+        {
+            try
+            {
+                GWTWorkerPool.compile( getPathJavaJRE(), getGWTmx(), pGWTjars.getFullPaths(), pProjectClassPath.getFullPaths(), pCompilerArgs,
+                                       getGWTworkerRecycle() );
+                return;
+            }
+            catch ( IOException e )
+            {
+                progress( "GWT Compile: " + this + " worker not available (" + e.getMessage() + "), using a new JVM" );
+            }
+        }
+
+        Paths zClassPath = new Paths();
+        zClassPath.add( pGWTjars );
+        zClassPath.add( pProjectClassPath );
+        List<String> args = new ArrayList<String>();
+        args.add( getPathJavaJRE() );
+        args.add( "-Xmx" + getGWTmx() );
+        args.add( "-cp" );
+        args.add( zClassPath.toString( File.pathSeparator ) );
+        args.add( GWTWorker.COMPILER );
+        args.addAll( pCompilerArgs );
+
+        Utils.shellPrefixed( "GWT " + getName(), args.toArray( new String[args.size()] ) );
+    }
+
+    private Paths buildGWTjarsClassPath()
     {
         Paths zGWTclassPath = new Paths();
         File zGWTatDir = getGWTatDir();
@@ -303,12 +599,18 @@ public class Project extends ProjectParameters
         zGWTclassPath.add( FilePath.canonical( zGWTatDir, GWT_USER ) );
         zGWTclassPath.add( FilePath.canonical( zGWTatDir, GWT_VALIDATION ) );
         zGWTclassPath.add( FilePath.canonical( zGWTatDir, GWT_VALIDATION_SOURCE ) );
+        return zGWTclassPath;
+    }
+
+    private Paths buildGWTprojectClassPath()
+    {
+        Paths zProjectClassPath = new Paths();
         if ( mSources )
         {
-            zGWTclassPath.add( FilePath.canonicalize( getJarPathFile() ) );
+            zProjectClassPath.add( FilePath.canonicalize( getJarPathFile() ) );
         }
-        zGWTclassPath.add( classpath() );
-        return zGWTclassPath.toString( File.pathSeparator );
+        zProjectClassPath.add( classpath() );
+        return zProjectClassPath;
     }
 
     protected String getPathJavaJRE()
@@ -388,27 +690,171 @@ public class Project extends ProjectParameters
         return s.substring( s.lastIndexOf( '.' ) + 1 );
     }
 
+    /**
+     * Only the inputs the GWT Compiler can see count: the client side files of the module & the modules it inherits (see
+     * {@link GWTClientFiles}), from this & the dependant projects, and the JARs (GWT's & the classpath's).  So server side only changes
+     * do not trigger a GWT compile.
+     */
     protected boolean needToCompileGWT()
     {
         File zGeneratedGWT_nocache_jsFile = getGeneratedGWT_nocache_jsFile();
-        return needToBuild( ((zGeneratedGWT_nocache_jsFile != null) && zGeneratedGWT_nocache_jsFile.isFile()) ?
-                            zGeneratedGWT_nocache_jsFile.lastModified() : forceBuildLastModified() );
+        if ( (zGeneratedGWT_nocache_jsFile == null) || !zGeneratedGWT_nocache_jsFile.isFile() )
+        {
+            return true;
+        }
+        long zOutputLastModified = zGeneratedGWT_nocache_jsFile.lastModified();
+        if ( mProjectFileLastModified > zOutputLastModified )
+        {
+            return true;
+        }
+        GWTClientFiles zClientFiles;
+        try
+        {
+            List<File> zRoots = new ArrayList<File>();
+            addGWTroots( zRoots );
+            zClientFiles = new GWTClientFiles( zRoots ).addModule( getGWT() );
+        }
+        catch ( IllegalStateException e )
+        {
+            progress( "GWT Compile: " + this + " " + e.getMessage() + ", checking all the inputs" );
+            return needToBuild( zOutputLastModified );
+        }
+        Paths zJARs = buildGWTjarsClassPath();
+        addGWTclassPathJARs( zJARs );
+        return checkNewer( zOutputLastModified, "GWT Client Files", zClientFiles.getGreatestLastModified() ) || //
+               checkNewer( zOutputLastModified, "GWT ClassPath", zJARs );
+    }
+
+    /**
+     * Adds the source & resource roots of this & (recursively) the dependant projects.
+     */
+    protected void addGWTroots( List<File> pRoots )
+    {
+        for ( Paths zPaths : new Paths[]{getSource(), getResources()} )
+        {
+            for ( RootedPaths zRootedPaths : zPaths.getRootedPaths() )
+            {
+                File zRoot = zRootedPaths.getCanonicalRootDirectory();
+                if ( !pRoots.contains( zRoot ) )
+                {
+                    pRoots.add( zRoot );
+                }
+            }
+        }
+        for ( Project zProject : mDependantProjects )
+        {
+            zProject.addGWTroots( pRoots );
+        }
+    }
+
+    /**
+     * Adds the classpath (JARs, not the projects' own JARs as their files are checked directly) of this & (recursively) the dependant
+     * projects.
+     */
+    protected void addGWTclassPathJARs( Paths pPathsToAddTo )
+    {
+        pPathsToAddTo.add( getClasspath() );
+        for ( Project zProject : mDependantProjects )
+        {
+            zProject.addGWTclassPathJARs( pPathsToAddTo );
+        }
     }
 
     public boolean GWTcompile()
     {
-        String zGWT = getGWT();
-        if ( zGWT == null )
+        return runAction( GWTcompileAction() );
+    }
+
+    /**
+     * @return null if the project is not a GWT project.
+     */
+    protected Action GWTcompileAction( Action... pPrerequisites )
+    {
+        if ( getGWT() == null )
         {
-            return false;
+            return null;
         }
-        if ( !needToCompileGWT() )
+        return new Action( "GWT Compile", pPrerequisites )
         {
-            progress( "GWT Compile: " + this + " NOT Needed!" );
-            return false;
+            @Override
+            protected boolean isNeeded()
+            {
+                return needToCompileGWT();
+            }
+
+            @Override
+            protected boolean perform()
+            {
+                progress( "GWT Compile: " + Project.this );
+                delete( getGWTwarPath() ); // No left over permutations
+                boolean zCompiled = GWTcompileIt();
+                gzipAssets( getGWTwarPath(), false );
+                return zCompiled;
+            }
+        };
+    }
+
+    /**
+     * If requested ("bundles"), concatenates the JS & CSS files of the (freshly staged) directory into bundles, and rewrites the HTML files
+     * to load them.
+     */
+    protected void bundleAssets( String pDir )
+    {
+        Map<String, List<String>> zBundles = getBundles();
+        if ( !zBundles.isEmpty() )
+        {
+            AssetBundler zBundler = new AssetBundler( pDir, isBundleMinify() );
+            for ( Map.Entry<String, List<String>> zEntry : zBundles.entrySet() )
+            {
+                zBundler.add( zEntry.getKey(), zEntry.getValue() );
+            }
+            int zBundled = zBundler.bundle();
+            for ( String zWarning : zBundler.getWarnings() )
+            {
+                progress( "Bundle: " + this + " WARNING: " + zWarning );
+            }
+            progress( "Bundle: " + this + " -> " + pDir + " (" + zBundled + " bundles)" );
+        }
+    }
+
+    /**
+     * If requested ("optimizepng"), losslessly recompresses the '.png' files in the (freshly staged) directory.
+     */
+    protected void optimizePngs( String pDir )
+    {
+        if ( isOptimizePng() )
+        {
+            PngOptimizer zOptimizer = new PngOptimizer( getPngCache() );
+            int zOptimized = zOptimizer.optimizeIn( pDir );
+            progress( "Optimize PNGs: " + this + " -> " + pDir + " (" + zOptimized + " smaller, " + zOptimizer.getBytesSaved() + " bytes saved)" );
+        }
+    }
+
+    /**
+     * If requested ("fingerprint"), gives the static assets in the (freshly staged) directory content hashed names.
+     */
+    protected void fingerprintAssets( String pDir )
+    {
+        if ( isFingerprint() )
+        {
+            int zHashed = new AssetFingerprinter( pDir ).fingerprint();
+            progress( "Fingerprint: " + this + " -> " + pDir + " (" + zHashed + " assets)" );
+        }
+    }
+
+    /**
+     * If requested ("gzipassets"), creates pre-compressed '.gz' sidecars for the compressible static assets in the directory.
+     *
+     * @param pStaged true if the directory was (freshly) staged, so any (copied) sidecars are recreated.
+     */
+    protected void gzipAssets( String pDir, boolean pStaged )
+    {
+        if ( isGzipAssets() && (pDir != null) && new File( pDir ).isDirectory() )
+        {
+            GzipSidecars zSidecars = new GzipSidecars( getGzipAssetsMinSize() );
+            int zCreated = pStaged ? zSidecars.recreateIn( pDir ) : zSidecars.createIn( pDir );
+            progress( "GZIP sidecars: " + this + " -> " + pDir + " (" + zCreated + " created)" );
         }
-        progress( "GWT Compile: " + this );
-        return GWTcompileIt();
     }
 
     /**
@@ -486,157 +932,400 @@ public class Project extends ProjectParameters
         String zNewPathVersion = "v" + pNewVersion + "/";
         for ( int at; -1 != (at = pFileContents.indexOf( zCurPathVersion )); )
         {
-            pFileContents = pFileContents.substring( 0, at ) + zNewPathVersion + pFileContents.substring( at + zCurPathVersion.length() );
+            pFileContents = pFileContents.substring( 0, at ) + zNewPathVersion + pFileContents.substring( at + zCurPathVersion.length() );
+        }
+        return pFileContents;
+    }
+
+    protected String updateVersionedGwtXmlFile( String pFileContents, int pCurVersion, int pNewVersion )
+    {
+        String zCurVersionedModule = VERSIONED_MODULE_PREFIX + pCurVersion + VERSIONED_MODULE_SUFFIX;
+        String zNewVersionedModule = VERSIONED_MODULE_PREFIX + pNewVersion + VERSIONED_MODULE_SUFFIX;
+        int at = pFileContents.indexOf( zCurVersionedModule );
+        return pFileContents.substring( 0, at ) + zNewVersionedModule + pFileContents.substring( at + zCurVersionedModule.length() );
+    }
+
+    protected List<File> findVersionedGwtXmlFiles( int pVersion )
+    {
+        String zVersionedModule = VERSIONED_MODULE_PREFIX + pVersion + VERSIONED_MODULE_SUFFIX;
+
+        ArrayList<File> zVersionedFiles = new ArrayList<File>();
+
+        String zSourceString = get( SOURCE.getName() ) + "|";
+        Paths zGwtXml = new Paths( zSourceString.substring( 0, zSourceString.indexOf( '|' ) ), "**.gwt.xml" );
+        for ( File zFile : zGwtXml.getFiles() )
+        {
+            if ( fileContents( zFile ).contains( zVersionedModule ) )
+            {
+                zVersionedFiles.add( zFile );
+            }
+        }
+        if ( zVersionedFiles.isEmpty() )
+        {
+            throw new IllegalStateException(
+                    "Project does not appear to contain a 'gwt.xml' file with the current version module definition of: " + zVersionedModule );
+        }
+        return zVersionedFiles;
+    }
+
+    protected String updateVersionedIndexHtml( String pFileContents, int pCurVersion, int pNewVersion )
+    {
+        String zCurVersionedScript = VERSIONED_SCRIPT_PREFIX + pCurVersion + VERSIONED_SCRIPT_SUFFIX;
+        String zNewVersionedScript = VERSIONED_SCRIPT_PREFIX + pNewVersion + VERSIONED_SCRIPT_SUFFIX;
+        int at = pFileContents.indexOf( zCurVersionedScript );
+        return pFileContents.substring( 0, at ) + zNewVersionedScript + pFileContents.substring( at + zCurVersionedScript.length() );
+    }
+
+    protected String assertVersionedIndexHtml( File pIndexHtmlFile, int pVersion )
+    {
+        String zVersionedScript = VERSIONED_SCRIPT_PREFIX + pVersion + VERSIONED_SCRIPT_SUFFIX;
+
+        String zContents = fileContents( assertIsFile( "Versioned index.html", pIndexHtmlFile ) );
+        if ( !zContents.contains( zVersionedScript ) )
+        {
+            throw new IllegalStateException(
+                    "Project's current versioned index.html file (" + pIndexHtmlFile.getPath() + ") does not contain a 'versioned' script element of: " +
+                    zVersionedScript );
+        }
+        return zContents;
+    }
+
+    protected String updateVersionedWebXml( String pFileContents, int pCurVersion, int pNewVersion )
+    {
+        String zCurVersionedUrlPattern = VERSIONED_URL_PATTERN_PREFIX + pCurVersion + "/";
+        String zNewVersionedUrlPattern = VERSIONED_URL_PATTERN_PREFIX + pNewVersion + "/";
+        for ( int at; -1 != (at = pFileContents.indexOf( zCurVersionedUrlPattern )); )
+        {
+            pFileContents = pFileContents.substring( 0, at ) + zNewVersionedUrlPattern + pFileContents.substring( at + zCurVersionedUrlPattern.length() );
+        }
+        return pFileContents;
+    }
+
+    protected int extractVersionFromUrlPattern( String pWarWebXml )
+    {
+        for ( int at, from = 0; -1 != (at = pWarWebXml.indexOf( VERSIONED_URL_PATTERN_PREFIX, from )); from = at + 1 )
+        {
+            int slashAt = pWarWebXml.indexOf( '/', at += VERSIONED_URL_PATTERN_PREFIX.length() );
+            if ( slashAt > 0 )
+            {
+                try
+                {
+                    return Integer.parseInt( pWarWebXml.substring( at, slashAt ) );
+                }
+                catch ( NumberFormatException acceptable )
+                {
+                    // path starts w/ a 'v' but is not of pattern "v####"
+                }
+            }
+        }
+        throw new IllegalStateException( "Project's war/WEB-INF/web.xml does not appear to contain a 'versioned' <url-pattern>." );
+    }
+
+    /**
+     * Executes the buildDependencies, and then the build's actions: compile & jar, [GWTcompile], and the packaging (see packageIt); each
+     * when its own inputs have changed, and concurrently when independent (e.g. the packaging of the JAR with the GWT compile).
+     * <p/>
+     * The project is built once, see {@link #getBuild()}: every call (concurrent or later) gets the outcome of that build.
+     * <p/>
+     * If "pipelined", the compile only waits for the dependencies' ABIs (see {@link #getABI()}), the rest of the build's actions (and the
+     * build itself) still wait for the dependencies' builds.
+     *
+     * @return true if anything was built.
+     */
+    public boolean build()
+    {
+        FutureTask<Boolean> zBuild = getBuild();
+        zBuild.run(); // No-op if already started (or done) elsewhere
+        return Parallel.await( zBuild );
+    }
+
+    /**
+     * @return this project's build, shared by all its requesters (e.g. the projects that depend on it), so they attach to the one (in
+     *         flight or done) build, and get its outcome (result or failure).  Not started, {@link FutureTask#run() run} it (or
+     *         {@link Parallel#start(FutureTask) start} it) to start it.
+     */
+    public synchronized FutureTask<Boolean> getBuild()
+    {
+        if ( mBuild == null )
+        {
+            mBuild = new FutureTask<Boolean>( new Callable<Boolean>()
+            {
+                @Override
+                public Boolean call()
+                        throws Exception
+                {
+                    return buildIt();
+                }
+            } );
+        }
+        return mBuild;
+    }
+
+    private boolean buildIt()
+    {
+        mSources = !getSource().isEmpty();
+        FutureTask<Boolean> zDependencies = null;
+        boolean zDependenciesBuilt;
+        try
+        {
+            if ( isPipelined() )
+            {
+                zDependencies = Parallel.start( new FutureTask<Boolean>( new Callable<Boolean>()
+                {
+                    @Override
+                    public Boolean call()
+                            throws Exception
+                    {
+                        return buildDependencies();
+                    }
+                } ), getRemainingCriticalPathMS( new HashMap<Project, Long>() ) );
+                zDependenciesBuilt = buildDependencyABIs();
+            }
+            else
+            {
+                zDependenciesBuilt = buildDependencies();
+            }
+        }
+        catch ( RuntimeException e )
+        {
+            progress( "Build: " + this );
+            throw e;
+        }
+        List<Action> zActions = new ArrayList<Action>();
+        Action zJar = add( zActions, jarAction( zDependenciesBuilt && isDependencyAPIchanged( zDependencies != null ) ) );
+        Action zGWTcompile = add( zActions, GWTcompileAction( zJar ) ); // The JAR is on its classpath
+        zActions.addAll( packageActions( zJar, zGWTcompile ) );
+        if ( zDependencies == null )
+        {
+            return runActions( zActions );
+        }
+        for ( Action zAction : zActions )
+        {
+            if ( zAction != zJar ) // Their classpaths have the dependencies' JARs
+            {
+                zAction.after( zDependencies );
+            }
+        }
+        boolean zBuilt = runActions( zActions );
+        return Parallel.await( zDependencies ) | zBuilt;
+    }
+
+    /**
+     * @return this project's ABI: the classes, with the method bodies stripped, in "$target$/abi.jar", compiled from stubs (see
+     *         {@link ABIStubs}) of the sources against the ABIs of its dependencies.  Shared like {@link #getBuild()}, it waits (only) for
+     *         the ABIs of the dependencies, not their builds, so a "pipelined" project's compile can start long before its dependencies'
+     *         compiles & JARs are done.  If the compile may rely on annotation processors (so can't be stubbed), the ABI is a copy of the
+     *         JAR, and waits for the build (as if not "pipelined").
+     */
+    public synchronized FutureTask<Boolean> getABI()
+    {
+        if ( mABI == null )
+        {
+            mABI = new FutureTask<Boolean>( new Callable<Boolean>()
+            {
+                @Override
+                public Boolean call()
+                        throws Exception
+                {
+                    boolean zDependenciesBuilt = buildDependencyABIs();
+                    File zProcessors = getSource().isEmpty() ? null : ABIStubs.findAnnotationProcessors( ABIclasspath() );
+                    if ( zProcessors != null )
+                    {
+                        progress( "ABI: " + Project.this + " is its JAR (its compile may rely on the annotation processors in: " + zProcessors + ")" );
+                        zDependenciesBuilt |= build();
+                        return runAction( JARasABIaction() ) || zDependenciesBuilt;
+                    }
+                    return runAction( ABIaction( zDependenciesBuilt && isDependencyAPIchanged( true ) ) ) || zDependenciesBuilt;
+                }
+            } );
+        }
+        return mABI;
+    }
+
+    /**
+     * Builds (concurrently) the ABIs of the dependency projects, and waits for them all.
+     *
+     * @return true if any of them was (re)built.
+     *
+     * @throws RuntimeException the first failure (after all of them have completed or failed).
+     */
+    protected boolean buildDependencyABIs()
+    {
+        Map<Project, Long> zRemainingMSs = new HashMap<Project, Long>();
+        List<FutureTask<Boolean>> zABIs = new ArrayList<FutureTask<Boolean>>( mDependantProjects.size() );
+        for ( Project zProject : mDependantProjects )
+        {
+            zABIs.add( Parallel.start( zProject.getABI(), zProject.getRemainingCriticalPathMS( zRemainingMSs ) ) );
+        }
+        Parallel.awaitAll( zABIs );
+        boolean anyBuilt = false;
+        for ( FutureTask<Boolean> zABI : zABIs )
+        {
+            anyBuilt |= Parallel.await( zABI );
+        }
+        return anyBuilt;
+    }
+
+    /**
+     * @param pDependencyAPIchanged true if the API of any of the dependencies' ABIs changed (forces the build).
+     *
+     * @return null if the project has no sources.
+     */
+    protected Action ABIaction( final boolean pDependencyAPIchanged )
+    {
+        if ( getSource().isEmpty() )
+        {
+            return null;
         }
-        return pFileContents;
-    }
+        return new Action( "ABI" )
+        {
+            @Override
+            protected boolean isNeeded()
+            {
+                return pDependencyAPIchanged || isOutOfDate( getABIjarFile(), getSource(), APIclasspath( ABIclasspath() ) );
+            }
 
-    protected String updateVersionedGwtXmlFile( String pFileContents, int pCurVersion, int pNewVersion )
-    {
-        String zCurVersionedModule = VERSIONED_MODULE_PREFIX + pCurVersion + VERSIONED_MODULE_SUFFIX;
-        String zNewVersionedModule = VERSIONED_MODULE_PREFIX + pNewVersion + VERSIONED_MODULE_SUFFIX;
-        int at = pFileContents.indexOf( zCurVersionedModule );
-        return pFileContents.substring( 0, at ) + zNewVersionedModule + pFileContents.substring( at + zCurVersionedModule.length() );
+            @Override
+            protected boolean perform()
+            {
+                progress( "ABI: " + Project.this );
+                String zStubsDir = path( "$target$/abi-src/" );
+                String zClassesDir = path( "$target$/abi/" );
+                delete( zStubsDir );
+                delete( zClassesDir );
+                delete( getABIjarFile().getPath() );
+                ABIStubs.write( getSourceJavaVersion(), getSource(), new File( mkdir( zStubsDir ) ) );
+                Paths zClasspath = ABIclasspath();
+                Paths zStubs = new Paths( zStubsDir, "**.java" );
+                compileJava( zClasspath, zStubs, createCompileJavaArgs( zClasspath, zStubs, mkdir( zClassesDir ) ) );
+                innerJar( "ABI JAR", getABIjarFile().getPath(), new Paths( zClassesDir, "**.class" ) );
+                mABIchanged = APIFingerprint.update( getABIjarFile(), getAPIfingerprintFile( true ) );
+                return true;
+            }
+        };
     }
 
-    protected List<File> findVersionedGwtXmlFiles( int pVersion )
+    /**
+     * @return the ABI action of a (built) project whose compile can't be stubbed: the JAR is copied.
+     */
+    protected Action JARasABIaction()
     {
-        String zVersionedModule = VERSIONED_MODULE_PREFIX + pVersion + VERSIONED_MODULE_SUFFIX;
-
-        ArrayList<File> zVersionedFiles = new ArrayList<File>();
-
-        String zSourceString = get( SOURCE.getName() ) + "|";
-        Paths zGwtXml = new Paths( zSourceString.substring( 0, zSourceString.indexOf( '|' ) ), "**.gwt.xml" );
-        for ( File zFile : zGwtXml.getFiles() )
+        return new Action( "ABI" )
         {
-            if ( fileContents( zFile ).contains( zVersionedModule ) )
+            @Override
+            protected boolean isNeeded()
             {
-                zVersionedFiles.add( zFile );
+                Paths zJar = new Paths();
+                zJar.add( FilePath.canonicalize( getJarPathFile() ) );
+                return isOutOfDate( getABIjarFile(), zJar );
             }
-        }
-        if ( zVersionedFiles.isEmpty() )
-        {
-            throw new IllegalStateException(
-                    "Project does not appear to contain a 'gwt.xml' file with the current version module definition of: " + zVersionedModule );
-        }
-        return zVersionedFiles;
-    }
 
-    protected String updateVersionedIndexHtml( String pFileContents, int pCurVersion, int pNewVersion )
-    {
-        String zCurVersionedScript = VERSIONED_SCRIPT_PREFIX + pCurVersion + VERSIONED_SCRIPT_SUFFIX;
-        String zNewVersionedScript = VERSIONED_SCRIPT_PREFIX + pNewVersion + VERSIONED_SCRIPT_SUFFIX;
-        int at = pFileContents.indexOf( zCurVersionedScript );
-        return pFileContents.substring( 0, at ) + zNewVersionedScript + pFileContents.substring( at + zCurVersionedScript.length() );
+            @Override
+            protected boolean perform()
+            {
+                progress( "ABI: " + Project.this + " (JAR)" );
+                copyFile( getJarPathFile(), getABIjarFile() );
+                mABIchanged = APIFingerprint.update( getABIjarFile(), getAPIfingerprintFile( true ) );
+                return true;
+            }
+        };
     }
 
-    protected String assertVersionedIndexHtml( File pIndexHtmlFile, int pVersion )
+    protected File getABIjarFile()
     {
-        String zVersionedScript = VERSIONED_SCRIPT_PREFIX + pVersion + VERSIONED_SCRIPT_SUFFIX;
-
-        String zContents = fileContents( assertIsFile( "Versioned index.html", pIndexHtmlFile ) );
-        if ( !zContents.contains( zVersionedScript ) )
-        {
-            throw new IllegalStateException(
-                    "Project's current versioned index.html file (" + pIndexHtmlFile.getPath() + ") does not contain a 'versioned' script element of: " +
-                    zVersionedScript );
-        }
-        return zContents;
+        return new File( path( "$target$/abi.jar" ) );
     }
 
-    protected String updateVersionedWebXml( String pFileContents, int pCurVersion, int pNewVersion )
+    /**
+     * @param pABI true for the ABI JAR's, false for the JAR's.
+     *
+     * @return the file with the fingerprint of the API (see {@link APIFingerprint}) of the (ABI) JAR.
+     */
+    protected File getAPIfingerprintFile( boolean pABI )
     {
-        String zCurVersionedUrlPattern = VERSIONED_URL_PATTERN_PREFIX + pCurVersion + "/";
-        String zNewVersionedUrlPattern = VERSIONED_URL_PATTERN_PREFIX + pNewVersion + "/";
-        for ( int at; -1 != (at = pFileContents.indexOf( zCurVersionedUrlPattern )); )
-        {
-            pFileContents = pFileContents.substring( 0, at ) + zNewVersionedUrlPattern + pFileContents.substring( at + zCurVersionedUrlPattern.length() );
-        }
-        return pFileContents;
+        return new File( path( pABI ? "$target$/abi.api" : "$target$/jar.api" ) );
     }
 
-    protected int extractVersionFromUrlPattern( String pWarWebXml )
+    /**
+     * @param pABIs true for the ABIs' APIs, false for the JARs'.
+     *
+     * @return true if the API of any of the dependency projects (recursively) changed in this build.
+     */
+    protected boolean isDependencyAPIchanged( boolean pABIs )
     {
-        for ( int at, from = 0; -1 != (at = pWarWebXml.indexOf( VERSIONED_URL_PATTERN_PREFIX, from )); from = at + 1 )
+        for ( Project zProject : mDependantProjects )
         {
-            int slashAt = pWarWebXml.indexOf( '/', at += VERSIONED_URL_PATTERN_PREFIX.length() );
-            if ( slashAt > 0 )
+            if ( (pABIs ? zProject.mABIchanged : zProject.mAPIchanged) || zProject.isDependencyAPIchanged( pABIs ) )
             {
-                try
-                {
-                    return Integer.parseInt( pWarWebXml.substring( at, slashAt ) );
-                }
-                catch ( NumberFormatException acceptable )
-                {
-                    // path starts w/ a 'v' but is not of pattern "v####"
-                }
+                return true;
             }
         }
-        throw new IllegalStateException( "Project's war/WEB-INF/web.xml does not appear to contain a 'versioned' <url-pattern>." );
+        return false;
     }
 
     /**
-     * Executes the buildDependencies, clean, compile, jar, [GWTcompile], and then "packageIt" utility methods.
+     * @param pDependencyAPIchanged true if the API of any of the dependencies changed (forces the build).
+     *
+     * @return null if the project has no sources.
      */
-    public synchronized boolean build()
+    protected Action jarAction( final boolean pDependencyAPIchanged )
     {
-        if ( mBuilt )
-        {
-            return false;
-        }
-        mBuilt = true;
-        mSources = !getSource().isEmpty();
-        boolean zAnythingBuilt = false;
-        boolean zBuildIt;
-        try
+        if ( !mSources )
         {
-            zBuildIt = buildDependencies() || needToBuild();
-        }
-        catch ( RuntimeException e )
-        {
-            progress( "Build: " + this );
-            throw e;
-        }
-        if ( !zBuildIt )
-        {
-            progress( "Build: " + this + " NOT Needed!" );
+            return null;
         }
-        else
+        return new Action( "Build" ) // If "pipelined", this only waits for the dependencies' ABIs (see buildIt)
         {
-            progress( "Build: " + this );
-            clean();
-            if ( mSources )
+            @Override
+            protected boolean isNeeded()
+            {
+                return pDependencyAPIchanged || needToBuild();
+            }
+
+            @Override
+            protected boolean perform()
             {
+                progress( "Build: " + Project.this );
+                cleanJar();
                 compile();
                 jar();
-                zAnythingBuilt = true;
+                mAPIchanged = APIFingerprint.update( getJarPathFile(), getAPIfingerprintFile( false ) );
+                return true;
             }
-        }
-        zAnythingBuilt |= GWTcompile();
-        zAnythingBuilt |= packageIt();
-        return zAnythingBuilt;
+        };
     }
 
+    /**
+     * The dependency projects are only checked for API changes, see {@link #APIclasspath}.
+     */
     protected boolean needToBuild()
     {
-        return needToBuild( determineOutputLastModified() );
+        return needToBuild( determineOutputLastModified(), APIclasspath( javacClasspath() ) );
     }
 
     protected boolean needToBuild( long pOutputLastModified )
+    {
+        return needToBuild( pOutputLastModified, compileClasspath() );
+    }
+
+    protected boolean needToBuild( long pOutputLastModified, Paths pClasspath )
     {
         return (mProjectFileLastModified > pOutputLastModified) || //
-               checkNewer( pOutputLastModified, "ClassPath", compileClasspath() ) || //
+               checkNewer( pOutputLastModified, "ClassPath", pClasspath ) || //
                checkNewer( pOutputLastModified, "Source", getSource() ) || //
-               checkNewer( pOutputLastModified, "Resources", getResources() ) || //
-               checkNewer( pOutputLastModified, "Dist", getDist() );
+               checkNewer( pOutputLastModified, "Resources", getResources() );
     }
 
     protected boolean checkNewer( long pOutputLastModified, String pWhat, Paths pPaths )
     {
-        Long zLastModified = pPaths.getGreatestLastModified();
-        if ( (zLastModified != null) && (zLastModified > pOutputLastModified) )
+        return checkNewer( pOutputLastModified, pWhat, pPaths.getGreatestLastModified() );
+    }
+
+    protected boolean checkNewer( long pOutputLastModified, String pWhat, Long pLastModified )
+    {
+        if ( (pLastModified != null) && (pLastModified > pOutputLastModified) )
         {
-            System.out.println( this + ": " + pWhat + " - " + new NewerBy( pOutputLastModified, zLastModified ) );
+            System.out.println( this + ": " + pWhat + " - " + new NewerBy( pOutputLastModified, pLastModified ) );
             return true;
         }
         return false;
@@ -684,6 +1373,16 @@ public class Project extends ProjectParameters
         delete( getTargetPath() );
     }
 
+    /**
+     * Deletes the JAR & the compiled classes (the build's other outputs are replaced by their own actions, when out of date).
+     */
+    protected void cleanJar()
+    {
+        progress( "Clean: " + this + " (JAR & classes)" );
+        delete( getJarPath() );
+        delete( path( "$target$/classes/" ) );
+    }
+
     /**
      * Collects the source files using the "source" property and compiles them into a "classes" directory under the target
      * directory. It uses "classpath" and "dependencies" to find the libraries required to compile the source.
@@ -699,7 +1398,7 @@ public class Project extends ProjectParameters
         {
             return null;
         }
-        Paths classpath = compileClasspath();
+        Paths classpath = javacClasspath();
 
         String classesDir = mkdir( path( "$target$/classes/" ) );
 
@@ -751,7 +1450,16 @@ public class Project extends ProjectParameters
             throw new RuntimeException( "No compiler available. Ensure you are running from a " + getTargetJavaVersion() +
                                         "+ JDK, and not a JRE *and* that your class path includes tools.jar." );
         }
-        int zError = compiler.run( getCompile_in(), getCompile_out(), getCompile_err(), pCompileArgs.toArray( new String[pCompileArgs.size()] ) );
+        int zError;
+        ResourceScheduler.Lease zLease = ResourceScheduler.getShared().acquire( "javac " + getName(), 0, 1 ); // In our own heap
+        try
+        {
+            zError = compiler.run( getCompile_in(), getCompile_out(), getCompile_err(), pCompileArgs.toArray( new String[pCompileArgs.size()] ) );
+        }
+        finally
+        {
+            zLease.release();
+        }
         if ( zError != 0 )
         {
             String zMessage = "Error (" + zError + ") during compilation of project: " + this +
@@ -850,7 +1558,9 @@ public class Project extends ProjectParameters
         }
         progress( "JAR: " + this + " -> " + zJarPath );
 
-        String jarDir = mkdir( path( "$target$/jar/" ) );
+        String jarDir = path( "$target$/jar/" );
+        delete( jarDir ); // No longer cleaned with the target, so no deleted classes or resources & no stale generated manifest
+        mkdir( jarDir );
 
         zClasses.copyTo( jarDir );
         zResources.copyTo( jarDir );
@@ -861,7 +1571,15 @@ public class Project extends ProjectParameters
             createDefaultManifestFile( zJarPath, manifestFile );
         }
 
-        return jar( zJarPath, new Paths( jarDir ) );
+        ResourceScheduler.Lease zLease = ResourceScheduler.getShared().acquire( "JAR " + getName(), 0, 1 ); // Deflating
+        try
+        {
+            return jar( zJarPath, new Paths( jarDir ) );
+        }
+        finally
+        {
+            zLease.release();
+        }
     }
 
     protected void createDefaultManifestFile( String pJarFile, File pManifestFile )
@@ -888,7 +1606,7 @@ public class Project extends ProjectParameters
         OutputStream output = createFileOutputStream( pManifestFile );
         try
         {
-            manifest.write( output );
+            writeManifest( manifest, output );
             Closeable zCloseable = output;
             output = null;
             close( zCloseable );
@@ -903,6 +1621,56 @@ public class Project extends ProjectParameters
         }
     }
 
+    /**
+     * Writes the main attributes of the manifest in a stable order ("Manifest-Version" first, then the rest by name), as
+     * Manifest.write's order depends on the JRE's Attributes map implementation.
+     */
+    protected void writeManifest( Manifest pManifest, OutputStream pOutput )
+            throws IOException
+    {
+        Map<String, String> zAttributes = new TreeMap<String, String>();
+        for ( Map.Entry<Object, Object> zEntry : pManifest.getMainAttributes().entrySet() )
+        {
+            zAttributes.put( zEntry.getKey().toString(), Util.toString( zEntry.getValue() ) );
+        }
+        ByteArrayOutputStream zBytes = new ByteArrayOutputStream();
+        String zVersionName = Attributes.Name.MANIFEST_VERSION.toString();
+        writeManifestAttribute( zBytes, zVersionName, Util.deNull( zAttributes.remove( zVersionName ), "1.0" ) );
+        for ( Map.Entry<String, String> zEntry : zAttributes.entrySet() )
+        {
+            writeManifestAttribute( zBytes, zEntry.getKey(), zEntry.getValue() );
+        }
+        zBytes.write( '\r' );
+        zBytes.write( '\n' );
+        zBytes.writeTo( pOutput );
+    }
+
+    /**
+     * Lines are limited to 72 bytes (UTF-8), longer ones are continued on lines starting with a space.
+     */
+    private void writeManifestAttribute( ByteArrayOutputStream pBytes, String pName, String pValue )
+            throws IOException
+    {
+        byte[] zLine = (pName + ": " + pValue).getBytes( "UTF-8" );
+        int zFrom = 0;
+        for ( int zMax = 72; (zLine.length - zFrom) > zMax; zMax = 71 )
+        {
+            int zTo = zFrom + zMax;
+            while ( (zLine[zTo] & 0xC0) == 0x80 ) // Don't split a multi-byte character
+            {
+                zTo--;
+            }
+            pBytes.write( zLine, zFrom, zTo - zFrom );
+            pBytes.write( '\r' );
+            pBytes.write( '\n' );
+            pBytes.write( ' ' );
+            zFrom = zTo;
+        }
+        pBytes.write( zLine, zFrom, zLine.length - zFrom );
+        pBytes.write( '\r' );
+        pBytes.write( '\n' );
+    }
+
     /**
      * Encodes the specified paths into a JAR file.
      *
@@ -919,13 +1687,24 @@ public class Project extends ProjectParameters
      * @return The path to the JAR/WAR file.
      */
     protected String innerJar( String pType, String jarFile, Paths paths )
+    {
+        Util.assertNotNull( "paths", paths );
+        return innerJar( pType, jarFile, paths.getPaths() );
+    }
+
+    /**
+     * Encodes the specified files, each as its sub path, into a JAR/WAR file.
+     *
+     * @return The path to the JAR/WAR file.
+     */
+    protected String innerJar( String pType, String jarFile, List<FilePath> paths )
     {
         Util.assertNotNull( "jarFile", jarFile );
         Util.assertNotNull( "paths", paths );
 
-        progress( "Creating " + pType + " (" + paths.count() + " entries): " + jarFile );
+        progress( "Creating " + pType + " (" + paths.size() + " entries): " + jarFile );
 
-        int zZipped = paths.zip( jarFile, new ZipFactory()
+        ZipFactory zFactory = new ZipFactory()
         {
             @Override
             public ZipOutputStream createZOS( String pFilePath, List<FilePath> pPaths )
@@ -947,6 +1726,12 @@ public class Project extends ProjectParameters
                 return new JarEntry( pRelativePath );
             }
 
+            @Override
+            public CompressionPolicy getCompressionPolicy()
+            {
+                return Project.this.getCompressionPolicy();
+            }
+
             private void putManifestFirst( List<FilePath> pPaths )
             {
                 int at = findManifest( pPaths );
@@ -968,10 +1753,24 @@ public class Project extends ProjectParameters
                 }
                 return -1;
             }
-        } );
+        };
+        if ( isReproducible() )
+        {
+            zFactory = new ReproducibleZipFactory( zFactory );
+        }
+        int zZipped = Paths.zip( jarFile, paths, zFactory );
         return zZipped == 0 ? null : jarFile;
     }
 
+    /**
+     * The policy used for the JAR/WAR files produced: already compressed entries are STORED, everything else is deflated at the
+     * "ziplevel".
+     */
+    protected CompressionPolicy getCompressionPolicy()
+    {
+        return new CompressionPolicy( getZipLevel() );
+    }
+
     /**
      * Decodes the specified ZIP file.
      *
@@ -1051,6 +1850,84 @@ public class Project extends ProjectParameters
         pPathsToAddTo.add( compileClasspath() );
     }
 
+    /**
+     * @return the classpath the sources are compiled against: if "pipelined", the {@link #ABIclasspath()}, otherwise the
+     *         {@link #compileClasspath()}.
+     */
+    protected Paths javacClasspath()
+    {
+        return isPipelined() ? ABIclasspath() : compileClasspath();
+    }
+
+    /**
+     * Computes the compile classpath for the specified project and all its dependency projects, recursively, but with the dependency
+     * projects' ABI JARs (see {@link #getABI()}) instead of their JARs.
+     */
+    protected Paths ABIclasspath()
+    {
+        Paths classpath = getCompileClasspath();
+        classpath.add( getClasspath() );
+        for ( Project zProject : mDependantProjects )
+        {
+            zProject.addDependantProjectsABIclassPaths( classpath );
+        }
+        return classpath;
+    }
+
+    /**
+     * @return the classpath, with the (ABI) JARs of the dependency projects replaced by their API fingerprint files (see
+     *         {@link #getAPIfingerprintFile}), so checking it for newer files only finds the dependencies whose API changed (a JAR without
+     *         a fingerprint file is kept).
+     */
+    protected Paths APIclasspath( Paths pClasspath )
+    {
+        Map<File, File> zFingerprintFiles = new HashMap<File, File>();
+        for ( Project zProject : mDependantProjects )
+        {
+            zProject.addAPIfingerprintFiles( zFingerprintFiles );
+        }
+        Paths zAPIclasspath = new Paths();
+        for ( FilePath zFilePath : pClasspath.getPaths() )
+        {
+            File zFingerprintFile = zFingerprintFiles.get( zFilePath.file() );
+            zAPIclasspath.add( (zFingerprintFile == null) ? zFilePath : FilePath.canonicalize( zFingerprintFile ) );
+        }
+        return zAPIclasspath;
+    }
+
+    /**
+     * Adds the (canonical) JAR & ABI JAR -> API fingerprint file (if there) of the specified project and all its dependency projects,
+     * recursively.
+     */
+    protected void addAPIfingerprintFiles( Map<File, File> pFingerprintFiles )
+    {
+        for ( boolean zABI : new boolean[]{false, true} )
+        {
+            File zFingerprintFile = getAPIfingerprintFile( zABI );
+            if ( zFingerprintFile.isFile() )
+            {
+                pFingerprintFiles.put( FilePath.canonicalize( zABI ? getABIjarFile() : getJarPathFile() ).file(), zFingerprintFile );
+            }
+        }
+        for ( Project zProject : mDependantProjects )
+        {
+            zProject.addAPIfingerprintFiles( pFingerprintFiles );
+        }
+    }
+
+    /**
+     * Computes the ABI classpath for all the dependencies of the specified project, recursively.
+     */
+    protected void addDependantProjectsABIclassPaths( Paths pPathsToAddTo )
+    {
+        File zABIjarFile = getABIjarFile();
+        if ( zABIjarFile.isFile() ) // No sources, no (or an empty) ABI
+        {
+            pPathsToAddTo.add( new FilePath( zABIjarFile.getParentFile(), zABIjarFile.getName() ) );
+        }
+        pPathsToAddTo.add( ABIclasspath() );
+    }
+
     /**
      * Computes the classpath for the specified project and all its dependency projects, recursively.
      */
@@ -1087,18 +1964,74 @@ public class Project extends ProjectParameters
     }
 
     /**
-     * Calls {@link #build(Project)} for each dependency project in the specified project.
+     * Builds (concurrently) the dependency projects, each as soon as its own dependencies are built, and waits for them all.
+     * <p/>
+     * The dependencies are started (and prioritized on the {@link Parallel} pool) longest estimated remaining critical path first, so e.g.
+     * the slow GWT modules are not waiting behind the quick utility modules.
+     *
+     * @return true if any of them built anything.
+     *
+     * @throws RuntimeException the first failure (after all of them have completed or failed).
      */
     public boolean buildDependencies()
     {
+        final Map<Project, Long> zRemainingMSs = new HashMap<Project, Long>();
+        List<Project> zProjects = new ArrayList<Project>( mDependantProjects );
+        for ( Project zProject : zProjects )
+        {
+            zProject.getRemainingCriticalPathMS( zRemainingMSs );
+        }
+        Collections.sort( zProjects, new Comparator<Project>()
+        {
+            @Override
+            public int compare( Project p1, Project p2 )
+            {
+                return zRemainingMSs.get( p2 ).compareTo( zRemainingMSs.get( p1 ) ); // Longest first (stable, so ties keep their order)
+            }
+        } );
+        if ( zProjects.size() > 1 )
+        {
+            LOGGER.debug.log( "Dependencies of ", this, " (longest critical path first): ", zProjects, " ", zRemainingMSs );
+        }
+        List<FutureTask<Boolean>> zBuilds = new ArrayList<FutureTask<Boolean>>( zProjects.size() );
+        for ( Project zProject : zProjects )
+        {
+            zBuilds.add( Parallel.start( zProject.getBuild(), zRemainingMSs.get( zProject ) ) );
+        }
+        Parallel.awaitAll( zBuilds );
         boolean anyBuilt = false;
-        for ( Project zProject : mDependantProjects )
+        for ( FutureTask<Boolean> zBuild : zBuilds )
         {
-            anyBuilt |= zProject.build();
+            anyBuilt |= Parallel.await( zBuild );
         }
         return anyBuilt;
     }
 
+    /**
+     * @param pKnown the projects already estimated (the dependencies are shared).
+     *
+     * @return the estimated time (in ms, from the build history) until this project is built: 0 if it is, otherwise the time of its own
+     *         steps after the longest remaining critical path of its dependencies.
+     */
+    protected long getRemainingCriticalPathMS( Map<Project, Long> pKnown )
+    {
+        Long zRemainingMS = pKnown.get( this );
+        if ( zRemainingMS == null )
+        {
+            zRemainingMS = 0L;
+            if ( !getBuild().isDone() )
+            {
+                for ( Project zProject : mDependantProjects )
+                {
+                    zRemainingMS = Math.max( zRemainingMS, zProject.getRemainingCriticalPathMS( pKnown ) );
+                }
+                zRemainingMS += BuildHistory.getShared().getEstimateMS( getCanonicalProjectDir().getPath() );
+            }
+            pKnown.put( this, zRemainingMS );
+        }
+        return zRemainingMS;
+    }
+
     public void set( Object key, Object object )
     {
         mManager.put( updatableKey( key ), object );
@@ -1133,14 +2066,30 @@ public class Project extends ProjectParameters
         return pKey;
     }
 
-    public synchronized void initialize( ProjectFactory pProjectFactory )
+    /**
+     * Loads the dependencies (concurrently), keeping their order.
+     */
+    public synchronized void initialize( final ProjectFactory pProjectFactory )
     {
         List<String> zDependencies = getDependencies();
         if ( zDependencies != null )
         {
-            for ( String zDependency : zDependencies )
+            List<FutureTask<Project>> zLoads = new ArrayList<FutureTask<Project>>( zDependencies.size() );
+            for ( final String zDependency : zDependencies )
+            {
+                zLoads.add( Parallel.start( new FutureTask<Project>( new Callable<Project>()
+                {
+                    @Override
+                    public Project call()
+                    {
+                        return pProjectFactory.project( mCanonicalProjectDir, zDependency );
+                    }
+                } ) ) );
+            }
+            Parallel.awaitAll( zLoads );
+            for ( FutureTask<Project> zLoad : zLoads )
             {
-                mDependantProjects.add( pProjectFactory.project( mCanonicalProjectDir, zDependency ) );
+                mDependantProjects.add( Parallel.await( zLoad ) );
             }
         }
 
@@ -1208,7 +2157,9 @@ public class Project extends ProjectParameters
 //        return project;
     }
 
-    protected boolean mBuilt = false;
+    private FutureTask<Boolean> mBuild;
+    private FutureTask<Boolean> mABI;
+    private volatile boolean mAPIchanged, mABIchanged;
     protected boolean mSources = false;
     protected List<Project> mDependantProjects = new ArrayList<Project>();
 }
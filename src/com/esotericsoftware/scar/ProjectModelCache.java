@@ -0,0 +1,306 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.*;
+
+import org.litesoft.logger.*;
+
+import com.esotericsoftware.utils.*;
+
+/**
+ * A (workspace wide, by default "~/.scar/projects.cache") cache of the parsed YAML build files, so a build does not re-read & re-parse
+ * (YAML and the "$dir$" replacement) every build file of the project graph on every invocation.  The whole cache is loaded with one
+ * read, and saved (only if changed) once the launch project (and so all its dependencies) has been loaded.  Only pure YAML build files
+ * (no code section) are cached.
+ * <p/>
+ * An entry is keyed by the canonical build file path, and is only used if the build file's last modified & length, and the project
+ * directory (the "$dir$" value), are unchanged.  A cache that can't be read (e.g. corrupt, or an older format) is ignored.
+ * <p/>
+ * The parsed data is kept serialized (Strings, Lists & Maps), so each use gets its own (mutable) copy.
+ */
+final class ProjectModelCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger( ProjectModelCache.class );
+
+    private static final int MAGIC = 0x53434152; // "SCAR"
+    private static final int VERSION = 1;
+
+    private static final long RACY_MS = 2000; // Coarsest common last modified resolution (FAT)
+
+    private static final byte NULL = 0, STRING = 1, LIST = 2, MAP = 3;
+
+    private final File mCacheFile;
+    private final Map<String, Entry> mEntries = new HashMap<String, Entry>();
+    private boolean mChanged;
+
+    ProjectModelCache( File pCacheFile )
+    {
+        mCacheFile = pCacheFile;
+        if ( pCacheFile.isFile() )
+        {
+            try
+            {
+                load();
+            }
+            catch ( IOException e )
+            {
+                LOGGER.debug.log( "Ignoring project model cache ", pCacheFile, ": ", e );
+                mEntries.clear();
+                mChanged = true; // Replace it
+            }
+        }
+    }
+
+    static File getDefaultFile()
+    {
+        return new File( System.getProperty( "user.home" ), ".scar/projects.cache" );
+    }
+
+    /**
+     * @return null if not cached, or the build file (or its project directory) has changed.
+     */
+    synchronized Map<Object, Object> get( File pBuildFile, File pCanonicalProjectDir )
+    {
+        Entry zEntry = mEntries.get( pBuildFile.getPath() );
+        if ( (zEntry == null) || !zEntry.isFor( pBuildFile, pCanonicalProjectDir ) )
+        {
+            return null;
+        }
+        try
+        {
+            DataInputStream zIn = new DataInputStream( new ByteArrayInputStream( zEntry.mData ) );
+            @SuppressWarnings({"unchecked"})
+            Map<Object, Object> zData = (Map<Object, Object>) readValue( zIn );
+            return zData;
+        }
+        catch ( IOException e )
+        {
+            LOGGER.debug.log( "Ignoring cached project model for ", pBuildFile, ": ", e );
+            return null;
+        }
+    }
+
+    /**
+     * Cache the build file's parsed data (call before the data is used, as it may be changed by its user).  Data that is not all Strings,
+     * Lists & Maps, or of a build file modified in the last couple of seconds, is not cached.
+     *
+     * @param pLastModified & pLength of the build file as it was read.
+     */
+    synchronized void put( File pBuildFile, File pCanonicalProjectDir, long pLastModified, long pLength, Map<Object, Object> pData )
+    {
+        if ( pLastModified > System.currentTimeMillis() - RACY_MS )
+        {
+            return; // Could be changed again (same length) within the file system's timestamp resolution
+        }
+        ByteArrayOutputStream zBytes = new ByteArrayOutputStream();
+        try
+        {
+            writeValue( new DataOutputStream( zBytes ), pData );
+        }
+        catch ( IOException e )
+        {
+            LOGGER.debug.log( "Not caching project model for ", pBuildFile, ": ", e.getMessage() );
+            return;
+        }
+        mEntries.put( pBuildFile.getPath(), new Entry( pCanonicalProjectDir.getPath(), pLastModified, pLength, zBytes.toByteArray() ) );
+        mChanged = true;
+    }
+
+    /**
+     * Save the cache if it has changed (see {@link FileUtil#writeAtomically}).  Failures are only logged, the cache is an optimization.
+     */
+    synchronized void save()
+    {
+        if ( !mChanged )
+        {
+            return;
+        }
+        try
+        {
+            FileUtil.writeAtomically( mCacheFile, true, new FileUtil.ContentWriter()
+            {
+                @Override
+                public void write( DataOutputStream pOut )
+                        throws IOException
+                {
+                    ProjectModelCache.this.write( pOut );
+                }
+            } );
+            mChanged = false;
+        }
+        catch ( RuntimeException e )
+        {
+            LOGGER.debug.log( "Unable to save project model cache ", mCacheFile, ": ", e );
+        }
+    }
+
+    private void load()
+            throws IOException
+    {
+        byte[] zBytes = new byte[(int) mCacheFile.length()];
+        DataInputStream zIn = new DataInputStream( FileUtil.createFileInputStream( mCacheFile ) );
+        try
+        {
+            zIn.readFully( zBytes );
+        }
+        finally
+        {
+            zIn.close();
+        }
+        zIn = new DataInputStream( new ByteArrayInputStream( zBytes ) );
+        if ( (zIn.readInt() != MAGIC) || (zIn.readInt() != VERSION) )
+        {
+            throw new IOException( "Not a (current) project model cache" );
+        }
+        for ( int zCount = zIn.readInt(); zCount > 0; zCount-- )
+        {
+            String zBuildFile = readString( zIn );
+            String zProjectDir = readString( zIn );
+            long zLastModified = zIn.readLong();
+            long zLength = zIn.readLong();
+            byte[] zData = new byte[readLength( zIn )];
+            zIn.readFully( zData );
+            mEntries.put( zBuildFile, new Entry( zProjectDir, zLastModified, zLength, zData ) );
+        }
+    }
+
+    private void write( DataOutputStream pOut )
+            throws IOException
+    {
+        pOut.writeInt( MAGIC );
+        pOut.writeInt( VERSION );
+        pOut.writeInt( mEntries.size() );
+        for ( Map.Entry<String, Entry> zMapEntry : mEntries.entrySet() )
+        {
+            Entry zEntry = zMapEntry.getValue();
+            writeString( pOut, zMapEntry.getKey() );
+            writeString( pOut, zEntry.mProjectDir );
+            pOut.writeLong( zEntry.mLastModified );
+            pOut.writeLong( zEntry.mLength );
+            pOut.writeInt( zEntry.mData.length );
+            pOut.write( zEntry.mData );
+        }
+    }
+
+    private static void writeValue( DataOutputStream pOut, Object pValue )
+            throws IOException
+    {
+        if ( pValue == null )
+        {
+            pOut.writeByte( NULL );
+        }
+        else if ( pValue instanceof String )
+        {
+            pOut.writeByte( STRING );
+            writeString( pOut, (String) pValue );
+        }
+        else if ( pValue instanceof List )
+        {
+            List<?> zList = (List<?>) pValue;
+            pOut.writeByte( LIST );
+            pOut.writeInt( zList.size() );
+            for ( Object zValue : zList )
+            {
+                writeValue( pOut, zValue );
+            }
+        }
+        else if ( pValue instanceof Map )
+        {
+            Map<?, ?> zMap = (Map<?, ?>) pValue;
+            pOut.writeByte( MAP );
+            pOut.writeInt( zMap.size() );
+            for ( Map.Entry<?, ?> zEntry : zMap.entrySet() )
+            {
+                writeValue( pOut, zEntry.getKey() );
+                writeValue( pOut, zEntry.getValue() );
+            }
+        }
+        else
+        {
+            throw new IOException( "Unsupported value type: " + pValue.getClass().getName() );
+        }
+    }
+
+    private static Object readValue( DataInputStream pIn )
+            throws IOException
+    {
+        byte zType = pIn.readByte();
+        switch ( zType )
+        {
+            case NULL:
+                return null;
+            case STRING:
+                return readString( pIn );
+            case LIST:
+                int zSize = readLength( pIn );
+                List<Object> zList = new ArrayList<Object>( zSize );
+                while ( zSize-- > 0 )
+                {
+                    zList.add( readValue( pIn ) );
+                }
+                return zList;
+            case MAP:
+                Map<Object, Object> zMap = new HashMap<Object, Object>();
+                for ( int zEntries = pIn.readInt(); zEntries > 0; zEntries-- )
+                {
+                    Object zKey = readValue( pIn );
+                    zMap.put( zKey, readValue( pIn ) );
+                }
+                return zMap;
+            default:
+                throw new IOException( "Unknown value type: " + zType );
+        }
+    }
+
+    private static void writeString( DataOutputStream pOut, String pString )
+            throws IOException
+    {
+        byte[] zBytes = pString.getBytes( "UTF-8" ); // Not writeUTF(), limited to 64K
+        pOut.writeInt( zBytes.length );
+        pOut.write( zBytes );
+    }
+
+    private static String readString( DataInputStream pIn )
+            throws IOException
+    {
+        byte[] zBytes = new byte[readLength( pIn )];
+        pIn.readFully( zBytes );
+        return new String( zBytes, "UTF-8" );
+    }
+
+    /**
+     * @return a length (or count) that fits in what is left to read, as the cache may be corrupt (the whole cache, or an entry, is read
+     *         into memory first, so there is no blocking).
+     */
+    private static int readLength( DataInputStream pIn )
+            throws IOException
+    {
+        int zLength = pIn.readInt();
+        if ( (zLength < 0) || (zLength > pIn.available()) )
+        {
+            throw new IOException( "Corrupt length: " + zLength );
+        }
+        return zLength;
+    }
+
+    private static class Entry
+    {
+        private final String mProjectDir;
+        private final long mLastModified, mLength;
+        private final byte[] mData;
+
+        Entry( String pProjectDir, long pLastModified, long pLength, byte[] pData )
+        {
+            mProjectDir = pProjectDir;
+            mLastModified = pLastModified;
+            mLength = pLength;
+            mData = pData;
+        }
+
+        boolean isFor( File pBuildFile, File pCanonicalProjectDir )
+        {
+            return mProjectDir.equals( pCanonicalProjectDir.getPath() ) && //
+                   (mLastModified == pBuildFile.lastModified()) && (mLength == pBuildFile.length());
+        }
+    }
+}
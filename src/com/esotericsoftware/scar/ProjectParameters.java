@@ -2,7 +2,9 @@ package com.esotericsoftware.scar;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.*;
+import java.util.zip.*;
 
 import com.esotericsoftware.filesystem.*;
 import com.esotericsoftware.scar.support.*;
@@ -49,6 +51,53 @@ public class ProjectParameters extends FileUtil
     public static final Parameter DIST = def( "dist", Form.PATHS, "Wildcard patterns for the file(s) to include in the distribution, outside the JAR.", //
                                               "Default: 'war' (if there)." );
 
+    public static final Parameter PIPELINED =
+            def( "pipelined", Form.STRING, "If 'true', the sources are compiled against the ABIs (the classes with their method bodies stripped, " +
+                                           "quickly compiled from stubs of the sources) of the dependency projects, so the compile does not wait " +
+                                           "for their full compiles & JARs.", //
+                 "Default: 'false'." );
+
+    public static final Parameter ZIPLEVEL =
+            def( "ziplevel", Form.STRING, "Deflate level (0-9) for the entries of the JAR/WAR files produced, already compressed entries (e.g. '.png', '.jar') are STORED.", //
+                 "Default: -1 (the Deflater's default)." );
+
+    public static final Parameter REPRODUCIBLE =
+            def( "reproducible", Form.STRING, "If 'true', the JAR/WAR files produced have sorted entries and fixed timestamps (identical inputs produce identical bytes).", //
+                 "Default: 'false'." );
+
+    public static final Parameter GZIPASSETS =
+            def( "gzipassets", Form.STRING, "If 'true', pre-compressed '.gz' sidecars are created for the '.js', '.css', '.html', '.json' & '.svg' files " +
+                                            "of the GWT compiler output, war directory & PhoneGap directory.", //
+                 "Default: 'false'." );
+
+    public static final Parameter GZIPASSETSMINSIZE =
+            def( "gzipassetsminsize", Form.STRING, "Files smaller than this (in bytes) don't get a '.gz' sidecar (see 'gzipassets').", //
+                 "Default: " + GzipSidecars.DEFAULT_MIN_SIZE + "." );
+
+    public static final Parameter FINGERPRINT =
+            def( "fingerprint", Form.STRING, "If 'true', the static assets of the war & PhoneGap directories get (additional) content hashed names " +
+                                             "(e.g. 'logo.1f2e3d4c.png'), and the CSS, JS & HTML references to them are rewritten.", //
+                 "Default: 'false'." );
+
+    public static final Parameter BUNDLES =
+            def( "bundles", Form.MAP, "PhoneGap directory JS/CSS bundles: each key is the (directory relative) bundle path (ending in '.js' or '.css'), " +
+                                      "its value the wildcard pattern(s) of the files to concatenate into it, in load order.  HTML files loading " +
+                                      "all of a bundle's files (in order, together) are rewritten to load the bundle instead.", //
+                 "Default: no bundles." );
+
+    public static final Parameter BUNDLEMINIFY =
+            def( "bundleminify", Form.STRING, "If 'true', the bundled JS & CSS have their comments & (unneeded) whitespace stripped (see 'bundles').", //
+                 "Default: 'false'." );
+
+    public static final Parameter OPTIMIZEPNG =
+            def( "optimizepng", Form.STRING, "If 'true', the '.png' files of the war & PhoneGap directories are losslessly recompressed (re-filtered, " +
+                                             "metadata chunks dropped & re-deflated at maximum effort), if that makes them smaller.", //
+                 "Default: 'false'." );
+
+    public static final Parameter PNGCACHE =
+            def( "pngcache", Form.STRING, "Directory to cache the 'optimizepng' results in (by content hash).", //
+                 "Default: '.scar/pngcache' in the user's home directory." );
+
     // ------------------------------- Packaging Options, these are mutually exclusive ---------------------------------
 
     public static final Parameter PHONEGAPDIR = def( "phonegapdir", Form.STRING, "Directory path to bring together all the files needed for a PgoneGap app", //
@@ -62,10 +111,14 @@ public class ProjectParameters extends FileUtil
                  "that all 'exploded' dependendend JARs and dist files will be JAR'd into (this should make a single JAR application)." );
 
     public static final Parameter WAR = def( "war", Form.STRING,
-                                             "Target WAR directory or WAR name (if ends w/ '.war'), produces a war directory (as specified, " +
-                                             "or a default one if a '.war' is requested)",
+                                             "Target WAR directory or WAR name (if ends w/ '.war'), produces either a war directory (as specified) " +
+                                             "or the specified '.war' file",
 //
-                                             "then if a '.war' is requested, packages the war directory into the specified '.war' file." );
+                                             "(packaged directly from the 'dist' files and the classpath, see 'wardir')." );
+
+    public static final Parameter WARDIR =
+            def( "wardir", Form.STRING, "If 'true' and a '.war' is requested, the war directory ('$target$/war/') is also produced.", //
+                 "Default: 'false'." );
 
     // ------------------------------------------------ GWT Parameters -------------------------------------------------
 
@@ -87,6 +140,16 @@ public class ProjectParameters extends FileUtil
     public static final Parameter GWTmx = def( "GWTmx", Form.STRING, "the -Xmx value for the GWT Compiler.", //
                                                "Default: '1024m'." );
 
+    public static final Parameter GWTworkers =
+            def( "GWTworkers", Form.STRING, "If 'true', the GWT Compiler is run in warm (reused) JVMs that live for the duration of the build, " +
+                                            "instead of a new JVM for each compile (falls back to a new JVM if a worker can't be used).", //
+                 "Default: 'false'." );
+
+    public static final Parameter GWTworkerRecycle =
+            def( "GWTworkerRecycle", Form.STRING, "Number of compiles after which a GWT worker JVM is replaced (see 'GWTworkers'), " +
+                                                  "also replaced when its heap is more than " + GWTWorkerPool.MAX_HEAP_USE_PERCENT + "% used.", //
+                 "Default: 10." );
+
     public static final String GWT_DEV = "gwt-dev.jar";
     public static final String GWT_USER = "gwt-user.jar";
     public static final String GWT_SERVLET = "gwt-servlet.jar";
@@ -305,6 +368,21 @@ public class ProjectParameters extends FileUtil
         return getPaths( DIST.getName() );
     }
 
+    public boolean isPipelined()
+    {
+        return get_boolean( PIPELINED.getName() );
+    }
+
+    public int getZipLevel()
+    {
+        return get_int( ZIPLEVEL.getName(), Deflater.DEFAULT_COMPRESSION );
+    }
+
+    public boolean isReproducible()
+    {
+        return get_boolean( REPRODUCIBLE.getName() );
+    }
+
     public String getPhoneGapDir()
     {
         return get( PHONEGAPDIR.getName() );
@@ -350,6 +428,72 @@ public class ProjectParameters extends FileUtil
         return new File( zJar );
     }
 
+    /**
+     * @return bundle path -> the wildcard patterns of its members (in load order), empty if no 'bundles'.
+     */
+    public Map<String, List<String>> getBundles()
+    {
+        Map<?, ?> zMap = getObjectMap( BUNDLES.getName() );
+        if ( zMap == null )
+        {
+            return Collections.emptyMap();
+        }
+        Map<String, List<String>> zBundles = new LinkedHashMap<String, List<String>>();
+        for ( Map.Entry<?, ?> zEntry : zMap.entrySet() )
+        {
+            List<String> zPatterns = new ArrayList<String>();
+            if ( zEntry.getValue() instanceof List )
+            {
+                for ( Object zPattern : (List<?>) zEntry.getValue() )
+                {
+                    zPatterns.add( zPattern.toString() );
+                }
+            }
+            else if ( zEntry.getValue() != null )
+            {
+                zPatterns.add( zEntry.getValue().toString() );
+            }
+            zBundles.put( zEntry.getKey().toString(), zPatterns );
+        }
+        return zBundles;
+    }
+
+    public boolean isBundleMinify()
+    {
+        return get_boolean( BUNDLEMINIFY.getName() );
+    }
+
+    public boolean isOptimizePng()
+    {
+        return get_boolean( OPTIMIZEPNG.getName() );
+    }
+
+    public String getPngCache()
+    {
+        String zPngCache = getPath( PNGCACHE.getName() );
+        return (zPngCache != null) ? zPngCache : new File( System.getProperty( "user.home" ), ".scar/pngcache" ).getPath();
+    }
+
+    public boolean isFingerprint()
+    {
+        return get_boolean( FINGERPRINT.getName() );
+    }
+
+    public boolean isGzipAssets()
+    {
+        return get_boolean( GZIPASSETS.getName() );
+    }
+
+    public int getGzipAssetsMinSize()
+    {
+        return get_int( GZIPASSETSMINSIZE.getName(), GzipSidecars.DEFAULT_MIN_SIZE );
+    }
+
+    public boolean isWarDir()
+    {
+        return get_boolean( WARDIR.getName() );
+    }
+
     public String getWar()
     {
         return get( WAR.getName() );
@@ -400,6 +544,16 @@ public class ProjectParameters extends FileUtil
         return get( GWTlogging.getName() );
     }
 
+    public boolean isGWTworkers()
+    {
+        return get_boolean( GWTworkers.getName() );
+    }
+
+    public int getGWTworkerRecycle()
+    {
+        return get_int( GWTworkerRecycle.getName(), 10 );
+    }
+
     public String getGWTmx()
     {
         return get( GWTmx.getName() );
@@ -586,6 +740,8 @@ public class ProjectParameters extends FileUtil
     /**
      * Returns a canonicalizePath built from the specified path.
      * If the specified path is a relative path, it is made absolute relative to this project's directory.
+     * <p/>
+     * The result is cached (until a key it references changes).
      */
     public String path( String path )
     {
@@ -593,33 +749,69 @@ public class ProjectParameters extends FileUtil
         {
             return null;
         }
-        path = format( path );
-        String zSuffix = "";
-        int pipeIndex = path.indexOf( '|' );
-        if ( pipeIndex > -1 )
+        final String zGivenPath = path;
+        return mManager.getCachedResponse( new CachedResponseKey( "path", path ), new Manager.Response<String>()
         {
-            // Handle wildcard search patterns.
-            zSuffix = path.substring( pipeIndex );
-            path = path.substring( 0, pipeIndex );
-        }
-        return canonicalizePath( getCanonicalProjectDir(), path ).getPath() + zSuffix;
+            @Override
+            public String compute( Set<Object> pDerivedFromKeys )
+            {
+                String zPath = format( zGivenPath, pDerivedFromKeys );
+                String zSuffix = "";
+                int pipeIndex = zPath.indexOf( '|' );
+                if ( pipeIndex > -1 )
+                {
+                    // Handle wildcard search patterns.
+                    zSuffix = zPath.substring( pipeIndex );
+                    zPath = zPath.substring( 0, pipeIndex );
+                }
+                return canonicalizePath( getCanonicalProjectDir(), zPath ).getPath() + zSuffix;
+            }
+        } );
     }
 
     /**
      * Replaces property names surrounded by dollar-signs ('$') with the value from this project.
+     * <p/>
+     * The text is compiled (once) into a {@link Template}, and the result is cached (until a key it references changes).
      */
     public String format( String text )
     {
-        Matcher matcher = formatPattern.matcher( text );
+        if ( Template.compile( text ).isLiteral() )
+        {
+            return text;
+        }
+        final String zText = text;
+        return mManager.getCachedResponse( new CachedResponseKey( "format", text ), new Manager.Response<String>()
+        {
+            @Override
+            public String compute( Set<Object> pDerivedFromKeys )
+            {
+                return format( zText, pDerivedFromKeys );
+            }
+        } );
+    }
+
+    /**
+     * @param pReferencedKeys the (normalized) keys the text references, directly or through the values of those keys, are added.
+     */
+    private String format( String pText, Set<Object> pReferencedKeys )
+    {
+        Template zTemplate = Template.compile( pText );
+        if ( zTemplate.isLiteral() )
+        {
+            return pText;
+        }
         StringBuilder buffer = new StringBuilder( 128 );
-        while ( matcher.find() )
+        buffer.append( zTemplate.mLiterals[0] );
+        for ( int i = 0; i < zTemplate.mNames.length; i++ )
         {
-            buffer.append( matcher.group( 1 ) );
-            String name = matcher.group( 2 );
-            Object value = getObject( name );
+            String name = zTemplate.mNames[i];
+            Object zKey = mManager.normalizeKey( name );
+            pReferencedKeys.add( zKey );
+            Object value = mManager.get( zKey );
             if ( value instanceof String )
             {
-                buffer.append( format( (String) value ) );
+                buffer.append( format( (String) value, pReferencedKeys ) );
             }
             else if ( value != null )
             {
@@ -629,15 +821,49 @@ public class ProjectParameters extends FileUtil
             {
                 buffer.append( name );
             }
-            buffer.append( matcher.group( 3 ) );
+            buffer.append( zTemplate.mLiterals[i + 1] );
         }
         if ( buffer.length() == 0 )
         {
-            return text;
+            return pText;
         }
         return buffer.toString();
     }
 
+    /**
+     * Add the (normalized) keys the Strings of the value (a String, or the entries of a List or Map) reference, directly or through the
+     * values of those keys.
+     */
+    private void addReferencedKeys( Object pValue, Set<Object> pReferencedKeys )
+    {
+        if ( pValue instanceof String )
+        {
+            for ( String zName : Template.compile( (String) pValue ).mNames )
+            {
+                Object zKey = mManager.normalizeKey( zName );
+                if ( pReferencedKeys.add( zKey ) )
+                {
+                    addReferencedKeys( mManager.get( zKey ), pReferencedKeys );
+                }
+            }
+        }
+        else if ( pValue instanceof List )
+        {
+            for ( Object zEntry : (List<?>) pValue )
+            {
+                addReferencedKeys( zEntry, pReferencedKeys );
+            }
+        }
+        else if ( pValue instanceof Map )
+        {
+            for ( Map.Entry<?, ?> zEntry : ((Map<?, ?>) pValue).entrySet() )
+            {
+                addReferencedKeys( zEntry.getKey(), pReferencedKeys );
+                addReferencedKeys( zEntry.getValue(), pReferencedKeys );
+            }
+        }
+    }
+
     public Object[] keys()
     {
         return mManager.keys();
@@ -681,6 +907,84 @@ public class ProjectParameters extends FileUtil
 
     static private final java.util.regex.Pattern formatPattern = java.util.regex.Pattern.compile( "([^\\$]*)\\$([^\\$]+)\\$([^\\$]*)" );
 
+    /**
+     * A {@link #format(String) format} text compiled into its literals & the names between them, using the formatPattern (once per
+     * distinct text), so formatting is just lookups & appends.
+     */
+    private static final class Template
+    {
+        private static final ConcurrentMap<String, Template> sCompiled = new ConcurrentHashMap<String, Template>();
+
+        private final String[] mLiterals; // One more than the names
+        private final String[] mNames;
+
+        private Template( List<String> pLiterals, List<String> pNames )
+        {
+            mLiterals = pLiterals.toArray( new String[pLiterals.size()] );
+            mNames = pNames.toArray( new String[pNames.size()] );
+        }
+
+        /**
+         * @return true if the text has no names (it formats to itself).
+         */
+        boolean isLiteral()
+        {
+            return mNames.length == 0;
+        }
+
+        static Template compile( String pText )
+        {
+            Template zTemplate = sCompiled.get( pText );
+            if ( zTemplate == null )
+            {
+                List<String> zLiterals = new ArrayList<String>();
+                List<String> zNames = new ArrayList<String>();
+                String zLiteral = "";
+                Matcher matcher = formatPattern.matcher( pText );
+                while ( matcher.find() )
+                {
+                    zLiterals.add( zLiteral + matcher.group( 1 ) );
+                    zNames.add( matcher.group( 2 ) );
+                    zLiteral = matcher.group( 3 );
+                }
+                zLiterals.add( zLiteral );
+                sCompiled.putIfAbsent( pText, zTemplate = new Template( zLiterals, zNames ) );
+            }
+            return zTemplate;
+        }
+    }
+
+    /**
+     * The key of a cached response that is not (directly) a parameter, so it can't collide with one.
+     */
+    private static final class CachedResponseKey
+    {
+        private final String mKind, mText;
+
+        CachedResponseKey( String pKind, String pText )
+        {
+            mKind = pKind;
+            mText = pText;
+        }
+
+        @Override
+        public boolean equals( Object o )
+        {
+            return (this == o) || ((o instanceof CachedResponseKey) && equals( (CachedResponseKey) o ));
+        }
+
+        private boolean equals( CachedResponseKey them )
+        {
+            return mKind.equals( them.mKind ) && mText.equals( them.mText );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return mKind.hashCode() * 31 + mText.hashCode();
+        }
+    }
+
     @SuppressWarnings({"unchecked"})
     private <T> Map<T, T> getAsMap( Object pKey )
     {
@@ -744,29 +1048,23 @@ public class ProjectParameters extends FileUtil
         return map;
     }
 
-    protected <T> T getCachedWithConvertion( Object pKey, DataConverter<T> pConverter, DataDefaulter<T> pDefaulter )
+    protected <T> T getCachedWithConvertion( Object pKey, final DataConverter<T> pConverter, final DataDefaulter<T> pDefaulter )
     {
-        Object zValue = mManager.getCachedResponse( pKey = mManager.normalizeKey( pKey ) );
-        if ( zValue != null )
+        final Object zKey = mManager.normalizeKey( pKey );
+        return mManager.getCachedResponse( zKey, new Manager.Response<T>()
         {
-            //noinspection unchecked
-            return (T) zValue;
-        }
-        zValue = mManager.get( pKey );
-        T zConverted = null;
-        if ( zValue != null )
-        {
-            zConverted = pConverter.convert( zValue );
-        }
-        else if ( pDefaulter != null )
-        {
-            zConverted = pDefaulter.createDefault();
-        }
-        if ( zConverted != null )
-        {
-            mManager.addCachedResponse( pKey, zConverted );
-        }
-        return zConverted;
+            @Override
+            public T compute( Set<Object> pDerivedFromKeys )
+            {
+                Object zValue = mManager.get( zKey );
+                if ( zValue != null )
+                {
+                    addReferencedKeys( zValue, pDerivedFromKeys ); // e.g. "$target$/..." paths are also derived from "target"
+                    return pConverter.convert( zValue );
+                }
+                return (pDefaulter != null) ? pDefaulter.createDefault() : null;
+            }
+        } );
     }
 
     private static final DataConverter<Integer> INTEGER = new DataConverter<Integer>()
@@ -5,13 +5,13 @@ import java.lang.reflect.*;
 import java.net.*;
 import java.util.*;
 import java.util.Map.*;
+import java.util.concurrent.*;
 import java.util.jar.*;
 import java.util.zip.*;
 
 import org.litesoft.logger.*;
 import org.litesoft.logger.nonpublic.*;
 
-import SevenZip.*;
 import com.esotericsoftware.filesystem.*;
 import com.esotericsoftware.scar.support.*;
 import com.esotericsoftware.utils.*;
@@ -39,6 +39,7 @@ public class Scar extends Utils implements ProjectFactory
     protected final ProjectCache mProjectCache = new ProjectCache();
 
     private Project mLaunchProject;
+    private ProjectModelCache mProjectModelCache;
 
     /**
      * The command line arguments Scar was started with. Empty if Scar was started with no arguments or Scar was not started from
@@ -65,6 +66,18 @@ public class Scar extends Utils implements ProjectFactory
      */
     @Override
     public Project project( File pCanonicalCurrentDirectory, String pPath )
+    {
+        return project( pCanonicalCurrentDirectory, pPath, null );
+    }
+
+    /**
+     * Loads the project (once per path, concurrently with the other projects being loaded), and its dependencies (concurrently).
+     *
+     * @param pRequestedByPath the canonical path of the project that depends on this one, or null (e.g. the launch project).
+     *
+     * @throws IllegalStateException if the dependencies are cyclic.
+     */
+    protected Project project( File pCanonicalCurrentDirectory, String pPath, String pRequestedByPath )
     {
         Util.assertNotNull( "CurrentDirectory", pCanonicalCurrentDirectory );
         pPath = Util.assertNotEmpty( "Path", pPath );
@@ -82,28 +95,37 @@ public class Scar extends Utils implements ProjectFactory
             throw new WrappedIOException( e );
         }
 
-        String zPath = zFile.getPath();
-        Project zProject = mProjectCache.getByPath( zPath );
-        if ( zProject != null )
+        final String zGivenPath = pPath;
+        final File zCanonicalFile = zFile;
+        final String zPath = zFile.getPath();
+        return mProjectCache.get( pRequestedByPath, zPath, new FutureTask<Project>( new Callable<Project>()
         {
-            return zProject;
-        }
+            @Override
+            public Project call()
+            {
+                return mProjectCache.initialize( Scar.this, zPath, createProject( zGivenPath, zCanonicalFile ) );
+            }
+        } ) );
+    }
+
+    private Project createProject( String pPath, File pCanonicalFile )
+    {
         try
         {
-            if ( zFile.isFile() ) // Assume Project Build File
+            if ( pCanonicalFile.isFile() ) // Assume Project Build File
             {
-                return mProjectCache.initialize( this, zPath, createProject( zFile, zFile.getParentFile() ) );
+                return createProject( pCanonicalFile, pCanonicalFile.getParentFile() );
             }
-            if ( zFile.isDirectory() ) // Assume Project Dir
+            if ( pCanonicalFile.isDirectory() ) // Assume Project Dir
             {
-                return mProjectCache.initialize( this, zPath, createProject( findBuildFile( zFile ), zFile, zFile.getName() ) );
+                return createProject( findBuildFile( pCanonicalFile ), pCanonicalFile, pCanonicalFile.getName() );
             }
         }
         catch ( WrappedIOException e )
         {
             throw new WrappedIOException( pPath, e );
         }
-        throw new IllegalArgumentException( "Project is Neither a Project File, nor a Project Directory: " + zFile );
+        throw new IllegalArgumentException( "Project is Neither a Project File, nor a Project Directory: " + pCanonicalFile );
     }
 
     protected File findBuildFile( File pProjectDir )
@@ -174,6 +196,13 @@ public class Scar extends Utils implements ProjectFactory
 
     protected Project createYamlProject( File pYamlBuildFile, File pCanonicalProjectDir, String pProjectName )
     {
+        Map<Object, Object> zCached = getProjectModelCache().get( pYamlBuildFile, pCanonicalProjectDir );
+        if ( zCached != null )
+        {
+            return instantiate( pYamlBuildFile, createYamlProjectClass(), pCanonicalProjectDir, pProjectName, zCached );
+        }
+        long zLastModified = pYamlBuildFile.lastModified(); // Before reading, so a change while reading is not cached as this
+        long zLength = pYamlBuildFile.length();
         List<String> zLines = readLines( pYamlBuildFile );
         int at = findLine( zLines, "---" );
         String zYAML, zCode = null;
@@ -192,9 +221,22 @@ public class Scar extends Utils implements ProjectFactory
         {
             zClass = createYamlCodeProjectClass( zClass, zCode, at + 1 );
         }
+        else
+        {
+            getProjectModelCache().put( pYamlBuildFile, pCanonicalProjectDir, zLastModified, zLength, zData );
+        }
         return instantiate( pYamlBuildFile, zClass, pCanonicalProjectDir, pProjectName, zData );
     }
 
+    private synchronized ProjectModelCache getProjectModelCache()
+    {
+        if ( mProjectModelCache == null )
+        {
+            mProjectModelCache = new ProjectModelCache( ProjectModelCache.getDefaultFile() );
+        }
+        return mProjectModelCache;
+    }
+
     protected Project createJavaProject( File pJavaBuildFile, File pCanonicalProjectDir, String pProjectName )
     {
         String zFile = mergeLines( readLines( pJavaBuildFile ), 0 );
@@ -365,6 +407,20 @@ public class Scar extends Utils implements ProjectFactory
         LoggerFactory.init( createLoggerLevel() );
     }
 
+    /**
+     * Sets the budgets of the shared {@link ResourceScheduler} from the "memory" (e.g. "memory=6g") and "cpus" arguments.
+     */
+    protected void initResourceScheduler()
+    {
+        ResourceScheduler zScheduler = ResourceScheduler.getShared();
+        String zMemory = Utils.noEmpty( mArgs.get( "memory" ) );
+        String zCpus = Utils.noEmpty( mArgs.get( "cpus" ) );
+        long zMemoryMB = (zMemory != null) ? ResourceScheduler.parseMemoryMB( zMemory ) : zScheduler.getMemoryBudgetMB();
+        int zCpuBudget = (zCpus != null) ? ResourceScheduler.parseCpus( zCpus ) : zScheduler.getCpuBudget();
+        zScheduler.setBudgets( zMemoryMB, zCpuBudget );
+        LOGGER.debug.log( "Resource budgets: ", zMemoryMB, "MB & ", zCpuBudget, " CPUs" );
+    }
+
     protected LoggerLevel createLoggerLevel()
     {
         int zLevel = LoggerLevel.ERROR;
@@ -503,21 +559,95 @@ public class Scar extends Utils implements ProjectFactory
 
         progress( "Removing signature from JAR: " + jarFile );
 
-        File tempFile;
+        File tempFile = new File( jarFile + ".unsigning" );
         try
         {
-            tempFile = File.createTempFile( "scar", "removejarsig" );
+            if ( !unsignRaw( jarFile, tempFile ) )
+            {
+                unsignStreamed( jarFile, tempFile );
+            }
+            copyFile( tempFile.getAbsolutePath(), jarFile );
         }
-        catch ( IOException e )
+        finally
         {
-            throw new WrappedIOException( e );
+            tempFile.delete();
+        }
+        return jarFile;
+    }
+
+    private static boolean isSignatureFile( String name )
+    {
+        name = name.toUpperCase();
+        if ( !name.startsWith( "META-INF/" ) || (name.indexOf( '/', 9 ) != -1) )
+        {
+            return false;
+        }
+        return name.endsWith( ".SF" ) || name.endsWith( ".DSA" ) || name.endsWith( ".RSA" ) || name.endsWith( ".EC" );
+    }
+
+    /**
+     * Copies the (still compressed) entries as is, replacing the manifest (with its per entry digests removed) and dropping the
+     * signature files.
+     *
+     * @return false if the JAR is a Zip64 archive, in which case nothing was written.
+     */
+    boolean unsignRaw( String jarFile, File unsignedFile )
+    {
+        byte[] manifestBytes = null;
+        JarFile jar = null;
+        try
+        {
+            jar = new JarFile( jarFile, false );
+            Manifest manifest = jar.getManifest();
+            if ( manifest != null )
+            {
+                manifest.getEntries().clear();
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                manifest.write( out );
+                manifestBytes = out.toByteArray();
+            }
+        }
+        catch ( IOException ex )
+        {
+            throw new WrappedIOException( "Error unsigning JAR file: " + jarFile, ex );
+        }
+        finally
+        {
+            if ( jar != null )
+            {
+                try
+                {
+                    jar.close();
+                }
+                catch ( IOException ignore )
+                {
+                    // Whatever!
+                }
+            }
         }
+        RawZipCopier copier = new RawZipCopier( new File( jarFile ), new RawZipCopier.EntryFilter()
+        {
+            @Override
+            public boolean keep( String pEntryName )
+            {
+                return !isSignatureFile( pEntryName ) && !JarFile.MANIFEST_NAME.equalsIgnoreCase( pEntryName );
+            }
+        } );
+        if ( manifestBytes != null )
+        {
+            copier.firstEntry( JarFile.MANIFEST_NAME, manifestBytes );
+        }
+        return copier.copyTo( unsignedFile );
+    }
+
+    void unsignStreamed( String jarFile, File unsignedFile )
+    {
         JarOutputStream jarOutput = null;
         JarInputStream jarInput = null;
         try
         {
-            jarOutput = new JarOutputStream( new FileOutputStream( tempFile ) );
-            jarInput = new JarInputStream( new FileInputStream( jarFile ) );
+            jarOutput = new JarOutputStream( createBufferedFileOutputStream( unsignedFile ) );
+            jarInput = new JarInputStream( new FileInputStream( jarFile ), false ); // Its manifest is changed, so can't verify against it
             Manifest manifest = jarInput.getManifest();
             if ( manifest != null )
             {
@@ -526,7 +656,6 @@ public class Scar extends Utils implements ProjectFactory
                 jarOutput.putNextEntry( new JarEntry( "META-INF/MANIFEST.MF" ) );
                 manifest.write( jarOutput );
             }
-            byte[] buffer = new byte[4096];
             while ( true )
             {
                 JarEntry entry = jarInput.getNextJarEntry();
@@ -536,24 +665,15 @@ public class Scar extends Utils implements ProjectFactory
                 }
                 String name = entry.getName();
                 // Skip signature files.
-                if ( name.startsWith( "META-INF/" ) && (name.endsWith( ".SF" ) || name.endsWith( ".DSA" ) || name.endsWith( ".RSA" )) )
+                if ( isSignatureFile( name ) )
                 {
                     continue;
                 }
                 jarOutput.putNextEntry( new JarEntry( name ) );
-                while ( true )
-                {
-                    int length = jarInput.read( buffer );
-                    if ( length == -1 )
-                    {
-                        break;
-                    }
-                    jarOutput.write( buffer, 0, length );
-                }
+                append( jarInput, jarOutput );
             }
             jarInput.close();
             jarOutput.close();
-            copyFile( tempFile.getAbsolutePath(), jarFile );
         }
         catch ( IOException ex )
         {
@@ -563,9 +683,7 @@ public class Scar extends Utils implements ProjectFactory
         {
             dispose( jarInput );
             dispose( jarOutput );
-            tempFile.delete();
         }
-        return jarFile;
     }
 
     /**
@@ -585,7 +703,14 @@ public class Scar extends Utils implements ProjectFactory
         }
         progress( "Signing JAR (" + keystoreFile + ", " + alias + ":" + password + "): " + jarFile );
 
-        shell( "jarsigner", "-keystore", keystoreFile, "-storepass", password, "-keypass", password, jarFile, alias );
+        if ( InProcessJarSigner.isAvailable() )
+        {
+            InProcessJarSigner.sign( new File( jarFile ), keystoreFile, alias, password );
+        }
+        else
+        {
+            shell( "jarsigner", "-keystore", keystoreFile, "-storepass", password, "-keypass", password, jarFile, alias );
+        }
         return jarFile;
     }
 
@@ -688,11 +813,22 @@ public class Scar extends Utils implements ProjectFactory
         }
         try
         {
-            copyStreamAndCloseEm( input, new GZIPOutputStream( new FileOutputStream( gzipFile ) ) );
+            OutputStream output = new FileOutputStream( gzipFile );
+            try
+            {
+                ParallelGZIP.compress( input, output, Deflater.DEFAULT_COMPRESSION );
+                Closeable zCloseable = output;
+                output = null;
+                close( zCloseable );
+            }
+            finally
+            {
+                dispose( output );
+            }
         }
         catch ( IOException e )
         {
-            throw new WrappedIOException( e );
+            throw new WrappedIOException( "Error GZIP encoding: " + file, e );
         }
         finally
         {
@@ -731,22 +867,25 @@ public class Scar extends Utils implements ProjectFactory
         Util.assertNotNull( "file", file );
         progress( "GZIP decoding: " + gzipFile + " -> " + file );
 
-        InputStream input;
+        InputStream input = createFileInputStream( new File( gzipFile ) );
         try
         {
-            input = new GZIPInputStream( new FileInputStream( gzipFile ) );
+            OutputStream output = createFileOutputStream( new File( file ) );
+            try
+            {
+                ParallelGZIP.decompress( input, output );
+                Closeable zCloseable = output;
+                output = null;
+                close( zCloseable );
+            }
+            finally
+            {
+                dispose( output );
+            }
         }
         catch ( IOException e )
         {
-            throw new WrappedIOException( e );
-        }
-        try
-        {
-            copyStreamAndCloseEm( input, new FileOutputStream( file ) );
-        }
-        catch ( FileNotFoundException e )
-        {
-            throw new WrappedIOException( e );
+            throw new WrappedIOException( "Error GZIP decoding: " + gzipFile, e );
         }
         finally
         {
@@ -789,19 +928,85 @@ public class Scar extends Utils implements ProjectFactory
      * @return The path to the encoded file.
      */
     public String lzma( String file, String lzmaFile )
+    {
+        return lzma( file, lzmaFile, LZMA.DEFAULT_DICTIONARY_SIZE );
+    }
+
+    /**
+     * Encodes the specified file with LZMA (standard ".lzma" format), using the specified dictionary size (a power of 2, reduced if
+     * larger than needed for the file).
+     *
+     * @return The path to the encoded file.
+     */
+    public String lzma( String file, String lzmaFile, int dictionarySize )
     {
         Util.assertNotNull( "file", file );
         Util.assertNotNull( "lzmaFile", lzmaFile );
         progress( "LZMA encoding: " + file + " -> " + lzmaFile );
 
+        File inFile = new File( file );
+        InputStream input = new BufferedInputStream( createFileInputStream( inFile ), IOBuffers.SIZE );
+        try
+        {
+            OutputStream output = createBufferedFileOutputStream( lzmaFile );
+            try
+            {
+                LZMA.encode( input, output, inFile.length(), dictionarySize );
+                Closeable zCloseable = output;
+                output = null;
+                close( zCloseable );
+            }
+            finally
+            {
+                dispose( output );
+            }
+        }
+        catch ( IOException ex )
+        {
+            throw new WrappedIOException( "Error lzma compressing file: " + file, ex );
+        }
+        finally
+        {
+            dispose( input );
+        }
+        return lzmaFile;
+    }
+
+    /**
+     * Encodes the specified file with LZMA in independent chunks (concurrently). The result can only be decoded by {@link #unlzma}.
+     *
+     * @return The path to the encoded file.
+     */
+    public String lzmaChunked( String file, String lzmaFile, int dictionarySize )
+    {
+        Util.assertNotNull( "file", file );
+        Util.assertNotNull( "lzmaFile", lzmaFile );
+        progress( "LZMA encoding (chunked): " + file + " -> " + lzmaFile );
+
+        InputStream input = createFileInputStream( new File( file ) );
         try
         {
-            LzmaAlone.main( new String[]{"e", file, lzmaFile} );
+            OutputStream output = createBufferedFileOutputStream( lzmaFile );
+            try
+            {
+                LZMA.encodeChunked( input, output, dictionarySize, LZMA.DEFAULT_CHUNK_SIZE );
+                Closeable zCloseable = output;
+                output = null;
+                close( zCloseable );
+            }
+            finally
+            {
+                dispose( output );
+            }
         }
-        catch ( Exception ex )
+        catch ( IOException ex )
         {
             throw new WrappedIOException( "Error lzma compressing file: " + file, ex );
         }
+        finally
+        {
+            dispose( input );
+        }
         return lzmaFile;
     }
 
@@ -835,17 +1040,57 @@ public class Scar extends Utils implements ProjectFactory
         Util.assertNotNull( "file", file );
         progress( "LZMA decoding: " + lzmaFile + " -> " + file );
 
+        File inFile = new File( lzmaFile );
+        boolean chunked = LZMA.isChunked( inFile );
+        InputStream input = new BufferedInputStream( createFileInputStream( inFile ), IOBuffers.SIZE );
         try
         {
-            LzmaAlone.main( new String[]{"d", lzmaFile, file} );
+            OutputStream output = createBufferedFileOutputStream( file );
+            try
+            {
+                if ( chunked )
+                {
+                    LZMA.decodeChunked( input, output );
+                }
+                else
+                {
+                    LZMA.decode( input, output );
+                }
+                Closeable zCloseable = output;
+                output = null;
+                close( zCloseable );
+            }
+            finally
+            {
+                dispose( output );
+            }
         }
-        catch ( Exception ex )
+        catch ( IOException ex )
         {
             throw new WrappedIOException( "Error lzma decompressing file: " + file, ex );
         }
+        finally
+        {
+            dispose( input );
+        }
         return file;
     }
 
+    /**
+     * Unsigns, normalizes (pack200 round trip) & signs each of the JARs, concurrently.
+     */
+    public void unsignAndSign( List<String> jarFiles, final String keystoreFile, final String alias, final String password )
+    {
+        Parallel.forEach( jarFiles, new Parallel.Action<String>()
+        {
+            @Override
+            public void process( String jarFile )
+            {
+                sign( unpack200( pack200( unsign( jarFile ) ) ), keystoreFile, alias, password );
+            }
+        } );
+    }
+
     /**
      * Copies all the JAR and JNLP files from the "dist" directory to a "jws" directory under the "target" directory. It then uses
      * the specified keystore to sign each JAR. If the "pack" parameter is true, it also compresses each JAR using pack200 and
@@ -867,10 +1112,7 @@ public class Scar extends Utils implements ProjectFactory
         String jwsDir = mkdir( project.path( "$target$/jws/" ) );
         String distDir = project.path( "$target$/dist/" );
         new Paths( distDir, "*.jar", "*.jnlp" ).copyTo( jwsDir );
-        for ( String file : new Paths( jwsDir, "*.jar" ).getFullPaths() )
-        {
-            sign( unpack200( pack200( unsign( file ) ) ), keystoreFile, alias, password );
-        }
+        unsignAndSign( new Paths( jwsDir, "*.jar" ).getFullPaths(), keystoreFile, alias, password );
         if ( pack )
         {
             String unpackedDir = mkdir( jwsDir + "unpacked/" );
@@ -1111,23 +1353,28 @@ public class Scar extends Utils implements ProjectFactory
         String appletDir = mkdir( project.path( "$target$/applet-lwjgl/" ) );
         String distDir = project.path( "$target$/dist/" );
         new Paths( distDir, "**/*.jar", "*.html", "*.htm" ).flatten().copyTo( appletDir );
-        for ( String jarFile : new Paths( appletDir, "*.jar" ).getFullPaths() )
+        List<String> jarFiles = new Paths( appletDir, "*.jar" ).getFullPaths();
+        unsignAndSign( jarFiles, keystoreFile, alias, password );
+        Parallel.forEach( jarFiles, new Parallel.Action<String>()
         {
-            sign( unpack200( pack200( unsign( jarFile ) ) ), keystoreFile, alias, password );
-            String fileName = fileName( jarFile );
-            if ( fileName.equals( "lwjgl_util_applet.jar" ) || fileName.equals( "lzma.jar" ) )
-            {
-                continue;
-            }
-            if ( fileName.contains( "native" ) )
-            {
-                lzma( jarFile );
-            }
-            else
+            @Override
+            public void process( String jarFile )
             {
-                lzma( pack200( jarFile ) );
+                String fileName = fileName( jarFile );
+                if ( fileName.equals( "lwjgl_util_applet.jar" ) || fileName.equals( "lzma.jar" ) )
+                {
+                    return;
+                }
+                if ( fileName.contains( "native" ) )
+                {
+                    lzma( jarFile );
+                }
+                else
+                {
+                    lzma( pack200( jarFile ) );
+                }
             }
-        }
+        } );
 
         if ( !new Paths( appletDir, "*.html", "*.htm" ).isEmpty() )
         {
@@ -1387,32 +1634,124 @@ public class Scar extends Utils implements ProjectFactory
         public static final FileFilter INSTANCE = new BuildFileFilter();
     }
 
+    /**
+     * The projects (by canonical path & by name), each loaded once (by the first thread to ask for it, the others wait for it).
+     * <p/>
+     * Cycles are detected with a "waits for" graph of the paths: an edge is added (for the duration) each time a project's load needs
+     * another's (running it or waiting for it), and an edge that would close a cycle is refused.
+     */
     private static class ProjectCache
     {
-        private Map<String, Project> mProjectByName = new HashMap<String, Project>();
-        private Map<String, Project> mProjectByPath = new HashMap<String, Project>();
+        private final ConcurrentMap<String, FutureTask<Project>> mLoadByPath = new ConcurrentHashMap<String, FutureTask<Project>>();
+        private final ConcurrentMap<String, String> mPathByName = new ConcurrentHashMap<String, String>(); // The first path with the name
+        private final ConcurrentMap<String, Project> mProjectByName = new ConcurrentHashMap<String, Project>();
+        private final Map<String, List<String>> mWaitsFor = new HashMap<String, List<String>>(); // Guarded by this
+
+        /**
+         * @param pLoad used if the path has not been loaded (or is not being loaded) yet.
+         */
+        public Project get( String pRequestedByPath, String pPath, FutureTask<Project> pLoad )
+        {
+            FutureTask<Project> zLoad = mLoadByPath.putIfAbsent( pPath, pLoad );
+            return await( pRequestedByPath, pPath, (zLoad != null) ? zLoad : pLoad );
+        }
 
-        public synchronized Project getByPath( String pPath )
+        private Project initialize( final Scar pScar, final String pPath, Project pProject )
         {
-            return mProjectByPath.get( pPath );
+            String zName = pProject.getName();
+            String zFirstPath = mPathByName.putIfAbsent( zName, pPath );
+            if ( zFirstPath != null ) // Same project, via a different path (e.g. its directory & its build file)
+            {
+                return await( pPath, zFirstPath, mLoadByPath.get( zFirstPath ) );
+            }
+            mProjectByName.put( zName, pProject );
+            pProject.initialize( new ProjectFactory()
+            {
+                @Override
+                public Project project( File pCanonicalCurrentDirectory, String pDependencyPath )
+                {
+                    return pScar.project( pCanonicalCurrentDirectory, pDependencyPath, pPath );
+                }
+            } );
+            return pProject;
         }
 
-        private Project initialize( ProjectFactory pFactory, String pPath, Project pProject )
+        private Project await( String pWaiterPath, String pPath, FutureTask<Project> pLoad )
         {
-            synchronized ( this )
+            if ( pWaiterPath != null )
             {
-                String zName = pProject.getName();
-                Project zProject = mProjectByName.get( zName );
-                if ( zProject != null )
+                addWait( pWaiterPath, pPath );
+            }
+            try
+            {
+                pLoad.run(); // No-op if already started (or done) by another thread
+                return Parallel.await( pLoad );
+            }
+            finally
+            {
+                if ( pWaiterPath != null )
                 {
-                    mProjectByPath.put( pPath, zProject );
-                    return zProject;
+                    removeWait( pWaiterPath, pPath );
                 }
-                mProjectByPath.put( pPath, pProject );
-                mProjectByName.put( zName, pProject );
             }
-            pProject.initialize( pFactory );
-            return pProject;
+        }
+
+        private synchronized void addWait( String pWaiterPath, String pPath )
+        {
+            List<String> zCycle = findWaits( pPath, pWaiterPath, new HashSet<String>() );
+            if ( zCycle != null )
+            {
+                StringBuilder sb = new StringBuilder( "Cyclic project dependencies:\n   " ).append( pWaiterPath );
+                for ( String zPath : zCycle )
+                {
+                    sb.append( "\n-> " ).append( zPath );
+                }
+                throw new IllegalStateException( sb.toString() );
+            }
+            List<String> zWaitsFor = mWaitsFor.get( pWaiterPath );
+            if ( zWaitsFor == null )
+            {
+                mWaitsFor.put( pWaiterPath, zWaitsFor = new ArrayList<String>() );
+            }
+            zWaitsFor.add( pPath );
+        }
+
+        private synchronized void removeWait( String pWaiterPath, String pPath )
+        {
+            List<String> zWaitsFor = mWaitsFor.get( pWaiterPath );
+            zWaitsFor.remove( pPath );
+            if ( zWaitsFor.isEmpty() )
+            {
+                mWaitsFor.remove( pWaiterPath );
+            }
+        }
+
+        /**
+         * @return the paths from pFrom to pTo (inclusive) in the "waits for" graph, or null if pTo can't be reached.
+         */
+        private List<String> findWaits( String pFrom, String pTo, Set<String> pVisited )
+        {
+            if ( pFrom.equals( pTo ) )
+            {
+                return new ArrayList<String>( Collections.singletonList( pFrom ) );
+            }
+            if ( pVisited.add( pFrom ) )
+            {
+                List<String> zWaitsFor = mWaitsFor.get( pFrom );
+                if ( zWaitsFor != null )
+                {
+                    for ( String zPath : zWaitsFor )
+                    {
+                        List<String> zWaits = findWaits( zPath, pTo, pVisited );
+                        if ( zWaits != null )
+                        {
+                            zWaits.add( 0, pFrom );
+                            return zWaits;
+                        }
+                    }
+                }
+            }
+            return null;
         }
 
         public Set<Project> getAllProjects()
@@ -1478,22 +1817,30 @@ public class Scar extends Utils implements ProjectFactory
     protected void createLaunchProject()
     {
         mLaunchProject = project( CANONICAL_USER_DIR, mArgs.get( "file", "." ) );
+        getProjectModelCache().save(); // All the projects are loaded
     }
 
     protected int run()
     {
         System.out.println( getClass().getSimpleName() + " vs " + VERSION );
-        if ( mArgs.count() == 0 )
+        try
         {
-            mLaunchProject.build();
+            if ( mArgs.count() == 0 )
+            {
+                mLaunchProject.build();
+                return 0;
+            }
+            List<Runnable> zToExecute = getArgsBasedRunnables();
+            for ( Runnable zRunnable : zToExecute )
+            {
+                zRunnable.run();
+            }
             return 0;
         }
-        List<Runnable> zToExecute = getArgsBasedRunnables();
-        for ( Runnable zRunnable : zToExecute )
+        finally
         {
-            zRunnable.run();
+            BuildHistory.getShared().save(); // Even if failed, the steps that were done were timed
         }
-        return 0;
     }
 
     private ArrayList<Runnable> getArgsBasedRunnables()
@@ -1530,6 +1877,7 @@ public class Scar extends Utils implements ProjectFactory
         Arguments arguments = new Arguments( args );
         Scar scar = new Scar( arguments );
         scar.initLoggerFactory();
+        scar.initResourceScheduler();
         scar.createLaunchProject();
         System.exit( scar.run() );
     }
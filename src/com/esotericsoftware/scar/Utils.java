@@ -284,28 +284,23 @@ public class Utils extends FileUtil
             LOGGER.trace.log( "Executing command: ", buffer );
         }
 
+        String zPrefix = new File( originalCommand ).getName();
+        int zDotAt = zPrefix.lastIndexOf( '.' );
+        shellPrefixed( (zDotAt > 0) ? zPrefix.substring( 0, zDotAt ) : zPrefix, command );
+    }
+
+    /**
+     * Executes the specified (already resolved) command, with each line of its output prefixed with "[" + pPrefix + "] " (so the output of
+     * concurrently running commands can be told apart).  If the command fails, the exception includes its last lines of output.
+     */
+    static public void shellPrefixed( String pPrefix, String... command )
+    {
+        assertNotEmpty( "command", command );
+        ProcessRunner zRunner = new ProcessRunner( command ).prefix( pPrefix );
+        int zExitCode;
         try
         {
-            Process process = new ProcessBuilder( command ).start();
-            Thread zOut = new CopyOutputThread( process.getInputStream(), System.out );
-            Thread zErr = new CopyOutputThread( process.getErrorStream(), System.err );
-
-            zOut.join();
-            zErr.join();
-            // try {
-            // process.waitFor();
-            // } catch (InterruptedException ignored) {
-            // }
-            if ( process.exitValue() != 0 )
-            {
-                StringBuilder buffer = new StringBuilder( 256 );
-                for ( String text : command )
-                {
-                    buffer.append( text );
-                    buffer.append( ' ' );
-                }
-                throw new RuntimeException( "Error (" + process.exitValue() + ") executing command: " + buffer );
-            }
+            zExitCode = zRunner.start().waitFor();
         }
         catch ( IOException e )
         {
@@ -315,6 +310,25 @@ public class Utils extends FileUtil
         {
             throw new RuntimeException( e );
         }
+        if ( zExitCode != 0 )
+        {
+            StringBuilder buffer = new StringBuilder( 256 );
+            for ( String text : command )
+            {
+                buffer.append( text );
+                buffer.append( ' ' );
+            }
+            List<String> zLastLines = zRunner.getCapturedLines();
+            if ( !zLastLines.isEmpty() )
+            {
+                buffer.append( "\n  Last output:" );
+                for ( String zLine : zLastLines.subList( Math.max( 0, zLastLines.size() - 10 ), zLastLines.size() ) )
+                {
+                    buffer.append( "\n    " ).append( zLine );
+                }
+            }
+            throw new RuntimeException( "Error (" + zExitCode + ") executing command: " + buffer );
+        }
     }
 
     /**
@@ -378,8 +392,34 @@ public class Utils extends FileUtil
         return keystoreFile;
     }
 
-    public static Class compileDynamicCodeToClass( int pOverheadStartLines, final String pCode, final URL... pClasspathURLs )
+    private static final CompiledCodeCache COMPILED_CODE_CACHE = new CompiledCodeCache( CompiledCodeCache.getDefaultDir() );
+
+    /**
+     * Compile the code (of a class named "Generated") and load it, with the classpath, in its own class loader.  The compiled classes are
+     * cached (see {@link CompiledCodeCache}), so the same code (& classpath) is only compiled once.
+     *
+     * @param pOverheadStartLines the number of lines before the user's code (for the error line numbers).
+     */
+    public static Class compileDynamicCodeToClass( int pOverheadStartLines, String pCode, URL... pClasspathURLs )
+            throws ClassNotFoundException
+    {
+        return compileDynamicCodeToClass( COMPILED_CODE_CACHE, pOverheadStartLines, pCode, pClasspathURLs );
+    }
+
+    static Class<?> compileDynamicCodeToClass( CompiledCodeCache pCache, int pOverheadStartLines, String pCode, URL... pClasspathURLs )
             throws ClassNotFoundException
+    {
+        String zKey = pCache.key( pCode, pClasspathURLs );
+        Map<String, byte[]> zClasses = pCache.get( zKey );
+        if ( zClasses == null )
+        {
+            zClasses = compileDynamicCode( pOverheadStartLines, pCode );
+            pCache.put( zKey, zClasses );
+        }
+        return loadDynamicClass( "Generated", zClasses, pClasspathURLs );
+    }
+
+    private static Map<String, byte[]> compileDynamicCode( int pOverheadStartLines, final String pCode )
     {
         JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
         if ( compiler == null )
@@ -387,15 +427,9 @@ public class Utils extends FileUtil
             throw new RuntimeException( "No compiler available. Ensure you are running from a 1.6+ JDK, and not a JRE." );
         }
 
-        final ByteArrayOutputStream output = new ByteArrayOutputStream( 32 * 1024 );
+        final Map<String, ByteArrayOutputStream> outputs = new LinkedHashMap<String, ByteArrayOutputStream>(); // By class name
         final SimpleJavaFileObject javaObject = new SimpleJavaFileObject( URI.create( "Generated.java" ), JavaFileObject.Kind.SOURCE )
         {
-            @Override
-            public OutputStream openOutputStream()
-            {
-                return output;
-            }
-
             @Override
             public CharSequence getCharContent( boolean ignoreEncodingErrors )
             {
@@ -407,9 +441,18 @@ public class Utils extends FileUtil
         compiler.getTask( null, new ForwardingJavaFileManager( compiler.getStandardFileManager( null, null, null ) )
         {
             @Override
-            public JavaFileObject getJavaFileForOutput( Location location, String className, JavaFileObject.Kind kind, FileObject sibling )
+            public JavaFileObject getJavaFileForOutput( Location location, final String className, JavaFileObject.Kind kind, FileObject sibling )
             {
-                return javaObject;
+                return new SimpleJavaFileObject( URI.create( className.replace( '.', '/' ) + kind.extension ), kind )
+                {
+                    @Override
+                    public OutputStream openOutputStream()
+                    {
+                        ByteArrayOutputStream output = new ByteArrayOutputStream( 32 * 1024 );
+                        outputs.put( className, output );
+                        return output;
+                    }
+                };
             }
         }, diagnostics, null, null, Arrays.asList( javaObject ) ).call();
 
@@ -430,7 +473,17 @@ public class Utils extends FileUtil
             throw new RuntimeException( "Compilation errors:\n" + buffer );
         }
 
-        // Load class.
+        Map<String, byte[]> classes = new HashMap<String, byte[]>();
+        for ( Map.Entry<String, ByteArrayOutputStream> zEntry : outputs.entrySet() )
+        {
+            classes.put( zEntry.getKey(), zEntry.getValue().toByteArray() );
+        }
+        return classes;
+    }
+
+    private static Class<?> loadDynamicClass( String pClassName, final Map<String, byte[]> pClasses, URL... pClasspathURLs )
+            throws ClassNotFoundException
+    {
         return new URLClassLoader( pClasspathURLs, Scar.class.getClassLoader() )
         {
             @Override
@@ -438,7 +491,7 @@ public class Utils extends FileUtil
                     throws ClassNotFoundException
             {
                 // Look in this classloader before the parent.
-                Class c = findLoadedClass( name );
+                Class<?> c = findLoadedClass( name );
                 if ( c == null )
                 {
                     try
@@ -461,13 +514,13 @@ public class Utils extends FileUtil
             protected Class<?> findClass( String name )
                     throws ClassNotFoundException
             {
-                if ( name.equals( "Generated" ) )
+                byte[] bytes = pClasses.get( name );
+                if ( bytes != null )
                 {
-                    byte[] bytes = output.toByteArray();
                     return defineClass( name, bytes, 0, bytes.length );
                 }
                 return super.findClass( name );
             }
-        }.loadClass( "Generated" );
+        }.loadClass( pClassName );
     }
 }
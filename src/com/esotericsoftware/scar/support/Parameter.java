@@ -1,6 +1,7 @@
 package com.esotericsoftware.scar.support;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import com.esotericsoftware.utils.*;
 
@@ -9,7 +10,7 @@ public class Parameter
 {
     public enum Form
     {
-        STRING, STRING_LIST, PATHS
+        STRING, STRING_LIST, PATHS, MAP
     }
 
     public static Parameter def( String pName, Form pForm, String pDescription, String pDescriptionForDefaulting )
@@ -67,10 +68,18 @@ public class Parameter
 
     private static final Set<String> RESERVED_NAMES = new HashSet<String>();
 
+    /**
+     * The parameter data (and the responses derived from it) of a project.
+     * <p/>
+     * Reads take no lock: the data is an immutable snapshot (replaced, copy-on-write, under the lock on every change), and the cached
+     * responses are in a concurrent map, each computed once (concurrent askers wait for it).
+     */
     public static class Manager
     {
-        private final Map<Object, Object> mData = new HashMap<Object, Object>();
-        private final Map<Object, Object> mCachedResponses = new HashMap<Object, Object>();
+        private volatile Map<Object, Object> mData; // Never changed once published
+        private final ConcurrentMap<Object, FutureTask<Object>> mCachedResponses = new ConcurrentHashMap<Object, FutureTask<Object>>();
+        private final Map<Object, Set<Object>> mDependentResponses = new HashMap<Object, Set<Object>>(); // By the key they were derived from, guarded by this
+        private volatile long mVersion; // Bumped (under the lock) on every change
 
         public Manager( Manager them )
         {
@@ -79,6 +88,7 @@ public class Parameter
 
         public Manager( Map<Object, Object> pData )
         {
+            Map<Object, Object> zData = new HashMap<Object, Object>();
             if ( pData != null )
             {
                 Object zValue;
@@ -86,10 +96,11 @@ public class Parameter
                 {
                     if ( null != (zValue = normalizeValue( pData.get( key ) )) )
                     {
-                        mData.put( normalizeKey( key ), zValue );
+                        zData.put( normalizeKey( key ), zValue );
                     }
                 }
             }
+            mData = zData;
         }
 
         public Object normalizeKey( Object pKey )
@@ -107,62 +118,153 @@ public class Parameter
             return (pValue instanceof String) ? Util.noEmpty( pValue.toString() ) : pValue;
         }
 
-        public synchronized <T> T getCachedResponse( Object pKey )
+        /**
+         * Computes a response (e.g. a converted value) from the data.
+         */
+        public interface Response<T>
+        {
+            /**
+             * @param pDerivedFromKeys add the keys of the data the response is derived from (other than the response's own key, if it is
+             *                         a data key), so the response is dropped when any of them changes.
+             *
+             * @return null if none (nothing is cached).
+             */
+            T compute( Set<Object> pDerivedFromKeys );
+        }
+
+        /**
+         * @return the cached response, or the response computed (once, concurrent callers for the same key wait for it) and cached.  If the
+         *         data changes while the response is computed, it is returned but not cached.  Must not be re-entered for the same key.
+         */
+        public <T> T getCachedResponse( Object pKey, final Response<T> pResponse )
         {
+            FutureTask<Object> zTask = mCachedResponses.get( pKey );
+            if ( zTask == null )
+            {
+                long zVersion = mVersion;
+                final Set<Object> zDerivedFromKeys = new HashSet<Object>();
+                FutureTask<Object> zNewTask = new FutureTask<Object>( new Callable<Object>()
+                {
+                    @Override
+                    public Object call()
+                            throws Exception
+                    {
+                        return pResponse.compute( zDerivedFromKeys );
+                    }
+                } );
+                if ( null == (zTask = mCachedResponses.putIfAbsent( pKey, zNewTask )) )
+                {
+                    zTask = zNewTask;
+                    zNewTask.run();
+                    computed( pKey, zNewTask, zDerivedFromKeys, zVersion );
+                }
+            }
             //noinspection unchecked
-            return (T) mCachedResponses.get( pKey );
+            return (T) Parallel.await( zTask );
+        }
+
+        private synchronized void computed( Object pKey, FutureTask<Object> pTask, Set<Object> pDerivedFromKeys, long pVersion )
+        {
+            if ( (pVersion != mVersion) || (null == resultOrNull( pTask )) )
+            {
+                mCachedResponses.remove( pKey, pTask ); // Stale, failed or none
+                return;
+            }
+            for ( Object zDerivedFromKey : pDerivedFromKeys )
+            {
+                Set<Object> zDependents = mDependentResponses.get( zDerivedFromKey );
+                if ( zDependents == null )
+                {
+                    mDependentResponses.put( zDerivedFromKey, zDependents = new HashSet<Object>() );
+                }
+                zDependents.add( pKey );
+            }
         }
 
-        public synchronized void addCachedResponse( Object pKey, Object pValue )
+        private static Object resultOrNull( FutureTask<Object> pTask )
         {
-            mCachedResponses.put( pKey, pValue );
+            try
+            {
+                return Parallel.await( pTask );
+            }
+            catch ( RuntimeException e )
+            {
+                return null; // The caller gets the failure
+            }
+            catch ( Error e )
+            {
+                return null; // The caller gets the failure
+            }
         }
 
         public synchronized void put( Object pKey, Object pValue )
         {
+            Map<Object, Object> zData = new HashMap<Object, Object>( mData );
             if ( pValue != null )
             {
-                mData.put( pKey, pValue );
+                zData.put( pKey, pValue );
             }
-            else if ( null == mData.remove( pKey ) )
+            else if ( null == zData.remove( pKey ) )
             {
                 return; // Nothing Changed
             }
-            mCachedResponses.remove( pKey );
+            changed( pKey, zData );
         }
 
         /**
          * Removes an item from a list or map. If the mData under the specified key is a list, the entry equal to the specified value is
          * removed. If the mData under the specified key is a map, the entry with the key specified by value is removed.
+         * <p/>
+         * The list or map is replaced (by a copy), not changed, as readers may be using it.
          */
         public synchronized void remove( Object pKey, Object pValue )
         {
+            Map<Object, Object> zData = new HashMap<Object, Object>( mData );
             boolean zUpdate;
-            Object object = mData.get( pKey );
+            Object object = zData.get( pKey );
             if ( object instanceof Map )
             {
-                zUpdate = (null != ((Map) object).remove( pValue ));
+                Map<Object, Object> zMap = new LinkedHashMap<Object, Object>( (Map<?, ?>) object );
+                zUpdate = (null != zMap.remove( pValue ));
+                zData.put( pKey, zMap );
             }
             else if ( object instanceof List )
             {
-                zUpdate = ((List) object).remove( pValue );
+                List<Object> zList = new ArrayList<Object>( (List<?>) object );
+                zUpdate = zList.remove( pValue );
+                zData.put( pKey, zList );
             }
             else
             {
-                zUpdate = (null != mData.remove( pKey ));
+                zUpdate = (null != zData.remove( pKey ));
             }
             if ( zUpdate )
             {
-                mCachedResponses.remove( pKey );
+                changed( pKey, zData );
+            }
+        }
+
+        private void changed( Object pKey, Map<Object, Object> pData )
+        {
+            mData = pData;
+            mVersion++;
+            mCachedResponses.remove( pKey );
+            Set<Object> zDependents = mDependentResponses.remove( pKey );
+            if ( zDependents != null )
+            {
+                for ( Object zDependent : zDependents )
+                {
+                    mCachedResponses.remove( zDependent );
+                }
             }
         }
 
-        public synchronized Object get( Object pKey )
+        public Object get( Object pKey )
         {
             return mData.get( pKey );
         }
 
-        public synchronized Object[] keys()
+        public Object[] keys()
         {
             return mData.keySet().toArray();
         }
@@ -120,7 +120,7 @@ public class FileUtil extends Util
     {
         assertNotNull( "input", input );
         assertNotNull( "output", output );
-        byte[] buf = new byte[1024];
+        byte[] buf = IOBuffers.takeBytes();
         try
         {
             for ( int len; (len = input.read( buf )) > -1; )
@@ -135,6 +135,10 @@ public class FileUtil extends Util
         {
             throw new WrappedIOException( e );
         }
+        finally
+        {
+            IOBuffers.give( buf );
+        }
     }
 
     /**
@@ -207,9 +211,9 @@ public class FileUtil extends Util
     {
         StringBuilder stringBuffer = new StringBuilder( 4096 );
         FileReader reader = createFileReader( pFile );
+        char[] buffer = IOBuffers.takeChars();
         try
         {
-            char[] buffer = new char[2048];
             for ( int length; -1 != (length = reader.read( buffer )); )
             {
                 stringBuffer.append( buffer, 0, length );
@@ -221,6 +225,7 @@ public class FileUtil extends Util
         }
         finally
         {
+            IOBuffers.give( buffer );
             dispose( reader );
         }
         return stringBuffer.toString();
@@ -249,6 +254,59 @@ public class FileUtil extends Util
         }
     }
 
+    /**
+     * The content of a file written by {@link #writeAtomically}.
+     */
+    public interface ContentWriter
+    {
+        void write( DataOutputStream pOut )
+                throws IOException;
+    }
+
+    /**
+     * Write the content to a (uniquely named) temporary file in the file's directory, then rename it to the file, so a concurrent reader
+     * never sees a partial file (& concurrent writers never share a temporary file).
+     *
+     * @param pReplace false if an existing file (e.g. just written by a concurrent build) is as good as the new content.
+     */
+    public static void writeAtomically( File pFile, boolean pReplace, ContentWriter pContent )
+    {
+        File zDir = mkdir( pFile.getAbsoluteFile().getParentFile() );
+        File zTemp = null;
+        try
+        {
+            zTemp = File.createTempFile( "." + pFile.getName() + ".", ".tmp", zDir );
+            DataOutputStream zOut = new DataOutputStream( new BufferedOutputStream( createFileOutputStream( zTemp ) ) );
+            try
+            {
+                pContent.write( zOut );
+            }
+            finally
+            {
+                zOut.close();
+            }
+            if ( !zTemp.renameTo( pFile ) && pReplace )
+            {
+                delete( pFile ); // e.g. Windows does not rename over an existing file
+                if ( !zTemp.renameTo( pFile ) )
+                {
+                    throw new IOException( "Unable to rename " + zTemp + " to " + pFile );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new WrappedIOException( e );
+        }
+        finally
+        {
+            if ( zTemp != null )
+            {
+                zTemp.delete(); // Only still there if not renamed
+            }
+        }
+    }
+
     public static BufferedOutputStream createBufferedFileOutputStream( String filePath )
     {
         return createBufferedFileOutputStream( new File( filePath ) );
@@ -256,7 +314,7 @@ public class FileUtil extends Util
 
     public static BufferedOutputStream createBufferedFileOutputStream( File out )
     {
-        return new BufferedOutputStream( createFileOutputStream( out ) );
+        return new BufferedOutputStream( createFileOutputStream( out ), IOBuffers.SIZE );
     }
 
     public static FileOutputStream createFileOutputStream( File out )
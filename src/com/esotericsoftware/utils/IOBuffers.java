@@ -0,0 +1,158 @@
+package com.esotericsoftware.utils;
+
+import java.util.*;
+import java.util.zip.*;
+
+/**
+ * Thread confined pools of large I/O buffers and of (native resource holding) Deflaters & Inflaters.
+ * <p/>
+ * Usage is always take / try / finally give, e.g.:
+ * <pre>
+ *     byte[] buf = IOBuffers.takeBytes();
+ *     try
+ *     {
+ *         ...
+ *     }
+ *     finally
+ *     {
+ *         IOBuffers.give( buf );
+ *     }
+ * </pre>
+ * Each thread keeps (at most <code>MAX_POOLED</code> of each kind of) what it was given, so there is no locking; giving on a different
+ * thread than taking is harmless (it just ends up in the other thread's pool).
+ */
+public final class IOBuffers
+{
+    /**
+     * Size of the pooled buffers, large enough that copying a large artifact is not system call bound.
+     */
+    public static final int SIZE = 64 * 1024;
+
+    private static final int MAX_POOLED = 4;
+
+    private static final ThreadLocal<IOBuffers> sPerThread = new ThreadLocal<IOBuffers>()
+    {
+        @Override
+        protected IOBuffers initialValue()
+        {
+            return new IOBuffers();
+        }
+    };
+
+    private final ArrayDeque<byte[]> mBytes = new ArrayDeque<byte[]>();
+    private final ArrayDeque<char[]> mChars = new ArrayDeque<char[]>();
+    private final ArrayDeque<Deflater> mDeflaters = new ArrayDeque<Deflater>();
+    private final ArrayDeque<Deflater> mDeflatersNoWrap = new ArrayDeque<Deflater>();
+    private final ArrayDeque<Inflater> mInflaters = new ArrayDeque<Inflater>();
+    private final ArrayDeque<Inflater> mInflatersNoWrap = new ArrayDeque<Inflater>();
+
+    private IOBuffers()
+    {
+    }
+
+    /**
+     * @return a buffer of (at least) <code>SIZE</code> bytes, with undefined content.
+     */
+    public static byte[] takeBytes()
+    {
+        byte[] zBuffer = sPerThread.get().mBytes.pollFirst();
+        return (zBuffer != null) ? zBuffer : new byte[SIZE];
+    }
+
+    public static void give( byte[] pBuffer )
+    {
+        if ( (pBuffer != null) && (pBuffer.length >= SIZE) )
+        {
+            offer( sPerThread.get().mBytes, pBuffer );
+        }
+    }
+
+    /**
+     * @return a buffer of (at least) <code>SIZE</code> chars, with undefined content.
+     */
+    public static char[] takeChars()
+    {
+        char[] zBuffer = sPerThread.get().mChars.pollFirst();
+        return (zBuffer != null) ? zBuffer : new char[SIZE];
+    }
+
+    public static void give( char[] pBuffer )
+    {
+        if ( (pBuffer != null) && (pBuffer.length >= SIZE) )
+        {
+            offer( sPerThread.get().mChars, pBuffer );
+        }
+    }
+
+    /**
+     * @param pNoWrap true for raw deflate (no zlib header/trailer, as used by Zip & GZIP).
+     *
+     * @return a reset Deflater set to pLevel (and the default strategy).
+     */
+    public static Deflater takeDeflater( int pLevel, boolean pNoWrap )
+    {
+        IOBuffers zPool = sPerThread.get();
+        Deflater zDeflater = (pNoWrap ? zPool.mDeflatersNoWrap : zPool.mDeflaters).pollFirst();
+        if ( zDeflater == null )
+        {
+            return new Deflater( pLevel, pNoWrap );
+        }
+        zDeflater.setLevel( pLevel );
+        return zDeflater;
+    }
+
+    /**
+     * Return a Deflater (taken with the same pNoWrap), which will be reset (or ended if the pool is full).
+     */
+    public static void give( Deflater pDeflater, boolean pNoWrap )
+    {
+        if ( pDeflater != null )
+        {
+            pDeflater.reset();
+            pDeflater.setStrategy( Deflater.DEFAULT_STRATEGY );
+            IOBuffers zPool = sPerThread.get();
+            if ( !offer( pNoWrap ? zPool.mDeflatersNoWrap : zPool.mDeflaters, pDeflater ) )
+            {
+                pDeflater.end();
+            }
+        }
+    }
+
+    /**
+     * @param pNoWrap true for raw inflate (no zlib header/trailer, as used by Zip & GZIP).
+     *
+     * @return a reset Inflater.
+     */
+    public static Inflater takeInflater( boolean pNoWrap )
+    {
+        IOBuffers zPool = sPerThread.get();
+        Inflater zInflater = (pNoWrap ? zPool.mInflatersNoWrap : zPool.mInflaters).pollFirst();
+        return (zInflater != null) ? zInflater : new Inflater( pNoWrap );
+    }
+
+    /**
+     * Return an Inflater (taken with the same pNoWrap), which will be reset (or ended if the pool is full).
+     */
+    public static void give( Inflater pInflater, boolean pNoWrap )
+    {
+        if ( pInflater != null )
+        {
+            pInflater.reset();
+            IOBuffers zPool = sPerThread.get();
+            if ( !offer( pNoWrap ? zPool.mInflatersNoWrap : zPool.mInflaters, pInflater ) )
+            {
+                pInflater.end();
+            }
+        }
+    }
+
+    private static <T> boolean offer( ArrayDeque<T> pPool, T pItem )
+    {
+        if ( pPool.size() < MAX_POOLED )
+        {
+            pPool.addFirst( pItem );
+            return true;
+        }
+        return false;
+    }
+}
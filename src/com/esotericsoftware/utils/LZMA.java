@@ -0,0 +1,263 @@
+package com.esotericsoftware.utils;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import SevenZip.Compression.LZMA.*;
+
+/**
+ * Streaming LZMA encoding & decoding (using the LZMA SDK's Encoder & Decoder directly).
+ * <p/>
+ * The standard format (what LzmaAlone, 7-Zip & the LWJGL AppletLoader read & write) is: 5 bytes of coder properties, the uncompressed
+ * size (8 bytes, little endian, -1 if unknown in which case the data ends with an end marker), then the compressed data.
+ * <p/>
+ * The chunked format (only readable by this class) is: <code>CHUNKED_MAGIC</code>, then for each chunk its uncompressed & compressed
+ * lengths (4 bytes each, big endian) followed by the chunk as a standard format stream, ending with a zero uncompressed length.  The
+ * chunks are independent, so they are encoded (& decoded) concurrently on the {@link Parallel} threads, at the cost of some ratio.
+ */
+public final class LZMA
+{
+    public static final int DEFAULT_DICTIONARY_SIZE = 1 << 23; // 8MB, same as LzmaAlone
+    public static final int MIN_DICTIONARY_SIZE = 1 << 12;
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 22; // 4MB
+
+    public static final byte[] CHUNKED_MAGIC = {'S', 'c', 'a', 'r', 'L', 'Z', 'M', 'A'};
+
+    private static final int PROPERTIES_SIZE = 5;
+
+    private LZMA()
+    {
+    }
+
+    /**
+     * Encode in the standard format.
+     *
+     * @param pSize           the number of bytes pIn will provide, or -1 if unknown (an end marker is then written).
+     * @param pDictionarySize reduced to the smallest power of 2 that covers pSize (if known), as a bigger one just costs memory.
+     */
+    public static void encode( InputStream pIn, OutputStream pOut, long pSize, int pDictionarySize )
+            throws IOException
+    {
+        Encoder zEncoder = new Encoder();
+        zEncoder.SetAlgorithm( 2 ); // Same settings as LzmaAlone's defaults
+        zEncoder.SetNumFastBytes( 128 );
+        zEncoder.SetMatchFinder( Encoder.EMatchFinderTypeBT4 );
+        zEncoder.SetLcLpPb( 3, 0, 2 );
+        if ( !zEncoder.SetDictionarySize( effectiveDictionarySize( pSize, pDictionarySize ) ) )
+        {
+            throw new IllegalArgumentException( "Incorrect LZMA dictionary size: " + pDictionarySize );
+        }
+        zEncoder.SetEndMarkerMode( pSize == -1 );
+        zEncoder.WriteCoderProperties( pOut );
+        for ( int i = 0; i < 8; i++ )
+        {
+            pOut.write( (int) (pSize >>> (8 * i)) & 0xFF );
+        }
+        zEncoder.Code( pIn, pOut, -1, -1, null );
+    }
+
+    /**
+     * Decode a standard format stream.
+     */
+    public static void decode( InputStream pIn, OutputStream pOut )
+            throws IOException
+    {
+        byte[] zProperties = new byte[PROPERTIES_SIZE];
+        readFully( pIn, zProperties, "LZMA stream is too short" );
+        Decoder zDecoder = new Decoder();
+        if ( !zDecoder.SetDecoderProperties( zProperties ) )
+        {
+            throw new IOException( "Incorrect LZMA stream properties" );
+        }
+        long zSize = 0;
+        for ( int i = 0; i < 8; i++ )
+        {
+            int zByte = pIn.read();
+            if ( zByte < 0 )
+            {
+                throw new EOFException( "Can't read LZMA stream size" );
+            }
+            zSize |= ((long) zByte) << (8 * i);
+        }
+        if ( !zDecoder.Code( pIn, pOut, zSize ) )
+        {
+            throw new IOException( "Error in LZMA data stream" );
+        }
+    }
+
+    /**
+     * Encode in the chunked format, the chunks concurrently.
+     */
+    public static void encodeChunked( InputStream pIn, OutputStream pOut, final int pDictionarySize, int pChunkSize )
+            throws IOException
+    {
+        DataOutputStream zOut = new DataOutputStream( pOut );
+        zOut.write( CHUNKED_MAGIC );
+        int zMaxInFlight = Parallel.getThreads() + 1;
+        LinkedList<FutureTask<byte[]>> zInFlight = new LinkedList<FutureTask<byte[]>>();
+        LinkedList<Integer> zLengths = new LinkedList<Integer>();
+        try
+        {
+            for ( byte[] zChunk; (zChunk = readChunk( pIn, pChunkSize )).length != 0; )
+            {
+                final byte[] zUncompressed = zChunk;
+                zLengths.add( zUncompressed.length );
+                zInFlight.add( Parallel.start( new FutureTask<byte[]>( new Callable<byte[]>()
+                {
+                    @Override
+                    public byte[] call()
+                            throws IOException
+                    {
+                        ByteArrayOutputStream zCompressed = new ByteArrayOutputStream( zUncompressed.length / 2 );
+                        encode( new ByteArrayInputStream( zUncompressed ), zCompressed, zUncompressed.length, pDictionarySize );
+                        return zCompressed.toByteArray();
+                    }
+                } ) ) );
+                if ( zInFlight.size() >= zMaxInFlight )
+                {
+                    writeChunk( zOut, zLengths.removeFirst(), await( zInFlight.removeFirst() ) );
+                }
+            }
+            while ( !zInFlight.isEmpty() )
+            {
+                writeChunk( zOut, zLengths.removeFirst(), await( zInFlight.removeFirst() ) );
+            }
+        }
+        finally
+        {
+            for ( FutureTask<byte[]> zTask : zInFlight )
+            {
+                zTask.cancel( false );
+            }
+        }
+        zOut.writeInt( 0 );
+        zOut.flush();
+    }
+
+    /**
+     * Decode a chunked format stream, the chunks concurrently.
+     */
+    public static void decodeChunked( InputStream pIn, OutputStream pOut )
+            throws IOException
+    {
+        DataInputStream zIn = new DataInputStream( pIn );
+        byte[] zMagic = new byte[CHUNKED_MAGIC.length];
+        readFully( zIn, zMagic, "Not a chunked LZMA stream" );
+        if ( !Arrays.equals( CHUNKED_MAGIC, zMagic ) )
+        {
+            throw new IOException( "Not a chunked LZMA stream" );
+        }
+        int zMaxInFlight = Parallel.getThreads() + 1;
+        LinkedList<FutureTask<byte[]>> zInFlight = new LinkedList<FutureTask<byte[]>>();
+        try
+        {
+            for ( int zLength; (zLength = zIn.readInt()) != 0; )
+            {
+                final int zUncompressedLength = zLength;
+                final byte[] zCompressed = new byte[zIn.readInt()];
+                zIn.readFully( zCompressed );
+                zInFlight.add( Parallel.start( new FutureTask<byte[]>( new Callable<byte[]>()
+                {
+                    @Override
+                    public byte[] call()
+                            throws IOException
+                    {
+                        ByteArrayOutputStream zUncompressed = new ByteArrayOutputStream( zUncompressedLength );
+                        decode( new ByteArrayInputStream( zCompressed ), zUncompressed );
+                        if ( zUncompressed.size() != zUncompressedLength )
+                        {
+                            throw new IOException( "LZMA chunk decoded to " + zUncompressed.size() + " bytes, expected " + zUncompressedLength );
+                        }
+                        return zUncompressed.toByteArray();
+                    }
+                } ) ) );
+                if ( zInFlight.size() >= zMaxInFlight )
+                {
+                    pOut.write( await( zInFlight.removeFirst() ) );
+                }
+            }
+            while ( !zInFlight.isEmpty() )
+            {
+                pOut.write( await( zInFlight.removeFirst() ) );
+            }
+        }
+        finally
+        {
+            for ( FutureTask<byte[]> zTask : zInFlight )
+            {
+                zTask.cancel( false );
+            }
+        }
+    }
+
+    /**
+     * @return true if the file starts with <code>CHUNKED_MAGIC</code>.
+     */
+    public static boolean isChunked( File pFile )
+    {
+        byte[] zStart = new byte[CHUNKED_MAGIC.length];
+        InputStream zIn = FileUtil.createFileInputStream( pFile );
+        try
+        {
+            readFully( zIn, zStart, "" );
+            return Arrays.equals( CHUNKED_MAGIC, zStart );
+        }
+        catch ( IOException e )
+        {
+            return false;
+        }
+        finally
+        {
+            FileUtil.dispose( zIn );
+        }
+    }
+
+    static int effectiveDictionarySize( long pSize, int pDictionarySize )
+    {
+        int zSize = pDictionarySize;
+        while ( (pSize != -1) && (zSize > MIN_DICTIONARY_SIZE) && ((zSize >>> 1) >= pSize) )
+        {
+            zSize >>>= 1;
+        }
+        return zSize;
+    }
+
+    private static void writeChunk( DataOutputStream pOut, int pUncompressedLength, byte[] pCompressed )
+            throws IOException
+    {
+        pOut.writeInt( pUncompressedLength );
+        pOut.writeInt( pCompressed.length );
+        pOut.write( pCompressed );
+    }
+
+    private static byte[] await( FutureTask<byte[]> pTask )
+    {
+        pTask.run(); // No-op if already started (or done) by a pool thread
+        return Parallel.await( pTask );
+    }
+
+    private static byte[] readChunk( InputStream pIn, int pChunkSize )
+            throws IOException
+    {
+        byte[] zChunk = new byte[pChunkSize];
+        int zLength = 0;
+        for ( int zRead; (zLength < pChunkSize) && (-1 != (zRead = pIn.read( zChunk, zLength, pChunkSize - zLength ))); )
+        {
+            zLength += zRead;
+        }
+        return (zLength == pChunkSize) ? zChunk : Arrays.copyOf( zChunk, zLength );
+    }
+
+    private static void readFully( InputStream pIn, byte[] pBytes, String pWhatIfShort )
+            throws IOException
+    {
+        for ( int zLength = 0, zRead; zLength < pBytes.length; zLength += zRead )
+        {
+            if ( -1 == (zRead = pIn.read( pBytes, zLength, pBytes.length - zLength )) )
+            {
+                throw new EOFException( pWhatIfShort );
+            }
+        }
+    }
+}
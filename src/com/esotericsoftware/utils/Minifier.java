@@ -0,0 +1,343 @@
+package com.esotericsoftware.utils;
+
+/**
+ * Conservative (whitespace & comment stripping only, nothing is renamed or restructured) minification of JavaScript & CSS.
+ * <p/>
+ * The JavaScript minification is Douglas Crockford's JSMin algorithm (string, template & regular expression literals are kept intact,
+ * and a line break is kept wherever automatic semicolon insertion could depend on it).
+ * <p/>
+ * The text is expected to be "byte per char" (e.g. ISO-8859-1 decoded), so multi byte (e.g. UTF-8) characters pass through untouched.
+ */
+public final class Minifier
+{
+    private static final int EOF = -1;
+
+    private Minifier()
+    {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the JavaScript has an unterminated comment, string or regular expression (the caller can then
+     *                                  use it as is).
+     */
+    public static String js( String pJavaScript )
+    {
+        return new JSMin( pJavaScript ).minify();
+    }
+
+    /**
+     * Removes the comments, collapses the whitespace (dropping it around '{', '}', ';', ',' & before ')'), and drops the ';' before a '}'.
+     * Strings are kept intact.
+     */
+    public static String css( String pCSS )
+    {
+        StringBuilder sb = new StringBuilder( pCSS.length() );
+        boolean zPendingSpace = false;
+        for ( int i = 0, zLength = pCSS.length(); i < zLength; i++ )
+        {
+            char c = pCSS.charAt( i );
+            if ( (c == '/') && (i + 1 < zLength) && (pCSS.charAt( i + 1 ) == '*') )
+            {
+                int zEnd = pCSS.indexOf( "*/", i + 2 );
+                i = (zEnd == -1) ? zLength : zEnd + 1;
+                zPendingSpace = true; // A comment separates like whitespace
+                continue;
+            }
+            if ( Character.isWhitespace( c ) )
+            {
+                zPendingSpace = true;
+                continue;
+            }
+            if ( zPendingSpace )
+            {
+                zPendingSpace = false;
+                if ( (sb.length() != 0) && !isCssPunctuation( sb.charAt( sb.length() - 1 ) ) && !isCssPunctuation( c ) && (c != ')') )
+                {
+                    sb.append( ' ' );
+                }
+            }
+            if ( (c == '"') || (c == '\'') )
+            {
+                int zEnd = i + 1;
+                while ( (zEnd < zLength) && (pCSS.charAt( zEnd ) != c) && (pCSS.charAt( zEnd ) != '\n') )
+                {
+                    zEnd += (pCSS.charAt( zEnd ) == '\\') ? 2 : 1;
+                }
+                zEnd = Math.min( zEnd, zLength - 1 );
+                sb.append( pCSS, i, zEnd + 1 );
+                i = zEnd;
+                continue;
+            }
+            if ( (c == '}') && (sb.length() != 0) && (sb.charAt( sb.length() - 1 ) == ';') )
+            {
+                sb.setLength( sb.length() - 1 );
+            }
+            sb.append( c );
+        }
+        return sb.toString();
+    }
+
+    private static boolean isCssPunctuation( char c )
+    {
+        return (c == '{') || (c == '}') || (c == ';') || (c == ',');
+    }
+
+    private static class JSMin
+    {
+        private final String mIn;
+        private final StringBuilder mOut;
+        private int mAt = 0;
+        private int mLookahead = EOF;
+        private int mTheA, mTheB, mTheX = EOF, mTheY = EOF;
+
+        JSMin( String pIn )
+        {
+            mIn = pIn;
+            mOut = new StringBuilder( pIn.length() );
+        }
+
+        String minify()
+        {
+            mTheA = '\n';
+            action( 3 );
+            while ( mTheA != EOF )
+            {
+                switch ( mTheA )
+                {
+                    case ' ':
+                        action( isAlphanum( mTheB ) ? 1 : 2 );
+                        break;
+                    case '\n':
+                        switch ( mTheB )
+                        {
+                            case '{':
+                            case '[':
+                            case '(':
+                            case '+':
+                            case '-':
+                            case '!':
+                            case '~':
+                                action( 1 );
+                                break;
+                            case ' ':
+                                action( 3 );
+                                break;
+                            default:
+                                action( isAlphanum( mTheB ) ? 1 : 2 );
+                        }
+                        break;
+                    default:
+                        switch ( mTheB )
+                        {
+                            case ' ':
+                                action( isAlphanum( mTheA ) ? 1 : 3 );
+                                break;
+                            case '\n':
+                                switch ( mTheA )
+                                {
+                                    case '}':
+                                    case ']':
+                                    case ')':
+                                    case '+':
+                                    case '-':
+                                    case '"':
+                                    case '\'':
+                                    case '`':
+                                        action( 1 );
+                                        break;
+                                    default:
+                                        action( isAlphanum( mTheA ) ? 1 : 3 );
+                                }
+                                break;
+                            default:
+                                action( 1 );
+                        }
+                }
+            }
+            return mOut.toString().trim();
+        }
+
+        private static boolean isAlphanum( int c )
+        {
+            return ((c >= 'a') && (c <= 'z')) || ((c >= '0') && (c <= '9')) || ((c >= 'A') && (c <= 'Z')) || //
+                   (c == '_') || (c == '$') || (c == '\\') || (c > 126);
+        }
+
+        /**
+         * @return the next character, with control characters (other than '\n') turned into a space ('\r' into '\n').
+         */
+        private int get()
+        {
+            int c = mLookahead;
+            mLookahead = EOF;
+            if ( c == EOF )
+            {
+                c = (mAt < mIn.length()) ? mIn.charAt( mAt++ ) : EOF;
+            }
+            if ( (c >= ' ') || (c == '\n') || (c == EOF) )
+            {
+                return c;
+            }
+            return (c == '\r') ? '\n' : ' ';
+        }
+
+        private int peek()
+        {
+            return mLookahead = get();
+        }
+
+        /**
+         * @return the next character, excluding comments.
+         */
+        private int next()
+        {
+            int c = get();
+            if ( c == '/' )
+            {
+                switch ( peek() )
+                {
+                    case '/':
+                        do
+                        {
+                            c = get();
+                        }
+                        while ( c > '\n' );
+                        break;
+                    case '*':
+                        get();
+                        while ( c != ' ' )
+                        {
+                            switch ( get() )
+                            {
+                                case '*':
+                                    if ( peek() == '/' )
+                                    {
+                                        get();
+                                        c = ' ';
+                                    }
+                                    break;
+                                case EOF:
+                                    throw new IllegalArgumentException( "Unterminated comment" );
+                            }
+                        }
+                        break;
+                }
+            }
+            mTheY = mTheX;
+            mTheX = c;
+            return c;
+        }
+
+        private void put( int c )
+        {
+            mOut.append( (char) c );
+        }
+
+        /**
+         * 1: Output A, copy B to A, get the next B.<br/>
+         * 2: Copy B to A, get the next B (delete A).<br/>
+         * 3: Get the next B (delete B).
+         */
+        private void action( int pAction )
+        {
+            if ( pAction <= 1 )
+            {
+                put( mTheA );
+                if ( ((mTheY == '\n') || (mTheY == ' ')) && isOperator( mTheA ) && isOperator( mTheB ) )
+                {
+                    put( mTheY ); // e.g. "a + ++b" or "a / /re/"
+                }
+            }
+            if ( pAction <= 2 )
+            {
+                mTheA = mTheB;
+                if ( (mTheA == '\'') || (mTheA == '"') || (mTheA == '`') )
+                {
+                    while ( true )
+                    {
+                        put( mTheA );
+                        mTheA = get();
+                        if ( mTheA == mTheB )
+                        {
+                            break;
+                        }
+                        if ( mTheA == '\\' )
+                        {
+                            put( mTheA );
+                            mTheA = get();
+                        }
+                        if ( mTheA == EOF )
+                        {
+                            throw new IllegalArgumentException( "Unterminated string literal" );
+                        }
+                    }
+                }
+            }
+            mTheB = next();
+            if ( (mTheB == '/') && isRegexPrefix( mTheA ) )
+            {
+                put( mTheA );
+                if ( (mTheA == '/') || (mTheA == '*') )
+                {
+                    put( ' ' );
+                }
+                put( mTheB );
+                while ( true )
+                {
+                    mTheA = get();
+                    if ( mTheA == '[' )
+                    {
+                        while ( true )
+                        {
+                            put( mTheA );
+                            mTheA = get();
+                            if ( mTheA == ']' )
+                            {
+                                break;
+                            }
+                            if ( mTheA == '\\' )
+                            {
+                                put( mTheA );
+                                mTheA = get();
+                            }
+                            if ( mTheA == EOF )
+                            {
+                                throw new IllegalArgumentException( "Unterminated set in regular expression literal" );
+                            }
+                        }
+                    }
+                    else if ( mTheA == '/' )
+                    {
+                        int zPeek = peek();
+                        if ( (zPeek == '/') || (zPeek == '*') )
+                        {
+                            throw new IllegalArgumentException( "Unterminated set in regular expression literal" );
+                        }
+                        break;
+                    }
+                    else if ( mTheA == '\\' )
+                    {
+                        put( mTheA );
+                        mTheA = get();
+                    }
+                    if ( mTheA == EOF )
+                    {
+                        throw new IllegalArgumentException( "Unterminated regular expression literal" );
+                    }
+                    put( mTheA );
+                }
+                mTheB = next();
+            }
+        }
+
+        private static boolean isOperator( int c )
+        {
+            return (c == '+') || (c == '-') || (c == '*') || (c == '/');
+        }
+
+        private static boolean isRegexPrefix( int c )
+        {
+            return "(,=:[!&|?+-~*/{};".indexOf( c ) != -1;
+        }
+    }
+}
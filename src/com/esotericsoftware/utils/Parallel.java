@@ -0,0 +1,221 @@
+package com.esotericsoftware.utils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A shared (daemon) thread pool, and support for processing a number of items concurrently on it.
+ * <p/>
+ * Note: A thread waiting for its items first runs, itself, any of them that have not yet been started, so work submitted from a pool
+ * thread (nested use) can not starve the pool.
+ */
+@SuppressWarnings({"UnusedDeclaration"})
+public class Parallel
+{
+    public interface Action<T>
+    {
+        void process( T pItem );
+    }
+
+    private static int sThreads = Runtime.getRuntime().availableProcessors();
+    private static ExecutorService sExecutor;
+
+    public static synchronized int getThreads()
+    {
+        return sThreads;
+    }
+
+    /**
+     * Set the number of threads in the shared pool (1 means everything is done on the calling thread).  Must be called before the pool
+     * is first used.
+     */
+    public static synchronized void setThreads( int pThreads )
+    {
+        if ( sExecutor != null )
+        {
+            throw new IllegalStateException( "Shared thread pool already started with " + sThreads + " threads" );
+        }
+        sThreads = Math.max( 1, pThreads );
+    }
+
+    /**
+     * @return the shared pool, which runs the waiting tasks highest priority first (see {@link #start(FutureTask, long)}), and in the order
+     *         they were started within a priority.
+     */
+    public static synchronized ExecutorService executor()
+    {
+        if ( sExecutor == null )
+        {
+            sExecutor = new PriorityExecutor( sThreads, new ThreadFactory()
+            {
+                private int mCount;
+
+                @Override
+                public synchronized Thread newThread( Runnable pRunnable )
+                {
+                    Thread zThread = new Thread( pRunnable, "Scar-" + (++mCount) );
+                    zThread.setDaemon( true );
+                    return zThread;
+                }
+            } );
+        }
+        return sExecutor;
+    }
+
+    /**
+     * Starts the task on the shared pool (with priority 0).
+     */
+    public static <T> FutureTask<T> start( FutureTask<T> pTask )
+    {
+        return start( pTask, 0 );
+    }
+
+    /**
+     * Starts the task on the shared pool, ahead of the waiting tasks with a lower priority.
+     *
+     * @param pPriority e.g. the estimated time (in ms) until the work depending on the task can complete (its critical path).
+     */
+    public static <T> FutureTask<T> start( FutureTask<T> pTask, long pPriority )
+    {
+        executor().execute( new Prioritized( pTask, pPriority ) );
+        return pTask;
+    }
+
+    private static class PriorityExecutor extends ThreadPoolExecutor
+    {
+        PriorityExecutor( int pThreads, ThreadFactory pThreadFactory )
+        {
+            super( pThreads, pThreads, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>(), pThreadFactory );
+        }
+
+        @Override
+        public void execute( Runnable pRunnable )
+        {
+            super.execute( (pRunnable instanceof Prioritized) ? pRunnable : new Prioritized( pRunnable, 0 ) );
+        }
+    }
+
+    private static class Prioritized implements Runnable, Comparable<Prioritized>
+    {
+        private static final AtomicLong sSequence = new AtomicLong();
+
+        private final Runnable mRunnable;
+        private final long mPriority, mSequence;
+
+        Prioritized( Runnable pRunnable, long pPriority )
+        {
+            mRunnable = pRunnable;
+            mPriority = pPriority;
+            mSequence = sSequence.getAndIncrement();
+        }
+
+        @Override
+        public void run()
+        {
+            mRunnable.run();
+        }
+
+        @Override
+        public int compareTo( Prioritized them )
+        {
+            if ( mPriority != them.mPriority )
+            {
+                return (mPriority > them.mPriority) ? -1 : 1; // Highest first
+            }
+            return (mSequence < them.mSequence) ? -1 : ((mSequence == them.mSequence) ? 0 : 1); // Then FIFO
+        }
+    }
+
+    /**
+     * Process each of the items, concurrently if there is more than one, and return when all are done.
+     *
+     * @throws RuntimeException the first failure (after all the items have been processed or failed).
+     */
+    public static <T> void forEach( Collection<T> pItems, final Action<T> pAction )
+    {
+        Util.assertNotNull( "Action", pAction );
+        if ( (pItems.size() < 2) || (getThreads() == 1) )
+        {
+            for ( T zItem : pItems )
+            {
+                pAction.process( zItem );
+            }
+            return;
+        }
+        List<FutureTask<Void>> zTasks = new ArrayList<FutureTask<Void>>( pItems.size() );
+        for ( final T zItem : pItems )
+        {
+            zTasks.add( start( new FutureTask<Void>( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    pAction.process( zItem );
+                }
+            }, null ) ) );
+        }
+        awaitAll( zTasks );
+    }
+
+    /**
+     * Wait for all the tasks, running any not yet started on this thread.
+     *
+     * @throws RuntimeException the first failure (after all the tasks have completed or failed).
+     */
+    public static void awaitAll( List<? extends FutureTask<?>> pTasks )
+    {
+        for ( FutureTask<?> zTask : pTasks )
+        {
+            zTask.run(); // No-op if already started (or done) by a pool thread
+        }
+        RuntimeException zFirstFailure = null;
+        for ( FutureTask<?> zTask : pTasks )
+        {
+            try
+            {
+                await( zTask );
+            }
+            catch ( RuntimeException e )
+            {
+                if ( zFirstFailure == null )
+                {
+                    zFirstFailure = e;
+                }
+            }
+        }
+        if ( zFirstFailure != null )
+        {
+            throw zFirstFailure;
+        }
+    }
+
+    /**
+     * Wait for the future's result, unwrapping any failure.
+     */
+    public static <T> T await( Future<T> pFuture )
+    {
+        try
+        {
+            return pFuture.get();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( e );
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable zCause = e.getCause();
+            if ( zCause instanceof RuntimeException )
+            {
+                throw (RuntimeException) zCause;
+            }
+            if ( zCause instanceof Error )
+            {
+                throw (Error) zCause;
+            }
+            throw new RuntimeException( zCause );
+        }
+    }
+}
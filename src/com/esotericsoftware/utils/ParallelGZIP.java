@@ -0,0 +1,360 @@
+package com.esotericsoftware.utils;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * GZIP compression using all the {@link Parallel} threads (in the manner of "pigz"): the input is split into <code>BLOCK_SIZE</code>
+ * blocks, each deflated independently (primed with the last 32K of the previous block as its dictionary, so very little compression is
+ * lost) and ended on a byte boundary with a SYNC_FLUSH (the last with a FINISH), so that concatenated they form a single standard Deflate
+ * stream.  The result is a normal single member GZIP file (readable by gunzip & <code>GZIPInputStream</code>).
+ * <p/>
+ * Decompression (Inflate is inherently sequential) overlaps the inflating with the writing of the output.
+ * <p/>
+ * SYNC_FLUSH needs Java 7+ (accessed reflectively), without it compression is done with a single thread.
+ */
+public final class ParallelGZIP
+{
+    public static final int BLOCK_SIZE = 128 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int SYNC_FLUSH = 2; // Deflater.SYNC_FLUSH (Java 7+)
+    private static final int QUEUED_CHUNKS = 4;
+
+    private static final Method sDeflateWithFlush;
+
+    static
+    {
+        Method zMethod;
+        try
+        {
+            zMethod = Deflater.class.getMethod( "deflate", byte[].class, int.class, int.class, int.class );
+        }
+        catch ( NoSuchMethodException e )
+        {
+            zMethod = null; // Pre Java 7
+        }
+        sDeflateWithFlush = zMethod;
+    }
+
+    private ParallelGZIP()
+    {
+    }
+
+    /**
+     * GZIP pIn onto pOut (neither is closed).
+     */
+    public static void compress( InputStream pIn, OutputStream pOut, int pLevel )
+            throws IOException
+    {
+        if ( (sDeflateWithFlush == null) || (Parallel.getThreads() == 1) )
+        {
+            PooledGZIPOutputStream zOut = new PooledGZIPOutputStream( new NonClosingOutputStream( pOut ), pLevel );
+            FileUtil.append( pIn, zOut );
+            zOut.close();
+            return;
+        }
+        PooledGZIPOutputStream.writeHeader( pOut );
+        CRC32 zCRC = new CRC32();
+        long zSize = 0;
+        int zMaxInFlight = 2 * Parallel.getThreads();
+        LinkedList<FutureTask<byte[]>> zInFlight = new LinkedList<FutureTask<byte[]>>();
+        try
+        {
+            byte[] zPrevious = null;
+            byte[] zBlock = readBlock( pIn );
+            for ( boolean zLast = false; !zLast; )
+            {
+                byte[] zNext = readBlock( pIn );
+                zLast = (zNext.length == 0);
+                zCRC.update( zBlock );
+                zSize += zBlock.length;
+                zInFlight.add( Parallel.start( new FutureTask<byte[]>( new BlockDeflater( pLevel, zPrevious, zBlock, zLast ) ) ) );
+                if ( zInFlight.size() >= zMaxInFlight )
+                {
+                    pOut.write( await( zInFlight.removeFirst() ) );
+                }
+                zPrevious = zBlock;
+                zBlock = zNext;
+            }
+            while ( !zInFlight.isEmpty() )
+            {
+                pOut.write( await( zInFlight.removeFirst() ) );
+            }
+        }
+        finally
+        {
+            for ( FutureTask<byte[]> zTask : zInFlight )
+            {
+                zTask.cancel( false );
+            }
+        }
+        PooledGZIPOutputStream.writeTrailer( pOut, zCRC.getValue(), zSize );
+    }
+
+    /**
+     * GUNZIP pIn (any number of concatenated members) onto pOut (neither is closed).
+     */
+    public static void decompress( InputStream pIn, OutputStream pOut )
+            throws IOException
+    {
+        GZIPInputStream zIn = new GZIPInputStream( new NonClosingInputStream( pIn ), IOBuffers.SIZE );
+        if ( Parallel.getThreads() == 1 )
+        {
+            FileUtil.append( zIn, pOut );
+            return;
+        }
+        ChunkWriter zWriter = new ChunkWriter( pOut );
+        zWriter.start();
+        try
+        {
+            while ( true )
+            {
+                Chunk zChunk = zWriter.takeEmpty();
+                byte[] zBytes = zChunk.mBytes;
+                int zLength = 0;
+                for ( int zRead; (zLength < zBytes.length) && (-1 != (zRead = zIn.read( zBytes, zLength, zBytes.length - zLength ))); )
+                {
+                    zLength += zRead;
+                }
+                if ( zLength == 0 )
+                {
+                    break;
+                }
+                zChunk.mLength = zLength;
+                zWriter.putFull( zChunk );
+            }
+        }
+        finally
+        {
+            zWriter.finish();
+        }
+    }
+
+    private static byte[] await( FutureTask<byte[]> pTask )
+    {
+        pTask.run(); // No-op if already started (or done) by a pool thread
+        return Parallel.await( pTask );
+    }
+
+    private static byte[] readBlock( InputStream pIn )
+            throws IOException
+    {
+        byte[] zBlock = new byte[BLOCK_SIZE];
+        int zLength = 0;
+        for ( int zRead; (zLength < BLOCK_SIZE) && (-1 != (zRead = pIn.read( zBlock, zLength, BLOCK_SIZE - zLength ))); )
+        {
+            zLength += zRead;
+        }
+        return (zLength == BLOCK_SIZE) ? zBlock : Arrays.copyOf( zBlock, zLength );
+    }
+
+    private static class BlockDeflater implements Callable<byte[]>
+    {
+        private final int mLevel;
+        private final byte[] mPrevious;
+        private final byte[] mBlock;
+        private final boolean mLast;
+
+        BlockDeflater( int pLevel, byte[] pPrevious, byte[] pBlock, boolean pLast )
+        {
+            mLevel = pLevel;
+            mPrevious = pPrevious;
+            mBlock = pBlock;
+            mLast = pLast;
+        }
+
+        @Override
+        public byte[] call()
+                throws Exception
+        {
+            ByteArrayOutputStream zOut = new ByteArrayOutputStream( (mBlock.length / 2) + 64 );
+            Deflater zDeflater = IOBuffers.takeDeflater( mLevel, true );
+            byte[] zBuffer = IOBuffers.takeBytes();
+            try
+            {
+                if ( mPrevious != null )
+                {
+                    int zDictionaryLength = Math.min( DICTIONARY_SIZE, mPrevious.length );
+                    zDeflater.setDictionary( mPrevious, mPrevious.length - zDictionaryLength, zDictionaryLength );
+                }
+                zDeflater.setInput( mBlock );
+                if ( mLast )
+                {
+                    zDeflater.finish();
+                    while ( !zDeflater.finished() )
+                    {
+                        zOut.write( zBuffer, 0, zDeflater.deflate( zBuffer ) );
+                    }
+                }
+                else
+                {
+                    for ( int zLength = zBuffer.length; zLength == zBuffer.length; )
+                    {
+                        zLength = (Integer) sDeflateWithFlush.invoke( zDeflater, zBuffer, 0, zBuffer.length, SYNC_FLUSH );
+                        zOut.write( zBuffer, 0, zLength );
+                    }
+                }
+            }
+            finally
+            {
+                IOBuffers.give( zBuffer );
+                IOBuffers.give( zDeflater, true );
+            }
+            return zOut.toByteArray();
+        }
+    }
+
+    private static class Chunk
+    {
+        private final byte[] mBytes;
+        private int mLength;
+
+        Chunk( int pSize )
+        {
+            mBytes = new byte[pSize];
+        }
+    }
+
+    /**
+     * Writes the chunks on its own thread (not a pool one, as the reader blocks on it).
+     */
+    private static class ChunkWriter extends Thread
+    {
+        private static final Chunk END = new Chunk( 0 );
+
+        private final OutputStream mOut;
+        private final BlockingQueue<Chunk> mEmpty = new ArrayBlockingQueue<Chunk>( QUEUED_CHUNKS );
+        private final BlockingQueue<Chunk> mFull = new ArrayBlockingQueue<Chunk>( QUEUED_CHUNKS + 1 );
+        private volatile IOException mFailure;
+
+        ChunkWriter( OutputStream pOut )
+        {
+            super( "GUNZIP-Writer" );
+            setDaemon( true );
+            mOut = pOut;
+            for ( int i = 0; i < QUEUED_CHUNKS; i++ )
+            {
+                mEmpty.add( new Chunk( IOBuffers.SIZE ) );
+            }
+        }
+
+        /**
+         * @throws IOException if the writing has failed.
+         */
+        Chunk takeEmpty()
+                throws IOException
+        {
+            try
+            {
+                Chunk zChunk;
+                while ( null == (zChunk = mEmpty.poll( 100, TimeUnit.MILLISECONDS )) )
+                {
+                    checkFailure();
+                }
+                checkFailure();
+                return zChunk;
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+
+        void putFull( Chunk pChunk )
+        {
+            mFull.add( pChunk );
+        }
+
+        void finish()
+                throws IOException
+        {
+            mFull.add( END );
+            try
+            {
+                join();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            checkFailure();
+        }
+
+        private void checkFailure()
+                throws IOException
+        {
+            if ( mFailure != null )
+            {
+                throw mFailure;
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                for ( Chunk zChunk; END != (zChunk = mFull.take()); )
+                {
+                    if ( mFailure == null )
+                    {
+                        try
+                        {
+                            mOut.write( zChunk.mBytes, 0, zChunk.mLength );
+                        }
+                        catch ( IOException e )
+                        {
+                            mFailure = e;
+                        }
+                    }
+                    mEmpty.add( zChunk );
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                mFailure = new InterruptedIOException();
+            }
+        }
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream
+    {
+        NonClosingOutputStream( OutputStream pOut )
+        {
+            super( pOut );
+        }
+
+        @Override
+        public void write( byte[] pBytes, int pOffset, int pLength )
+                throws IOException
+        {
+            out.write( pBytes, pOffset, pLength );
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            flush();
+        }
+    }
+
+    private static class NonClosingInputStream extends FilterInputStream
+    {
+        NonClosingInputStream( InputStream pIn )
+        {
+            super( pIn );
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
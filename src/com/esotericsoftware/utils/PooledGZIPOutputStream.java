@@ -0,0 +1,109 @@
+package com.esotericsoftware.utils;
+
+import java.io.*;
+import java.util.zip.*;
+
+/**
+ * A GZIP (single member) output stream, like <code>GZIPOutputStream</code>, but whose Deflater and buffer come from (and are returned
+ * to) the {@link IOBuffers} pools.
+ */
+public class PooledGZIPOutputStream extends DeflaterOutputStream
+{
+    private static final byte[] HEADER = //
+            { //
+              (byte) 0x1f, (byte) 0x8b, // Magic
+              Deflater.DEFLATED, // Compression Method
+              0, // Flags
+              0, 0, 0, 0, // Modification time (none)
+              0, // Extra flags
+              0 // OS
+            };
+
+    private final CRC32 mCRC = new CRC32();
+    private long mSize;
+    private boolean mFinished;
+    private boolean mReleased;
+
+    public PooledGZIPOutputStream( OutputStream pOut, int pLevel )
+            throws IOException
+    {
+        super( pOut, IOBuffers.takeDeflater( pLevel, true ), 1 );
+        buf = IOBuffers.takeBytes();
+        writeHeader( out );
+    }
+
+    public PooledGZIPOutputStream( OutputStream pOut )
+            throws IOException
+    {
+        this( pOut, Deflater.DEFAULT_COMPRESSION );
+    }
+
+    @Override
+    public synchronized void write( byte[] pBytes, int pOffset, int pLength )
+            throws IOException
+    {
+        super.write( pBytes, pOffset, pLength );
+        mCRC.update( pBytes, pOffset, pLength );
+        mSize += pLength;
+    }
+
+    @Override
+    public void finish()
+            throws IOException
+    {
+        if ( !mFinished )
+        {
+            mFinished = true;
+            super.finish();
+            writeTrailer( out, mCRC.getValue(), mSize );
+        }
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        try
+        {
+            super.close(); // finish()es, then closes 'out'
+        }
+        finally
+        {
+            release();
+        }
+    }
+
+    private void release()
+    {
+        if ( !mReleased )
+        {
+            mReleased = true;
+            IOBuffers.give( def, true );
+            IOBuffers.give( buf );
+        }
+    }
+
+    /**
+     * Writes the standard (10 byte) GZIP member header.
+     */
+    public static void writeHeader( OutputStream pOut )
+            throws IOException
+    {
+        pOut.write( HEADER );
+    }
+
+    /**
+     * Writes the GZIP member trailer: CRC-32 & size (mod 2^32) of the uncompressed data, both little endian.
+     */
+    public static void writeTrailer( OutputStream pOut, long pCRC, long pSize )
+            throws IOException
+    {
+        byte[] zTrailer = new byte[8];
+        for ( int i = 0; i < 4; i++ )
+        {
+            zTrailer[i] = (byte) (pCRC >> (i * 8));
+            zTrailer[i + 4] = (byte) (pSize >> (i * 8));
+        }
+        pOut.write( zTrailer );
+    }
+}
@@ -0,0 +1,444 @@
+package com.esotericsoftware.utils;
+
+import java.io.*;
+import java.util.*;
+
+import org.litesoft.logger.*;
+
+/**
+ * Runs an external process with its output (stdout & stderr) pumped by ONE shared daemon thread (for all the running processes), instead
+ * of a thread per stream.
+ * <p/>
+ * The output is echoed a complete line at a time (so lines from concurrently running processes never interleave mid line), optionally
+ * prefixed (e.g. "[GWT] "), and the last lines are kept (a ring buffer) so they can be reported if the process fails.
+ * <p/>
+ * Process pipes are not selectable (NIO) channels, so the pump polls them (using <code>available()</code>, backing off while they are
+ * quiet).  As <code>available()</code> never signals the end of a stream, completion is exit code based: the pump lets go of (& closes) a
+ * stream once its process has exited and it has been read, and {@link #waitFor()} waits for the process to exit, then takes the streams
+ * back from the pump and drains what is left (on the calling thread).  So the pipes of a process that is never waited for are not leaked.
+ * <p/>
+ * <pre>
+ *  int zExitCode = new ProcessRunner( "java", "-version" ).prefix( "java" ).start().waitFor();
+ * </pre>
+ */
+public class ProcessRunner
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger( ProcessRunner.class );
+
+    public static final int DEFAULT_CAPTURE_LINES = 50;
+
+    private static final Object sEchoLock = new Object();
+
+    private static Pump sPump;
+
+    private final List<String> mCommand;
+    private String mPrefix = "";
+    private int mCaptureLines = DEFAULT_CAPTURE_LINES;
+    private boolean mEcho = true;
+    private final LinkedList<String> mCaptured = new LinkedList<String>();
+    private Process mProcess;
+    private Source mOut, mErr;
+
+    public ProcessRunner( String... pCommand )
+    {
+        this( Arrays.asList( pCommand ) );
+    }
+
+    public ProcessRunner( List<String> pCommand )
+    {
+        Util.assertNotNull( "Command", pCommand );
+        Util.assertNotEmpty( "Command", pCommand.toArray( new String[pCommand.size()] ) );
+        mCommand = new ArrayList<String>( pCommand );
+    }
+
+    /**
+     * @param pPrefix if not empty, each echoed line is prefixed with "[" + pPrefix + "] ".
+     */
+    public ProcessRunner prefix( String pPrefix )
+    {
+        pPrefix = Util.noEmpty( pPrefix );
+        mPrefix = (pPrefix == null) ? "" : "[" + pPrefix + "] ";
+        return this;
+    }
+
+    /**
+     * @param pLines the number of (the last) output lines to keep, see {@link #getCapturedLines()}.
+     */
+    public ProcessRunner captureLines( int pLines )
+    {
+        mCaptureLines = Math.max( 0, pLines );
+        return this;
+    }
+
+    /**
+     * @param pEcho false to only capture the output (not write it to System.out / System.err).
+     */
+    public ProcessRunner echo( boolean pEcho )
+    {
+        mEcho = pEcho;
+        return this;
+    }
+
+    public List<String> getCommand()
+    {
+        return Collections.unmodifiableList( mCommand );
+    }
+
+    public ProcessRunner start()
+            throws IOException
+    {
+        if ( mProcess != null )
+        {
+            throw new IllegalStateException( "Already started: " + mCommand );
+        }
+        mProcess = new ProcessBuilder( mCommand ).start();
+        mProcess.getOutputStream().close(); // No input
+        mOut = new Source( mProcess.getInputStream(), false );
+        mErr = new Source( mProcess.getErrorStream(), true );
+        Pump zPump = pump();
+        zPump.add( mOut );
+        zPump.add( mErr );
+        return this;
+    }
+
+    /**
+     * @return true if started and not yet exited.
+     */
+    public boolean isRunning()
+    {
+        if ( mProcess == null )
+        {
+            return false;
+        }
+        try
+        {
+            mProcess.exitValue();
+            return false;
+        }
+        catch ( IllegalThreadStateException e )
+        {
+            return true;
+        }
+    }
+
+    /**
+     * Wait for the process to exit, and all its output to be processed.
+     *
+     * @return the exit code.
+     */
+    public int waitFor()
+            throws InterruptedException, IOException
+    {
+        if ( mProcess == null )
+        {
+            throw new IllegalStateException( "Not started: " + mCommand );
+        }
+        int zExitCode = mProcess.waitFor();
+        mOut.drain();
+        mErr.drain();
+        return zExitCode;
+    }
+
+    /**
+     * Wait (at most pTimeoutMS, then it is destroyed) for the process to exit, and all its output to be processed.
+     *
+     * @return the exit code.
+     */
+    public int waitFor( long pTimeoutMS )
+            throws InterruptedException, IOException
+    {
+        if ( mProcess == null )
+        {
+            throw new IllegalStateException( "Not started: " + mCommand );
+        }
+        long zGiveUpAt = System.currentTimeMillis() + pTimeoutMS;
+        while ( isRunning() && (System.currentTimeMillis() < zGiveUpAt) )
+        {
+            Thread.sleep( 10 );
+        }
+        if ( isRunning() )
+        {
+            mProcess.destroy();
+        }
+        return waitFor();
+    }
+
+    /**
+     * Process (on the calling thread) the output that is already available, e.g. once the process has indicated (by other means) that it
+     * has flushed its output, so that its lines are echoed & captured before the caller continues.
+     */
+    public void pumpAvailable()
+    {
+        if ( mProcess != null )
+        {
+            byte[] zBuffer = IOBuffers.takeBytes();
+            try
+            {
+                mOut.pump( zBuffer );
+                mErr.pump( zBuffer );
+            }
+            finally
+            {
+                IOBuffers.give( zBuffer );
+            }
+        }
+    }
+
+    /**
+     * @return the last (up to <code>captureLines</code>) lines of output, stdout & stderr as they were pumped.
+     */
+    public List<String> getCapturedLines()
+    {
+        synchronized ( mCaptured )
+        {
+            return new ArrayList<String>( mCaptured );
+        }
+    }
+
+    private void line( String pLine, boolean pError )
+    {
+        synchronized ( mCaptured )
+        {
+            if ( mCaptureLines != 0 )
+            {
+                if ( mCaptured.size() == mCaptureLines )
+                {
+                    mCaptured.removeFirst();
+                }
+                mCaptured.add( pLine );
+            }
+        }
+        if ( mEcho )
+        {
+            synchronized ( sEchoLock )
+            {
+                (pError ? System.err : System.out).println( mPrefix + pLine );
+            }
+        }
+    }
+
+    private static synchronized Pump pump()
+    {
+        if ( (sPump == null) || !sPump.isAlive() )
+        {
+            sPump = new Pump();
+            sPump.start();
+        }
+        return sPump;
+    }
+
+    /**
+     * One of the process' streams, and its partial (not yet '\n' terminated) line.
+     */
+    private class Source
+    {
+        private final InputStream mIn;
+        private final boolean mError;
+        private final ByteArrayOutputStream mLine = new ByteArrayOutputStream( 256 );
+        private boolean mDone; // Guarded by this: once set, the pump no longer touches this Source
+        private boolean mFinished; // Guarded by this: read to the end (by the pump), and closed
+
+        Source( InputStream pIn, boolean pError )
+        {
+            mIn = pIn;
+            mError = pError;
+        }
+
+        /**
+         * Called by the pump (or {@link #pumpAvailable()}).
+         *
+         * @return -1 if done (remove it), otherwise the number of bytes read.
+         */
+        synchronized int pump( byte[] pBuffer )
+        {
+            if ( mDone )
+            {
+                return -1;
+            }
+            try
+            {
+                boolean zExited = !isRunning(); // Before reading: if it exits during this pass, its last output may not be read yet
+                int zTotal = 0;
+                for ( int zAvailable; (zTotal < pBuffer.length) && (0 < (zAvailable = mIn.available())); )
+                {
+                    int zRead = mIn.read( pBuffer, 0, Math.min( zAvailable, pBuffer.length ) );
+                    if ( zRead < 0 )
+                    {
+                        finish();
+                        return -1;
+                    }
+                    accept( pBuffer, zRead );
+                    zTotal += zRead;
+                }
+                if ( (zTotal == 0) && zExited ) // Exited before this pass, so all its output was already available (and has been read)
+                {
+                    finish();
+                    return -1;
+                }
+                return zTotal;
+            }
+            catch ( IOException e )
+            {
+                finish();
+                return -1;
+            }
+        }
+
+        /**
+         * Let go of (& close) the stream, flushing its partial line.
+         */
+        synchronized void finish()
+        {
+            mDone = mFinished = true;
+            if ( mLine.size() != 0 )
+            {
+                flushLine();
+            }
+            FileUtil.dispose( mIn );
+        }
+
+        /**
+         * Take the stream back from the pump, and read it to the end (on the calling thread).
+         */
+        void drain()
+                throws IOException
+        {
+            synchronized ( this )
+            {
+                if ( mFinished )
+                {
+                    return;
+                }
+                mDone = true;
+            }
+            byte[] zBuffer = IOBuffers.takeBytes();
+            try
+            {
+                for ( int zRead; -1 != (zRead = mIn.read( zBuffer )); )
+                {
+                    accept( zBuffer, zRead );
+                }
+            }
+            finally
+            {
+                IOBuffers.give( zBuffer );
+                FileUtil.dispose( mIn );
+            }
+            if ( mLine.size() != 0 )
+            {
+                flushLine();
+            }
+        }
+
+        private void accept( byte[] pBytes, int pLength )
+        {
+            int zFrom = 0;
+            for ( int i = 0; i < pLength; i++ )
+            {
+                if ( pBytes[i] == '\n' )
+                {
+                    mLine.write( pBytes, zFrom, i - zFrom );
+                    flushLine();
+                    zFrom = i + 1;
+                }
+            }
+            mLine.write( pBytes, zFrom, pLength - zFrom );
+        }
+
+        private void flushLine()
+        {
+            String zLine = mLine.toString(); // Platform charset, as an InputStreamReader would
+            mLine.reset();
+            if ( zLine.endsWith( "\r" ) )
+            {
+                zLine = zLine.substring( 0, zLine.length() - 1 );
+            }
+            line( zLine, mError );
+        }
+    }
+
+    /**
+     * The shared (daemon) thread that polls the output of all the running processes.
+     */
+    private static class Pump extends Thread
+    {
+        private static final int MAX_IDLE_SLEEP_MS = 50;
+
+        private final List<Source> mSources = new ArrayList<Source>(); // Guarded by this
+
+        Pump()
+        {
+            super( "Scar-ProcessOutput" );
+            setDaemon( true );
+        }
+
+        synchronized void add( Source pSource )
+        {
+            mSources.add( pSource );
+            notifyAll();
+        }
+
+        @Override
+        public void run()
+        {
+            byte[] zBuffer = new byte[IOBuffers.SIZE];
+            int zIdleSleep = 1;
+            try
+            {
+                while ( true )
+                {
+                    Source[] zSources;
+                    synchronized ( this )
+                    {
+                        while ( mSources.isEmpty() )
+                        {
+                            wait();
+                        }
+                        zSources = mSources.toArray( new Source[mSources.size()] );
+                    }
+                    boolean zRead = false;
+                    for ( Source zSource : zSources )
+                    {
+                        int zCount;
+                        try
+                        {
+                            zCount = zSource.pump( zBuffer );
+                        }
+                        catch ( RuntimeException e )
+                        {
+                            LOGGER.error.log( "Unable to pump the output of a process: ", e ); // Keep pumping (for the other processes)
+                            zSource.finish();
+                            zCount = -1;
+                        }
+                        if ( zCount == -1 )
+                        {
+                            remove( zSource );
+                        }
+                        else if ( zCount != 0 )
+                        {
+                            zRead = true;
+                        }
+                    }
+                    if ( zRead )
+                    {
+                        zIdleSleep = 1;
+                    }
+                    else
+                    {
+                        Thread.sleep( zIdleSleep );
+                        zIdleSleep = Math.min( MAX_IDLE_SLEEP_MS, zIdleSleep * 2 );
+                    }
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                // Daemon, only interrupted at shutdown
+            }
+        }
+
+        private synchronized void remove( Source pSource )
+        {
+            mSources.remove( pSource );
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.esotericsoftware.utils;
+
+import java.lang.management.*;
+
+import org.litesoft.logger.*;
+
+/**
+ * Admits heavyweight build steps (e.g. a GWT compile in its own -Xmx sized JVM, or javac) only while their declared costs fit in the
+ * memory and CPU budgets, so steps can run concurrently without over committing the machine (and the OOM killer taking out a GWT
+ * compile).
+ * <p/>
+ * Admission is first come first served, so a big step is not starved by a stream of small ones.  A step that costs more than a budget is
+ * admitted when it can run alone.  Leases must not be nested (a step holding one must not acquire another).
+ * <p/>
+ * <pre>
+ *  ResourceScheduler.Lease zLease = ResourceScheduler.getShared().acquire( "GWT", ResourceScheduler.parseMemoryMB( "1024m" ), 1 );
+ *  try
+ *  {
+ *      ...
+ *  }
+ *  finally
+ *  {
+ *      zLease.release();
+ *  }
+ * </pre>
+ */
+public class ResourceScheduler
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger( ResourceScheduler.class );
+
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    private static ResourceScheduler sShared;
+
+    private long mMemoryBudgetMB;
+    private int mCpuBudget;
+    private long mMemoryUsedMB;
+    private int mCpusUsed;
+    private long mNextTicket, mNextToAdmit;
+
+    /**
+     * @param pMemoryBudgetMB {@link #UNLIMITED} for no memory limit.
+     */
+    public ResourceScheduler( long pMemoryBudgetMB, int pCpuBudget )
+    {
+        setBudgets( pMemoryBudgetMB, pCpuBudget );
+    }
+
+    /**
+     * @return the scheduler shared by the build, by default with the memory budget of the physical memory less this JVM's max heap, and
+     *         a CPU budget of the available processors.
+     */
+    public static synchronized ResourceScheduler getShared()
+    {
+        if ( sShared == null )
+        {
+            sShared = new ResourceScheduler( defaultMemoryBudgetMB(), Runtime.getRuntime().availableProcessors() );
+        }
+        return sShared;
+    }
+
+    public synchronized long getMemoryBudgetMB()
+    {
+        return mMemoryBudgetMB;
+    }
+
+    public synchronized int getCpuBudget()
+    {
+        return mCpuBudget;
+    }
+
+    public synchronized void setBudgets( long pMemoryBudgetMB, int pCpuBudget )
+    {
+        mMemoryBudgetMB = Math.max( 1, pMemoryBudgetMB );
+        mCpuBudget = Math.max( 1, pCpuBudget );
+        notifyAll();
+    }
+
+    /**
+     * Wait until the costs fit in the budgets (and every step that asked before has been admitted).
+     *
+     * @param pWhat for the log.
+     */
+    public synchronized Lease acquire( String pWhat, long pMemoryMB, int pCpus )
+    {
+        long zMemoryMB = Math.max( 0, pMemoryMB );
+        int zCpus = Math.max( 0, pCpus );
+        long zTicket = mNextTicket++;
+        boolean zInterrupted = false;
+        if ( (zTicket != mNextToAdmit) || !fits( zMemoryMB, zCpus ) )
+        {
+            LOGGER.debug.log( "Waiting for ", zMemoryMB, "MB & ", zCpus, " CPUs: ", pWhat );
+            do
+            {
+                try
+                {
+                    wait();
+                }
+                catch ( InterruptedException e )
+                {
+                    zInterrupted = true; // Can't give up our turn, keep waiting
+                }
+            }
+            while ( (zTicket != mNextToAdmit) || !fits( zMemoryMB, zCpus ) );
+        }
+        mNextToAdmit++;
+        mMemoryUsedMB += zMemoryMB;
+        mCpusUsed += zCpus;
+        notifyAll(); // The next in line may fit too
+        if ( zInterrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+        return new Lease( zMemoryMB, zCpus );
+    }
+
+    private boolean fits( long pMemoryMB, int pCpus )
+    {
+        return ((mMemoryUsedMB == 0) || (pMemoryMB <= mMemoryBudgetMB - mMemoryUsedMB)) && //
+               ((mCpusUsed == 0) || (pCpus <= mCpuBudget - mCpusUsed));
+    }
+
+    private synchronized void release( Lease pLease )
+    {
+        mMemoryUsedMB -= pLease.mMemoryMB;
+        mCpusUsed -= pLease.mCpus;
+        notifyAll();
+    }
+
+    public class Lease
+    {
+        private final long mMemoryMB;
+        private final int mCpus;
+        private boolean mReleased;
+
+        private Lease( long pMemoryMB, int pCpus )
+        {
+            mMemoryMB = pMemoryMB;
+            mCpus = pCpus;
+        }
+
+        /**
+         * Give the resources back (only the first call counts).
+         */
+        public void release()
+        {
+            synchronized ( ResourceScheduler.this )
+            {
+                if ( mReleased )
+                {
+                    return;
+                }
+                mReleased = true;
+            }
+            ResourceScheduler.this.release( this );
+        }
+    }
+
+    /**
+     * @param pSize a java -Xmx style size, e.g. "1024m", "2G", or bytes (no suffix).
+     *
+     * @return the size in MB (rounded up).
+     */
+    public static long parseMemoryMB( String pSize )
+    {
+        String zSize = Util.assertNotEmpty( "Size", pSize ).toLowerCase();
+        int zPower = "kmgt".indexOf( zSize.charAt( zSize.length() - 1 ) ) + 1; // 0 if bytes
+        if ( zPower != 0 )
+        {
+            zSize = zSize.substring( 0, zSize.length() - 1 );
+        }
+        long zMultiplier = 1L << (10 * zPower);
+        long zBytes;
+        try
+        {
+            zBytes = Long.parseLong( zSize ) * zMultiplier;
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new IllegalArgumentException( "Not a memory size: " + pSize );
+        }
+        if ( zBytes < 0 )
+        {
+            throw new IllegalArgumentException( "Not a memory size: " + pSize );
+        }
+        return (zBytes + (1024 * 1024) - 1) / (1024 * 1024);
+    }
+
+    /**
+     * @param pCpus a whole number of CPUs, e.g. "4".
+     *
+     * @throws IllegalArgumentException if not a number, or not at least 1.
+     */
+    public static int parseCpus( String pCpus )
+    {
+        int zCpus;
+        try
+        {
+            zCpus = Integer.parseInt( Util.assertNotEmpty( "Cpus", pCpus ).trim() );
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new IllegalArgumentException( "Not a CPU count: " + pCpus );
+        }
+        if ( zCpus < 1 )
+        {
+            throw new IllegalArgumentException( "Not a CPU count (must be at least 1): " + pCpus );
+        }
+        return zCpus;
+    }
+
+    private static long defaultMemoryBudgetMB()
+    {
+        long zPhysical;
+        try // Only on JVMs with com.sun.management
+        {
+            Class<?> zBeanClass = Class.forName( "com.sun.management.OperatingSystemMXBean" );
+            zPhysical = (Long) zBeanClass.getMethod( "getTotalPhysicalMemorySize" ).invoke( ManagementFactory.getOperatingSystemMXBean() );
+        }
+        catch ( Exception e )
+        {
+            return UNLIMITED;
+        }
+        if ( zPhysical <= 0 )
+        {
+            return UNLIMITED;
+        }
+        long zAvailable = zPhysical - Runtime.getRuntime().maxMemory(); // Our own heap is not for the steps
+        return Math.max( zPhysical / 4, zAvailable ) / (1024 * 1024);
+    }
+}
@@ -1,5 +1,7 @@
 package com.esotericsoftware.utils;
 
+import java.security.*;
+
 import org.litesoft.logger.*;
 
 @SuppressWarnings({"UnusedDeclaration"})
@@ -96,6 +98,34 @@ public class Util
         return pSource;
     }
 
+    /**
+     * @return a new SHA-1 digest (which every JRE is required to have).
+     */
+    public static MessageDigest sha1()
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * @return the (lower case) hex of the bytes, e.g. of a digest.
+     */
+    public static String hex( byte[] pBytes )
+    {
+        StringBuilder sb = new StringBuilder( pBytes.length * 2 );
+        for ( byte zByte : pBytes )
+        {
+            sb.append( Character.forDigit( (zByte >> 4) & 0xF, 16 ) ).append( Character.forDigit( zByte & 0xF, 16 ) );
+        }
+        return sb.toString();
+    }
+
     public static String toString( Object o )
     {
         return (o != null) ? o.toString() : null;
@@ -0,0 +1,135 @@
+package com.esotericsoftware.filesystem;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class AssetBundlerTest
+{
+    private static final String BASE_CSS = "@charset \"UTF-8\";\nbody { background: url(../img/bg.png) }";
+    private static final String DARK_CSS = "@charset \"UTF-8\";\n" + //
+                                           ".x { background: url( 'img/star.png?v=1#f' ) }\n" + //
+                                           ".y { background: url(/img/abs.png) }\n" + //
+                                           ".z { background: url(data:image/png;base64,AAAA) }\n" + //
+                                           ".w { background: url(\"http://cdn.example.com/x.png\") }";
+
+    private File mDir;
+    private AssetBundler mBundler;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        mDir = File.createTempFile( "AssetBundlerTest", "" );
+        FileUtil.delete( mDir );
+        FileUtil.mkdir( mDir );
+        write( "js/a.js", "var a = 1;" );
+        write( "js/b.js", "var b = 2; // No semicolon after me" );
+        write( "css/base.css", BASE_CSS );
+        write( "css/theme/dark.css", DARK_CSS );
+        mBundler = new AssetBundler( mDir.getPath(), false ) //
+                .add( "bundles/app.js", Arrays.asList( "js/a.js", "js/b.js" ) ) //
+                .add( "site.css", Arrays.asList( "css/base.css", "css/theme/*.css" ) );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void runReplacedByTheBundle()
+    {
+        write( "index.html", "<head>\n" + //
+                             "<link rel=\"stylesheet\" href=\"css/base.css\">\n" + //
+                             "<link rel='stylesheet' href='/css/theme/dark.css?v=2'>\n" + //
+                             "<script src=\"js/a.js\"></script>\n" + //
+                             "<script src=\"js/b.js#x\"></script>\n" + //
+                             "</head>" );
+        write( "pages/about.html", "<script src=\"../js/a.js\"></script> <script src=\"../js/b.js\"></script><p>About</p>" );
+
+        assertEquals( 2, mBundler.bundle() );
+        assertEquals( "<head>\n" + //
+                      "<link rel=\"stylesheet\" href=\"site.css\">\n" + //
+                      "<script src=\"bundles/app.js\"></script>\n" + //
+                      "</head>", read( "index.html" ) );
+        assertEquals( "<script src=\"../bundles/app.js\"></script> <p>About</p>", read( "pages/about.html" ) );
+        assertEquals( mBundler.getWarnings().toString(), 0, mBundler.getWarnings().size() );
+
+        assertEquals( "var a = 1;\n;\nvar b = 2; // No semicolon after me\n;\n", read( "bundles/app.js" ) );
+        assertEquals( "var a = 1;", read( "js/a.js" ) ); // Members left in place
+    }
+
+    @Test
+    public void partialOrOutOfOrderRunsUntouched()
+    {
+        String zPartial = "<script src=\"../js/a.js\"></script>";
+        String zReversed = "<script src=\"js/b.js\"></script><script src=\"js/a.js\"></script>";
+        String zInterrupted = "<script src=\"js/a.js\"></script><script>inline();</script><script src=\"js/b.js\"></script>";
+        String zOther = "<script src=\"js/other.js\"></script><link rel=\"stylesheet\" href=\"css/base.css\">";
+        write( "pages/partial.html", zPartial );
+        write( "reversed.html", zReversed );
+        write( "interrupted.htm", zInterrupted );
+        write( "other.html", zOther );
+
+        assertEquals( 2, mBundler.bundle() );
+        assertEquals( zPartial, read( "pages/partial.html" ) );
+        assertEquals( zReversed, read( "reversed.html" ) );
+        assertEquals( zInterrupted, read( "interrupted.htm" ) );
+        assertEquals( zOther, read( "other.html" ) );
+
+        Set<String> zWarnings = new HashSet<String>( mBundler.getWarnings() );
+        assertEquals( new HashSet<String>( Arrays.asList( warning( "pages/partial.html", "bundles/app.js" ), //
+                                                          warning( "reversed.html", "bundles/app.js" ), //
+                                                          warning( "interrupted.htm", "bundles/app.js" ), //
+                                                          warning( "other.html", "site.css" ) ) ), zWarnings );
+    }
+
+    @Test
+    public void cssUrlsRebasedAndCharsetsStripped()
+    {
+        assertEquals( 2, mBundler.bundle() );
+        String zDark = DARK_CSS.replace( "@charset \"UTF-8\";\n", "" ); // Only the first member's is kept (only allowed at the start)
+        zDark = zDark.replace( "url( 'img/star.png?v=1#f' )", "url('css/theme/img/star.png?v=1#f')" );
+        assertEquals( BASE_CSS.replace( "../img/bg.png", "img/bg.png" ) + "\n" + zDark + "\n", read( "site.css" ) );
+    }
+
+    @Test
+    public void cssUrlsKeptInTheSameDirectory()
+    {
+        mBundler = new AssetBundler( mDir.getPath(), false ).add( "css/all.css", Arrays.asList( "css/base.css" ) );
+        assertEquals( 1, mBundler.bundle() );
+        assertEquals( BASE_CSS + "\n", read( "css/all.css" ) );
+    }
+
+    @Test
+    public void relative()
+    {
+        assertEquals( "a/b.js", AssetBundler.relative( "", "a/b.js" ) );
+        assertEquals( "b.js", AssetBundler.relative( "a/", "a/b.js" ) );
+        assertEquals( "../bundles/app.js", AssetBundler.relative( "pages/", "bundles/app.js" ) );
+        assertEquals( "../c.js", AssetBundler.relative( "a/b/", "a/c.js" ) );
+        assertEquals( "../../top.css", AssetBundler.relative( "a/b/", "top.css" ) );
+    }
+
+    private static String warning( String pHtml, String pBundle )
+    {
+        return "'" + pHtml + "' not rewritten to load '" + pBundle + "': it does not load all of its members, in order, together";
+    }
+
+    private void write( String pPath, String pText )
+    {
+        AssetFingerprinter.write( new File( mDir, pPath ), AssetFingerprinter.latin1( pText ) );
+    }
+
+    private String read( String pPath )
+    {
+        return AssetFingerprinter.latin1( AssetFingerprinter.read( new File( mDir, pPath ) ) );
+    }
+}
@@ -0,0 +1,160 @@
+package com.esotericsoftware.filesystem;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class AssetFingerprinterTest
+{
+    private static final String LOGO = "logo.1f2e3d4c.png";
+    private static final String APP = "app.5a6b7c8d.css";
+
+    private File mDir;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        mDir = File.createTempFile( "AssetFingerprinterTest", "" );
+        FileUtil.delete( mDir );
+        FileUtil.mkdir( mDir );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void resolve()
+    {
+        assertEquals( "css/img/a.png", AssetFingerprinter.resolve( "css/", "img/a.png" ) );
+        assertEquals( "css/a.png", AssetFingerprinter.resolve( "css/", "./a.png" ) );
+        assertEquals( "img/a.png", AssetFingerprinter.resolve( "css/", "../img/a.png" ) );
+        assertEquals( "img/a.png", AssetFingerprinter.resolve( "", "img//a.png" ) );
+        assertEquals( "img/a.png", AssetFingerprinter.resolve( "css/sub/", "/img/a.png" ) ); // Root absolute
+
+        assertNull( "outside the root", AssetFingerprinter.resolve( "css/", "../../a.png" ) );
+        assertNull( "other host", AssetFingerprinter.resolve( "css/", "//cdn.example.com/a.png" ) );
+        assertNull( "other scheme", AssetFingerprinter.resolve( "css/", "http://example.com/a.png" ) );
+        assertNull( "other scheme", AssetFingerprinter.resolve( "", "data:image/png;base64,a.png" ) );
+    }
+
+    @Test
+    public void hashedName()
+    {
+        String zName = AssetFingerprinter.hashedName( "logo.png", bytes( "logo" ) );
+        assertTrue( zName, zName.matches( "logo\\.[0-9a-f]{8}\\.png" ) );
+        assertEquals( zName, AssetFingerprinter.hashedName( "logo.png", bytes( "logo" ) ) );
+        assertFalse( zName.equals( AssetFingerprinter.hashedName( "logo.png", bytes( "changed" ) ) ) );
+
+        String zMinified = AssetFingerprinter.hashedName( "jquery.min.js", bytes( "logo" ) );
+        assertEquals( "jquery.min" + zName.substring( "logo".length(), zName.length() - "png".length() ) + "js", zMinified );
+
+        assertTrue( AssetFingerprinter.isHashed( zName, bytes( "logo" ) ) );
+        assertFalse( "other content", AssetFingerprinter.isHashed( zName, bytes( "changed" ) ) );
+        assertFalse( AssetFingerprinter.isHashed( "logo.png", bytes( "logo" ) ) );
+        assertFalse( AssetFingerprinter.isHashed( "jquery.min.js", bytes( "logo" ) ) );
+    }
+
+    @Test
+    public void relativeAndAbsoluteReferences()
+    {
+        assertEquals( "a { background: url(../img/" + LOGO + ") } b { background: url('/img/" + LOGO + "') }", //
+                      rewrite( "css/app.css", "a { background: url(../img/logo.png) } b { background: url('/img/logo.png') }" ) );
+        assertEquals( "<link href=\"css/" + APP + "\"><img src=\"/img/" + LOGO + "\">", //
+                      rewrite( "index.html", "<link href=\"css/app.css\"><img src=\"/img/logo.png\">" ) );
+        assertEquals( "<img src=\"../img/" + LOGO + "\">", rewrite( "pages/about.html", "<img src=\"../img/logo.png\">" ) );
+    }
+
+    @Test
+    public void queryAndFragmentKept()
+    {
+        assertEquals( "<img src=\"img/" + LOGO + "?v=2\"><img src=\"img/" + LOGO + "#top\"><link href=\"css/" + APP + "?a=1&b=2#x\">", //
+                      rewrite( "index.html", "<img src=\"img/logo.png?v=2\"><img src=\"img/logo.png#top\"><link href=\"css/app.css?a=1&b=2#x\">" ) );
+    }
+
+    @Test
+    public void otherReferencesUntouched()
+    {
+        assertUntouched( "index.html", "<img src=\"img/" + LOGO + "\">" ); // Already hashed
+        assertUntouched( "index.html", "<img src=\"img/other.png\">" );
+        assertUntouched( "index.html", "<img src=\"logo.png\">" ); // Not img/logo.png
+        assertUntouched( "index.html", "<img src=\"http://example.com/img/logo.png\">" );
+        assertUntouched( "index.html", "<img src=\"//example.com/img/logo.png\">" );
+        assertUntouched( "index.html", "<p>no references</p>" );
+    }
+
+    @Test
+    public void fingerprint()
+    {
+        write( "img/logo.png", "logo" );
+        write( "css/app.css", "a { background: url(../img/logo.png?v=1) }" );
+        write( "index.html", "<link href=\"css/app.css\"><img src=\"/img/logo.png#top\"><script src=\"js/app.js\"></script>" );
+        write( "js/app.js", "var logo = 'img/logo.png';" ); // Relative to the page
+        write( "WEB-INF/web.xml", "<web-app/>" );
+
+        assertEquals( 3, new AssetFingerprinter( mDir.getPath() ).fingerprint() );
+        String zLogo = AssetFingerprinter.hashedName( "logo.png", bytes( "logo" ) );
+        assertEquals( "logo", read( "img/" + zLogo ) );
+        String zCSS = "a { background: url(../img/" + zLogo + "?v=1) }";
+        assertEquals( zCSS, read( "css/app.css" ) );
+        String zApp = AssetFingerprinter.hashedName( "app.css", bytes( zCSS ) );
+        assertEquals( zCSS, read( "css/" + zApp ) );
+        String zJS = AssetFingerprinter.hashedName( "app.js", bytes( "var logo = 'img/logo.png';" ) ); // Not rewritten: js/img/logo.png
+        String zHTML = "<link href=\"css/" + zApp + "\"><img src=\"/img/" + zLogo + "#top\"><script src=\"js/" + zJS + "\"></script>";
+        assertEquals( zHTML, read( "index.html" ) );
+
+        Set<String> zFiles = files();
+        assertEquals( "Again, over the same directory", 3, new AssetFingerprinter( mDir.getPath() ).fingerprint() );
+        assertEquals( zFiles, files() );
+        assertEquals( zHTML, read( "index.html" ) );
+        assertEquals( zCSS, read( "css/" + zApp ) );
+    }
+
+    private String rewrite( String pRelativePath, String pText )
+    {
+        Map<String, String> zHashedNames = new HashMap<String, String>();
+        zHashedNames.put( "img/logo.png", LOGO );
+        zHashedNames.put( "css/app.css", APP );
+        return AssetFingerprinter.latin1( new AssetFingerprinter( mDir.getPath() ).rewrite( pRelativePath, bytes( pText ), zHashedNames ) );
+    }
+
+    private void assertUntouched( String pRelativePath, String pText )
+    {
+        byte[] zContent = bytes( pText );
+        Map<String, String> zHashedNames = Collections.singletonMap( "img/logo.png", LOGO );
+        assertSame( pText, zContent, new AssetFingerprinter( mDir.getPath() ).rewrite( pRelativePath, zContent, zHashedNames ) );
+    }
+
+    private void write( String pPath, String pText )
+    {
+        AssetFingerprinter.write( new File( mDir, pPath ), bytes( pText ) );
+    }
+
+    private String read( String pPath )
+    {
+        return AssetFingerprinter.latin1( AssetFingerprinter.read( new File( mDir, pPath ) ) );
+    }
+
+    private Set<String> files()
+    {
+        Set<String> zFiles = new HashSet<String>();
+        for ( FilePath zPath : new Paths( mDir.getPath(), "**" ).getPaths() )
+        {
+            zFiles.add( zPath.getFileSubPath().replace( File.separatorChar, '/' ) );
+        }
+        return zFiles;
+    }
+
+    private static byte[] bytes( String pText )
+    {
+        return AssetFingerprinter.latin1( pText );
+    }
+}
@@ -0,0 +1,40 @@
+package com.esotericsoftware.filesystem;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class CompressionPolicyTest
+{
+    @Test
+    public void alreadyCompressedAreStored()
+    {
+        CompressionPolicy zPolicy = new CompressionPolicy( 9 );
+        assertEquals( CompressionPolicy.STORE, zPolicy.levelFor( "Resources/splash/Default@2x~iphone.png" ) );
+        assertEquals( CompressionPolicy.STORE, zPolicy.levelFor( "WEB-INF/lib/gwt-servlet.JAR" ) );
+        assertEquals( CompressionPolicy.STORE, zPolicy.levelFor( "native.jar.lzma" ) );
+        assertEquals( 9, zPolicy.levelFor( "index.html" ) );
+        assertEquals( 9, zPolicy.levelFor( "png/readme" ) );
+    }
+
+    @Test
+    public void patternsWin()
+    {
+        CompressionPolicy zPolicy = new CompressionPolicy( 1 ).add( "**/*.png", 9 ).add( "big/**", CompressionPolicy.STORE );
+        assertEquals( 9, zPolicy.levelFor( "icons/icon.png" ) );
+        assertEquals( CompressionPolicy.STORE, zPolicy.levelFor( "big/data.txt" ) );
+        assertEquals( 1, zPolicy.levelFor( "small/data.txt" ) );
+    }
+
+    @Test
+    public void deflateAll()
+    {
+        assertEquals( -1, CompressionPolicy.DEFLATE_ALL.levelFor( "icon.png" ) );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badLevel()
+    {
+        new CompressionPolicy( 10 );
+    }
+}
@@ -0,0 +1,137 @@
+package com.esotericsoftware.filesystem;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class GzipSidecarsTest
+{
+    private File mDir;
+    private final GzipSidecars mSidecars = new GzipSidecars( 100 );
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        mDir = File.createTempFile( "GzipSidecarsTest", "" );
+        FileUtil.delete( mDir );
+        FileUtil.mkdir( new File( mDir, "js" ) );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void createdOnlyWhenWorthIt()
+            throws IOException
+    {
+        File zApp = write( "js/app.js", script( "app" ) );
+        write( "small.js", "var x;" );
+        random( "random.css" );
+        assertEquals( 1, mSidecars.createIn( mDir.getPath() ) );
+        assertEquals( script( "app" ), gunzip( sidecar( zApp ) ) );
+        assertFalse( new File( mDir, "small.js.gz" ).exists() );
+        assertFalse( new File( mDir, "random.css.gz" ).exists() );
+
+        assertEquals( "Up to date", 0, mSidecars.createIn( mDir.getPath() ) );
+    }
+
+    @Test
+    public void orphansDeleted()
+    {
+        File zApp = write( "js/app.js", script( "app" ) );
+        assertEquals( 1, mSidecars.createIn( mDir.getPath() ) );
+        File zHashed = new File( mDir, "js/app.1f2e3d4c.js" );
+        assertTrue( zApp.renameTo( zHashed ) ); // As fingerprinted
+
+        assertEquals( 1, mSidecars.createIn( mDir.getPath() ) );
+        assertFalse( sidecar( zApp ).exists() );
+        assertTrue( sidecar( zHashed ).isFile() );
+    }
+
+    @Test
+    public void stagedSidecarsRecreated()
+            throws IOException
+    {
+        File zApp = write( "js/app.js", script( "app" ) );
+        assertEquals( 1, mSidecars.createIn( mDir.getPath() ) );
+        write( "js/app.js", script( "rewritten" ) );
+        assertTrue( zApp.setLastModified( sidecar( zApp ).lastModified() ) ); // Within the timestamp resolution
+        File zOrphan = write( "js/gone.js.gz", "stale" );
+        File zArchive = write( "data.tar.gz", "not a sidecar" );
+
+        assertEquals( 1, mSidecars.recreateIn( mDir.getPath() ) );
+        assertEquals( script( "rewritten" ), gunzip( sidecar( zApp ) ) );
+        assertFalse( zOrphan.exists() );
+        assertTrue( zArchive.exists() );
+    }
+
+    private File write( String pPath, String pContent )
+    {
+        File zFile = new File( mDir, pPath );
+        FileUtil.updateFileContents( zFile, pContent );
+        return zFile;
+    }
+
+    private static File sidecar( File pFile )
+    {
+        return new File( pFile.getPath() + GzipSidecars.SUFFIX );
+    }
+
+    private static String script( String pName )
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < 100; i++ )
+        {
+            sb.append( "function " ).append( pName ).append( i ).append( "() { return " ).append( i ).append( "; }\n" );
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Not compressible (enough).
+     */
+    private void random( String pPath )
+            throws IOException
+    {
+        byte[] zBytes = new byte[1000];
+        new Random( 1 ).nextBytes( zBytes );
+        OutputStream zOut = new FileOutputStream( new File( mDir, pPath ) );
+        try
+        {
+            zOut.write( zBytes );
+        }
+        finally
+        {
+            zOut.close();
+        }
+    }
+
+    private static String gunzip( File pFile )
+            throws IOException
+    {
+        Reader zIn = new InputStreamReader( new GZIPInputStream( new FileInputStream( pFile ) ), "ISO-8859-1" );
+        try
+        {
+            StringBuilder sb = new StringBuilder();
+            for ( int zChar; (zChar = zIn.read()) != -1; )
+            {
+                sb.append( (char) zChar );
+            }
+            return sb.toString();
+        }
+        finally
+        {
+            zIn.close();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.esotericsoftware.filesystem;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class PathsTest
+{
+    private File mDir;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        mDir = File.createTempFile( "PathsTest", "" );
+        FileUtil.delete( mDir );
+        for ( String zPath : new String[]{"top.txt", "js/app.js", "js/lib/x.js", "css/a.css", "css/sub/b.css", "css/sub/deeper/c.css"} )
+        {
+            File zFile = new File( mDir, zPath );
+            FileUtil.mkdir( zFile.getParentFile() );
+            FileUtil.updateFileContents( zFile, zPath );
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void nestedPatterns()
+    {
+        assertEquals( set( "js/app.js" ), glob( "js/app.js" ) );
+        assertEquals( set( "js/lib/x.js" ), glob( "js/lib/x.js" ) );
+        assertEquals( set( "css/sub/b.css" ), glob( "css/sub/*.css" ) );
+        assertEquals( set( "css/sub/deeper/c.css" ), glob( "css/*/deeper/*.css" ) );
+        assertEquals( set( "css/sub/deeper/c.css" ), glob( "css/**/c.css" ) );
+        assertEquals( set( "js/app.js", "css/a.css" ), glob( "js/app.js", "css/a.css" ) );
+    }
+
+    @Test
+    public void anyDepthPatterns()
+    {
+        assertEquals( set( "css/a.css", "css/sub/b.css", "css/sub/deeper/c.css" ), glob( "**/*.css" ) );
+        assertEquals( set( "js/app.js", "js/lib/x.js" ), glob( "js/**" ) );
+        assertEquals( set( "top.txt", "js/app.js", "js/lib/x.js", "css/a.css", "css/sub/b.css", "css/sub/deeper/c.css" ), glob() );
+    }
+
+    @Test
+    public void excludes()
+    {
+        assertEquals( set( "css/a.css", "css/sub/b.css" ), glob( "**/*.css", "!**/deeper/**" ) );
+        assertEquals( set( "js/app.js" ), glob( "js/**", "!js/lib/**" ) );
+    }
+
+    private Set<String> glob( String... pPatterns )
+    {
+        Set<String> zSubPaths = new HashSet<String>();
+        for ( FilePath zPath : new Paths( mDir.getPath(), (pPatterns.length == 0) ? new String[]{"**"} : pPatterns ).getPaths() )
+        {
+            zSubPaths.add( zPath.getFileSubPath().replace( File.separatorChar, '/' ) );
+        }
+        return zSubPaths;
+    }
+
+    private static Set<String> set( String... pSubPaths )
+    {
+        return new HashSet<String>( Arrays.asList( pSubPaths ) );
+    }
+}
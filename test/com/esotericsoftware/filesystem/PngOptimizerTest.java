@@ -0,0 +1,69 @@
+package com.esotericsoftware.filesystem;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.io.*;
+import java.util.*;
+import javax.imageio.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class PngOptimizerTest
+{
+    @Test
+    public void smallerWithTheSamePixels()
+            throws IOException
+    {
+        for ( int zType : new int[]{BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_BYTE_INDEXED} )
+        {
+            byte[] zPng = png( image( zType ) );
+            byte[] zOptimized = PngOptimizer.optimize( zPng );
+
+            assertNotNull( "type " + zType, zOptimized );
+            assertTrue( "type " + zType, zOptimized.length < zPng.length );
+            assertArrayEquals( "type " + zType, pixels( zPng ), pixels( zOptimized ) );
+            assertNull( "already optimized, type " + zType, PngOptimizer.optimize( zOptimized ) );
+        }
+    }
+
+    @Test
+    public void notAPng()
+    {
+        assertNull( PngOptimizer.optimize( "not a png".getBytes() ) );
+        assertNull( PngOptimizer.optimize( new byte[0] ) );
+    }
+
+    private static BufferedImage image( int pType )
+    {
+        BufferedImage zImage = new BufferedImage( 120, 80, pType );
+        Graphics2D zGraphics = zImage.createGraphics();
+        zGraphics.setPaint( new GradientPaint( 0, 0, new Color( 255, 0, 0, 64 ), 120, 80, Color.BLUE ) );
+        zGraphics.fillRect( 0, 0, 120, 80 );
+        zGraphics.setColor( Color.GREEN );
+        zGraphics.drawString( "Scar", 10, 40 );
+        zGraphics.dispose();
+        Random zRandom = new Random( pType );
+        for ( int i = 0; i < 100; i++ )
+        {
+            zImage.setRGB( zRandom.nextInt( 120 ), zRandom.nextInt( 80 ), zRandom.nextInt() );
+        }
+        return zImage;
+    }
+
+    private static byte[] png( BufferedImage pImage )
+            throws IOException
+    {
+        ByteArrayOutputStream zOut = new ByteArrayOutputStream();
+        ImageIO.write( pImage, "png", zOut );
+        return zOut.toByteArray();
+    }
+
+    private static int[] pixels( byte[] pPng )
+            throws IOException
+    {
+        BufferedImage zImage = ImageIO.read( new ByteArrayInputStream( pPng ) );
+        return zImage.getRGB( 0, 0, zImage.getWidth(), zImage.getHeight(), null, 0, zImage.getWidth() );
+    }
+}
@@ -0,0 +1,245 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.jar.*;
+import javax.tools.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.filesystem.*;
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class ABIStubsTest
+{
+    private static final String OUTER = "package p;\n" + //
+                                        "public class Outer {\n" + //
+                                        "    public static final int K = 7;\n" + //
+                                        "    public static final int COMPUTED;\n" + //
+                                        "    static { COMPUTED = 6 * K; }\n" + //
+                                        "    public final java.util.List<String> mNames = new java.util.ArrayList<String>();\n" + //
+                                        "    { mNames.add( \"initialized\" ); }\n" + //
+                                        "    public final Runnable mTask = new Runnable() { public void run() { } };\n" + //
+                                        "    public class Inner {\n" + //
+                                        "        public final int mValue;\n" + //
+                                        "        public Inner( int pValue ) { mValue = pValue; }\n" + //
+                                        "    }\n" + //
+                                        "    public <T extends Comparable<T>> T max( T a, T b ) {\n" + //
+                                        "        class Local { }\n" + //
+                                        "        new Local();\n" + //
+                                        "        return (a.compareTo( b ) < 0) ? b : a;\n" + //
+                                        "    }\n" + //
+                                        "    private int secret() { return K; }\n" + //
+                                        "}\n";
+
+    private static final String SUB = "package p;\n" + //
+                                      "public class Sub extends Outer.Inner {\n" + //
+                                      "    public Sub( Outer pOuter, int pValue ) { pOuter.super( pValue * 2 ); }\n" + //
+                                      "    public Sub( int pValue ) {\n" + //
+                                      "        this( new Outer(), pValue );\n" + //
+                                      "    }\n" + //
+                                      "    public String toString() { super.toString(); return \"sub\"; }\n" + // Not a constructor call
+                                      "}\n";
+
+    private static final String BASE = "package p;\n" + //
+                                       "public abstract class Base {\n" + //
+                                       "    protected Base( String pName ) { }\n" + //
+                                       "    public abstract String name();\n" + //
+                                       "    public static class Named extends Base {\n" + //
+                                       "        public Named() { super( \"named\" ); }\n" + //
+                                       "        public String name() { return \"named\"; }\n" + //
+                                       "    }\n" + //
+                                       "}\n";
+
+    private static final String OP = "package p;\n" + //
+                                     "public enum Op {\n" + //
+                                     "    PLUS( \"+\" ) { public int apply( int a, int b ) { return a + b; } },\n" + //
+                                     "    MINUS( \"-\" ) { public int apply( int a, int b ) { return a - b; } };\n" + //
+                                     "    private final String mSymbol;\n" + //
+                                     "    Op( String pSymbol ) { mSymbol = pSymbol; }\n" + //
+                                     "    public abstract int apply( int a, int b );\n" + //
+                                     "    public String symbol() { return mSymbol; }\n" + //
+                                     "}\n";
+
+    private static final String SHAPE = "package p;\n" + //
+                                        "public interface Shape {\n" + //
+                                        "    int SIDES = 4;\n" + //
+                                        "    int area();\n" + //
+                                        "    default int twice() { return 2 * area(); }\n" + //
+                                        "}\n";
+
+    private File mDir;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        mDir = File.createTempFile( "ABIStubsTest", "" );
+        FileUtil.delete( mDir );
+        write( "src/p/Outer.java", OUTER );
+        write( "src/p/Sub.java", SUB );
+        write( "src/p/Base.java", BASE );
+        write( "src/p/Op.java", OP );
+        write( "src/p/Shape.java", SHAPE );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void bodiesStripped()
+    {
+        File zStubs = new File( mDir, "stubs" );
+        assertEquals( 5, ABIStubs.write( "1.8", new Paths( new File( mDir, "src" ).getPath(), "**.java" ), zStubs ) );
+        String zOuter = FileUtil.fileContents( new File( zStubs, "p/Outer.java" ) );
+        assertTrue( zOuter, zOuter.contains( "public Inner( int pValue ) { throw null; }" ) );
+        assertTrue( zOuter, zOuter.contains( "public <T extends Comparable<T>> T max( T a, T b ) { throw null; }" ) );
+        assertTrue( zOuter, zOuter.contains( "static { COMPUTED = 6 * K; }" ) );
+        assertTrue( zOuter, zOuter.contains( "{ mNames.add( \"initialized\" ); }" ) );
+        assertTrue( zOuter, zOuter.contains( "new Runnable() { public void run() { } }" ) );
+        assertFalse( zOuter, zOuter.contains( "class Local" ) );
+
+        String zSub = FileUtil.fileContents( new File( zStubs, "p/Sub.java" ) );
+        assertTrue( zSub, zSub.contains( "{ pOuter.super( pValue * 2 ); throw null; }" ) );
+        assertTrue( zSub, zSub.contains( "{ this( new Outer(), pValue ); throw null; }" ) );
+        assertTrue( zSub, zSub.contains( "public String toString() { throw null; }" ) );
+        String zBase = FileUtil.fileContents( new File( zStubs, "p/Base.java" ) );
+        assertTrue( zBase, zBase.contains( "public Named() { super( \"named\" ); throw null; }" ) );
+        assertTrue( zBase, zBase.contains( "protected Base( String pName ) { throw null; }" ) );
+
+        String zOp = FileUtil.fileContents( new File( zStubs, "p/Op.java" ) );
+        assertTrue( zOp, zOp.contains( "PLUS( \"+\" ) { public int apply( int a, int b ) { return a + b; } }" ) );
+        assertTrue( zOp, zOp.contains( "Op( String pSymbol ) { throw null; }" ) );
+
+        String zShape = FileUtil.fileContents( new File( zStubs, "p/Shape.java" ) );
+        assertTrue( zShape, zShape.contains( "default int twice() { throw null; }" ) );
+    }
+
+    @Test
+    public void stubsCompileToTheSameAPI()
+            throws Exception
+    {
+        ABIStubs.write( "1.8", new Paths( new File( mDir, "src" ).getPath(), "**.java" ), new File( mDir, "stubs" ) );
+        File zClasses = compile( "src" );
+        File zABIclasses = compile( "stubs" );
+        assertEquals( APIFingerprint.of( jar( zClasses ) ), APIFingerprint.of( jar( zABIclasses ) ) );
+
+        ClassLoader zLoader = new URLClassLoader( new URL[]{zABIclasses.toURI().toURL()}, null );
+        Class<?> zOuter = zLoader.loadClass( "p.Outer" );
+        assertEquals( 42, zOuter.getField( "COMPUTED" ).getInt( null ) ); // Initialized as the original
+        Class<?> zOp = Class.forName( "p.Op", false, zLoader ); // Not initialized: its (stubbed) constructor throws
+        assertTrue( zOp.getDeclaredField( "PLUS" ).isEnumConstant() && zOp.getDeclaredField( "MINUS" ).isEnumConstant() );
+        try
+        {
+            zOuter.getMethod( "max", Comparable.class, Comparable.class ).invoke( zOuter.newInstance(), 1, 2 );
+            fail( "Not stubbed" );
+        }
+        catch ( java.lang.reflect.InvocationTargetException expected )
+        {
+            assertTrue( expected.getCause() instanceof NullPointerException ); // throw null
+        }
+    }
+
+    @Test
+    public void annotationProcessorsFound()
+            throws IOException
+    {
+        File zPlain = new File( mDir, "plain.jar" );
+        File zProcessor = new File( mDir, "processor.jar" );
+        createJar( zPlain, "p/A.class" );
+        createJar( zProcessor, "q/P.class", ABIStubs.PROCESSOR_SERVICE );
+        File zServiceDir = new File( mDir, "classes" );
+        write( "classes/" + ABIStubs.PROCESSOR_SERVICE, "q.P\n" );
+
+        Paths zClasspath = new Paths();
+        zClasspath.add( FilePath.canonicalize( zPlain ) );
+        zClasspath.add( new Paths( new File( mDir, "src" ).getPath(), "**" ) );
+        assertNull( ABIStubs.findAnnotationProcessors( zClasspath ) );
+
+        zClasspath = new Paths();
+        zClasspath.add( FilePath.canonicalize( zPlain ) );
+        zClasspath.add( FilePath.canonicalize( zProcessor ) );
+        assertEquals( FileUtil.getCanonicalFile( zProcessor ), ABIStubs.findAnnotationProcessors( zClasspath ) );
+
+        zClasspath = new Paths();
+        zClasspath.add( FilePath.canonicalize( zPlain ) );
+        zClasspath.add( new Paths( zServiceDir.getPath(), "**" ) );
+        assertEquals( FileUtil.getCanonicalFile( new File( zServiceDir, ABIStubs.PROCESSOR_SERVICE ) ),
+                      ABIStubs.findAnnotationProcessors( zClasspath ) );
+    }
+
+    private void write( String pPath, String pContent )
+    {
+        File zFile = new File( mDir, pPath );
+        FileUtil.mkdir( zFile.getParentFile() );
+        FileUtil.updateFileContents( zFile, pContent );
+    }
+
+    private File compile( String pSourceDir )
+    {
+        File zClasses = FileUtil.mkdir( new File( mDir, pSourceDir + "-classes" ) );
+        List<String> zArgs = new ArrayList<String>( Arrays.asList( "-proc:none", "-d", zClasses.getPath() ) );
+        zArgs.addAll( new Paths( new File( mDir, pSourceDir ).getPath(), "**.java" ).getFullPaths() );
+        ByteArrayOutputStream zErrors = new ByteArrayOutputStream();
+        int zResult = ToolProvider.getSystemJavaCompiler().run( null, null, zErrors, zArgs.toArray( new String[zArgs.size()] ) );
+        assertEquals( zErrors.toString(), 0, zResult );
+        return zClasses;
+    }
+
+    private File jar( File pClasses )
+            throws IOException
+    {
+        File zJar = new File( pClasses.getPath() + ".jar" );
+        List<String> zEntries = new ArrayList<String>();
+        for ( FilePath zPath : new Paths( pClasses.getPath(), "**.class" ).getPaths() )
+        {
+            zEntries.add( zPath.getFileSubPath().replace( File.separatorChar, '/' ) );
+        }
+        JarOutputStream zOut = new JarOutputStream( new FileOutputStream( zJar ) );
+        try
+        {
+            for ( String zEntry : zEntries )
+            {
+                zOut.putNextEntry( new JarEntry( zEntry ) );
+                InputStream zIn = new FileInputStream( new File( pClasses, zEntry ) );
+                try
+                {
+                    FileUtil.append( zIn, zOut );
+                }
+                finally
+                {
+                    zIn.close();
+                }
+            }
+        }
+        finally
+        {
+            zOut.close();
+        }
+        return zJar;
+    }
+
+    private static void createJar( File pJar, String... pEntries )
+            throws IOException
+    {
+        JarOutputStream zOut = new JarOutputStream( new FileOutputStream( pJar ) );
+        try
+        {
+            for ( String zEntry : pEntries )
+            {
+                zOut.putNextEntry( new JarEntry( zEntry ) );
+                zOut.write( 0 );
+            }
+        }
+        finally
+        {
+            zOut.close();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.jar.*;
+import javax.tools.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class APIFingerprintTest
+{
+    private static final String API = "package p;\n" + //
+                                      "public class A {\n" + //
+                                      "    public static final int K = %s;\n" + //
+                                      "    %s\n" + //
+                                      "    public int f() { return %s; }\n" + //
+                                      "    public Runnable r() { return new Runnable() { public void run() { } }; }\n" + //
+                                      "}\n";
+
+    private File mDir;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        mDir = File.createTempFile( "APIFingerprintTest", "" );
+        FileUtil.delete( mDir );
+        FileUtil.mkdir( mDir );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void onlyTheAPIcounts()
+    {
+        String zFingerprint = fingerprint( "1", "", "1" );
+        assertEquals( zFingerprint, fingerprint( "1", "", "2" ) ); // Method body
+        assertEquals( zFingerprint, fingerprint( "1", "private int mPrivate;", "1" ) );
+        assertFalse( zFingerprint.equals( fingerprint( "2", "", "1" ) ) ); // Constant value
+        assertFalse( zFingerprint.equals( fingerprint( "1", "public void g() { }", "1" ) ) );
+        assertFalse( zFingerprint.equals( fingerprint( "1", "@Deprecated public void g() { }", "1" ) ) );
+    }
+
+    @Test
+    public void changedOnlyWhenTheAPIchanged()
+    {
+        File zFingerprintFile = new File( mDir, "jar.api" );
+        assertTrue( APIFingerprint.update( jar( "1", "", "1" ), zFingerprintFile ) );
+        long zLastModified = zFingerprintFile.lastModified();
+        assertFalse( APIFingerprint.update( jar( "1", "", "2" ), zFingerprintFile ) );
+        assertEquals( zLastModified, zFingerprintFile.lastModified() );
+        assertTrue( APIFingerprint.update( jar( "2", "", "2" ), zFingerprintFile ) );
+        assertTrue( APIFingerprint.update( new File( mDir, "missing.jar" ), zFingerprintFile ) );
+        assertFalse( zFingerprintFile.exists() );
+    }
+
+    private String fingerprint( String pConstant, String pMember, String pResult )
+    {
+        return APIFingerprint.of( jar( pConstant, pMember, pResult ) );
+    }
+
+    private File jar( String pConstant, String pMember, String pResult )
+    {
+        File zSource = new File( mDir, "src/p/A.java" );
+        File zClasses = new File( mDir, "classes" );
+        File zJar = new File( mDir, "A.jar" );
+        FileUtil.delete( zClasses );
+        FileUtil.mkdir( zSource.getParentFile() );
+        FileUtil.mkdir( zClasses );
+        FileUtil.updateFileContents( zSource, String.format( API, pConstant, pMember, pResult ) );
+        assertEquals( 0, ToolProvider.getSystemJavaCompiler().run( null, null, null, "-d", zClasses.getPath(), zSource.getPath() ) );
+        try
+        {
+            JarOutputStream zOut = new JarOutputStream( new FileOutputStream( zJar ) );
+            try
+            {
+                for ( String zName : new String[]{"A.class", "A$1.class"} )
+                {
+                    zOut.putNextEntry( new JarEntry( "p/" + zName ) );
+                    FileInputStream zIn = new FileInputStream( new File( zClasses, "p/" + zName ) );
+                    try
+                    {
+                        FileUtil.append( zIn, zOut );
+                    }
+                    finally
+                    {
+                        zIn.close();
+                    }
+                }
+            }
+            finally
+            {
+                zOut.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new WrappedIOException( e );
+        }
+        return zJar;
+    }
+}
@@ -0,0 +1,153 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class CompiledCodeCacheTest
+{
+    private static final String CODE = "public class Generated implements java.util.concurrent.Callable<Object> {\n" + //
+                                       "    static class Nested { String value() { return \"nested\"; } }\n" + //
+                                       "    public Object call() throws Exception {\n" + //
+                                       "        return new java.util.concurrent.Callable<String>() {\n" + //
+                                       "            public String call() { return new Nested().value(); }\n" + //
+                                       "        }.call();\n" + //
+                                       "    }\n" + //
+                                       "}\n";
+
+    private File mDir;
+    private CompiledCodeCache mCache;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        mDir = File.createTempFile( "CompiledCodeCacheTest", "" );
+        FileUtil.delete( mDir );
+        FileUtil.mkdir( mDir );
+        mCache = new CompiledCodeCache( new File( mDir, "classcache" ) );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void roundTrip()
+    {
+        String zKey = mCache.key( "code" );
+        assertNull( mCache.get( zKey ) );
+        Map<String, byte[]> zClasses = new HashMap<String, byte[]>();
+        zClasses.put( "Generated", new byte[]{1, 2, 3} );
+        zClasses.put( "Generated$1", new byte[0] );
+        mCache.put( zKey, zClasses );
+
+        Map<String, byte[]> zCached = mCache.get( zKey );
+        assertEquals( zClasses.keySet(), zCached.keySet() );
+        assertArrayEquals( new byte[]{1, 2, 3}, zCached.get( "Generated" ) );
+        assertArrayEquals( new byte[0], zCached.get( "Generated$1" ) );
+        assertNull( mCache.get( mCache.key( "other code" ) ) );
+        assertEquals( "No temporary files left", 1, new File( mDir, "classcache" ).list().length );
+    }
+
+    @Test
+    public void leastRecentlyUsedPruned()
+    {
+        mCache = new CompiledCodeCache( new File( mDir, "classcache" ), 2 );
+        Map<String, byte[]> zClasses = Collections.singletonMap( "Generated", new byte[]{1} );
+        long zNow = System.currentTimeMillis();
+        mCache.put( mCache.key( "a" ), zClasses );
+        age( "a", zNow - 60000 );
+        mCache.put( mCache.key( "b" ), zClasses );
+        age( "b", zNow - 30000 );
+        assertNotNull( mCache.get( mCache.key( "a" ) ) ); // Used, so now more recent than b
+
+        mCache.put( mCache.key( "c" ), zClasses );
+        assertNull( "pruned", mCache.get( mCache.key( "b" ) ) );
+        assertNotNull( mCache.get( mCache.key( "a" ) ) );
+        assertNotNull( mCache.get( mCache.key( "c" ) ) );
+        assertEquals( 2, new File( mDir, "classcache" ).list().length );
+    }
+
+    @Test
+    public void corruptEntriesNotUsed()
+            throws IOException
+    {
+        String zKey = mCache.key( "code" );
+        mCache.put( zKey, Collections.singletonMap( "Generated", new byte[]{1, 2, 3} ) );
+        File zEntry = new File( mDir, "classcache" ).listFiles()[0];
+        for ( int zLength : new int[]{-1, Integer.MAX_VALUE} )
+        {
+            DataOutputStream zOut = new DataOutputStream( new FileOutputStream( zEntry ) );
+            try
+            {
+                zOut.writeInt( 1 );
+                zOut.writeUTF( "Generated" );
+                zOut.writeInt( zLength );
+            }
+            finally
+            {
+                zOut.close();
+            }
+            assertNull( "Length: " + zLength, mCache.get( zKey ) );
+        }
+    }
+
+    @Test
+    public void keyCoversTheCompileClasspath()
+    {
+        File zJar = new File( mDir, "support.jar" );
+        File zClasses = new File( mDir, "classes" );
+        FileUtil.mkdir( new File( zClasses, "p" ) );
+        FileUtil.updateFileContents( zJar, "jar" );
+        FileUtil.updateFileContents( new File( zClasses, "p/A.class" ), "A" );
+        String zClassPath = System.getProperty( "java.class.path" );
+        try
+        {
+            System.setProperty( "java.class.path", zJar.getPath() + File.pathSeparator + zClasses.getPath() );
+            String zKey = mCache.key( "code" );
+            assertEquals( zKey, mCache.key( "code" ) );
+
+            assertTrue( zJar.setLastModified( zJar.lastModified() - 10000 ) );
+            String zJarTouched = mCache.key( "code" );
+            assertFalse( zKey.equals( zJarTouched ) );
+
+            FileUtil.updateFileContents( new File( zClasses, "p/B.class" ), "B" );
+            assertFalse( zJarTouched.equals( mCache.key( "code" ) ) );
+        }
+        finally
+        {
+            System.setProperty( "java.class.path", zClassPath );
+        }
+    }
+
+    @Test
+    public void nestedAndAnonymousClassesAreCompiledAndCached()
+            throws Exception
+    {
+        assertEquals( "nested", call( Utils.compileDynamicCodeToClass( mCache, 0, CODE ) ) );
+        Map<String, byte[]> zCached = mCache.get( mCache.key( CODE ) );
+        assertEquals( new HashSet<String>( Arrays.asList( "Generated", "Generated$Nested", "Generated$1" ) ), zCached.keySet() );
+
+        assertEquals( "nested", call( Utils.compileDynamicCodeToClass( mCache, 0, CODE ) ) ); // From the cache
+    }
+
+    private static Object call( Class<?> pGenerated )
+            throws Exception
+    {
+        return ((Callable<?>) pGenerated.newInstance()).call();
+    }
+
+    private void age( String pCode, long pLastModified )
+    {
+        assertTrue( new File( mDir, "classcache/" + mCache.key( pCode ) + ".classes" ).setLastModified( pLastModified ) );
+    }
+}
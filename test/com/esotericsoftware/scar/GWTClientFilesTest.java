@@ -0,0 +1,86 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class GWTClientFilesTest
+{
+    private static final String DOCTYPE = "<!DOCTYPE module PUBLIC \"-//Google Inc.//DTD Google Web Toolkit 2.4.0//EN\" " + //
+                                          "\"http://google-web-toolkit.googlecode.com/svn/tags/2.4.0/distro-source/core/src/gwt-module.dtd\">\n";
+
+    private File mSource, mResources;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        File zRoot = File.createTempFile( "GWTClientFilesTest", "" );
+        zRoot.delete();
+        mSource = new File( zRoot, "src" );
+        mResources = new File( zRoot, "res" );
+        write( mSource, "org/app/App.gwt.xml", DOCTYPE + "<module rename-to='app'>\n" + //
+                                               "  <inherits name='com.google.gwt.user.User'/>\n" + //
+                                               "  <inherits name='org.lib.Lib'/>\n" + //
+                                               "  <source path='client'/>\n" + //
+                                               "  <source path='shared/'/>\n" + //
+                                               "  <generate-with class='org.app.rebind.Gen'/>\n" + //
+                                               "  <entry-point class='org.app.client.App'/>\n" + //
+                                               "</module>\n" );
+        write( mSource, "org/app/client/App.java", "client" );
+        write( mSource, "org/app/server/Service.java", "server" );
+        write( mResources, "org/lib/Lib.gwt.xml", "<module/>" );
+        write( mResources, "org/lib/client/Lib.java", "lib client" );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mSource.getParentFile() );
+    }
+
+    @Test
+    public void clientVisiblePaths()
+    {
+        GWTClientFiles zFiles = new GWTClientFiles( Arrays.asList( mSource, mResources ) ).addModule( "org.app.App" );
+
+        assertEquals( new LinkedHashSet<String>( Arrays.asList( "org.app.App", "com.google.gwt.user.User", "org.lib.Lib" ) ), zFiles.getModules() );
+        assertEquals( new LinkedHashSet<String>( Arrays.asList( "org/app/client", "org/app/shared", "org/app/public", "org/app/rebind", //
+                                                                "org/lib/client", "org/lib/public" ) ), zFiles.getRelativeDirs() );
+    }
+
+    @Test
+    public void onlyClientChangesCount()
+    {
+        GWTClientFiles zFiles = new GWTClientFiles( Arrays.asList( mSource, mResources ) ).addModule( "org.app.App" );
+        long zBefore = zFiles.getGreatestLastModified();
+        assertTrue( zBefore != 0 );
+
+        assertTrue( new File( mSource, "org/app/server/Service.java" ).setLastModified( zBefore + 10000 ) );
+        assertEquals( zBefore, zFiles.getGreatestLastModified() );
+
+        assertTrue( new File( mResources, "org/lib/client/Lib.java" ).setLastModified( zBefore + 20000 ) );
+        assertEquals( zBefore + 20000, zFiles.getGreatestLastModified() );
+    }
+
+    private static void write( File pRoot, String pPath, String pContents )
+            throws IOException
+    {
+        File zFile = new File( pRoot, pPath );
+        zFile.getParentFile().mkdirs();
+        Writer zWriter = new OutputStreamWriter( new FileOutputStream( zFile ), "UTF-8" );
+        try
+        {
+            zWriter.write( pContents );
+        }
+        finally
+        {
+            zWriter.close();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.*;
+import java.util.jar.*;
+import javax.tools.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class GWTWorkerPoolTest
+{
+    /**
+     * Loads (through its own class loader, as GWT does its generators & linkers) the class named by the first argument, and exits with the
+     * second.
+     */
+    private static final String COMPILER = "package com.google.gwt.dev;\n" + //
+                                           "public class Compiler {\n" + //
+                                           "    public static void main( String[] args ) throws Exception {\n" + //
+                                           "        Class.forName( args[0] );\n" + //
+                                           "        System.exit( Integer.parseInt( args[1] ) );\n" + //
+                                           "    }\n" + //
+                                           "}\n";
+
+    private static final String GENERATOR = "package gen;\n" + //
+                                            "public class Generator {\n" + //
+                                            "}\n";
+
+    private File mDir;
+    private String mJava;
+    private List<String> mGWTjars, mProjectJars;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        mDir = File.createTempFile( "GWTWorkerPoolTest", "" );
+        FileUtil.delete( mDir );
+        FileUtil.mkdir( mDir );
+        mJava = new File( System.getProperty( "java.home" ), "bin/java" ).getPath();
+        mGWTjars = Collections.singletonList( jar( "gwt", "com/google/gwt/dev/Compiler", COMPILER ) );
+        mProjectJars = Collections.singletonList( jar( "project", "gen/Generator", GENERATOR ) );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void projectClassesAreFoundByTheCompilersClassLoader()
+            throws IOException
+    {
+        assertEquals( 0, GWTWorkerPool.compile( mJava, "64m", mGWTjars, mProjectJars, Arrays.asList( "gen.Generator", "0" ), 10 ) );
+        assertEquals( 0, GWTWorkerPool.compile( mJava, "64m", mGWTjars, mProjectJars, Arrays.asList( "gen.Generator", "0" ), 10 ) ); // Reused
+    }
+
+    @Test
+    public void failuresAreReported()
+            throws IOException
+    {
+        try
+        {
+            GWTWorkerPool.compile( mJava, "64m", mGWTjars, mProjectJars, Arrays.asList( "gen.Generator", "3" ), 10 );
+            fail( "Exit code 3 ignored" );
+        }
+        catch ( RuntimeException expected )
+        {
+            assertTrue( expected.getMessage(), expected.getMessage().startsWith( "Error (3)" ) );
+        }
+        try
+        {
+            GWTWorkerPool.compile( mJava, "64m", mGWTjars, Collections.<String>emptyList(), Arrays.asList( "gen.Generator", "0" ), 10 );
+            fail( "Not on the classpath" );
+        }
+        catch ( RuntimeException expected )
+        {
+            assertTrue( expected.getMessage(), expected.getMessage().startsWith( "Error (1)" ) );
+            assertTrue( expected.getMessage(), expected.getMessage().contains( "ClassNotFoundException: gen.Generator" ) );
+        }
+    }
+
+    private String jar( String pName, String pClass, String pSource )
+    {
+        File zSource = new File( mDir, pName + "/src/" + pClass + ".java" );
+        File zClasses = new File( mDir, pName + "/classes" );
+        File zJar = new File( mDir, pName + ".jar" );
+        FileUtil.mkdir( zSource.getParentFile() );
+        FileUtil.mkdir( zClasses );
+        FileUtil.updateFileContents( zSource, pSource );
+        assertEquals( 0, ToolProvider.getSystemJavaCompiler().run( null, null, null, "-d", zClasses.getPath(), zSource.getPath() ) );
+        try
+        {
+            JarOutputStream zOut = new JarOutputStream( new FileOutputStream( zJar ) );
+            try
+            {
+                zOut.putNextEntry( new JarEntry( pClass + ".class" ) );
+                FileInputStream zIn = new FileInputStream( new File( zClasses, pClass + ".class" ) );
+                try
+                {
+                    FileUtil.append( zIn, zOut );
+                }
+                finally
+                {
+                    zIn.close();
+                }
+            }
+            finally
+            {
+                zOut.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new WrappedIOException( e );
+        }
+        return zJar.getPath();
+    }
+}
@@ -0,0 +1,210 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.*;
+import java.util.jar.*;
+import java.util.zip.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class JarSigningTest
+{
+    private static final String ALIAS = "test";
+    private static final String PASSWORD = "secret";
+
+    private File mDir, mJar;
+    private String mKeystore;
+    private final Scar mScar = new Scar( null );
+
+    @Before
+    public void setUp()
+            throws Exception
+    {
+        mDir = File.createTempFile( "JarSigningTest", "" );
+        FileUtil.delete( mDir );
+        FileUtil.mkdir( mDir );
+        mKeystore = new File( mDir, "test.keystore" ).getPath();
+        File zKeytool = new File( System.getProperty( "java.home" ), "bin/keytool" );
+        if ( !zKeytool.isFile() )
+        {
+            zKeytool = new File( System.getProperty( "java.home" ), "../bin/keytool" ); // A Java 8 JDK's jre
+        }
+        Process zProcess = new ProcessBuilder( zKeytool.getPath(), "-genkeypair", "-keystore", mKeystore, "-alias", ALIAS, //
+                                               "-storepass", PASSWORD, "-keypass", PASSWORD, "-keyalg", "RSA", "-dname", "CN=Test" ) //
+                .redirectErrorStream( true ).start();
+        FileUtil.copyStreamAndCloseEm( zProcess.getInputStream(), new ByteArrayOutputStream() );
+        assertEquals( 0, zProcess.waitFor() );
+        mJar = createJar( new File( mDir, "test.jar" ) );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void signUnsignRoundTrip()
+            throws IOException
+    {
+        if ( !InProcessJarSigner.isAvailable() )
+        {
+            return; // Signed with the "jarsigner" tool
+        }
+        mScar.sign( mJar.getPath(), mKeystore, ALIAS, PASSWORD );
+        assertSigned( mJar );
+
+        mScar.unsign( mJar.getPath() );
+        assertUnsigned( mJar, true );
+
+        mScar.sign( mJar.getPath(), mKeystore, ALIAS, PASSWORD ); // As unsignAndSign() does
+        assertSigned( mJar );
+    }
+
+    @Test
+    public void rawAndStreamedUnsignAgree()
+            throws IOException
+    {
+        if ( !InProcessJarSigner.isAvailable() )
+        {
+            return;
+        }
+        mScar.sign( mJar.getPath(), mKeystore, ALIAS, PASSWORD );
+        File zRaw = new File( mDir, "raw.jar" );
+        File zStreamed = new File( mDir, "streamed.jar" );
+        assertTrue( mScar.unsignRaw( mJar.getPath(), zRaw ) );
+        mScar.unsignStreamed( mJar.getPath(), zStreamed );
+        assertUnsigned( zRaw, true );
+        assertUnsigned( zStreamed, false ); // Recompressed
+    }
+
+    @Test
+    public void cachedKeyNeedsItsPassword()
+    {
+        if ( !InProcessJarSigner.isAvailable() )
+        {
+            return;
+        }
+        mScar.sign( mJar.getPath(), mKeystore, ALIAS, PASSWORD ); // Caches the key
+        mScar.unsign( mJar.getPath() );
+        try
+        {
+            mScar.sign( mJar.getPath(), mKeystore, ALIAS, "wrong password" );
+            fail( "Signed with the wrong password" );
+        }
+        catch ( RuntimeException expected )
+        {
+            assertTrue( expected.getMessage(), expected.getMessage().startsWith( "Error reading keystore" ) );
+        }
+        mScar.sign( mJar.getPath(), mKeystore, ALIAS, PASSWORD );
+    }
+
+    private static File createJar( File pJar )
+            throws IOException
+    {
+        Manifest zManifest = new Manifest();
+        zManifest.getMainAttributes().put( Attributes.Name.MANIFEST_VERSION, "1.0" );
+        zManifest.getMainAttributes().put( Attributes.Name.MAIN_CLASS, "p.Main" );
+        JarOutputStream zOut = new JarOutputStream( new FileOutputStream( pJar ), zManifest );
+        try
+        {
+            zOut.putNextEntry( new JarEntry( "p/Main.class" ) );
+            zOut.write( content( "p/Main.class" ) );
+            byte[] zStored = content( "p/stored.txt" );
+            JarEntry zEntry = new JarEntry( "p/stored.txt" );
+            zEntry.setMethod( ZipEntry.STORED );
+            zEntry.setSize( zStored.length );
+            CRC32 zCRC = new CRC32();
+            zCRC.update( zStored );
+            zEntry.setCrc( zCRC.getValue() );
+            zOut.putNextEntry( zEntry );
+            zOut.write( zStored );
+        }
+        finally
+        {
+            zOut.close();
+        }
+        return pJar;
+    }
+
+    private static byte[] content( String pName )
+            throws UnsupportedEncodingException
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < 200; i++ )
+        {
+            sb.append( pName ).append( ' ' ).append( i ).append( '\n' );
+        }
+        return sb.toString().getBytes( "UTF-8" );
+    }
+
+    private static void assertSigned( File pJar )
+            throws IOException
+    {
+        JarFile zJar = new JarFile( pJar, true );
+        try
+        {
+            Set<String> zSigned = new HashSet<String>();
+            for ( JarEntry zEntry : Collections.list( zJar.entries() ) )
+            {
+                assertArrayEquals( zEntry.getName(), expected( zEntry.getName() ), read( zJar, zEntry ) ); // Verifies it
+                if ( zEntry.getName().startsWith( "p/" ) && (zEntry.getCodeSigners() != null) )
+                {
+                    zSigned.add( zEntry.getName() );
+                }
+            }
+            assertEquals( new HashSet<String>( Arrays.asList( "p/Main.class", "p/stored.txt" ) ), zSigned );
+            assertNotNull( zJar.getEntry( "META-INF/TEST.SF" ) );
+        }
+        finally
+        {
+            zJar.close();
+        }
+    }
+
+    private static void assertUnsigned( File pJar, boolean pAsIs )
+            throws IOException
+    {
+        JarFile zJar = new JarFile( pJar, true );
+        try
+        {
+            List<String> zNames = new ArrayList<String>();
+            for ( JarEntry zEntry : Collections.list( zJar.entries() ) )
+            {
+                zNames.add( zEntry.getName() );
+                assertArrayEquals( zEntry.getName(), expected( zEntry.getName() ), read( zJar, zEntry ) );
+                assertNull( zEntry.getName(), zEntry.getCodeSigners() );
+            }
+            assertEquals( Arrays.asList( JarFile.MANIFEST_NAME, "p/Main.class", "p/stored.txt" ), zNames );
+            Manifest zManifest = zJar.getManifest();
+            assertTrue( zManifest.getEntries().isEmpty() );
+            assertEquals( "p.Main", zManifest.getMainAttributes().getValue( Attributes.Name.MAIN_CLASS ) );
+            assertEquals( pAsIs ? ZipEntry.STORED : ZipEntry.DEFLATED, zJar.getEntry( "p/stored.txt" ).getMethod() );
+        }
+        finally
+        {
+            zJar.close();
+        }
+    }
+
+    /**
+     * @return null if not one of the entries written by createJar.
+     */
+    private static byte[] expected( String pName )
+            throws UnsupportedEncodingException
+    {
+        return pName.startsWith( "p/" ) ? content( pName ) : null;
+    }
+
+    private static byte[] read( JarFile pJar, JarEntry pEntry )
+            throws IOException
+    {
+        ByteArrayOutputStream zOut = new ByteArrayOutputStream();
+        FileUtil.copyStreamAndCloseEm( pJar.getInputStream( pEntry ), zOut );
+        return pEntry.getName().startsWith( "p/" ) ? zOut.toByteArray() : null;
+    }
+}
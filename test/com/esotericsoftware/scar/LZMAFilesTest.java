@@ -0,0 +1,93 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class LZMAFilesTest
+{
+    private File mDir, mFile;
+    private final Scar mScar = new Scar( null );
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        mDir = File.createTempFile( "LZMAFilesTest", "" );
+        FileUtil.delete( mDir );
+        FileUtil.mkdir( mDir );
+        mFile = new File( mDir, "app.jar" );
+        FileUtil.updateFileContents( mFile, content() );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void standardRoundTrip()
+    {
+        String zLzma = mScar.lzma( mFile.getPath() );
+        assertEquals( mFile.getPath() + ".lzma", zLzma );
+        assertFalse( "Deleted", mFile.exists() );
+        assertFalse( LZMA.isChunked( new File( zLzma ) ) );
+        assertTrue( new File( zLzma ).length() < (content().length() / 2) );
+
+        assertEquals( mFile.getPath(), mScar.unlzma( zLzma ) );
+        assertFalse( "Deleted", new File( zLzma ).exists() );
+        assertEquals( content(), FileUtil.fileContents( mFile ) );
+    }
+
+    @Test
+    public void chunkedRoundTrip()
+    {
+        String zLzma = mScar.lzmaChunked( mFile.getPath(), new File( mDir, "chunked.lzma" ).getPath(), LZMA.MIN_DICTIONARY_SIZE );
+        assertTrue( "Kept", mFile.exists() );
+        assertTrue( LZMA.isChunked( new File( zLzma ) ) );
+
+        File zDecoded = new File( mDir, "decoded.jar" );
+        assertEquals( zDecoded.getPath(), mScar.unlzma( zLzma, zDecoded.getPath() ) ); // Detects the format
+        assertEquals( content(), FileUtil.fileContents( zDecoded ) );
+    }
+
+    @Test
+    public void notLzma()
+    {
+        try
+        {
+            mScar.unlzma( mFile.getPath() );
+            fail( "Decoded a file without the .lzma extension" );
+        }
+        catch ( IllegalArgumentException expected )
+        {
+            // Good
+        }
+        try
+        {
+            mScar.unlzma( mFile.getPath(), new File( mDir, "decoded.jar" ).getPath() );
+            fail( "Decoded a file that is not LZMA" );
+        }
+        catch ( WrappedIOException expected )
+        {
+            assertTrue( expected.getMessage(), expected.getMessage().startsWith( "Error lzma decompressing file" ) );
+        }
+    }
+
+    private static String content()
+    {
+        StringBuilder sb = new StringBuilder();
+        Random zRandom = new Random( 1 );
+        for ( int i = 0; i < 5000; i++ )
+        {
+            sb.append( "line " ).append( zRandom.nextInt( 1000 ) ).append( '\n' );
+        }
+        return sb.toString();
+    }
+}
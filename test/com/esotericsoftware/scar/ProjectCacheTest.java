@@ -0,0 +1,114 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class ProjectCacheTest
+{
+    private File mDir;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        mDir = FileUtil.getCanonicalFile( File.createTempFile( "ProjectCacheTest", "" ) );
+        FileUtil.delete( mDir );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void diamond()
+    {
+        write( "A", "../B", "../C" );
+        write( "B", "../D" );
+        write( "C", "../D" );
+        write( "D" );
+
+        Project zA = new Scar( null ).project( mDir, "A" );
+        Project zB = zA.mDependantProjects.get( 0 );
+        Project zC = zA.mDependantProjects.get( 1 );
+        assertEquals( "B", zB.getName() ); // Order kept
+        assertEquals( "C", zC.getName() );
+        assertEquals( "D", zB.mDependantProjects.get( 0 ).getName() );
+        assertSame( "Loaded once", zB.mDependantProjects.get( 0 ), zC.mDependantProjects.get( 0 ) );
+    }
+
+    @Test
+    public void sameProjectByDirectoryAndBuildFile()
+    {
+        write( "A", "../B", "../C" );
+        write( "B" );
+        write( "C", "../B/Build.yaml" );
+
+        Project zA = new Scar( null ).project( mDir, "A" );
+        assertSame( zA.mDependantProjects.get( 0 ), zA.mDependantProjects.get( 1 ).mDependantProjects.get( 0 ) );
+    }
+
+    @Test
+    public void cycle()
+    {
+        write( "A", "../B" );
+        write( "B", "../C" );
+        write( "C", "../A" );
+        assertCycle( "A", "C", "A", "B", "C" ); // Reported from the load that would close it
+    }
+
+    @Test
+    public void selfDependency()
+    {
+        write( "A", "." );
+        assertCycle( "A", "A", "A" );
+    }
+
+    @Test
+    public void cycleThroughTheBuildFile()
+    {
+        write( "A", "../B" );
+        write( "B", "../A" ); // The directory, while A was loaded by its build file
+        assertCycle( "A/Build.yaml", "A", "A/Build.yaml", "B", "A" );
+    }
+
+    private void assertCycle( String pLaunchPath, String pWaiterPath, String... pWaitsFor )
+    {
+        StringBuilder sb = new StringBuilder( "Cyclic project dependencies:\n   " ).append( new File( mDir, pWaiterPath ) );
+        for ( String zPath : pWaitsFor )
+        {
+            sb.append( "\n-> " ).append( new File( mDir, zPath ) );
+        }
+        try
+        {
+            new Scar( null ).project( mDir, pLaunchPath );
+            fail( "Cycle not detected" );
+        }
+        catch ( IllegalStateException expected )
+        {
+            assertEquals( sb.toString(), expected.getMessage() );
+        }
+    }
+
+    private void write( String pName, String... pDependencies )
+    {
+        StringBuilder sb = new StringBuilder( "name: " ).append( pName ).append( '\n' );
+        if ( pDependencies.length != 0 )
+        {
+            sb.append( "dependencies:\n" );
+            for ( String zDependency : pDependencies )
+            {
+                sb.append( "- " ).append( zDependency ).append( '\n' );
+            }
+        }
+        File zFile = new File( mDir, pName + "/Build.yaml" );
+        FileUtil.mkdir( zFile.getParentFile() );
+        FileUtil.updateFileContents( zFile, sb.toString() );
+    }
+}
@@ -0,0 +1,138 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class ProjectModelCacheTest
+{
+    private File mDir, mCacheFile, mBuildFile;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        mDir = File.createTempFile( "ProjectModelCacheTest", "" );
+        mDir.delete();
+        mCacheFile = new File( mDir, "cache/projects.cache" );
+        mBuildFile = new File( mDir, "Build.yaml" );
+        FileUtil.mkdir( mDir );
+        FileUtil.updateFileContents( mBuildFile, "name: Test\n" );
+        assertTrue( mBuildFile.setLastModified( System.currentTimeMillis() - 60000 ) );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void roundTrip()
+    {
+        ProjectModelCache zCache = new ProjectModelCache( mCacheFile );
+        assertNull( zCache.get( mBuildFile, mDir ) );
+        zCache.put( mBuildFile, mDir, mBuildFile.lastModified(), mBuildFile.length(), data() );
+        zCache.save();
+
+        zCache = new ProjectModelCache( mCacheFile );
+        assertEquals( data(), zCache.get( mBuildFile, mDir ) );
+        assertNotSame( zCache.get( mBuildFile, mDir ), zCache.get( mBuildFile, mDir ) );
+        assertNull( "other project dir", zCache.get( mBuildFile, mCacheFile.getParentFile() ) );
+
+        assertTrue( mBuildFile.setLastModified( mBuildFile.lastModified() + 5000 ) );
+        assertNull( "changed", zCache.get( mBuildFile, mDir ) );
+    }
+
+    @Test
+    public void recentlyModifiedAndCorruptNotUsed()
+    {
+        ProjectModelCache zCache = new ProjectModelCache( mCacheFile );
+        zCache.put( mBuildFile, mDir, System.currentTimeMillis(), mBuildFile.length(), data() );
+        assertNull( zCache.get( mBuildFile, mDir ) );
+
+        FileUtil.mkdir( mCacheFile.getParentFile() );
+        FileUtil.updateFileContents( mCacheFile, "garbage" );
+        assertNull( new ProjectModelCache( mCacheFile ).get( mBuildFile, mDir ) );
+    }
+
+    @Test
+    public void corruptLengthsNotUsed()
+            throws IOException
+    {
+        ProjectModelCache zCache = new ProjectModelCache( mCacheFile );
+        zCache.put( mBuildFile, mDir, mBuildFile.lastModified(), mBuildFile.length(), data() );
+        zCache.save();
+        byte[] zSaved = read( mCacheFile );
+        int zBuildFilePath = 12; // After the magic, version & entry count
+        int zProjectDirPath = zBuildFilePath + 4 + intAt( zSaved, zBuildFilePath );
+        int zData = zProjectDirPath + 4 + intAt( zSaved, zProjectDirPath ) + 8 + 8;
+        int zFirstKey = zData + 4 + 1 + 4; // After the data length, and its (map) type & size
+        for ( int zLengthAt : new int[]{zBuildFilePath, zData, zFirstKey + 1} )
+        {
+            for ( int zLength : new int[]{-1, Integer.MIN_VALUE, Integer.MAX_VALUE} )
+            {
+                byte[] zCorrupt = zSaved.clone();
+                zCorrupt[zLengthAt] = (byte) (zLength >> 24);
+                zCorrupt[zLengthAt + 1] = (byte) (zLength >> 16);
+                zCorrupt[zLengthAt + 2] = (byte) (zLength >> 8);
+                zCorrupt[zLengthAt + 3] = (byte) zLength;
+                write( mCacheFile, zCorrupt );
+                assertNull( zLengthAt + ": " + zLength, new ProjectModelCache( mCacheFile ).get( mBuildFile, mDir ) );
+            }
+        }
+    }
+
+    private static int intAt( byte[] pBytes, int pOffset )
+            throws IOException
+    {
+        return new DataInputStream( new ByteArrayInputStream( pBytes, pOffset, 4 ) ).readInt();
+    }
+
+    private static byte[] read( File pFile )
+            throws IOException
+    {
+        byte[] zBytes = new byte[(int) pFile.length()];
+        DataInputStream zIn = new DataInputStream( new FileInputStream( pFile ) );
+        try
+        {
+            zIn.readFully( zBytes );
+        }
+        finally
+        {
+            zIn.close();
+        }
+        return zBytes;
+    }
+
+    private static void write( File pFile, byte[] pBytes )
+            throws IOException
+    {
+        OutputStream zOut = new FileOutputStream( pFile );
+        try
+        {
+            zOut.write( pBytes );
+        }
+        finally
+        {
+            zOut.close();
+        }
+    }
+
+    private static Map<Object, Object> data()
+    {
+        Map<Object, Object> zData = new HashMap<Object, Object>();
+        zData.put( "name", "Test" );
+        zData.put( "dependencies", new ArrayList<Object>( Arrays.asList( "../Other", "../Third" ) ) );
+        Map<Object, Object> zBundles = new HashMap<Object, Object>();
+        zBundles.put( "app.js", Arrays.asList( "js/a.js", "js/b.js" ) );
+        zData.put( "bundles", zBundles );
+        zData.put( "empty", null );
+        return zData;
+    }
+}
@@ -0,0 +1,53 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class ProjectParametersTest
+{
+    private static final File DIR = new File( System.getProperty( "java.io.tmpdir" ) ).getAbsoluteFile();
+
+    private ProjectParameters create()
+    {
+        Map<Object, Object> zData = new HashMap<Object, Object>();
+        zData.put( "target", "build/$kind$" );
+        zData.put( "kind", "classes" );
+        zData.put( "count", 3 );
+        return new ProjectParameters( new File( DIR, "Build.yaml" ), "Test", DIR, zData );
+    }
+
+    @Test
+    public void format()
+    {
+        ProjectParameters zParameters = create();
+        assertEquals( "no names", zParameters.format( "no names" ) );
+        assertEquals( "$$", zParameters.format( "$$" ) );
+        assertEquals( "build/classes/Test.jar", zParameters.format( "$target$/$name$.jar" ) );
+        assertEquals( "[3]", zParameters.format( "[$count$]" ) );
+        assertEquals( "unknown!", zParameters.format( "$unknown$!" ) );
+        assertEquals( "a$$b", zParameters.format( "a$$b" ) );
+        assertEquals( "3b", zParameters.format( "a$$count$b$c" ) ); // As the formatPattern always has
+    }
+
+    @Test
+    public void invalidatedByReferencedKeys()
+    {
+        ProjectParameters zParameters = create();
+        assertEquals( "build/classes/Test", zParameters.format( "$target$/$name$" ) );
+        assertEquals( new File( DIR, "build/classes" ).getPath(), zParameters.path( "$target$" ) );
+        zParameters.mManager.put( "jar", "$target$/Test.jar" );
+        assertEquals( new File( DIR, "build/classes/Test.jar" ).getPath(), zParameters.getPath( "jar" ) );
+
+        zParameters.mManager.put( "kind", "gwt" ); // Referenced through "target"
+        assertEquals( "build/gwt/Test", zParameters.format( "$target$/$name$" ) );
+        assertEquals( new File( DIR, "build/gwt" ).getPath(), zParameters.path( "$target$" ) );
+        assertEquals( new File( DIR, "build/gwt/Test.jar" ).getPath(), zParameters.getPath( "jar" ) );
+
+        zParameters.mManager.put( "target", null );
+        assertEquals( "target/Test", zParameters.format( "$target$/$name$" ) );
+    }
+}
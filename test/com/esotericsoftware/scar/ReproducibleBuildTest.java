@@ -0,0 +1,110 @@
+package com.esotericsoftware.scar;
+
+import java.io.*;
+import java.util.*;
+import java.util.jar.*;
+
+import org.junit.*;
+
+import com.esotericsoftware.filesystem.*;
+import com.esotericsoftware.utils.*;
+
+import static org.junit.Assert.*;
+
+public class ReproducibleBuildTest
+{
+    private static final String[][] FILES = { //
+            {"src/p/Main.java", "package p; public class Main { public static void main( String[] args ) { new Other(); } }"}, //
+            {"src/p/Other.java", "package p; class Other { }"}, //
+            {"src/q/Util.java", "package q; public class Util { }"}, //
+            {"res/config.txt", "key=value"}, //
+            {"res/a/z.txt", "z"}, //
+            {"res/a/b.txt", "b"}, //
+            {"res/images/logo.png", "not really a png"}, //
+    };
+
+    private File mDir;
+
+    @Before
+    public void setUp()
+            throws IOException
+    {
+        mDir = FileUtil.getCanonicalFile( File.createTempFile( "ReproducibleBuildTest", "" ) );
+        FileUtil.delete( mDir );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtil.delete( mDir );
+    }
+
+    @Test
+    public void sameInputsSameBytes()
+    {
+        byte[] zFirst = build( "first", false );
+        byte[] zSecond = build( "second", true );
+        assertArrayEquals( zFirst, zSecond );
+
+        JarInputStream zJar = null;
+        try
+        {
+            zJar = new JarInputStream( new ByteArrayInputStream( zFirst ) );
+            assertEquals( "p.Main", zJar.getManifest().getMainAttributes().getValue( Attributes.Name.MAIN_CLASS ) );
+            List<String> zNames = new ArrayList<String>();
+            for ( JarEntry zEntry; null != (zEntry = zJar.getNextJarEntry()); )
+            {
+                zNames.add( zEntry.getName() );
+                assertEquals( zEntry.getName(), ReproducibleZipFactory.ENTRY_TIME, zEntry.getTime() ); // Not when it was zipped
+            }
+            List<String> zSorted = new ArrayList<String>( zNames );
+            Collections.sort( zSorted );
+            assertEquals( zSorted, zNames ); // After the manifest
+        }
+        catch ( IOException e )
+        {
+            throw new WrappedIOException( e );
+        }
+        finally
+        {
+            FileUtil.dispose( zJar );
+        }
+    }
+
+    /**
+     * @param pReversed write the files in the reverse order, with different timestamps.
+     *
+     * @return the bytes of the project's JAR.
+     */
+    private byte[] build( String pDir, boolean pReversed )
+    {
+        File zProjectDir = new File( mDir, pDir );
+        List<String[]> zFiles = new ArrayList<String[]>( Arrays.asList( FILES ) );
+        if ( pReversed )
+        {
+            Collections.reverse( zFiles );
+        }
+        long zTime = System.currentTimeMillis() - (pReversed ? 3600000 : 7200000);
+        for ( String[] zFile : zFiles )
+        {
+            write( new File( zProjectDir, zFile[0] ), zFile[1], zTime += 10000 );
+        }
+        write( new File( zProjectDir, "Build.yaml" ), "name: P\n" + //
+                                                      "main: p.Main\n" + //
+                                                      "resources: res\n" + //
+                                                      "reproducible: true\n", zTime );
+
+        Project zProject = new Scar( null ).project( mDir, pDir );
+        assertTrue( zProject.build() );
+        ByteArrayOutputStream zJar = new ByteArrayOutputStream();
+        FileUtil.copyStreamAndCloseEm( FileUtil.createFileInputStream( zProject.getJarPathFile() ), zJar );
+        return zJar.toByteArray();
+    }
+
+    private static void write( File pFile, String pContent, long pLastModified )
+    {
+        FileUtil.mkdir( pFile.getParentFile() );
+        FileUtil.updateFileContents( pFile, pContent );
+        assertTrue( pFile.setLastModified( pLastModified ) );
+    }
+}
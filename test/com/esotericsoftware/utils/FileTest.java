@@ -61,6 +61,64 @@ public class FileTest
         }
     }
 
+    @Test
+    public void writeAtomically()
+            throws IOException
+    {
+        File zDir = File.createTempFile( "FileTest", "" );
+        FileUtil.delete( zDir );
+        File zFile = new File( zDir, "sub/state.bin" );
+        try
+        {
+            FileUtil.writeAtomically( zFile, true, content( "first" ) );
+            assertEquals( "first", new DataInputStream( new ByteArrayInputStream( bytes( zFile ) ) ).readUTF() );
+            FileUtil.writeAtomically( zFile, true, content( "second" ) );
+            assertEquals( "second", new DataInputStream( new ByteArrayInputStream( bytes( zFile ) ) ).readUTF() );
+            try
+            {
+                FileUtil.writeAtomically( zFile, true, content( null ) );
+                fail( "Write failure ignored" );
+            }
+            catch ( WrappedIOException expected )
+            {
+                // Expected
+            }
+            assertEquals( "second", new DataInputStream( new ByteArrayInputStream( bytes( zFile ) ) ).readUTF() );
+            assertArrayEquals( "No temporary files left", new String[]{"state.bin"}, zFile.getParentFile().list() );
+        }
+        finally
+        {
+            FileUtil.delete( zDir );
+        }
+    }
+
+    /**
+     * @param pUTF null to fail part way.
+     */
+    private static FileUtil.ContentWriter content( final String pUTF )
+    {
+        return new FileUtil.ContentWriter()
+        {
+            @Override
+            public void write( DataOutputStream pOut )
+                    throws IOException
+            {
+                pOut.writeUTF( (pUTF != null) ? pUTF : "partial" );
+                if ( pUTF == null )
+                {
+                    throw new IOException( "Disk full" );
+                }
+            }
+        };
+    }
+
+    private static byte[] bytes( File pFile )
+    {
+        ByteArrayOutputStream zOut = new ByteArrayOutputStream();
+        FileUtil.copyStreamAndCloseEm( FileUtil.createFileInputStream( pFile ), zOut );
+        return zOut.toByteArray();
+    }
+
     private void assertAbsolute( String pPath )
     {
         assertTrue( "!Absolute?: " + pPath, new File( pPath ).isAbsolute() );
@@ -0,0 +1,203 @@
+package com.esotericsoftware.utils;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class LZMATest
+{
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    @BeforeClass
+    public static void useThreads()
+    {
+        try
+        {
+            Parallel.setThreads( 4 ); // So chunks are in flight concurrently
+        }
+        catch ( IllegalStateException ignore )
+        {
+            // Pool already started (by another test)
+        }
+    }
+
+    @Test
+    public void roundTrips()
+            throws IOException
+    {
+        for ( int zSize : new int[]{0, 1, 100000} )
+        {
+            byte[] zData = data( zSize );
+            assertArrayEquals( "size " + zSize, zData, decode( encode( zData, zSize ) ) );
+            assertArrayEquals( "size " + zSize + " (unknown)", zData, decode( encode( zData, -1 ) ) );
+        }
+    }
+
+    @Test
+    public void standardHeader()
+            throws IOException
+    {
+        byte[] zData = data( 5000 );
+        byte[] zEncoded = encode( zData, zData.length );
+        assertEquals( 0x5D, zEncoded[0] & 0xFF ); // lc=3, lp=0, pb=2
+        assertEquals( LZMA.effectiveDictionarySize( zData.length, LZMA.DEFAULT_DICTIONARY_SIZE ), littleEndian( zEncoded, 1, 4 ) );
+        assertEquals( zData.length, littleEndian( zEncoded, 5, 8 ) );
+        assertTrue( zEncoded.length < (zData.length / 2) );
+
+        assertEquals( -1, littleEndian( encode( zData, -1 ), 5, 8 ) );
+    }
+
+    @Test
+    public void effectiveDictionarySize()
+    {
+        assertEquals( LZMA.DEFAULT_DICTIONARY_SIZE, LZMA.effectiveDictionarySize( -1, LZMA.DEFAULT_DICTIONARY_SIZE ) );
+        assertEquals( LZMA.DEFAULT_DICTIONARY_SIZE, LZMA.effectiveDictionarySize( 1L << 30, LZMA.DEFAULT_DICTIONARY_SIZE ) );
+        assertEquals( 1 << 17, LZMA.effectiveDictionarySize( 100000, LZMA.DEFAULT_DICTIONARY_SIZE ) );
+        assertEquals( 1 << 17, LZMA.effectiveDictionarySize( 1 << 17, LZMA.DEFAULT_DICTIONARY_SIZE ) );
+        assertEquals( LZMA.MIN_DICTIONARY_SIZE, LZMA.effectiveDictionarySize( 0, LZMA.DEFAULT_DICTIONARY_SIZE ) );
+    }
+
+    @Test
+    public void chunkedRoundTrips()
+            throws IOException
+    {
+        for ( int zSize : new int[]{0, 1, CHUNK_SIZE, (5 * CHUNK_SIZE) + 12345} )
+        {
+            byte[] zData = data( zSize );
+            byte[] zEncoded = encodeChunked( zData );
+            assertArrayEquals( Arrays.copyOf( zEncoded, LZMA.CHUNKED_MAGIC.length ), LZMA.CHUNKED_MAGIC );
+            assertEquals( "chunks, size " + zSize, (zSize + CHUNK_SIZE - 1) / CHUNK_SIZE, chunks( zEncoded ) );
+
+            ByteArrayOutputStream zOut = new ByteArrayOutputStream();
+            LZMA.decodeChunked( new ByteArrayInputStream( zEncoded ), zOut );
+            assertArrayEquals( "size " + zSize, zData, zOut.toByteArray() );
+        }
+    }
+
+    @Test
+    public void chunkedNotDecodedAsStandardOrTruncated()
+            throws IOException
+    {
+        byte[] zEncoded = encodeChunked( data( 3 * CHUNK_SIZE ) );
+        try
+        {
+            LZMA.decodeChunked( new ByteArrayInputStream( encode( data( 100 ), 100 ) ), new ByteArrayOutputStream() );
+            fail( "Standard stream decoded as chunked" );
+        }
+        catch ( IOException expected )
+        {
+            assertEquals( "Not a chunked LZMA stream", expected.getMessage() );
+        }
+        try
+        {
+            LZMA.decodeChunked( new ByteArrayInputStream( Arrays.copyOf( zEncoded, zEncoded.length - 100 ) ), new ByteArrayOutputStream() );
+            fail( "Truncated stream decoded" );
+        }
+        catch ( EOFException expected )
+        {
+            // Good
+        }
+    }
+
+    @Test
+    public void isChunked()
+            throws IOException
+    {
+        File zFile = File.createTempFile( "LZMATest", ".lzma" );
+        try
+        {
+            write( zFile, encodeChunked( data( 10 ) ) );
+            assertTrue( LZMA.isChunked( zFile ) );
+            write( zFile, encode( data( 10 ), 10 ) );
+            assertFalse( LZMA.isChunked( zFile ) );
+            write( zFile, new byte[]{'S', 'c', 'a', 'r'} );
+            assertFalse( "Too short", LZMA.isChunked( zFile ) );
+        }
+        finally
+        {
+            FileUtil.delete( zFile );
+        }
+    }
+
+    private static byte[] encode( byte[] pData, long pSize )
+            throws IOException
+    {
+        ByteArrayOutputStream zOut = new ByteArrayOutputStream();
+        LZMA.encode( new ByteArrayInputStream( pData ), zOut, pSize, LZMA.DEFAULT_DICTIONARY_SIZE );
+        return zOut.toByteArray();
+    }
+
+    private static byte[] decode( byte[] pEncoded )
+            throws IOException
+    {
+        ByteArrayOutputStream zOut = new ByteArrayOutputStream();
+        LZMA.decode( new ByteArrayInputStream( pEncoded ), zOut );
+        return zOut.toByteArray();
+    }
+
+    private static byte[] encodeChunked( byte[] pData )
+            throws IOException
+    {
+        ByteArrayOutputStream zOut = new ByteArrayOutputStream();
+        LZMA.encodeChunked( new ByteArrayInputStream( pData ), zOut, LZMA.DEFAULT_DICTIONARY_SIZE, CHUNK_SIZE );
+        return zOut.toByteArray();
+    }
+
+    private static int chunks( byte[] pEncoded )
+            throws IOException
+    {
+        DataInputStream zIn = new DataInputStream( new ByteArrayInputStream( pEncoded ) );
+        zIn.skipBytes( LZMA.CHUNKED_MAGIC.length );
+        int zChunks = 0;
+        for ( int zLength; (zLength = zIn.readInt()) != 0; zChunks++ )
+        {
+            assertTrue( zLength <= CHUNK_SIZE );
+            zIn.skipBytes( zIn.readInt() );
+        }
+        assertEquals( "Nothing after the end", -1, zIn.read() );
+        return zChunks;
+    }
+
+    private static long littleEndian( byte[] pBytes, int pOffset, int pLength )
+    {
+        long zValue = 0;
+        for ( int i = 0; i < pLength; i++ )
+        {
+            zValue |= ((long) (pBytes[pOffset + i] & 0xFF)) << (8 * i);
+        }
+        return zValue;
+    }
+
+    private static void write( File pFile, byte[] pContent )
+            throws IOException
+    {
+        OutputStream zOut = new FileOutputStream( pFile );
+        try
+        {
+            zOut.write( pContent );
+        }
+        finally
+        {
+            zOut.close();
+        }
+    }
+
+    /**
+     * Compressible, but not trivially: random words.
+     */
+    private static byte[] data( int pSize )
+    {
+        String[] zWords = {"scar ", "project ", "build ", "jar ", "war ", "gwt ", "dist\n", "classpath ", "0123 ", "lzma "};
+        Random zRandom = new Random( pSize );
+        StringBuilder sb = new StringBuilder( pSize + 16 );
+        while ( sb.length() < pSize )
+        {
+            sb.append( zWords[zRandom.nextInt( zWords.length )] );
+        }
+        sb.setLength( pSize );
+        return sb.toString().getBytes();
+    }
+}
@@ -0,0 +1,43 @@
+package com.esotericsoftware.utils;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class MinifierTest
+{
+    @Test
+    public void jsStripsCommentsAndWhitespace()
+    {
+        assertEquals( "var a=1;function f(x)\n{return x+a;}", Minifier.js( "// header\nvar a = 1;\n/* block\n comment */\nfunction f( x )\n{\n    return x + a;\n}\n" ) );
+    }
+
+    @Test
+    public void jsKeepsLiterals()
+    {
+        assertEquals( "var s=\"a  // b\",t='/* c */',r=/ +\\/[/]/g;", Minifier.js( "var s = \"a  // b\", t = '/* c */', r = / +\\/[/]/g;" ) );
+        assertEquals( "var u=`x  ${y}`;", Minifier.js( "var u = `x  ${y}`;" ) );
+    }
+
+    @Test
+    public void jsKeepsNeededSeparators()
+    {
+        assertEquals( "a=b+ ++c", Minifier.js( "a = b + ++c" ) );
+        assertEquals( "return\nx", Minifier.js( "return\nx" ) ); // Automatic semicolon insertion
+        assertEquals( "i++\nj", Minifier.js( "i++\n\n  j" ) );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void jsUnterminatedString()
+    {
+        Minifier.js( "var s = 'abc" );
+    }
+
+    @Test
+    public void css()
+    {
+        assertEquals( "a .b>c,d{color:red;margin:0 auto}@media screen and (max-width:10px){p{content:\"  x  \"}}",
+                      Minifier.css( "/* c */\na .b>c ,\nd {\n  color:red ;\n  margin:0  auto;\n}\n" +
+                                    "@media screen and (max-width:10px) { p { content:\"  x  \"; } }\n" ) );
+    }
+}
@@ -0,0 +1,87 @@
+package com.esotericsoftware.utils;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class ParallelGZIPTest
+{
+    @BeforeClass
+    public static void useBlocks()
+    {
+        try
+        {
+            Parallel.setThreads( 4 ); // Single threaded is just a GZIPOutputStream
+        }
+        catch ( IllegalStateException ignore )
+        {
+            // Pool already started (by another test)
+        }
+    }
+
+    @Test
+    public void roundTrips()
+            throws IOException
+    {
+        for ( int zSize : new int[]{0, 1, ParallelGZIP.BLOCK_SIZE, (5 * ParallelGZIP.BLOCK_SIZE) + 12345} )
+        {
+            byte[] zData = data( zSize );
+            byte[] zCompressed = compress( zData, Deflater.DEFAULT_COMPRESSION );
+
+            assertArrayEquals( "GZIPInputStream, size " + zSize, zData, readAll( new GZIPInputStream( new ByteArrayInputStream( zCompressed ) ) ) );
+
+            ByteArrayOutputStream zOut = new ByteArrayOutputStream();
+            ParallelGZIP.decompress( new ByteArrayInputStream( zCompressed ), zOut );
+            assertArrayEquals( "decompress, size " + zSize, zData, zOut.toByteArray() );
+        }
+    }
+
+    @Test
+    public void dictionaryPrimingKeepsTheRatio()
+            throws IOException
+    {
+        byte[] zData = data( 8 * ParallelGZIP.BLOCK_SIZE );
+        ByteArrayOutputStream zSingle = new ByteArrayOutputStream();
+        GZIPOutputStream zGZIP = new GZIPOutputStream( zSingle );
+        zGZIP.write( zData );
+        zGZIP.close();
+
+        assertTrue( compress( zData, Deflater.DEFAULT_COMPRESSION ).length < (zSingle.size() * 1.02) );
+    }
+
+    private static byte[] compress( byte[] pData, int pLevel )
+            throws IOException
+    {
+        ByteArrayOutputStream zOut = new ByteArrayOutputStream();
+        ParallelGZIP.compress( new ByteArrayInputStream( pData ), zOut, pLevel );
+        return zOut.toByteArray();
+    }
+
+    private static byte[] readAll( InputStream pIn )
+            throws IOException
+    {
+        ByteArrayOutputStream zOut = new ByteArrayOutputStream();
+        FileUtil.append( pIn, zOut );
+        return zOut.toByteArray();
+    }
+
+    /**
+     * Compressible, but not trivially: random words.
+     */
+    private static byte[] data( int pSize )
+    {
+        String[] zWords = {"scar ", "project ", "build ", "jar ", "war ", "gwt ", "dist\n", "classpath ", "0123 ", "lib/ "};
+        Random zRandom = new Random( pSize );
+        StringBuilder sb = new StringBuilder( pSize + 16 );
+        while ( sb.length() < pSize )
+        {
+            sb.append( zWords[zRandom.nextInt( zWords.length )] );
+        }
+        sb.setLength( pSize );
+        return sb.toString().getBytes();
+    }
+}
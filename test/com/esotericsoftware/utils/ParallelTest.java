@@ -0,0 +1,61 @@
+package com.esotericsoftware.utils;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class ParallelTest
+{
+    @Test
+    public void waitingTasksRunHighestPriorityFirst()
+            throws Exception
+    {
+        final int zThreads = Parallel.getThreads();
+        final CountDownLatch zAllBusy = new CountDownLatch( zThreads );
+        final Semaphore zRelease = new Semaphore( 0 );
+        List<FutureTask<Void>> zBlockers = new ArrayList<FutureTask<Void>>();
+        for ( int i = 0; i < zThreads; i++ ) // Occupy the pool, so the rest wait
+        {
+            zBlockers.add( Parallel.start( new FutureTask<Void>( new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                        throws Exception
+                {
+                    zAllBusy.countDown();
+                    zRelease.acquire();
+                    return null;
+                }
+            } ) ) );
+        }
+        assertTrue( zAllBusy.await( 10, TimeUnit.SECONDS ) );
+
+        final List<Integer> zOrder = Collections.synchronizedList( new ArrayList<Integer>() );
+        List<FutureTask<Void>> zTasks = new ArrayList<FutureTask<Void>>();
+        for ( final int zPriority : new int[]{1, 3, 0, 2, 3} )
+        {
+            zTasks.add( Parallel.start( new FutureTask<Void>( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    zOrder.add( zPriority );
+                }
+            }, null ), zPriority ) );
+        }
+        zRelease.release(); // Free one thread, so they run one at a time
+        for ( FutureTask<Void> zTask : zTasks )
+        {
+            zTask.get( 10, TimeUnit.SECONDS ); // Not awaitAll(), which would run them on this thread
+        }
+        zRelease.release( zThreads - 1 );
+        for ( FutureTask<Void> zBlocker : zBlockers )
+        {
+            zBlocker.get( 10, TimeUnit.SECONDS );
+        }
+        assertEquals( Arrays.asList( 3, 3, 2, 1, 0 ), zOrder );
+    }
+}
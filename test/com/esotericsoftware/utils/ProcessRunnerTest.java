@@ -0,0 +1,97 @@
+package com.esotericsoftware.utils;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class ProcessRunnerTest
+{
+    /**
+     * The process run by the tests: two lines on stdout, the last one not '\n' terminated, and one on stderr (with any argument, only
+     * after a second).
+     */
+    public static void main( String[] args )
+            throws InterruptedException
+    {
+        if ( args.length != 0 )
+        {
+            Thread.sleep( 1000 );
+        }
+        System.err.println( "err" );
+        System.err.flush();
+        System.out.print( "one\ntwo" );
+        System.out.flush();
+    }
+
+    private ProcessRunner create()
+    {
+        return new ProcessRunner( command() ).echo( false );
+    }
+
+    private static List<String> command( String... pArgs )
+    {
+        List<String> zCommand = new ArrayList<String>( Arrays.asList( new File( System.getProperty( "java.home" ), "bin/java" ).getPath(), //
+                                                                      "-cp", System.getProperty( "java.class.path" ),
+                                                                      ProcessRunnerTest.class.getName() ) );
+        zCommand.addAll( Arrays.asList( pArgs ) );
+        return zCommand;
+    }
+
+    @Test
+    public void waitFor()
+            throws Exception
+    {
+        ProcessRunner zRunner = create().start();
+        assertEquals( 0, zRunner.waitFor() );
+        assertEquals( new HashSet<String>( Arrays.asList( "err", "one", "two" ) ), new HashSet<String>( zRunner.getCapturedLines() ) );
+    }
+
+    @Test
+    public void pumpLetsGoOfExitedProcesses()
+            throws Exception
+    {
+        ProcessRunner zRunner = create().start();
+        long zGiveUp = System.currentTimeMillis() + 30000;
+        while ( (zRunner.getCapturedLines().size() < 3) && (System.currentTimeMillis() < zGiveUp) )
+        {
+            Thread.sleep( 10 );
+        }
+        // The partial last line is only flushed when the stream is let go of, so the pump did that without a waitFor()
+        assertEquals( new HashSet<String>( Arrays.asList( "err", "one", "two" ) ), new HashSet<String>( zRunner.getCapturedLines() ) );
+        assertEquals( 0, zRunner.waitFor() ); // Nothing left to drain (the streams are closed)
+        assertEquals( 3, zRunner.getCapturedLines().size() );
+    }
+
+    @Test
+    public void outputWrittenJustBeforeExitingNotLost()
+            throws Exception
+    {
+        ProcessRunner zRunner = new ProcessRunner( command( "late" ) )
+        {
+            /**
+             * Only returns once exited: as if the process wrote its output & exited right after the pump found nothing available.
+             */
+            @Override
+            public boolean isRunning()
+            {
+                while ( super.isRunning() )
+                {
+                    try
+                    {
+                        Thread.sleep( 10 );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        throw new RuntimeException( e );
+                    }
+                }
+                return false;
+            }
+        }.echo( false ).start();
+        assertEquals( 0, zRunner.waitFor() );
+        assertEquals( new HashSet<String>( Arrays.asList( "err", "one", "two" ) ), new HashSet<String>( zRunner.getCapturedLines() ) );
+    }
+}
@@ -0,0 +1,102 @@
+package com.esotericsoftware.utils;
+
+import java.util.*;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class ResourceSchedulerTest
+{
+    @Test
+    public void parseMemoryMB()
+    {
+        assertEquals( 1024, ResourceScheduler.parseMemoryMB( "1024m" ) );
+        assertEquals( 2048, ResourceScheduler.parseMemoryMB( "2G" ) );
+        assertEquals( 1, ResourceScheduler.parseMemoryMB( "512k" ) );
+        assertEquals( 1, ResourceScheduler.parseMemoryMB( "1048576" ) );
+        assertEquals( 1024 * 1024, ResourceScheduler.parseMemoryMB( "1t" ) );
+        try
+        {
+            ResourceScheduler.parseMemoryMB( "lots" );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+            // Good
+        }
+    }
+
+    @Test
+    public void parseCpus()
+    {
+        assertEquals( 4, ResourceScheduler.parseCpus( "4" ) );
+        for ( String zCpus : new String[]{"four", "2.5", "0", "-1"} )
+        {
+            try
+            {
+                ResourceScheduler.parseCpus( zCpus );
+                fail( zCpus );
+            }
+            catch ( IllegalArgumentException expected )
+            {
+                assertTrue( expected.getMessage(), expected.getMessage().startsWith( "Not a CPU count" ) );
+            }
+        }
+    }
+
+    @Test
+    public void admitsWithinTheBudgetsInOrder()
+            throws Exception
+    {
+        final ResourceScheduler zScheduler = new ResourceScheduler( 3000, 4 );
+        ResourceScheduler.Lease zFirst = zScheduler.acquire( "first", 2000, 1 );
+
+        final List<String> zAdmitted = Collections.synchronizedList( new ArrayList<String>() );
+        Thread zBig = admit( zScheduler, zAdmitted, "big", 2000 );
+        waitForWaiters( zBig );
+        Thread zSmall = admit( zScheduler, zAdmitted, "small", 500 ); // Fits, but must not pass the big one
+        Thread.sleep( 100 );
+        assertTrue( zAdmitted.isEmpty() );
+
+        zFirst.release();
+        zBig.join( 5000 );
+        zSmall.join( 5000 );
+        assertEquals( Arrays.asList( "big", "small" ), zAdmitted );
+    }
+
+    @Test
+    public void overBudgetRunsAlone()
+    {
+        ResourceScheduler zScheduler = new ResourceScheduler( 1000, 1 );
+        ResourceScheduler.Lease zLease = zScheduler.acquire( "huge", 5000, 2 );
+        zLease.release();
+        zLease.release(); // Only the first counts
+        zScheduler.acquire( "next", 1000, 1 ).release();
+    }
+
+    private static Thread admit( final ResourceScheduler pScheduler, final List<String> pAdmitted, final String pWhat, final long pMemoryMB )
+    {
+        Thread zThread = new Thread( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                ResourceScheduler.Lease zLease = pScheduler.acquire( pWhat, pMemoryMB, 1 );
+                pAdmitted.add( pWhat );
+                zLease.release();
+            }
+        } );
+        zThread.start();
+        return zThread;
+    }
+
+    private static void waitForWaiters( Thread pThread )
+            throws InterruptedException
+    {
+        for ( int i = 0; (i < 500) && (pThread.getState() != Thread.State.WAITING); i++ )
+        {
+            Thread.sleep( 10 );
+        }
+    }
+}